@@ -25,10 +25,20 @@ android {
             )
         }
     }
+    buildFeatures {
+        // BuildConfig.DEBUG picks the default page log level
+        buildConfig = true
+    }
     compileOptions {
         sourceCompatibility = JavaVersion.VERSION_11
         targetCompatibility = JavaVersion.VERSION_11
     }
+    testOptions {
+        unitTests.all {
+            // Small enough that LegacySoundsMigrationTest fails if its 100 MB library is ever held whole
+            it.maxHeapSize = "64m"
+        }
+    }
 }
 
 dependencies {
@@ -38,6 +48,8 @@ dependencies {
     implementation(libs.activity)
     implementation(libs.constraintlayout)
     testImplementation(libs.junit)
+    // The android.jar stubs of org.json throw in JVM tests; use the real implementation
+    testImplementation(libs.json)
     androidTestImplementation(libs.ext.junit)
     androidTestImplementation(libs.espresso.core)
 }
\ No newline at end of file
@@ -0,0 +1,5379 @@
+    // Global audio control variables
+    var currentAudio = null;
+    var audioTimeout = null;
+    var currentSoundTarget = null;
+    var currentEditLogId = null; // Journal event id of the entry in the edit modal
+    var expandedMusicSections = {}; // Track which player music sections are expanded
+    var isAppInitialized = false; // Prevent re-initialization on Bluetooth events
+
+    var gameState = {
+        isGameStarted: false,
+        hasGameBeenStarted: false,
+        yellowScore: 0,
+        blueScore: 0,
+        yellowPlayers: [],
+        bluePlayers: [],
+        yellowPlayerSlots: {}, // Map player name to original slot number
+        bluePlayerSlots: {}, // Map player name to original slot number
+        yellowPlayerCount: 7,
+        bluePlayerCount: 7,
+        yellowTeamName: '',
+        blueTeamName: '',
+        actionLog: [],
+        currentGoal: null,
+        sounds: [],
+        soundAssignments: {},
+        playerAssignments: {},
+        playerStats: {},
+        totalGoalsScored: 0,
+        hasThreeGoalLead: false,
+        hasFiveGoalLead: false,
+        customSoundNames: {
+            1: 'Yellow Card',
+            2: 'Red Card',
+            3: 'Penalty',
+            4: 'Corner',
+            5: 'Free Kick',
+            6: 'Offside',
+            7: 'Foul',
+            8: 'Celebration'
+        }
+    };
+
+
+    // Page log: entries below the native level are dropped before anything else
+    // happens (release builds default to warnings only), the rest are buffered and
+    // sent over the bridge in batches. Pass a function instead of a string when
+    // building the message is expensive - it only runs if the entry is kept.
+    var LOG_LEVELS = { debug: 0, info: 1, warn: 2, error: 3 };
+    var LOG_BATCH_SIZE = 50;
+    var LOG_FLUSH_MS = 2000;
+    var logState = {
+        level: LOG_LEVELS.debug,
+        buffer: [],
+        timer: null
+    };
+
+    (function initLogLevel() {
+        if (window.AndroidInterface && window.AndroidInterface.getLogLevel) {
+            try {
+                var name = window.AndroidInterface.getLogLevel();
+                if (LOG_LEVELS.hasOwnProperty(name)) {
+                    logState.level = LOG_LEVELS[name];
+                }
+            } catch (e) {
+                console.error('Cannot read log level:', e);
+            }
+        }
+    })();
+
+    function logAt(level, message) {
+        if (level < logState.level) return;
+        if (typeof message === 'function') {
+            message = message();
+        }
+
+        if (!window.AndroidInterface || !window.AndroidInterface.logBatch) {
+            console.log('[FootballTracker] ' + message);
+            return;
+        }
+
+        logState.buffer.push({ t: Date.now(), l: level, m: String(message) });
+        if (level >= LOG_LEVELS.error || logState.buffer.length >= LOG_BATCH_SIZE) {
+            flushLog();
+        } else if (!logState.timer) {
+            logState.timer = setTimeout(flushLog, LOG_FLUSH_MS);
+        }
+    }
+
+    function flushLog() {
+        if (logState.timer) {
+            clearTimeout(logState.timer);
+            logState.timer = null;
+        }
+        if (logState.buffer.length === 0) return;
+
+        var batch = logState.buffer;
+        logState.buffer = [];
+        try {
+            window.AndroidInterface.logBatch(JSON.stringify(batch));
+        } catch (e) {
+            console.error('Error sending log batch:', e);
+        }
+    }
+
+    function debugLog(message) {
+        logAt(LOG_LEVELS.debug, message);
+    }
+
+    function logWarn(message) {
+        logAt(LOG_LEVELS.warn, message);
+    }
+
+    function logError(message) {
+        logAt(LOG_LEVELS.error, message);
+    }
+
+    // Don't lose the tail of the log when the app goes to the background
+    document.addEventListener('visibilitychange', function() {
+        if (document.visibilityState === 'hidden') {
+            flushLog();
+        }
+    });
+
+    window.addEventListener('error', function(event) {
+        logError('Uncaught: ' + event.message + ' at ' + event.filename + ':' + event.lineno);
+    });
+
+    // Help Modal Functions
+    function openHelpModal() {
+        debugLog('Opening help modal');
+        var modal = document.getElementById('helpModal');
+        if (modal) {
+            modal.style.display = 'block';
+            // Prevent background scrolling
+            document.body.style.overflow = 'hidden';
+        }
+    }
+
+    function closeHelpModal() {
+        debugLog('Closing help modal');
+        var modal = document.getElementById('helpModal');
+        if (modal) {
+            modal.style.display = 'none';
+            // Re-enable background scrolling
+            document.body.style.overflow = 'auto';
+        }
+    }
+
+    // Close modal when clicking outside of it
+    window.onclick = function(event) {
+        var modal = document.getElementById('helpModal');
+        if (event.target === modal) {
+            closeHelpModal();
+        }
+    }
+
+    // Function to update Edit Names button visibility based on game state
+    function updateEditNamesButtonVisibility() {
+        var editNamesBtn = document.querySelector('.edit-names-btn');
+        if (editNamesBtn) {
+            if (gameState.isGameStarted) {
+                editNamesBtn.style.display = 'none';
+            } else {
+                editNamesBtn.style.display = 'inline-block';
+            }
+        }
+    }
+
+    function switchMode(mode) {
+        debugLog('Switching to mode: ' + mode);
+
+        var tabContents = document.querySelectorAll('.tab-content');
+        for (var i = 0; i < tabContents.length; i++) {
+            tabContents[i].classList.remove('active');
+        }
+
+        var modeButtons = document.querySelectorAll('.mode-btn');
+        for (var i = 0; i < modeButtons.length; i++) {
+            modeButtons[i].classList.remove('active');
+        }
+
+        var selectedTab = document.getElementById(mode + '-mode');
+        if (selectedTab) {
+            selectedTab.classList.add('active');
+        }
+
+        var buttons = document.querySelectorAll('.mode-btn');
+        if (mode === 'game') {
+            buttons[0].classList.add('active');
+            updateCustomSoundButtons();
+        } else if (mode === 'setup') {
+            buttons[1].classList.add('active');
+            // Update all sound assignment buttons
+            updateAllSoundAssignmentButtons();
+            // Refresh player dropdowns with latest player list
+            refreshPlayerDropdowns();
+        } else if (mode === 'players') {
+            buttons[2].classList.add('active');
+            displayPlayerProfiles();
+        } else if (mode === 'announcer') {
+              buttons[3].classList.add('active');
+              updateAnnouncerButtons();
+        } else if (mode === 'custom-sounds') {
+              buttons[4].classList.add('active');
+              updateCustomSoundsButtons();
+        }
+        
+        // Instantly position at top - no scrolling motion
+        document.documentElement.style.scrollBehavior = 'auto';
+        document.body.style.scrollBehavior = 'auto';
+        
+        // Force immediate positioning at top
+        setTimeout(function() {
+            document.documentElement.scrollTop = 0;
+            document.body.scrollTop = 0;
+            window.pageYOffset = 0;
+        }, 0);
+    }
+
+    // Test assigned sound function
+    function testAssignedSound(assignment) {
+        // Stop any currently playing audio first
+        stopCurrentAudio();
+        
+        var soundId = gameState.soundAssignments[assignment];
+        if (soundId) {
+            var sound = findSoundById(soundId);
+            if (sound) {
+                playSound(sound, 'Testing: ' + assignment);
+            } else {
+                debugLog('Sound not found for assignment: ' + assignment);
+            }
+        } else {
+            debugLog('No sound assigned to: ' + assignment);
+        }
+    }
+
+    function updateAllSoundAssignmentButtons() {
+        // Update team buttons
+        updateSoundAssignmentButton('yellow-team');
+        updateSoundAssignmentButton('blue-team');
+
+        // Update own goal buttons
+        updateSoundAssignmentButton('yellow-own-goal');
+        updateSoundAssignmentButton('blue-own-goal');
+
+        // Update all player buttons
+        for (var i = 1; i <= gameState.yellowPlayerCount; i++) {
+            updateSoundAssignmentButton('yellow-player-' + i);
+        }
+        for (var i = 1; i <= gameState.bluePlayerCount; i++) {
+            updateSoundAssignmentButton('blue-player-' + i);
+        }
+
+        // Update custom sound buttons
+        for (var i = 1; i <= 8; i++) {
+            updateSoundAssignmentButton('custom-sound-' + i);
+        } updateAnnouncerButtons();
+    }
+
+    function initializePlayerSlots() {
+        debugLog('Initializing player dropdowns');
+
+        // Initialize Yellow team dropdowns (default 7 players)
+        var yellowContainer = document.getElementById('yellow-players');
+        yellowContainer.innerHTML = '';
+        for (var i = 1; i <= 7; i++) {
+            addPlayerDropdownElement('yellow', i);
+        }
+
+        // Initialize Blue team dropdowns (default 7 players)
+        var blueContainer = document.getElementById('blue-players');
+        blueContainer.innerHTML = '';
+        for (var i = 1; i <= 7; i++) {
+            addPlayerDropdownElement('blue', i);
+        }
+
+        gameState.yellowPlayerCount = 7;
+        gameState.bluePlayerCount = 7;
+
+        // Update team and own goal sound buttons
+        updateSoundAssignmentButton('yellow-team');
+        updateSoundAssignmentButton('blue-team');
+        updateSoundAssignmentButton('yellow-own-goal');
+        updateSoundAssignmentButton('blue-own-goal');
+    }
+
+    // Close modal when clicking outside
+    window.onclick = function(event) {
+        var assistModal = document.getElementById('assist-modal');
+        var ownGoalModal = document.getElementById('own-goal-modal');
+        var editLogModal = document.getElementById('edit-log-modal');
+        var resetModal = document.getElementById('reset-modal');
+        var deleteEntryModal = document.getElementById('delete-entry-modal');
+        var playerAssignmentModal = document.getElementById('player-assignment-modal');
+
+        if (event.target === assistModal) {
+            cancelGoal();
+        } else if (event.target === ownGoalModal) {
+            cancelOwnGoal();
+        } else if (event.target === editLogModal) {
+            closeEditLog();
+        } else if (event.target === resetModal) {
+            cancelReset();
+        } else if (event.target === deleteEntryModal) {
+            cancelDeleteEntry();
+        } else if (event.target === playerAssignmentModal) {
+            closePlayerAssignmentModal();
+        }
+    }
+
+    function generateMatchReport() {
+        var timestamp = new Date();
+        var report = '⚽ FOOTBALL MATCH REPORT\n';
+        report += '==================================================\n\n';
+        report += 'Date: ' + timestamp.toLocaleDateString() + '\n';
+        report += 'Time: ' + timestamp.toLocaleTimeString() + '\n\n';
+
+        report += 'FINAL SCORE\n';
+        report += '--------------------\n';
+        report += '🟡 ' + gameState.yellowTeamName + ': ' + gameState.yellowScore + '\n';
+        report += '🔵 ' + gameState.blueTeamName + ': ' + gameState.blueScore + '\n\n';
+
+        report += 'TEAM ROSTERS\n';
+        report += '--------------------\n';
+        var yellowPlayers = [];
+        for (var i = 0; i < gameState.yellowPlayers.length; i++) {
+            if (gameState.yellowPlayers[i] !== 'OWN GOAL') {
+                yellowPlayers.push(gameState.yellowPlayers[i]);
+            }
+        }
+        var bluePlayers = [];
+        for (var i = 0; i < gameState.bluePlayers.length; i++) {
+            if (gameState.bluePlayers[i] !== 'OWN GOAL') {
+                bluePlayers.push(gameState.bluePlayers[i]);
+            }
+        }
+        report += '🟡 ' + gameState.yellowTeamName + ' (' + yellowPlayers.length + ' players): ' + yellowPlayers.join(', ') + '\n';
+        report += '🔵 ' + gameState.blueTeamName + ' (' + bluePlayers.length + ' players): ' + bluePlayers.join(', ') + '\n\n';
+
+        var allPlayerStats = getAllPlayerStats();
+        if (allPlayerStats.length > 0) {
+            report += 'PLAYER STATISTICS\n';
+            report += '--------------------\n';
+            for (var i = 0; i < allPlayerStats.length; i++) {
+                var player = allPlayerStats[i];
+                var teamName = player.team === 'yellow' ? gameState.yellowTeamName : gameState.blueTeamName;
+                var teamEmoji = player.team === 'yellow' ? '🟡' : '🔵';
+
+                var statsText = '';
+                if (player.goals > 0 && player.assists > 0) {
+                    statsText = player.goals + ' goal' + (player.goals !== 1 ? 's' : '') + ', ' + player.assists + ' assist' + (player.assists !== 1 ? 's' : '');
+                } else if (player.goals > 0) {
+                    statsText = player.goals + ' goal' + (player.goals !== 1 ? 's' : '');
+                } else if (player.assists > 0) {
+                    statsText = player.assists + ' assist' + (player.assists !== 1 ? 's' : '');
+                }
+
+                if (statsText) {
+                    report += (i + 1) + '. ' + player.name + ' (' + teamEmoji + ' ' + teamName + ') - ' + statsText + '\n';
+                }
+            }
+            report += '\n';
+        }
+
+        report += 'MATCH EVENTS\n';
+        report += '--------------------\n';
+        var eventNum = 1;
+        for (var i = 0; i < gameState.actionLog.length; i++) {
+            var action = gameState.actionLog[i];
+            var time = action.timestamp ? action.timestamp.toLocaleTimeString() : 'Unknown time';
+            report += eventNum + '. [' + time + '] ' + action.text + '\n';
+            eventNum++;
+        }
+
+        report += '\n==================================================\n';
+        report += 'Report generated by Football Match Tracker\n';
+
+        return report;
+    }
+
+    // Functions for editing and deleting log entries
+    function editLogEntry(index) {
+        var entry = gameState.actionLog[index];
+        if (!entry || (entry.type !== 'goal' && entry.type !== 'own-goal')) return;
+
+        currentEditLogId = entry.id;
+
+        // Populate scorer dropdown
+        var scorerSelect = document.getElementById('edit-goal-scorer');
+        scorerSelect.innerHTML = '';
+
+        var teamPlayers = entry.team === 'yellow' ? gameState.yellowPlayers : gameState.bluePlayers;
+        for (var i = 0; i < teamPlayers.length; i++) {
+            var option = document.createElement('option');
+            option.value = teamPlayers[i];
+            option.textContent = teamPlayers[i];
+            if (teamPlayers[i] === entry.player) {
+                option.selected = true;
+            }
+            scorerSelect.appendChild(option);
+        }
+
+        // Function to update assistant dropdown based on selected scorer
+        function updateAssistDropdown() {
+            var selectedScorer = scorerSelect.value;
+            var assistSelect = document.getElementById('edit-assistant');
+            var currentAssist = assistSelect.value;
+            
+            // If OWN GOAL is selected, disable assist dropdown
+            if (selectedScorer === 'OWN GOAL') {
+                assistSelect.innerHTML = '<option value="">No Assist (Own goals cannot have assists)</option>';
+                assistSelect.disabled = true;
+                assistSelect.style.backgroundColor = '#1a1a2e';
+                assistSelect.style.color = '#666';
+                return;
+            }
+            
+            // Re-enable dropdown for regular players
+            assistSelect.disabled = false;
+            assistSelect.style.backgroundColor = '';
+            assistSelect.style.color = '';
+            
+            assistSelect.innerHTML = '<option value="">No Assist</option>';
+
+            for (var i = 0; i < teamPlayers.length; i++) {
+                if (teamPlayers[i] !== 'OWN GOAL' && teamPlayers[i] !== selectedScorer) {
+                    var option = document.createElement('option');
+                    option.value = teamPlayers[i];
+                    option.textContent = teamPlayers[i];
+                    if (teamPlayers[i] === currentAssist) {
+                        option.selected = true;
+                    }
+                    assistSelect.appendChild(option);
+                }
+            }
+        }
+
+        // Add event listener to scorer dropdown to update assistant options
+        scorerSelect.addEventListener('change', updateAssistDropdown);
+
+        // Initial population of assistant dropdown
+        updateAssistDropdown();
+        
+        // Set the original assist if it exists and is valid
+        if (entry.assist && entry.assist !== entry.player) {
+            document.getElementById('edit-assistant').value = entry.assist;
+        }
+
+        document.getElementById('edit-log-modal').style.display = 'block';
+    }
+
+    function saveEditedGoal() {
+        var entry = gameState.actionLog[findLogIndex(currentEditLogId)];
+        if (!entry) return;
+        var newScorer = document.getElementById('edit-goal-scorer').value;
+        var newAssist = document.getElementById('edit-assistant').value;
+
+        // Validation: prevent same player being scorer and assistant
+        if (newAssist && newScorer === newAssist) {
+            alert('⚠️ Error: A player cannot be both the scorer and the assistant for the same goal!');
+            return;
+        }
+
+        // Validation: OWN GOAL cannot have an assist
+        if (newScorer === 'OWN GOAL' && newAssist) {
+            alert('⚠️ Error: Own goals cannot have assists!');
+            return;
+        }
+
+        // Update player stats - remove old stats
+        if (entry.player !== 'OWN GOAL') {
+            var oldPlayerKey = entry.team + '-' + entry.player;
+            if (gameState.playerStats[oldPlayerKey]) {
+                gameState.playerStats[oldPlayerKey].goals = Math.max(0, gameState.playerStats[oldPlayerKey].goals - 1);
+            }
+        }
+
+        if (entry.assist) {
+            var oldAssistKey = entry.team + '-' + entry.assist;
+            if (gameState.playerStats[oldAssistKey]) {
+                gameState.playerStats[oldAssistKey].assists = Math.max(0, gameState.playerStats[oldAssistKey].assists - 1);
+            }
+        }
+
+        // Update entry
+        entry.player = newScorer;
+        entry.assist = newAssist || null;
+
+        // Update entry type and log text based on scorer
+        if (newScorer === 'OWN GOAL') {
+            // Converting to own goal
+            entry.type = 'own-goal';
+            entry.scoringTeam = entry.team; // The team that scored gets the goal
+            var logText = 'Own Goal by ' + (entry.team === 'yellow' ? gameState.yellowTeamName : gameState.blueTeamName) + ' (Goal for ' + (entry.team === 'yellow' ? gameState.yellowTeamName : gameState.blueTeamName) + ')';
+            entry.text = logText;
+        } else {
+            // Converting to regular goal
+            entry.type = 'goal';
+            if (entry.scoringTeam) {
+                delete entry.scoringTeam; // Remove own goal properties
+            }
+            var logText = 'Goal: ' + entry.player;
+            if (entry.assist) {
+                logText += ', Assist: ' + entry.assist;
+            }
+            logText += ' (' + (entry.team === 'yellow' ? gameState.yellowTeamName : gameState.blueTeamName) + ')';
+            entry.text = logText;
+        }
+
+        // Add new stats
+        updatePlayerStats(entry);
+
+        // Record the edit in the match journal
+        journalEntry('edit', entry);
+
+        // Update UI
+        updateLogEntry(entry);
+
+        closeEditLog();
+
+    }
+
+    function closeEditLog() {
+        document.getElementById('edit-log-modal').style.display = 'none';
+        currentEditLogId = null;
+    }
+
+    function deleteLogEntry(index) {
+    debugLog('Delete button clicked for index: ' + index);
+    // if (window.AndroidInterface) {
+    //     window.AndroidInterface.showToast('deleteLogEntry called with index: ' + index);
+    // }
+    var entry = gameState.actionLog[index];
+    if (!entry) {
+        debugLog('No entry found at index: ' + index);
+        // if (window.AndroidInterface) {
+        //     window.AndroidInterface.showToast('No entry found at index: ' + index);
+        // }
+        return;
+    }
+
+    // Remember the entry by id; the log may change before the modal is confirmed
+    window.pendingDeleteId = entry.id;
+    
+    // Set the entry text in the modal
+    document.getElementById('delete-entry-text').textContent = entry.text;
+    
+    // Show the custom delete confirmation modal
+    document.getElementById('delete-entry-modal').style.display = 'block';
+}
+
+// Delete modal functions
+function cancelDeleteEntry() {
+    document.getElementById('delete-entry-modal').style.display = 'none';
+    window.pendingDeleteId = null;
+    if (window.AndroidInterface) {
+        // window.AndroidInterface.showToast('Delete cancelled');
+    }
+}
+
+function confirmDeleteEntry() {
+    document.getElementById('delete-entry-modal').style.display = 'none';
+    
+    if (window.pendingDeleteId) {
+        var index = findLogIndex(window.pendingDeleteId);
+        window.pendingDeleteId = null;
+        
+        if (window.AndroidInterface) {
+            // window.AndroidInterface.showToast('Deleting entry at index: ' + index);
+        }
+        
+        // Now perform the actual deletion
+        performDeleteEntry(index);
+    }
+}
+
+// Extracted the actual deletion logic into a separate function
+function performDeleteEntry(index) {
+    var entry = gameState.actionLog[index];
+    if (!entry) {
+        if (window.AndroidInterface) {
+            // window.AndroidInterface.showToast('Entry not found for deletion');
+        }
+        return;
+    }
+
+    // Update score and stats if it was a goal
+    if (entry.type === 'goal') {
+        if (entry.team === 'yellow') {
+            gameState.yellowScore = Math.max(0, gameState.yellowScore - 1);
+            document.getElementById('yellow-score').textContent = gameState.yellowScore;
+            document.getElementById('yellow-score').classList.add('score-animation');
+            setTimeout(function() {
+                document.getElementById('yellow-score').classList.remove('score-animation');
+            }, 500);
+        } else {
+            gameState.blueScore = Math.max(0, gameState.blueScore - 1);
+            document.getElementById('blue-score').textContent = gameState.blueScore;
+            document.getElementById('blue-score').classList.add('score-animation');
+            setTimeout(function() {
+                document.getElementById('blue-score').classList.remove('score-animation');
+            }, 500);
+        }
+
+        // Update player stats
+        if (entry.player !== 'OWN GOAL') {
+            var playerKey = entry.team + '-' + entry.player;
+            if (gameState.playerStats[playerKey]) {
+                gameState.playerStats[playerKey].goals = Math.max(0, gameState.playerStats[playerKey].goals - 1);
+            }
+        }
+
+        if (entry.assist) {
+            var assistKey = entry.team + '-' + entry.assist;
+            if (gameState.playerStats[assistKey]) {
+                gameState.playerStats[assistKey].assists = Math.max(0, gameState.playerStats[assistKey].assists - 1);
+            }
+        }
+
+        // Update announcer state for regular goal
+        gameState.totalGoalsScored = Math.max(0, gameState.totalGoalsScored - 1);
+
+    } else if (entry.type === 'own-goal') {
+        if (entry.scoringTeam === 'yellow') {
+            gameState.yellowScore = Math.max(0, gameState.yellowScore - 1);
+            document.getElementById('yellow-score').textContent = gameState.yellowScore;
+            document.getElementById('yellow-score').classList.add('score-animation');
+            setTimeout(function() {
+                document.getElementById('yellow-score').classList.remove('score-animation');
+            }, 500);
+        } else {
+            gameState.blueScore = Math.max(0, gameState.blueScore - 1);
+            document.getElementById('blue-score').textContent = gameState.blueScore;
+            document.getElementById('blue-score').classList.add('score-animation');
+            setTimeout(function() {
+                document.getElementById('blue-score').classList.remove('score-animation');
+            }, 500);
+        }
+
+        // Update announcer state for own goal
+        gameState.totalGoalsScored = Math.max(0, gameState.totalGoalsScored - 1);
+    }
+
+    // Recalculate lead flags after score changes
+    var scoreDiff = Math.abs(gameState.yellowScore - gameState.blueScore);
+    if (scoreDiff < 3) {
+        gameState.hasThreeGoalLead = false;
+    }
+    if (scoreDiff < 5) {
+        gameState.hasFiveGoalLead = false;
+    }
+
+    // Remove the entry from the log array
+    gameState.actionLog.splice(index, 1);
+    journalEntry('delete', entry);
+
+    // Remove the corresponding DOM element; the others keep their nodes
+    removeLogEntry(entry);
+
+    debugLog('Entry deleted: ' + entry.text);
+    
+    if (window.AndroidInterface) {
+        // window.AndroidInterface.showToast('Entry deleted successfully');
+    }
+}
+
+// Make sure functions are globally accessible
+window.deleteLogEntry = deleteLogEntry;
+window.editLogEntry = editLogEntry;
+window.cancelDeleteEntry = cancelDeleteEntry;
+window.confirmDeleteEntry = confirmDeleteEntry;
+
+// Test function to check if delete is working
+function testDelete() {
+    // if (window.AndroidInterface) {
+    //     window.AndroidInterface.showToast('Test function called!');
+    //     if (typeof deleteLogEntry === 'function') {
+    //         window.AndroidInterface.showToast('deleteLogEntry function exists');
+    //         if (gameState.actionLog.length > 0) {
+    //             window.AndroidInterface.showToast('Found ' + gameState.actionLog.length + ' log entries. Testing delete on index 0.');
+    //             deleteLogEntry(0);
+    //         } else {
+    //             window.AndroidInterface.showToast('No log entries to delete');
+    //         }
+    //     } else {
+    //         window.AndroidInterface.showToast('deleteLogEntry function NOT found');
+    //     }
+    // }
+}
+window.testDelete = testDelete;
+
+    function toggleGame() {
+        var btn = document.getElementById('game-control-btn');
+
+        if (!gameState.isGameStarted) {
+            // Check if both teams have at least 5 players
+            var yellowPlayerCount = 0;
+            var bluePlayerCount = 0;
+            
+            for (var i = 1; i <= gameState.yellowPlayerCount; i++) {
+                var button = document.getElementById('yellow-player-' + i);
+                if (button) {
+                    var buttonText = button.textContent.trim();
+                    var isOptional = i > 5;
+                    var placeholderText = isOptional ? '#' + i + ' (Optional)' : '#' + i;
+                    
+                    // If it's not a placeholder, it's assigned
+                    if (buttonText !== placeholderText) {
+                        yellowPlayerCount++;
+                    }
+                }
+            }
+            
+            for (var i = 1; i <= gameState.bluePlayerCount; i++) {
+                var button = document.getElementById('blue-player-' + i);
+                if (button) {
+                    var buttonText = button.textContent.trim();
+                    var isOptional = i > 5;
+                    var placeholderText = isOptional ? '#' + i + ' (Optional)' : '#' + i;
+                    
+                    // If it's not a placeholder, it's assigned
+                    if (buttonText !== placeholderText) {
+                        bluePlayerCount++;
+                    }
+                }
+            }
+            
+            if (yellowPlayerCount < 5 || bluePlayerCount < 5) {
+                var message = 'Please complete the setup first! Go to Setup tab to configure teams.';
+                alert(message);
+                if (window.AndroidInterface) {
+                    window.AndroidInterface.showToast(message);
+                }
+                return;
+            }
+
+            // Setup game state with player data (integrated from startGame function)
+            gameState.yellowPlayers = [];
+            gameState.bluePlayers = [];
+            gameState.yellowPlayerSlots = {};
+            gameState.bluePlayerSlots = {};
+            gameState.totalGoalsScored = 0;
+            gameState.hasThreeGoalLead = false;
+            gameState.hasFiveGoalLead = false;
+            
+            // Get team names
+            gameState.yellowTeamName = document.getElementById('yellow-team-name').value.trim() || 'Yellow Team';
+            gameState.blueTeamName = document.getElementById('blue-team-name').value.trim() || 'Blue Team';
+
+            // Collect all yellow players with their slot numbers
+            for (var i = 1; i <= gameState.yellowPlayerCount; i++) {
+                var button = document.getElementById('yellow-player-' + i);
+                if (button) {
+                    var buttonText = button.textContent.trim();
+                    var isOptional = i > 5;
+                    var placeholderText = isOptional ? '#' + i + ' (Optional)' : '#' + i;
+                    
+                    if (buttonText !== placeholderText) {
+                        gameState.yellowPlayers.push(buttonText);
+                        gameState.yellowPlayerSlots[buttonText] = i;
+                    }
+                }
+            }
+
+            // Collect all blue players with their slot numbers
+            for (var i = 1; i <= gameState.bluePlayerCount; i++) {
+                var button = document.getElementById('blue-player-' + i);
+                if (button) {
+                    var buttonText = button.textContent.trim();
+                    var isOptional = i > 5;
+                    var placeholderText = isOptional ? '#' + i + ' (Optional)' : '#' + i;
+                    
+                    if (buttonText !== placeholderText) {
+                        gameState.bluePlayers.push(buttonText);
+                        gameState.bluePlayerSlots[buttonText] = i;
+                    }
+                }
+            }
+
+            // Add OWN GOAL as a selectable option
+            gameState.yellowPlayers.push('OWN GOAL');
+            gameState.bluePlayers.push('OWN GOAL');
+
+            // Only reset scores and logs if this is a fresh game (no existing scores)
+            if (gameState.yellowScore === undefined || gameState.blueScore === undefined) {
+                gameState.yellowScore = 0;
+                gameState.blueScore = 0;
+                gameState.actionLog = [];
+                document.getElementById('yellow-score').textContent = '0';
+                document.getElementById('blue-score').textContent = '0';
+                renderLog();
+            }
+            
+            gameState.currentGoal = null;
+            initializePlayerStats();
+
+            // Update team headers and generate player buttons in game mode
+            try {
+                updateTeamHeaders();
+                generatePlayerButtons();
+                updateCustomSoundButtons();
+            } catch (error) {
+                debugLog('Error in game setup functions: ' + error.message);
+                // Continue with game start even if these fail
+            }
+
+            gameState.isGameStarted = true;
+            gameState.hasGameBeenStarted = true;
+            btn.textContent = '⏹️ STOP GAME';
+            btn.className = 'control-btn stop';
+            
+            // Show score header and hide main title
+            try {
+                document.getElementById('main-title').style.display = 'none';
+                document.getElementById('score-header').style.display = 'flex';
+                
+                // Update Edit Names button visibility
+                updateEditNamesButtonVisibility();
+                
+                // Update team names in header
+                document.getElementById('yellow-team-name-header').textContent = gameState.yellowTeamName;
+                document.getElementById('blue-team-name-header').textContent = gameState.blueTeamName;
+                
+                // Update custom sound buttons state
+                generateGameModeCustomSounds();
+            } catch (error) {
+                debugLog('Error in UI updates: ' + error.message);
+                // Continue with game start even if UI updates fail
+            }
+
+            // Add game start log entry
+            var startEntry = {
+                type: 'system',
+                text: '🎮 Game Started',
+                timestamp: new Date()
+            };
+            var logIndex = gameState.actionLog.length;
+            gameState.actionLog.push(startEntry);
+            journalEntry('start', startEntry, {
+                newMatch: logIndex === 0,
+                yellowTeamName: gameState.yellowTeamName,
+                blueTeamName: gameState.blueTeamName,
+                yellowPlayers: gameState.yellowPlayers,
+                bluePlayers: gameState.bluePlayers,
+                yellowPlayerSlots: gameState.yellowPlayerSlots,
+                bluePlayerSlots: gameState.bluePlayerSlots
+            });
+
+            appendLogEntry(startEntry);
+
+            // Show game containers and action controls
+            try {
+                var teamsContainer = document.getElementById('teams-container');
+                teamsContainer.style.display = 'flex';
+                // Apply responsive grid on larger screens
+                if (window.innerWidth >= 768) {
+                    teamsContainer.style.display = 'grid';
+                }
+                document.getElementById('game-action-controls').style.display = 'flex';
+                document.getElementById('custom-sounds-section').style.display = 'block';
+                document.getElementById('action-log').style.display = 'block';
+            } catch (e) {
+                debugLog('Error showing game containers: ' + e.message);
+            }
+
+            // Play start of game announcer sound
+            playAnnouncerSoundsSequence(['announcer-game-start'], function() {
+                debugLog('Game start announcer completed');
+            });
+
+        } else {
+            gameState.isGameStarted = false;
+            btn.textContent = '🚀 START GAME';
+            btn.className = 'control-btn start';
+            
+            // Hide score header and show main title
+            document.getElementById('main-title').style.display = 'flex';
+            document.getElementById('score-header').style.display = 'none';
+            
+            
+            // Update Edit Names button visibility
+            updateEditNamesButtonVisibility();
+            
+            // Update custom sound buttons state
+            generateGameModeCustomSounds();
+
+            var stopEntry = {
+                type: 'system',
+                text: '⏹️ Game Stopped',
+                timestamp: new Date()
+            };
+            gameState.actionLog.push(stopEntry);
+            journalEntry('stop', stopEntry);
+
+            appendLogEntry(stopEntry);
+
+            // Play end of match announcer sound
+            playAnnouncerSoundsSequence(['announcer-game-end'], function() {
+                debugLog('Game end announcer completed');
+            });
+
+        }
+    }
+
+    function confirmOwnGoal() {
+        if (!gameState.currentGoal) return;
+
+        // Start of the tap-to-audio measurement
+        var tapTime = Date.now();
+        var goal = gameState.currentGoal;
+
+        // Own goal scores for the SAME team (the team whose button was clicked)
+        var scoringTeam = goal.team; // Changed from opposite team to same team
+
+        if (scoringTeam === 'yellow') {
+            gameState.yellowScore++;
+            document.getElementById('yellow-score').textContent = gameState.yellowScore;
+            document.getElementById('yellow-score').classList.add('score-animation');
+            setTimeout(function() {
+                document.getElementById('yellow-score').classList.remove('score-animation');
+            }, 500);
+        } else {
+            gameState.blueScore++;
+            document.getElementById('blue-score').textContent = gameState.blueScore;
+            document.getElementById('blue-score').classList.add('score-animation');
+            setTimeout(function() {
+                document.getElementById('blue-score').classList.remove('score-animation');
+            }, 500);
+        }
+
+        var logText = 'Own Goal by ' + (goal.team === 'yellow' ? gameState.yellowTeamName : gameState.blueTeamName) + ' (Goal for ' + (scoringTeam === 'yellow' ? gameState.yellowTeamName : gameState.blueTeamName) + ')';
+
+        var ownGoalEntry = {
+            type: 'own-goal',
+            team: goal.team,
+            scoringTeam: scoringTeam,
+            player: 'OWN GOAL',
+            timestamp: goal.timestamp,
+            text: logText
+        };
+        gameState.actionLog.push(ownGoalEntry);
+        journalEntry('own-goal', ownGoalEntry);
+
+        appendLogEntry(ownGoalEntry);
+        // Check for announcer events BEFORE updating score
+        var isFirstGoal = gameState.totalGoalsScored === 0;
+
+        // Increment total goals
+        gameState.totalGoalsScored++;
+
+        // After hiding the modal and before debugLog, add:
+
+        // Determine which announcer sounds to play
+        var announcerSounds = [];
+
+        // First goal of the game
+        if (isFirstGoal) {
+            announcerSounds.push('announcer-first-goal');
+        }
+
+        // Check for tie game
+        if (gameState.yellowScore === gameState.blueScore) {
+            announcerSounds.push('announcer-tie-game');
+        }
+
+        // Check for 3 goal lead
+        var scoreDiff = Math.abs(gameState.yellowScore - gameState.blueScore);
+        if (scoreDiff === 3 && !gameState.hasThreeGoalLead) {
+            gameState.hasThreeGoalLead = true;
+            announcerSounds.push('announcer-three-lead');
+        }
+
+        // Check for 5 goal lead
+        if (scoreDiff === 5 && !gameState.hasFiveGoalLead) {
+            gameState.hasFiveGoalLead = true;
+            announcerSounds.push('announcer-five-lead');
+        }
+
+        // Reset lead flags if lead is lost
+        if (scoreDiff < 3) {
+            gameState.hasThreeGoalLead = false;
+        }
+        if (scoreDiff < 5) {
+            gameState.hasFiveGoalLead = false;
+        }
+
+        // Play announcer sounds in sequence, then the own goal sound
+        playAnnouncedGoalSound(announcerSounds, goal.team, 'OWN GOAL', tapTime);
+        document.getElementById('own-goal-modal').style.display = 'none';
+        gameState.currentGoal = null;
+
+        debugLog('Own goal confirmed: ' + logText);
+    }
+
+   function confirmGoal() {
+    if (!gameState.currentGoal) return;
+
+    // Start of the tap-to-audio measurement
+    var tapTime = Date.now();
+    var goal = gameState.currentGoal;
+
+    // Check for announcer events BEFORE updating score
+    var previousYellowScore = gameState.yellowScore;
+    var previousBlueScore = gameState.blueScore;
+    var isFirstGoal = gameState.totalGoalsScored === 0;
+
+    // Get player's current goals before update
+    var playerKey = goal.team + '-' + goal.player;
+    var playerGoalsBefore = 0;
+    if (gameState.playerStats[playerKey]) {
+        playerGoalsBefore = gameState.playerStats[playerKey].goals;
+    }
+
+    // Update score
+    if (goal.team === 'yellow') {
+        gameState.yellowScore++;
+        document.getElementById('yellow-score').textContent = gameState.yellowScore;
+        document.getElementById('yellow-score').classList.add('score-animation');
+        setTimeout(function() {
+            document.getElementById('yellow-score').classList.remove('score-animation');
+        }, 500);
+    } else {
+        gameState.blueScore++;
+        document.getElementById('blue-score').textContent = gameState.blueScore;
+        document.getElementById('blue-score').classList.add('score-animation');
+        setTimeout(function() {
+            document.getElementById('blue-score').classList.remove('score-animation');
+        }, 500);
+    }
+
+    gameState.totalGoalsScored++;
+    updatePlayerStats(goal);
+
+    var logText = 'Goal: ' + goal.player;
+    if (goal.assist) {
+        logText += ', Assist: ' + goal.assist;
+    }
+    logText += ' (' + (goal.team === 'yellow' ? gameState.yellowTeamName : gameState.blueTeamName) + ')';
+
+    var goalEntry = {
+        type: 'goal',
+        team: goal.team,
+        player: goal.player,
+        assist: goal.assist || null,
+        timestamp: goal.timestamp,
+        text: logText
+    };
+    gameState.actionLog.push(goalEntry);
+    journalEntry('goal', goalEntry);
+
+    appendLogEntry(goalEntry);
+
+    document.getElementById('assist-modal').style.display = 'none';
+
+    // Determine which announcer sounds to play
+    var announcerSounds = [];
+
+    // First goal of the game
+    if (isFirstGoal) {
+        announcerSounds.push('announcer-first-goal');
+    }
+
+    // Hat trick (3 goals)
+    if (playerGoalsBefore === 2) {
+        announcerSounds.push('announcer-hat-trick');
+    }
+
+    // 5 goals
+    if (playerGoalsBefore === 4) {
+        announcerSounds.push('announcer-five-goals');
+    }
+
+    // Check for tie game
+    if (gameState.yellowScore === gameState.blueScore) {
+        announcerSounds.push('announcer-tie-game');
+    }
+
+    // Check for 3 goal lead
+    var scoreDiff = Math.abs(gameState.yellowScore - gameState.blueScore);
+    if (scoreDiff === 3 && !gameState.hasThreeGoalLead) {
+        gameState.hasThreeGoalLead = true;
+        announcerSounds.push('announcer-three-lead');
+    }
+
+    // Check for 5 goal lead
+    if (scoreDiff === 5 && !gameState.hasFiveGoalLead) {
+        gameState.hasFiveGoalLead = true;
+        announcerSounds.push('announcer-five-lead');
+    }
+
+    // Reset lead flags if lead is lost
+    if (scoreDiff < 3) {
+        gameState.hasThreeGoalLead = false;
+    }
+    if (scoreDiff < 5) {
+        gameState.hasFiveGoalLead = false;
+    }
+
+    // Play announcer sounds in sequence, then goal sound
+    playAnnouncedGoalSound(announcerSounds, goal.team, goal.player, tapTime);
+
+    gameState.currentGoal = null;
+    debugLog('Goal confirmed: ' + logText);
+}
+
+    // Function to display sound item without assignment dropdown
+    function displaySoundItem(sound) {
+        var soundList = document.getElementById('sound-list');
+
+        // Remove "no sounds" message if it exists
+        var noSoundsMsg = soundList.querySelector('div[style*="text-align: center"]');
+        if (noSoundsMsg) {
+            noSoundsMsg.remove();
+        }
+
+        var soundItem = document.createElement('div');
+        soundItem.className = 'sound-item';
+        soundItem.setAttribute('data-sound-id', sound.id);
+        soundItem.style.cssText = 'background: linear-gradient(135deg, #0f0f23 0%, #1a1a2e 100%); padding: 20px; border-radius: 10px; border: 2px solid rgba(59, 130, 246, 0.3); margin-bottom: 15px; transition: all 0.3s ease;';
+
+        var uploadDate = sound.uploadDate ?
+            new Date(sound.uploadDate).toLocaleDateString() : 'Unknown';
+
+        // Create the HTML structure
+        // preload="none": the clip's bytes are only fetched on first play/preview
+        soundItem.innerHTML = '<h5 style="margin-bottom: 15px; color: #e2e8f0; font-size: 16px; display: flex; align-items: center; justify-content: space-between;">🎵 ' + sound.name + ' <span style="font-size: 11px; color: #94a3b8;">(' + (sound.size/1024).toFixed(1) + 'KB • ' + uploadDate + ')</span></h5><audio controls preload="none" style="width: 100%; margin-bottom: 15px;"><source src="' + getSoundSource(sound) + '" type="' + sound.type + '">Your browser does not support the audio element.</audio><div style="display: flex; gap: 10px; align-items: center; flex-wrap: wrap;"><button id="remove-btn-' + sound.id + '" style="padding: 8px 15px; border: none; border-radius: 6px; cursor: pointer; font-weight: bold; font-size: 12px; background: #e74c3c; color: white;">🗑️ Remove</button></div>';
+
+        // Keep the "show more" row last
+        var more = document.getElementById('sound-list-more');
+        if (more) {
+            soundList.insertBefore(soundItem, more);
+        } else {
+            soundList.appendChild(soundItem);
+        }
+
+        // Add event listener to the remove button AFTER it's added to DOM
+        var removeBtn = document.getElementById('remove-btn-' + sound.id);
+        if (removeBtn) {
+            removeBtn.addEventListener('click', function() {
+                debugLog('Remove button clicked for sound: ' + sound.name);
+                removeSound(sound.id);
+            });
+        } else {
+            debugLog('ERROR: Remove button not found for sound: ' + sound.name);
+        }
+    }
+
+    // New function to generate rename inputs with sound assignment
+
+    function addPlayerDropdownElement(team, playerNum) {
+        var container = document.getElementById(team + '-players');
+        var playerDiv = document.createElement('div');
+        playerDiv.className = 'player-dropdown';
+        playerDiv.setAttribute('data-player-num', playerNum);
+
+        var isOptional = playerNum > 5;
+        var placeholderText = isOptional ? '#' + playerNum + ' (Optional)' : '#' + playerNum;
+
+        var selectHTML = '<option value="" disabled selected style="color: #999;">' + placeholderText + '</option>';
+        
+        // Get already assigned players to exclude them
+        var assignedPlayers = getAllAssignedPlayers();
+        
+        // Add players from playerProfiles that are not already assigned
+        if (typeof playerProfiles !== 'undefined' && playerProfiles.length > 0) {
+            for (var i = 0; i < playerProfiles.length; i++) {
+                var player = playerProfiles[i];
+                // Only add if not already assigned
+                if (assignedPlayers.indexOf(player.name) === -1) {
+                    selectHTML += '<option value="' + player.name + '">' + player.name + '</option>';
+                }
+            }
+        }
+
+        // Create a button instead of a select dropdown
+        var playerName = '';
+        var playerId = team + '-player-' + playerNum;
+        
+        // Check if there's already an assigned player
+        if (typeof playerProfiles !== 'undefined' && playerProfiles.length > 0) {
+            // This will be populated when player is assigned
+        }
+        
+        playerDiv.innerHTML =
+            '<button id="' + playerId + '" class="player-assignment-btn" onclick="openPlayerAssignmentModal(\'' + team + '\', ' + playerNum + ')" style="width: 100%; padding: 12px; border: 2px dashed #666; background: linear-gradient(135deg, #0f0f23 0%, #1a1a2e 100%); border-radius: 8px; cursor: pointer; text-align: center; color: #ccc;">' +
+                placeholderText +
+            '</button>' +
+            (playerNum > 7 ? '<button class="remove-player-btn" onclick="removePlayerSlot(\'' + team + '\', ' + playerNum + ')" title="Remove player">×</button>' : '');
+
+        container.appendChild(playerDiv);
+    }
+
+    function addPlayerDropdown(team) {
+        var currentCount = team === 'yellow' ? gameState.yellowPlayerCount : gameState.bluePlayerCount;
+
+        if (currentCount >= 11) {
+            var message = 'Maximum 11 players per team allowed!';
+            alert(message);
+            if (window.AndroidInterface) {
+                // window.AndroidInterface.showToast(message);
+            }
+            return;
+        }
+
+
+        var newPlayerNum = currentCount + 1;
+        addPlayerDropdownElement(team, newPlayerNum);
+
+        if (team === 'yellow') {
+            gameState.yellowPlayerCount = newPlayerNum;
+            if (newPlayerNum >= 11) {
+                document.getElementById('add-yellow-player').style.display = 'none';
+            }
+        } else {
+            gameState.bluePlayerCount = newPlayerNum;
+            if (newPlayerNum >= 11) {
+                document.getElementById('add-blue-player').style.display = 'none';
+            }
+        }
+
+        debugLog('Added player dropdown ' + newPlayerNum + ' for ' + team + ' team');
+    }
+
+    function getAllAssignedPlayers() {
+        var assignedPlayers = [];
+        
+        // Check yellow team assignments
+        for (var i = 1; i <= gameState.yellowPlayerCount; i++) {
+            var button = document.getElementById('yellow-player-' + i);
+            if (button) {
+                var buttonText = button.textContent.trim();
+                var isOptional = i > 5;
+                var placeholderText = isOptional ? '#' + i + ' (Optional)' : '#' + i;
+                
+                // If it's not a placeholder, it's assigned
+                if (buttonText !== placeholderText) {
+                    assignedPlayers.push(buttonText);
+                }
+            }
+        }
+        
+        // Check blue team assignments
+        for (var i = 1; i <= gameState.bluePlayerCount; i++) {
+            var button = document.getElementById('blue-player-' + i);
+            if (button) {
+                var buttonText = button.textContent.trim();
+                var isOptional = i > 5;
+                var placeholderText = isOptional ? '#' + i + ' (Optional)' : '#' + i;
+                
+                // If it's not a placeholder, it's assigned
+                if (buttonText !== placeholderText) {
+                    assignedPlayers.push(buttonText);
+                }
+            }
+        }
+        
+        return assignedPlayers;
+    }
+
+    function getAllPlayerAssignments() {
+        var assignments = [];
+        
+        // Check yellow team assignments
+        for (var i = 1; i <= gameState.yellowPlayerCount; i++) {
+            var button = document.getElementById('yellow-player-' + i);
+            if (button) {
+                var buttonText = button.textContent.trim();
+                var isOptional = i > 5;
+                var placeholderText = isOptional ? '#' + i + ' (Optional)' : '#' + i;
+                
+                // If it's not a placeholder, it's assigned
+                if (buttonText !== placeholderText) {
+                    assignments.push({
+                        name: buttonText,
+                        team: 'yellow',
+                        slot: i
+                    });
+                }
+            }
+        }
+        
+        // Check blue team assignments
+        for (var i = 1; i <= gameState.bluePlayerCount; i++) {
+            var button = document.getElementById('blue-player-' + i);
+            if (button) {
+                var buttonText = button.textContent.trim();
+                var isOptional = i > 5;
+                var placeholderText = isOptional ? '#' + i + ' (Optional)' : '#' + i;
+                
+                // If it's not a placeholder, it's assigned
+                if (buttonText !== placeholderText) {
+                    assignments.push({
+                        name: buttonText,
+                        team: 'blue',
+                        slot: i
+                    });
+                }
+            }
+        }
+        
+        return assignments;
+    }
+
+    function checkAvailablePlayers(team, playerNum) {
+        // Check if there are any available players to assign
+        var assignedPlayers = getAllAssignedPlayers();
+        var availablePlayerCount = 0;
+        
+        if (typeof playerProfiles !== 'undefined' && playerProfiles.length > 0) {
+            for (var i = 0; i < playerProfiles.length; i++) {
+                var player = playerProfiles[i];
+                if (assignedPlayers.indexOf(player.name) === -1) {
+                    availablePlayerCount++;
+                }
+            }
+        }
+        
+        if (availablePlayerCount === 0) {
+            var message = 'No players available to assign! Please add players in the Players tab first.';
+            alert(message);
+            if (window.AndroidInterface) {
+                window.AndroidInterface.showToast(message);
+            }
+            // Blur the select to close it
+            var selectElement = document.getElementById(team + '-player-' + playerNum);
+            if (selectElement) {
+                selectElement.blur();
+            }
+            return false;
+        }
+        return true;
+    }
+
+    function updateSelectedPlayer(team, playerNum) {
+        var selectElement = document.getElementById(team + '-player-' + playerNum);
+        var selectedPlayer = selectElement.value;
+        
+        if (selectedPlayer) {
+            // Check if this player is already assigned to another slot
+            var currentSlotId = team + '-player-' + playerNum;
+            var assignedPlayers = [];
+            
+            // Check all other slots for duplicates
+            for (var i = 1; i <= gameState.yellowPlayerCount; i++) {
+                var yellowSelect = document.getElementById('yellow-player-' + i);
+                if (yellowSelect && yellowSelect.id !== currentSlotId && yellowSelect.value === selectedPlayer) {
+                    assignedPlayers.push('Yellow Team Player ' + i);
+                }
+            }
+            
+            for (var i = 1; i <= gameState.bluePlayerCount; i++) {
+                var blueSelect = document.getElementById('blue-player-' + i);
+                if (blueSelect && blueSelect.id !== currentSlotId && blueSelect.value === selectedPlayer) {
+                    assignedPlayers.push('Blue Team Player ' + i);
+                }
+            }
+            
+            if (assignedPlayers.length > 0) {
+                // Player is already assigned, clear this selection and show warning
+                selectElement.value = '';
+                return;
+            }
+        }
+        
+        debugLog('Selected player: ' + selectedPlayer + ' for ' + team + ' team slot ' + playerNum);
+        
+        // Refresh all dropdowns to update available options
+        refreshPlayerDropdowns();
+    }
+
+    // Global variables for player assignment modal
+    var currentAssignmentTeam = '';
+    var currentAssignmentSlot = 0;
+
+    function openPlayerAssignmentModal(team, playerNum) {
+        // Check if trying to assign to slot 6+ when slots 1-5 are empty
+        if (playerNum >= 6) {
+            var hasEmptyEssentialSlots = false;
+            for (var i = 1; i <= 5; i++) {
+                var button = document.getElementById(team + '-player-' + i);
+                if (button) {
+                    var buttonText = button.textContent.trim();
+                    var placeholderText = '#' + i;
+                    if (buttonText === placeholderText) {
+                        hasEmptyEssentialSlots = true;
+                        break;
+                    }
+                }
+            }
+            
+            if (hasEmptyEssentialSlots) {
+                var teamDisplayName = team === 'yellow' ? 'Yellow Team' : 'Blue Team';
+                var message = '❌ Please fill slots #1-5 first before assigning to optional slots in ' + teamDisplayName + '!';
+                if (window.AndroidInterface) {
+                    window.AndroidInterface.showToast(message);
+                } else {
+                    alert(message);
+                }
+                return;
+            }
+        }
+        
+        currentAssignmentTeam = team;
+        currentAssignmentSlot = playerNum;
+        
+        var teamDisplayName = team === 'yellow' ? 'Yellow Team' : 'Blue Team';
+        var slotInfo = teamDisplayName + ' #' + playerNum;
+        document.getElementById('assignment-slot-info').textContent = slotInfo;
+        
+        populatePlayerAssignmentList();
+        document.getElementById('player-assignment-modal').style.display = 'block';
+    }
+
+    function populatePlayerAssignmentList() {
+        var playerList = document.getElementById('player-assignment-list');
+        playerList.innerHTML = '';
+        
+        // Add "Unassigned" option at the top
+        var unassignOption = document.createElement('div');
+        unassignOption.className = 'player-option unassign';
+        unassignOption.textContent = '❌ Unassigned';
+        unassignOption.onclick = function() { assignPlayerToSlot(''); };
+        playerList.appendChild(unassignOption);
+        
+        // Get all player assignments with their teams and slots
+        var playerAssignments = getAllPlayerAssignments();
+        var currentPlayerId = currentAssignmentTeam + '-player-' + currentAssignmentSlot;
+        var currentPlayerBtn = document.getElementById(currentPlayerId);
+        var currentPlayerName = currentPlayerBtn ? currentPlayerBtn.textContent.trim() : '';
+        
+        // Remove current player from their current slot if they're being reassigned
+        if (currentPlayerName && currentPlayerName !== '#' + currentAssignmentSlot && currentPlayerName !== '#' + currentAssignmentSlot + ' (Optional)') {
+            // Find and remove current player from assignments
+            for (var i = 0; i < playerAssignments.length; i++) {
+                if (playerAssignments[i].name === currentPlayerName) {
+                    playerAssignments.splice(i, 1);
+                    break;
+                }
+            }
+        }
+        
+        var availablePlayers = [];
+        var assignedPlayers = [];
+        
+        // Categorize players
+        if (typeof playerProfiles !== 'undefined' && playerProfiles.length > 0) {
+            for (var i = 0; i < playerProfiles.length; i++) {
+                var player = playerProfiles[i];
+                var assignment = playerAssignments.find(function(a) { return a.name === player.name; });
+                
+                if (assignment) {
+                    assignedPlayers.push({
+                        name: player.name,
+                        team: assignment.team,
+                        slot: assignment.slot
+                    });
+                } else {
+                    availablePlayers.push(player.name);
+                }
+            }
+        }
+        
+        // Add available players first
+        for (var i = 0; i < availablePlayers.length; i++) {
+            var playerOption = document.createElement('div');
+            playerOption.className = 'player-option';
+            playerOption.textContent = '👤 ' + availablePlayers[i];
+            playerOption.onclick = function(playerName) {
+                return function() { assignPlayerToSlot(playerName); };
+            }(availablePlayers[i]);
+            playerList.appendChild(playerOption);
+        }
+        
+        // Add separator if there are both available and assigned players
+        if (availablePlayers.length > 0 && assignedPlayers.length > 0) {
+            var separator = document.createElement('div');
+            separator.style.padding = '8px 0';
+            separator.style.textAlign = 'center';
+            separator.style.color = '#666';
+            separator.style.fontSize = '12px';
+            separator.textContent = '── Already Assigned ──';
+            playerList.appendChild(separator);
+        }
+        
+        // Add assigned players at the bottom with team styling
+        for (var i = 0; i < assignedPlayers.length; i++) {
+            var assignedPlayer = assignedPlayers[i];
+            var playerOption = document.createElement('div');
+            playerOption.className = 'player-option assigned-' + assignedPlayer.team;
+            
+            var teamEmoji = assignedPlayer.team === 'yellow' ? '🟡' : '🔵';
+            playerOption.textContent = teamEmoji + ' ' + assignedPlayer.name + ' (#' + assignedPlayer.slot + ')';
+            
+            playerOption.onclick = function(playerName, fromTeam, fromSlot) {
+                return function() { reassignPlayer(playerName, fromTeam, fromSlot); };
+            }(assignedPlayer.name, assignedPlayer.team, assignedPlayer.slot);
+            
+            playerList.appendChild(playerOption);
+        }
+        
+        // If no players available at all
+        if (availablePlayers.length === 0 && assignedPlayers.length === 0) {
+            var noPlayersMsg = document.createElement('div');
+            noPlayersMsg.style.padding = '20px';
+            noPlayersMsg.style.textAlign = 'center';
+            noPlayersMsg.style.color = '#666';
+            noPlayersMsg.textContent = 'No players available. Add players in the Players tab.';
+            playerList.appendChild(noPlayersMsg);
+        }
+    }
+
+    function assignPlayerToSlot(playerName) {
+        var playerId = currentAssignmentTeam + '-player-' + currentAssignmentSlot;
+        var playerBtn = document.getElementById(playerId);
+        
+        if (playerBtn) {
+            if (playerName) {
+                // Assign player
+                playerBtn.textContent = playerName;
+                playerBtn.style.border = '2px solid #27ae60';
+                playerBtn.style.background = '#d5f4e6';
+                playerBtn.style.color = '#27ae60';
+                playerBtn.style.fontWeight = 'bold';
+            } else {
+                // Unassign player
+                var isOptional = currentAssignmentSlot > 5;
+                var placeholderText = isOptional ? '#' + currentAssignmentSlot + ' (Optional)' : '#' + currentAssignmentSlot;
+                playerBtn.textContent = placeholderText;
+                playerBtn.style.border = '2px dashed #666';
+                playerBtn.style.background = 'linear-gradient(135deg, #0f0f23 0%, #1a1a2e 100%)';
+                playerBtn.style.color = '#ccc';
+                playerBtn.style.fontWeight = 'normal';
+            }
+        }
+        
+        closePlayerAssignmentModal();
+        debugLog('=== ASSIGNMENT DEBUG: Player ' + (playerName || 'unassigned') + ' assigned to ' + currentAssignmentTeam + ' team slot ' + currentAssignmentSlot);
+        
+        // Show toast for debugging
+        // if (window.AndroidInterface) {
+        //     window.AndroidInterface.showToast('🔵 Assigned: ' + (playerName || 'unassigned') + ' to ' + currentAssignmentTeam + ' #' + currentAssignmentSlot);
+        // }
+        
+        // Save player assignments after any assignment change
+        debugLog('=== SAVE DEBUG: Triggering savePlayerAssignments after assignment change');
+        savePlayerAssignments();
+        preloadLineupAudio();
+    }
+
+    function reassignPlayer(playerName, fromTeam, fromSlot) {
+        // Clear the player from their current slot first
+        var fromPlayerId = fromTeam + '-player-' + fromSlot;
+        var fromPlayerBtn = document.getElementById(fromPlayerId);
+        
+        if (fromPlayerBtn) {
+            var isOptional = fromSlot > 5;
+            var placeholderText = isOptional ? '#' + fromSlot + ' (Optional)' : '#' + fromSlot;
+            fromPlayerBtn.textContent = placeholderText;
+            fromPlayerBtn.style.border = '2px dashed #666';
+            fromPlayerBtn.style.background = 'rgba(255, 255, 255, 0.1)';
+            fromPlayerBtn.style.color = '#ccc';
+            fromPlayerBtn.style.fontWeight = 'normal';
+        }
+        
+        // Now assign to the new slot
+        assignPlayerToSlot(playerName);
+        
+        debugLog('Player ' + playerName + ' moved from ' + fromTeam + ' #' + fromSlot + ' to ' + currentAssignmentTeam + ' #' + currentAssignmentSlot);
+    }
+
+    function closePlayerAssignmentModal() {
+        document.getElementById('player-assignment-modal').style.display = 'none';
+        currentAssignmentTeam = '';
+        currentAssignmentSlot = 0;
+    }
+
+    // Player Assignment Persistence Functions
+    function savePlayerAssignments() {
+        try {
+            debugLog('=== SAVE DEBUG: savePlayerAssignments() called');
+            
+            // Store player assignments in gameState.playerAssignments (like soundAssignments)
+            var assignments = getAllPlayerAssignments();
+            debugLog('=== SAVE DEBUG: Found ' + assignments.length + ' assignments from getAllPlayerAssignments()');
+            
+            gameState.playerAssignments = {};
+            
+            // Convert assignments array to a key-value object for persistence
+            assignments.forEach(function(assignment) {
+                var key = assignment.team + '-player-' + assignment.slot;
+                gameState.playerAssignments[key] = assignment.name;
+                debugLog('=== SAVE DEBUG: Storing ' + key + ' = ' + assignment.name);
+            });
+            
+            debugLog(function() { return '=== SAVE DEBUG: gameState.playerAssignments now contains: ' + JSON.stringify(gameState.playerAssignments); });
+            
+            // Show toast for debugging
+            // if (window.AndroidInterface) {
+            //     window.AndroidInterface.showToast('💾 Saving ' + assignments.length + ' player assignments');
+            // }
+            
+            // Trigger auto-save which will include player assignments (same as sound assignments)
+            if (typeof autoSaveSounds === 'function') {
+                debugLog('=== SAVE DEBUG: Calling autoSaveSounds() (same as sound assignments)');
+                autoSaveSounds();
+            } else {
+                debugLog('=== SAVE DEBUG: ERROR - autoSaveSounds function not found!');
+                // if (window.AndroidInterface) {
+                //     window.AndroidInterface.showToast('❌ ERROR: autoSaveSounds not found');
+                // }
+            }
+        } catch (error) {
+            debugLog('=== SAVE DEBUG: ERROR in savePlayerAssignments: ' + error.message);
+            // if (window.AndroidInterface) {
+            //     window.AndroidInterface.showToast('❌ Save error: ' + error.message);
+            // }
+        }
+    }
+
+    function loadPlayerAssignments() {
+        // Player assignments are now loaded automatically with sounds
+        // This function is kept for compatibility but the real loading happens in loadSoundsFromAndroid
+        debugLog('Player assignments will be loaded with sounds');
+    }
+
+    function restorePlayerAssignmentsFromGameState() {
+        try {
+            debugLog('=== RESTORE FUNCTION DEBUG: restorePlayerAssignmentsFromGameState() called');
+            debugLog(function() { return '=== RESTORE FUNCTION DEBUG: gameState.playerAssignments = ' + JSON.stringify(gameState.playerAssignments); });
+            
+            if (gameState.playerAssignments) {
+                // Clear all existing assignments first
+                debugLog('=== RESTORE FUNCTION DEBUG: Clearing all existing assignments');
+                clearAllPlayerAssignments();
+                
+                var restoredCount = 0;
+                
+                // Restore each assignment from the gameState
+                Object.keys(gameState.playerAssignments).forEach(function(key) {
+                    var playerName = gameState.playerAssignments[key];
+                    var playerBtn = document.getElementById(key);
+                    
+                    debugLog('=== RESTORE FUNCTION DEBUG: Attempting to restore: ' + playerName + ' to ' + key);
+                    
+                    if (playerBtn && playerName) {
+                        playerBtn.textContent = playerName;
+                        playerBtn.style.border = '2px solid #27ae60';
+                        playerBtn.style.background = '#d5f4e6';
+                        playerBtn.style.color = '#27ae60';
+                        playerBtn.style.fontWeight = 'bold';
+                        restoredCount++;
+                        debugLog('=== RESTORE FUNCTION DEBUG: ✅ Successfully restored player button: ' + key + ' = ' + playerName);
+                    } else {
+                        debugLog('=== RESTORE FUNCTION DEBUG: ❌ Could not find player button or name: ' + key + ' = ' + playerName + ' (btn exists: ' + !!playerBtn + ')');
+                    }
+                });
+                
+                debugLog('=== RESTORE FUNCTION DEBUG: Completed restoring ' + restoredCount + '/' + Object.keys(gameState.playerAssignments).length + ' player assignments');
+                preloadLineupAudio();
+                
+                // Show toast for debugging
+                // if (window.AndroidInterface) {
+                //     window.AndroidInterface.showToast('✅ Restored ' + restoredCount + ' assignments to UI');
+                // }
+            } else {
+                debugLog('=== RESTORE FUNCTION DEBUG: No gameState.playerAssignments found');
+            }
+        } catch (error) {
+            debugLog('=== RESTORE FUNCTION DEBUG: ERROR - ' + error.message);
+            // if (window.AndroidInterface) {
+            //     window.AndroidInterface.showToast('❌ Restore error: ' + error.message);
+            // }
+        }
+    }
+
+
+    function clearAllPlayerAssignments() {
+        // Clear yellow team assignments
+        for (var i = 1; i <= gameState.yellowPlayerCount; i++) {
+            var button = document.getElementById('yellow-player-' + i);
+            if (button) {
+                var isOptional = i > 5;
+                var placeholderText = isOptional ? '#' + i + ' (Optional)' : '#' + i;
+                button.textContent = placeholderText;
+                button.style.border = '2px dashed #666';
+                button.style.background = 'linear-gradient(135deg, #0f0f23 0%, #1a1a2e 100%)';
+                button.style.color = '#ccc';
+                button.style.fontWeight = 'normal';
+            }
+        }
+        
+        // Clear blue team assignments
+        for (var i = 1; i <= gameState.bluePlayerCount; i++) {
+            var button = document.getElementById('blue-player-' + i);
+            if (button) {
+                var isOptional = i > 5;
+                var placeholderText = isOptional ? '#' + i + ' (Optional)' : '#' + i;
+                button.textContent = placeholderText;
+                button.style.border = '2px dashed #666';
+                button.style.background = 'linear-gradient(135deg, #0f0f23 0%, #1a1a2e 100%)';
+                button.style.color = '#ccc';
+                button.style.fontWeight = 'normal';
+            }
+        }
+    }
+
+    function clearAllPlayerAssignmentsWithConfirmation() {
+        try {
+            // Count current assignments to show in confirmation
+            var assignments = getAllPlayerAssignments();
+            var assignmentCount = assignments.length;
+            
+            debugLog('Clear all assignments button clicked - found ' + assignmentCount + ' assignments');
+            
+            if (assignmentCount === 0) {
+                if (window.AndroidInterface) {
+                    window.AndroidInterface.showToast('ℹ️ No player assignments to clear');
+                } else {
+                    alert('ℹ️ No player assignments to clear');
+                }
+                return;
+            }
+            
+            // Set the assignment count in the modal text
+            document.getElementById('clear-assignments-text').textContent = 
+                'This will remove all ' + assignmentCount + ' player assignments from both teams.';
+            
+            // Show the custom confirmation modal
+            document.getElementById('clear-assignments-modal').style.display = 'block';
+            
+        } catch (error) {
+            debugLog('Error showing clear assignments modal: ' + error.message);
+            // if (window.AndroidInterface) {
+            //     window.AndroidInterface.showToast('❌ Error showing confirmation: ' + error.message);
+            // } else {
+            //     alert('❌ Error showing confirmation: ' + error.message);
+            // }
+        }
+    }
+
+    function confirmClearAssignments() {
+        try {
+            debugLog('User confirmed clearing all player assignments');
+            
+            // Close the modal
+            document.getElementById('clear-assignments-modal').style.display = 'none';
+            
+            // Count assignments for toast message
+            var assignments = getAllPlayerAssignments();
+            var assignmentCount = assignments.length;
+            
+            // Clear all assignments from UI
+            clearAllPlayerAssignments();
+            
+            // Clear from gameState
+            gameState.playerAssignments = {};
+            
+            // Save the changes
+            if (typeof autoSaveSounds === 'function') {
+                autoSaveSounds();
+            }
+            
+            debugLog('All player assignments cleared and saved');
+            
+            if (window.AndroidInterface) {
+                window.AndroidInterface.showToast('✅ Cleared all ' + assignmentCount + ' player assignments');
+            } else {
+                alert('✅ All player assignments cleared!');
+            }
+        } catch (error) {
+            debugLog('Error clearing all player assignments: ' + error.message);
+            // if (window.AndroidInterface) {
+            //     window.AndroidInterface.showToast('❌ Error clearing assignments: ' + error.message);
+            // } else {
+            //     alert('❌ Error clearing assignments: ' + error.message);
+            // }
+        }
+    }
+
+    function cancelClearAssignments() {
+        debugLog('User cancelled clearing player assignments');
+        
+        // Close the modal
+        document.getElementById('clear-assignments-modal').style.display = 'none';
+        
+        if (window.AndroidInterface) {
+            window.AndroidInterface.showToast('❌ Clear cancelled');
+        }
+    }
+
+    function refreshPlayerDropdowns() {
+        debugLog('Refreshing player dropdowns with updated player list');
+        
+        // This function is kept for compatibility but now just updates button states
+        for (var i = 1; i <= gameState.yellowPlayerCount; i++) {
+            updatePlayerButtonState('yellow', i);
+        }
+        
+        for (var i = 1; i <= gameState.bluePlayerCount; i++) {
+            updatePlayerButtonState('blue', i);
+        }
+    }
+
+    function updatePlayerButtonState(team, playerNum) {
+        var playerId = team + '-player-' + playerNum;
+        var playerBtn = document.getElementById(playerId);
+        if (!playerBtn) return;
+        
+        var currentText = playerBtn.textContent.trim();
+        var isOptional = playerNum > 5;
+        var placeholderText = isOptional ? '#' + playerNum + ' (Optional)' : '#' + playerNum;
+        
+        // If it's not a placeholder, it's assigned
+        if (currentText !== placeholderText) {
+            // Keep assigned styling
+            playerBtn.style.border = '2px solid #27ae60';
+            playerBtn.style.background = '#d5f4e6';
+            playerBtn.style.color = '#27ae60';
+            playerBtn.style.fontWeight = 'bold';
+        }
+    }
+
+    function refreshSingleDropdown(team, playerNum) {
+        var selectElement = document.getElementById(team + '-player-' + playerNum);
+        if (!selectElement) return;
+        
+        var currentValue = selectElement.value;
+        var currentSlotId = team + '-player-' + playerNum;
+        
+        // Get all assigned players except the current slot
+        var assignedPlayers = [];
+        for (var i = 1; i <= gameState.yellowPlayerCount; i++) {
+            var yellowSelect = document.getElementById('yellow-player-' + i);
+            if (yellowSelect && yellowSelect.id !== currentSlotId && yellowSelect.value) {
+                assignedPlayers.push(yellowSelect.value);
+            }
+        }
+        for (var i = 1; i <= gameState.bluePlayerCount; i++) {
+            var blueSelect = document.getElementById('blue-player-' + i);
+            if (blueSelect && blueSelect.id !== currentSlotId && blueSelect.value) {
+                assignedPlayers.push(blueSelect.value);
+            }
+        }
+        
+        var isOptional = playerNum > 5;
+        var placeholderText = isOptional ? '#' + playerNum + ' (Optional)' : '#' + playerNum;
+        var selectHTML = '<option value="" disabled' + (currentValue ? '' : ' selected') + ' style="color: #999;">' + placeholderText + '</option>';
+        
+        // Add players from playerProfiles that are not already assigned
+        if (typeof playerProfiles !== 'undefined' && playerProfiles.length > 0) {
+            for (var i = 0; i < playerProfiles.length; i++) {
+                var player = playerProfiles[i];
+                
+                // Skip if this player is already assigned to another slot
+                if (assignedPlayers.indexOf(player.name) === -1) {
+                    var selected = player.name === currentValue ? ' selected' : '';
+                    selectHTML += '<option value="' + player.name + '"' + selected + '>' + player.name + '</option>';
+                }
+            }
+        }
+        
+        selectElement.innerHTML = selectHTML;
+    }
+
+    function removePlayerSlot(team, playerNum) {
+        var playerDiv = document.querySelector('[data-player-num="' + playerNum + '"]');
+        if (playerDiv) {
+            playerDiv.remove();
+        }
+
+        // Show add button again if it was hidden
+        if (team === 'yellow') {
+            document.getElementById('add-yellow-player').style.display = 'block';
+            gameState.yellowPlayerCount--;
+        } else {
+            document.getElementById('add-blue-player').style.display = 'block';
+            gameState.bluePlayerCount--;
+        }
+
+        // Refresh all dropdowns to update available options after removal
+        refreshPlayerDropdowns();
+
+        debugLog('Removed player slot ' + playerNum + ' for ' + team + ' team');
+    }
+
+    function updateSoundsStats() {
+        var totalSounds = gameState.sounds.length;
+        var assignedSounds = 0;
+        for (var i = 0; i < gameState.sounds.length; i++) {
+            if (gameState.sounds[i].assigned) {
+                assignedSounds++;
+            }
+        }
+        var totalSize = 0;
+        for (var i = 0; i < gameState.sounds.length; i++) {
+            totalSize += gameState.sounds[i].size || 0;
+        }
+        var sizeMB = (totalSize / 1024 / 1024).toFixed(2);
+
+        // These elements were removed from the UI, so we don't need to update them
+        debugLog('Stats updated - Total: ' + totalSounds + ', Assigned: ' + assignedSounds + ', Size: ' + sizeMB + 'MB');
+    }
+
+    function randomlyAssignPlayers() {
+        debugLog('Randomly assigning players');
+        
+        // Check if we have any players to assign
+        if (!playerProfiles || playerProfiles.length === 0) {
+            var message = 'No players available for assignment! Please add players in the Players tab first.';
+            if (window.AndroidInterface) {
+                window.AndroidInterface.showToast(message);
+            }
+            return;
+        }
+
+        // Check if we have enough players for both teams
+        if (playerProfiles.length < 10) {
+            var message = 'Need at least 10 players for random assignment (5 per team). You have ' + playerProfiles.length + ' players. Add more in the Players tab.';
+            if (window.AndroidInterface) {
+                window.AndroidInterface.showToast(message);
+            }
+            return;
+        }
+
+        // Ensure we have exactly 5 slots for each team
+        // Add missing slots for yellow team
+        while (gameState.yellowPlayerCount < 5) {
+            gameState.yellowPlayerCount++;
+            addPlayerDropdownElement('yellow', gameState.yellowPlayerCount);
+        }
+        
+        // Add missing slots for blue team
+        while (gameState.bluePlayerCount < 5) {
+            gameState.bluePlayerCount++;
+            addPlayerDropdownElement('blue', gameState.bluePlayerCount);
+        }
+
+        // Clear all current assignments (only clear empty slots, preserve manual assignments)
+        var currentAssignments = getAllPlayerAssignments();
+        var manuallyAssignedSlots = [];
+        
+        // Track which slots have manual assignments we want to preserve
+        for (var i = 0; i < currentAssignments.length; i++) {
+            var assignment = currentAssignments[i];
+            manuallyAssignedSlots.push(assignment.team + '-' + assignment.slot);
+        }
+        
+        // Clear only empty slots
+        for (var i = 1; i <= gameState.yellowPlayerCount; i++) {
+            var slotKey = 'yellow-' + i;
+            if (manuallyAssignedSlots.indexOf(slotKey) === -1) {
+                var button = document.getElementById('yellow-player-' + i);
+                if (button) {
+                    var isOptional = i > 5;
+                    var placeholderText = isOptional ? '#' + i + ' (Optional)' : '#' + i;
+                    button.textContent = placeholderText;
+                    button.style.border = '2px dashed #666';
+                    button.style.background = 'linear-gradient(135deg, #0f0f23 0%, #1a1a2e 100%)';
+                    button.style.color = '#ccc';
+                    button.style.fontWeight = 'normal';
+                }
+            }
+        }
+        
+        for (var i = 1; i <= gameState.bluePlayerCount; i++) {
+            var slotKey = 'blue-' + i;
+            if (manuallyAssignedSlots.indexOf(slotKey) === -1) {
+                var button = document.getElementById('blue-player-' + i);
+                if (button) {
+                    var isOptional = i > 5;
+                    var placeholderText = isOptional ? '#' + i + ' (Optional)' : '#' + i;
+                    button.textContent = placeholderText;
+                    button.style.border = '2px dashed #666';
+                    button.style.background = 'linear-gradient(135deg, #0f0f23 0%, #1a1a2e 100%)';
+                    button.style.color = '#ccc';
+                    button.style.fontWeight = 'normal';
+                }
+            }
+        }
+
+        // Get available players (exclude manually assigned ones)
+        var manuallyAssignedPlayers = currentAssignments.map(function(a) { return a.name; });
+        var availablePlayers = [];
+        
+        for (var i = 0; i < playerProfiles.length; i++) {
+            if (manuallyAssignedPlayers.indexOf(playerProfiles[i].name) === -1) {
+                availablePlayers.push(playerProfiles[i]);
+            }
+        }
+        
+        // Shuffle available players; who plays is still down to chance
+        shuffleArray(availablePlayers);
+
+        // Up to 5 empty slots per team get filled
+        var openSlots = { yellow: [], blue: [] };
+        ['yellow', 'blue'].forEach(function(team) {
+            var count = team === 'yellow' ? gameState.yellowPlayerCount : gameState.bluePlayerCount;
+            for (var i = 1; i <= count && openSlots[team].length < 5; i++) {
+                if (manuallyAssignedSlots.indexOf(team + '-' + i) === -1 && document.getElementById(team + '-player-' + i)) {
+                    openSlots[team].push(i);
+                }
+            }
+        });
+        var playing = availablePlayers.slice(0, openSlots.yellow.length + openSlots.blue.length);
+
+        // ...but which team they play for is balanced on their record, if the native side can
+        var balance = balanceLineup(playing, currentAssignments, openSlots);
+        var lineup = balance ? balance.lineup : {
+            yellow: playing.slice(0, openSlots.yellow.length).map(function(p) { return p.name; }),
+            blue: playing.slice(openSlots.yellow.length).map(function(p) { return p.name; })
+        };
+
+        var playersAssigned = 0;
+        ['yellow', 'blue'].forEach(function(team) {
+            for (var i = 0; i < lineup[team].length; i++) {
+                var button = document.getElementById(team + '-player-' + openSlots[team][i]);
+                button.textContent = lineup[team][i];
+                button.style.border = '2px solid #27ae60';
+                button.style.background = '#d5f4e6';
+                button.style.color = '#27ae60';
+                button.style.fontWeight = 'bold';
+                playersAssigned++;
+            }
+        });
+
+        // Update button states
+        refreshPlayerDropdowns();
+
+        var totalAssigned = manuallyAssignedPlayers.length + playersAssigned;
+        var manualCount = manuallyAssignedPlayers.length;
+        var randomCount = playersAssigned;
+        
+        var message = '🎲 Players assigned! ';
+        if (manualCount > 0) {
+            message += manualCount + ' kept from manual assignments, ';
+        }
+        if (balance) {
+            message += randomCount + ' assigned by rating (⚖️ ' + balance.result.yellowRating
+                + ' vs ' + balance.result.blueRating + ')';
+        } else {
+            message += randomCount + ' randomly assigned';
+        }
+        
+        if (totalAssigned >= 10) {
+            message += ' (5 per team)';
+        }
+        
+        var remainingPlayers = playerProfiles.length - totalAssigned;
+        if (remainingPlayers > 0) {
+            message += ' (' + remainingPlayers + ' players unassigned)';
+        }
+
+        if (window.AndroidInterface) {
+            window.AndroidInterface.showToast(message);
+        }
+        
+        // Save the randomly assigned players using the same persistence system
+        debugLog('Saving randomly assigned players to gameState and storage');
+        savePlayerAssignments();
+        preloadLineupAudio();
+    }
+
+    // Splits the players who are about to be placed between the teams' open slots so
+    // that both teams' ratings (from the match history) come out as even as possible.
+    // Manually placed players stay where they are and goalkeepers end up on different
+    // teams. Returns { lineup: { yellow: [names], blue: [names] }, result } or null.
+    function balanceLineup(playing, currentAssignments, openSlots) {
+        if (playing.length < 2 || !window.AndroidInterface || !window.AndroidInterface.balanceTeams) {
+            return null;
+        }
+
+        var fixedCount = { yellow: 0, blue: 0 };
+        var players = currentAssignments.map(function(assignment) {
+            fixedCount[assignment.team]++;
+            return { name: assignment.name, team: assignment.team, goalkeeper: isGoalkeeper(assignment.name) };
+        });
+        playing.forEach(function(profile) {
+            players.push({ name: profile.name, goalkeeper: !!profile.goalkeeper });
+        });
+
+        // New players go to the team with fewer players while it has room
+        var newCount = { yellow: 0, blue: 0 };
+        for (var i = 0; i < playing.length; i++) {
+            var yellowTotal = fixedCount.yellow + newCount.yellow;
+            var blueTotal = fixedCount.blue + newCount.blue;
+            var yellowHasRoom = newCount.yellow < openSlots.yellow.length;
+            var blueHasRoom = newCount.blue < openSlots.blue.length;
+            if (yellowHasRoom && (!blueHasRoom || yellowTotal <= blueTotal)) {
+                newCount.yellow++;
+            } else {
+                newCount.blue++;
+            }
+        }
+
+        try {
+            var response = window.AndroidInterface.balanceTeams(JSON.stringify({
+                players: players,
+                yellowSize: fixedCount.yellow + newCount.yellow,
+                blueSize: fixedCount.blue + newCount.blue
+            }));
+            if (!response) {
+                return null;
+            }
+            var result = JSON.parse(response);
+            var placed = currentAssignments.map(function(a) { return a.name; });
+            var lineup = {
+                yellow: result.yellow.filter(function(name) { return placed.indexOf(name) === -1; }),
+                blue: result.blue.filter(function(name) { return placed.indexOf(name) === -1; })
+            };
+            debugLog('Teams balanced: ' + result.yellowRating + ' vs ' + result.blueRating
+                + (result.optimal ? ' (best possible)' : '') + ' in ' + result.elapsedMs + ' ms'
+                + (result.constraintsMet ? '' : ', goalkeepers could not all be separated'));
+            return { lineup: lineup, result: result };
+        } catch (e) {
+            debugLog('Team balancing unavailable: ' + e.message);
+            return null;
+        }
+    }
+
+    function isGoalkeeper(name) {
+        var profile = playerProfiles.find(function(p) { return p.name === name; });
+        return !!(profile && profile.goalkeeper);
+    }
+
+    // Goalkeepers are kept on different teams when teams are balanced
+    function toggleGoalkeeper(playerId) {
+        var player = playerProfiles.find(function(p) { return p.id === playerId; });
+        if (!player) {
+            return;
+        }
+        player.goalkeeper = !player.goalkeeper;
+        savePlayerProfiles();
+        displayPlayerProfiles();
+        debugLog(player.name + (player.goalkeeper ? ' is now a goalkeeper' : ' is no longer a goalkeeper'));
+    }
+
+    // Helper function to shuffle an array
+    function shuffleArray(array) {
+        for (var i = array.length - 1; i > 0; i--) {
+            var j = Math.floor(Math.random() * (i + 1));
+            var temp = array[i];
+            array[i] = array[j];
+            array[j] = temp;
+        }
+    }
+
+
+    function updateTeamHeaders() {
+        // Update player section headers in game mode
+        var yellowPlayersHeader = document.getElementById('yellow-players-header');
+        var bluePlayersHeader = document.getElementById('blue-players-header');
+        
+        if (yellowPlayersHeader) {
+            yellowPlayersHeader.textContent = '🟡 ' + gameState.yellowTeamName + ' Players';
+        }
+        if (bluePlayersHeader) {
+            bluePlayersHeader.textContent = '🔵 ' + gameState.blueTeamName + ' Players';
+        }
+        
+        // Update score header if game is started
+        if (gameState.isGameStarted) {
+            var yellowNameHeader = document.getElementById('yellow-team-name-header');
+            var blueNameHeader = document.getElementById('blue-team-name-header');
+            
+            if (yellowNameHeader) {
+                yellowNameHeader.textContent = gameState.yellowTeamName;
+            }
+            if (blueNameHeader) {
+                blueNameHeader.textContent = gameState.blueTeamName;
+            }
+        }
+    }
+
+    function initializePlayerStats() {
+        gameState.playerStats = {};
+
+        for (var i = 0; i < gameState.yellowPlayers.length; i++) {
+            var player = gameState.yellowPlayers[i];
+            if (player !== 'OWN GOAL') {
+                gameState.playerStats['yellow-' + player] = {
+                    goals: 0,
+                    assists: 0,
+                    team: 'yellow',
+                    name: player
+                };
+            }
+        }
+
+        for (var i = 0; i < gameState.bluePlayers.length; i++) {
+            var player = gameState.bluePlayers[i];
+            if (player !== 'OWN GOAL') {
+                gameState.playerStats['blue-' + player] = {
+                    goals: 0,
+                    assists: 0,
+                    team: 'blue',
+                    name: player
+                };
+            }
+        }
+
+        debugLog('Player stats initialized');
+    }
+
+    function generatePlayerButtons() {
+        debugLog('Generating player buttons');
+
+        var yellowContainer = document.getElementById('yellow-players-game');
+        var blueContainer = document.getElementById('blue-players-game');
+
+        if (!yellowContainer || !blueContainer) {
+            debugLog('ERROR: Player containers not found');
+            return;
+        }
+
+        yellowContainer.innerHTML = '';
+        blueContainer.innerHTML = '';
+
+        for (var i = 0; i < gameState.yellowPlayers.length; i++) {
+            var player = gameState.yellowPlayers[i];
+            var button = document.createElement('button');
+            button.className = player === 'OWN GOAL' ? 'player-btn own-goal-btn' : 'player-btn yellow';
+            button.textContent = player;
+            button.onclick = (function(team, playerName, index) {
+                return function() {
+                    scoreGoal(team, playerName, index);
+                };
+            })('yellow', player, i);
+            yellowContainer.appendChild(button);
+        }
+
+        for (var i = 0; i < gameState.bluePlayers.length; i++) {
+            var player = gameState.bluePlayers[i];
+            var button = document.createElement('button');
+            button.className = player === 'OWN GOAL' ? 'player-btn own-goal-btn' : 'player-btn blue';
+            button.textContent = player;
+            button.onclick = (function(team, playerName, index) {
+                return function() {
+                    scoreGoal(team, playerName, index);
+                };
+            })('blue', player, i);
+            blueContainer.appendChild(button);
+        }
+
+        debugLog('Generated ' + gameState.yellowPlayers.length + ' yellow buttons and ' + gameState.bluePlayers.length + ' blue buttons');
+    }
+
+    function updateCustomSoundButtons() {
+        generateCustomSoundCards();
+        generateGameModeCustomSounds();
+    }
+
+    function generateCustomSoundCards() {
+        var container = document.getElementById('custom-sound-grid');
+        container.innerHTML = '';
+
+        for (var i = 1; i <= 8; i++) {
+            var soundKey = 'custom-sound-' + i;
+            var hasSound = gameState.soundAssignments[soundKey] ? true : false;
+            var soundName = gameState.customSoundNames[i] || 'Custom Effect ' + i;
+            
+            var card = document.createElement('div');
+            card.className = 'custom-sound-card';
+            
+            var statusText = hasSound ? 'Sound assigned' : 'No sound assigned';
+            var statusColor = hasSound ? '#4ade80' : 'rgba(255, 255, 255, 0.7)';
+            
+            card.innerHTML = 
+                '<div class="custom-sound-card-header">' +
+                    '<div class="custom-sound-info">' +
+                        '<div class="custom-sound-title">' + soundName + '</div>' +
+                        '<div class="custom-sound-status" style="color: ' + statusColor + '">' + statusText + '</div>' +
+                    '</div>' +
+                '</div>' +
+                '<div class="custom-sound-controls">' +
+                    '<input type="text" class="custom-sound-name-input" ' +
+                           'placeholder="Enter custom name..." ' +
+                           'value="' + (gameState.customSoundNames[i] || '') + '"' +
+                           'maxlength="20"' +
+                           'onchange="updateCustomSoundName(' + i + ', this.value)"' +
+                           'onblur="updateCustomSoundName(' + i + ', this.value)">' +
+                    '<button class="custom-sound-assign-btn" ' +
+                            'onclick="uploadSoundDirectly(\'custom-sound-' + i + '\')">' +
+                        '📁 ' + (hasSound ? 'Change' : 'Upload') +
+                    '</button>' +
+                    (hasSound ? '<button class="custom-sound-play-btn" ' +
+                                         'onclick="playCustomSound(' + i + ')"' +
+                                         'title="Play sound">' +
+                                        '▶' +
+                                  '</button>' +
+                                  '<button class="remove-sound-btn" ' +
+                                         'onclick="unassignSound(\'custom-sound-' + i + '\')"' +
+                                         'title="Remove assigned sound">' +
+                                        '🗑️' +
+                                  '</button>' : '') +
+                '</div>';
+            
+            container.appendChild(card);
+        }
+    }
+
+    function generateGameModeCustomSounds() {
+        var gameContainer = document.getElementById('custom-sounds-grid');
+        var sectionContainer = document.getElementById('custom-sounds-section');
+        
+        if (!gameContainer || !sectionContainer) return;
+        
+        gameContainer.innerHTML = '';
+        
+        // Only show custom sounds if game has been started at least once
+        if (!gameState.isGameStarted && !gameState.hasGameBeenStarted) {
+            sectionContainer.style.display = 'none';
+            return;
+        }
+        
+        var hasAnySounds = false;
+        
+        // Only create buttons for sounds that actually have assignments
+        for (var i = 1; i <= 10; i++) {
+            var soundKey = 'custom-sound-' + i;
+            var hasSound = gameState.soundAssignments[soundKey] ? true : false;
+            
+            // Skip if no sound is assigned to this slot
+            if (!hasSound) continue;
+            
+            hasAnySounds = true;
+            var soundName = gameState.customSoundNames[i] || 'Custom Sound ' + i;
+            
+            var button = document.createElement('button');
+            button.className = 'custom-sound-btn';
+            
+            // Simple button with just the sound name
+            button.textContent = soundName;
+            
+            // Set click handler (function will check game state)
+            button.onclick = function(soundNum) {
+                return function() {
+                    playCustomSound(soundNum);
+                };
+            }(i);
+            
+            gameContainer.appendChild(button);
+        }
+        
+        // Show section if there are sounds, or show message if no sounds
+        if (hasAnySounds) {
+            sectionContainer.style.display = 'block';
+        } else {
+            // Show helpful message when no custom sounds are configured
+            gameContainer.innerHTML = '<p style="text-align: center; color: rgba(255,255,255,0.7); font-style: italic; margin: 0;">No custom sounds configured. Go to 🎵 Effects tab to upload sounds.</p>';
+            sectionContainer.style.display = 'block';
+        }
+    }
+
+    function updateCustomSoundName(soundNumber, newName) {
+        var trimmedName = newName.trim();
+        if (trimmedName) {
+            gameState.customSoundNames[soundNumber] = trimmedName;
+        } else {
+            gameState.customSoundNames[soundNumber] = 'Custom Effect ' + soundNumber;
+        }
+        
+        // Update the card display
+        setTimeout(function() {
+            generateCustomSoundCards();
+            generateGameModeCustomSounds();
+        }, 100);
+        
+        // Auto-save to Android storage
+        autoSaveSounds();
+    }
+
+    // New function to save effect names
+    function saveEffectNames() {
+        for (var i = 1; i <= 8; i++) {
+            var input = document.getElementById('rename-effect-' + i);
+            if (input && input.value.trim()) {
+                gameState.customSoundNames[i] = input.value.trim();
+            }
+        }
+
+        updateCustomSoundButtons();
+
+
+        // Save to localStorage or Android storage
+        autoSaveSounds();
+    }
+
+    function playCustomSound(soundNumber) {
+        if (!gameState.isGameStarted) {
+            var message = 'Please start the game first!';
+            if (window.AndroidInterface) {
+                window.AndroidInterface.showToast(message);
+            }
+            return;
+        }
+        
+        var soundKey = 'custom-sound-' + soundNumber;
+        var soundName = gameState.customSoundNames[soundNumber];
+
+        debugLog('Playing custom sound: ' + soundName + ' (' + soundKey + ')');
+
+        // Stop any currently playing audio
+        stopCurrentAudio();
+
+        var soundId = gameState.soundAssignments[soundKey];
+
+        if (soundId) {
+            var sound = null;
+            for (var i = 0; i < gameState.sounds.length; i++) {
+                if (gameState.sounds[i].id === soundId) {
+                    sound = gameState.sounds[i];
+                    break;
+                }
+            }
+
+            if (sound) {
+                playSound(sound, soundName);
+            } else {
+                debugLog('Sound not found for ID: ' + soundId);
+            }
+        } else {
+            debugLog('No sound assigned for: ' + soundName);
+        }
+    }
+
+    function scoreGoal(team, player, playerIndex) {
+        if (!gameState.isGameStarted) {
+            var message = 'Please start the game first!';
+            if (window.AndroidInterface) {
+                window.AndroidInterface.showToast(message);
+            }
+            return;
+        }
+
+        debugLog('Goal scored: ' + team + ' - ' + player);
+
+        gameState.currentGoal = {
+            team: team,
+            player: player,
+            playerIndex: playerIndex,
+            timestamp: new Date()
+        };
+
+        // Handle OWN GOAL differently - no assists, just confirm/cancel
+        if (player === 'OWN GOAL') {
+            var teamDisplayName = team === 'yellow' ? gameState.yellowTeamName : gameState.blueTeamName;
+            document.getElementById('own-goal-team').textContent = (team === 'yellow' ? '🟡 ' : '🔵 ') + teamDisplayName;
+            document.getElementById('own-goal-modal').style.display = 'block';
+            return;
+        }
+
+        // Regular goal - show assist modal
+        document.getElementById('goal-scorer').textContent = player;
+
+        var assistButtons = document.getElementById('assist-buttons');
+        assistButtons.innerHTML = '';
+
+        var teamPlayers = team === 'yellow' ? gameState.yellowPlayers : gameState.bluePlayers;
+        for (var i = 0; i < teamPlayers.length; i++) {
+            var teamPlayer = teamPlayers[i];
+            if (teamPlayer !== player && teamPlayer !== 'OWN GOAL') {
+                var assistBtn = document.createElement('button');
+                assistBtn.className = 'assist-btn';
+                assistBtn.textContent = teamPlayer;
+                assistBtn.onclick = (function(assistPlayer, index) {
+                    return function() {
+                        selectAssist(assistPlayer, index);
+                    };
+                })(teamPlayer, i);
+                assistButtons.appendChild(assistBtn);
+            }
+        }
+
+        document.getElementById('assist-modal').style.display = 'block';
+    }
+
+    function selectAssist(assistPlayer, assistIndex) {
+        gameState.currentGoal.assist = assistPlayer;
+        gameState.currentGoal.assistIndex = assistIndex;
+        confirmGoal();
+    }
+
+    function cancelOwnGoal() {
+        document.getElementById('own-goal-modal').style.display = 'none';
+        gameState.currentGoal = null;
+    }
+
+    function updatePlayerStats(goal) {
+        if (goal.player !== 'OWN GOAL') {
+            var playerKey = goal.team + '-' + goal.player;
+            if (gameState.playerStats[playerKey]) {
+                gameState.playerStats[playerKey].goals++;
+            }
+        }
+
+        if (goal.assist) {
+            var assistKey = goal.team + '-' + goal.assist;
+            if (gameState.playerStats[assistKey]) {
+                gameState.playerStats[assistKey].assists++;
+            }
+        }
+
+        debugLog('Player stats updated');
+    }
+
+    function cancelGoal() {
+        document.getElementById('assist-modal').style.display = 'none';
+        gameState.currentGoal = null;
+    }
+
+    function undoLastAction() {
+        // Find the last goal or own-goal action (working backwards from the end)
+        var lastActionIndex = -1;
+        for (var i = gameState.actionLog.length - 1; i >= 0; i--) {
+            var action = gameState.actionLog[i];
+            if (action.type === 'goal' || action.type === 'own-goal') {
+                lastActionIndex = i;
+                break;
+            }
+        }
+
+        if (lastActionIndex === -1) {
+            var message = 'No goals to undo!';
+            alert(message);
+            if (window.AndroidInterface) {
+                // window.AndroidInterface.showToast(message);
+            }
+            return;
+        }
+
+        var lastAction = gameState.actionLog[lastActionIndex];
+
+        debugLog('Found action to undo at index ' + lastActionIndex + ': ' + lastAction.text);
+
+        // Update scores and stats FIRST
+        if (lastAction.type === 'goal') {
+            // Undo regular goal
+            if (lastAction.team === 'yellow') {
+                gameState.yellowScore = Math.max(0, gameState.yellowScore - 1);
+                document.getElementById('yellow-score').textContent = gameState.yellowScore;
+            } else {
+                gameState.blueScore = Math.max(0, gameState.blueScore - 1);
+                document.getElementById('blue-score').textContent = gameState.blueScore;
+            }
+        // Update announcer-related state
+        gameState.totalGoalsScored = Math.max(0, gameState.totalGoalsScored - 1);
+
+        // Recalculate lead flags
+        var scoreDiff = Math.abs(gameState.yellowScore - gameState.blueScore);
+        if (scoreDiff < 3) {
+            gameState.hasThreeGoalLead = false;
+        }
+        if (scoreDiff < 5) {
+            gameState.hasFiveGoalLead = false;
+        }
+            // Update player stats
+            if (lastAction.player && lastAction.player !== 'OWN GOAL') {
+                var playerKey = lastAction.team + '-' + lastAction.player;
+                if (gameState.playerStats[playerKey]) {
+                    gameState.playerStats[playerKey].goals = Math.max(0, gameState.playerStats[playerKey].goals - 1);
+                }
+            }
+
+            if (lastAction.assist) {
+                var assistKey = lastAction.team + '-' + lastAction.assist;
+                if (gameState.playerStats[assistKey]) {
+                    gameState.playerStats[assistKey].assists = Math.max(0, gameState.playerStats[assistKey].assists - 1);
+                }
+            }
+        } else if (lastAction.type === 'own-goal') {
+            // Undo own goal
+            if (lastAction.scoringTeam === 'yellow') {
+                gameState.yellowScore = Math.max(0, gameState.yellowScore - 1);
+                document.getElementById('yellow-score').textContent = gameState.yellowScore;
+            } else {
+                gameState.blueScore = Math.max(0, gameState.blueScore - 1);
+                document.getElementById('blue-score').textContent = gameState.blueScore;
+            }
+        }
+
+        // Remove the action from the array
+        gameState.actionLog.splice(lastActionIndex, 1);
+        journalEntry('undo', lastAction);
+
+        // Only the undone entry's node goes
+        removeLogEntry(lastAction);
+
+        // Show success message
+        debugLog('Successfully undid: ' + lastAction.text);
+    }
+
+    // Match log view. Every action has one node keyed by its journal event id,
+    // so adding, editing or deleting an entry touches only that node, and a
+    // full render reuses the nodes it already has. Long logs keep only the
+    // latest LOG_RENDER_WINDOW entries in the DOM; earlier ones are added a
+    // window at a time from the button at the top. Clicks are handled once on
+    // the container (handleLogClick) instead of by inline handlers per button.
+    var LOG_RENDER_WINDOW = 150;
+    var logView = {
+        nodes: {},          // event id -> node
+        windowSize: LOG_RENDER_WINDOW,
+        earlierButton: null,
+        listening: false
+    };
+
+    function logContainerElement() {
+        var container = document.getElementById('log-entries');
+        if (!logView.listening) {
+            container.addEventListener('click', handleLogClick);
+            logView.listening = true;
+        }
+        return container;
+    }
+
+    function handleLogClick(event) {
+        var button = event.target.closest('[data-log-action]');
+        if (!button) return;
+
+        var action = button.getAttribute('data-log-action');
+        if (action === 'show-earlier') {
+            logView.windowSize += LOG_RENDER_WINDOW;
+            renderLog(false);
+            return;
+        }
+
+        var node = button.closest('[data-log-id]');
+        var index = node ? findLogIndex(node.getAttribute('data-log-id')) : -1;
+        if (index === -1) return;
+        if (action === 'edit') {
+            editLogEntry(index);
+        } else if (action === 'delete') {
+            deleteLogEntry(index);
+        }
+    }
+
+    // Position of the entry in gameState.actionLog; recent entries are searched first
+    function findLogIndex(id) {
+        for (var i = gameState.actionLog.length - 1; i >= 0; i--) {
+            if (gameState.actionLog[i].id === id) return i;
+        }
+        return -1;
+    }
+
+    function createLogNode(entry) {
+        var node = document.createElement('div');
+        node.setAttribute('data-log-id', entry.id);
+        var text = document.createElement('span');
+        text.className = 'log-entry-text';
+        node.appendChild(text);
+        patchLogNode(node, entry);
+        return node;
+    }
+
+    // Brings a node in line with its entry, writing only what changed
+    function patchLogNode(node, entry) {
+        var editable = entry.type === 'goal' || entry.type === 'own-goal';
+        var team = entry.type === 'goal' ? entry.team : entry.type === 'own-goal' ? entry.scoringTeam : '';
+        var className = 'log-entry' + (team ? ' ' + team : '');
+        if (node.className !== className) {
+            node.className = className;
+        }
+        if (node.firstChild.textContent !== entry.text) {
+            node.firstChild.textContent = entry.text;
+        }
+
+        var actions = node.querySelector('.log-entry-actions');
+        if (editable && !actions) {
+            actions = document.createElement('div');
+            actions.className = 'log-entry-actions';
+            actions.innerHTML = '<button class="log-action-btn edit" data-log-action="edit">✏️</button>' +
+                '<button class="log-action-btn delete" data-log-action="delete">❌</button>';
+            node.appendChild(actions);
+        } else if (!editable && actions) {
+            node.removeChild(actions);
+        }
+    }
+
+    function firstLogNode(container) {
+        var first = container.firstChild;
+        return first && first === logView.earlierButton ? first.nextSibling : first;
+    }
+
+    function updateEarlierButton(container, hidden) {
+        var button = logView.earlierButton;
+        if (hidden > 0) {
+            if (!button) {
+                button = document.createElement('button');
+                button.className = 'log-show-earlier';
+                button.setAttribute('data-log-action', 'show-earlier');
+                logView.earlierButton = button;
+            }
+            if (container.firstChild !== button) {
+                container.insertBefore(button, container.firstChild);
+            }
+            button.textContent = '⬆️ Show earlier events (' + hidden + ' hidden)';
+        } else if (button && button.parentNode) {
+            button.parentNode.removeChild(button);
+        }
+    }
+
+    function scrollLogToEnd() {
+        // The log box scrolls, not the entry list inside it
+        var scroller = document.getElementById('action-log');
+        scroller.scrollTop = scroller.scrollHeight;
+    }
+
+    // Reconciles the DOM with gameState.actionLog: nodes of entries that are gone
+    // (or scrolled out of the window) are removed, missing ones created, and
+    // existing ones patched and moved only if they are out of place
+    function renderLog(scrollToEnd) {
+        var container = logContainerElement();
+        var log = gameState.actionLog;
+        var first = Math.max(0, log.length - logView.windowSize);
+
+        var wanted = {};
+        for (var i = first; i < log.length; i++) {
+            if (!log[i].id) {
+                log[i].id = newEventId();
+            }
+            wanted[log[i].id] = true;
+        }
+        for (var id in logView.nodes) {
+            if (!wanted[id]) {
+                var stale = logView.nodes[id];
+                if (stale.parentNode) stale.parentNode.removeChild(stale);
+                delete logView.nodes[id];
+            }
+        }
+
+        var cursor = firstLogNode(container);
+        for (var j = first; j < log.length; j++) {
+            var entry = log[j];
+            var node = logView.nodes[entry.id];
+            if (node) {
+                patchLogNode(node, entry);
+            } else {
+                node = createLogNode(entry);
+                logView.nodes[entry.id] = node;
+            }
+            if (node === cursor) {
+                cursor = cursor.nextSibling;
+            } else {
+                container.insertBefore(node, cursor);
+            }
+        }
+
+        updateEarlierButton(container, first);
+        if (scrollToEnd !== false) {
+            scrollLogToEnd();
+        }
+    }
+
+    // Adds the entry just pushed onto gameState.actionLog
+    function appendLogEntry(entry) {
+        var container = logContainerElement();
+        var log = gameState.actionLog;
+        if (!entry.id) {
+            entry.id = newEventId();
+        }
+        var node = createLogNode(entry);
+        logView.nodes[entry.id] = node;
+        container.appendChild(node);
+
+        // Keep the window size: the oldest rendered entry drops out
+        var hidden = log.length - logView.windowSize;
+        if (hidden > 0) {
+            var leaving = logView.nodes[log[hidden - 1].id];
+            if (leaving) {
+                container.removeChild(leaving);
+                delete logView.nodes[log[hidden - 1].id];
+            }
+            updateEarlierButton(container, hidden);
+        }
+        scrollLogToEnd();
+    }
+
+    function updateLogEntry(entry) {
+        var node = logView.nodes[entry.id];
+        if (node) {
+            patchLogNode(node, entry);
+        }
+    }
+
+    // Call after the entry has been taken out of gameState.actionLog
+    function removeLogEntry(entry) {
+        var node = logView.nodes[entry.id];
+        if (node) {
+            node.parentNode.removeChild(node);
+            delete logView.nodes[entry.id];
+        }
+        // One hidden entry moves into the window
+        if (gameState.actionLog.length >= logView.windowSize) {
+            renderLog(false);
+        }
+    }
+
+    function resetMatch() {
+        debugLog('Reset button clicked - showing confirmation modal');
+
+        // Show custom reset confirmation modal
+        document.getElementById('reset-modal').style.display = 'block';
+    }
+
+    function cancelReset() {
+        debugLog('Reset cancelled by user');
+        document.getElementById('reset-modal').style.display = 'none';
+    }
+
+    function confirmReset() {
+        debugLog('Reset confirmed by user - executing reset');
+        document.getElementById('reset-modal').style.display = 'none';
+
+        // Reset scores to 0-0
+        gameState.yellowScore = 0;
+        gameState.blueScore = 0;
+        document.getElementById('yellow-score').textContent = '0';
+        document.getElementById('blue-score').textContent = '0';
+        // Add these lines to reset announcer state:
+        gameState.totalGoalsScored = 0;
+        gameState.hasThreeGoalLead = false;
+        gameState.hasFiveGoalLead = false;
+
+        // Clear all action log
+        gameState.actionLog = [];
+
+        // Reset all player stats to 0
+        for (var key in gameState.playerStats) {
+            gameState.playerStats[key].goals = 0;
+            gameState.playerStats[key].assists = 0;
+        }
+
+        // Add reset entry to log
+        var resetEntry = {
+            type: 'system',
+            text: '🔄 Match Reset - All data cleared',
+            timestamp: new Date()
+        };
+        gameState.actionLog.push(resetEntry);
+        journalEntry('reset', resetEntry);
+
+        // Replace the log display with just the reset entry
+        logView.windowSize = LOG_RENDER_WINDOW;
+        renderLog();
+
+        // Show success message
+        debugLog('Match reset completed - all data cleared');
+
+
+        // Add a brief visual feedback
+        document.getElementById('yellow-score').classList.add('score-animation');
+        document.getElementById('blue-score').classList.add('score-animation');
+        setTimeout(function() {
+            document.getElementById('yellow-score').classList.remove('score-animation');
+            document.getElementById('blue-score').classList.remove('score-animation');
+        }, 1000);
+    }
+
+    function exportLog() {
+        debugLog('exportLog() function called');
+        
+        if (gameState.actionLog.length === 0) {
+            var message = 'No match data to export!';
+            debugLog('No action log data to export');
+            alert(message);
+            return;
+        }
+
+        // Native export reads the match journal and streams the file on its own
+        // thread, asking for text, CSV or JSON; the page only builds the report
+        // itself when that isn't available
+        if (window.AndroidInterface && window.AndroidInterface.exportMatchReport) {
+            try {
+                if (window.AndroidInterface.exportMatchReport('')) {
+                    debugLog('Native match report export started');
+                    return;
+                }
+            } catch (error) {
+                logWarn('Native report export failed, building it here: ' + error.message);
+            }
+        }
+
+        debugLog('Generating match report...');
+        var report = generateMatchReport();
+        var filename = 'football_match_' + new Date().toISOString().split('T')[0] + '_' + new Date().toTimeString().split(' ')[0].replace(/:/g, '-') + '.txt';
+        debugLog('Generated filename: ' + filename);
+
+        if (window.AndroidInterface) {
+            debugLog('AndroidInterface is available');
+            
+            debugLog('Calling AndroidInterface.saveMatchReport...');
+            try {
+                window.AndroidInterface.saveMatchReport(report, filename);
+                debugLog('AndroidInterface.saveMatchReport called successfully');
+                
+                // Show success dialog
+                showExportSuccessDialog(filename);
+            } catch (error) {
+                debugLog('Error calling AndroidInterface.saveMatchReport: ' + error.message);
+                alert('Error saving report: ' + error.message);
+            }
+        } else {
+            debugLog('AndroidInterface not available, showing alert');
+            alert('Match report ready:\n\n' + report);
+        }
+    }
+
+    function showExportSuccessDialog(filename) {
+        var dialog = confirm(
+            '📄 Match Report Exported\n\n' +
+            'File saved to Downloads folder:\n' + filename + '\n\n' +
+            'The report includes match timeline, scores, and player stats.\n\n' +
+            'Click OK to continue or Cancel to view Downloads folder.'
+        );
+        
+        if (!dialog && window.AndroidInterface && window.AndroidInterface.openDownloadsFolder) {
+            try {
+                window.AndroidInterface.openDownloadsFolder();
+            } catch (e) {
+                debugLog('Could not open downloads folder: ' + e.message);
+            }
+        }
+
+        debugLog('Match report export process completed: ' + filename);
+    }
+
+    // Debug function to check interface status
+    function checkInterfaceStatus() {
+        var status = {
+            windowAndroidInterface: typeof window.AndroidInterface !== 'undefined',
+            saveMatchReport: false,
+            testInterface: false,
+            timestamp: new Date().toISOString()
+        };
+        
+        if (window.AndroidInterface) {
+            status.saveMatchReport = typeof window.AndroidInterface.saveMatchReport === 'function';
+            status.testInterface = typeof window.AndroidInterface.testInterface === 'function';
+        }
+        
+        debugLog(function() { return 'Interface Status Check: ' + JSON.stringify(status); });
+        
+        return status;
+    }
+
+    // Debug display removed
+
+
+    function getAllPlayerStats() {
+        var players = [];
+        for (var key in gameState.playerStats) {
+            var player = gameState.playerStats[key];
+            // Only include players who have goals or assists
+            if (player.goals > 0 || player.assists > 0) {
+                players.push(player);
+            }
+        }
+
+        // Sort by goals first (descending), then by assists (descending)
+        players.sort(function(a, b) {
+            if (b.goals !== a.goals) {
+                return b.goals - a.goals; // Sort by goals first
+            }
+            return b.assists - a.assists; // Then by assists
+        });
+
+        return players;
+    }
+
+    function getTopScorers() {
+        var players = [];
+        for (var key in gameState.playerStats) {
+            if (gameState.playerStats[key].goals > 0) {
+                players.push(gameState.playerStats[key]);
+            }
+        }
+        players.sort(function(a, b) {
+            return b.goals - a.goals;
+        });
+        return players.slice(0, 5);
+    }
+
+    function getTopAssistants() {
+        var players = [];
+        for (var key in gameState.playerStats) {
+            if (gameState.playerStats[key].assists > 0) {
+                players.push(gameState.playerStats[key]);
+            }
+        }
+        players.sort(function(a, b) {
+            return b.assists - a.assists;
+        });
+        return players.slice(0, 5);
+    }
+
+    // Season leaderboards come from the native match history, which keeps
+    // per-player totals for every finished match. season: '' for the current
+    // one, 'all' for every season. Without it only the current match is known.
+    function getSeasonLeaderboard(stat, limit, season) {
+        if (window.AndroidInterface && window.AndroidInterface.getSeasonLeaderboard) {
+            try {
+                return JSON.parse(window.AndroidInterface.getSeasonLeaderboard(season || '', stat, limit || 5));
+            } catch (error) {
+                logWarn('Error reading season leaderboard: ' + error.message);
+            }
+        }
+        return stat === 'assists' ? getTopAssistants() : getTopScorers();
+    }
+
+    function getSeasonTopScorers(limit, season) {
+        return getSeasonLeaderboard('goals', limit, season);
+    }
+
+    function getSeasonTopAssistants(limit, season) {
+        return getSeasonLeaderboard('assists', limit, season);
+    }
+
+    function showSeasonLeaderboard() {
+        if (window.AndroidInterface && window.AndroidInterface.showSeasonLeaderboard) {
+            window.AndroidInterface.showSeasonLeaderboard();
+            return;
+        }
+
+        var scorers = getTopScorers();
+        var text = '🏆 Top scorers (this match)\n\n';
+        for (var i = 0; i < scorers.length; i++) {
+            text += (i + 1) + '. ' + scorers[i].name + ' - ' + scorers[i].goals + '\n';
+        }
+        alert(scorers.length > 0 ? text : 'No goals recorded yet');
+    }
+
+    // Complete Sound Functions
+    function openNativeSoundPicker() {
+        if (window.AndroidInterface) {
+            debugLog('Opening native sound picker');
+            if (window.AndroidInterface.openMultiSoundPicker) {
+                window.AndroidInterface.openMultiSoundPicker();
+            } else {
+                window.AndroidInterface.openSoundPicker();
+            }
+        } else {
+            alert('Native sound picker only works in the Android app!');
+        }
+    }
+
+    // Upload size limit; configurable on the native side (default 20MB)
+    function getMaxUploadSize() {
+        if (window.AndroidInterface && window.AndroidInterface.getMaxImportSize) {
+            return window.AndroidInterface.getMaxImportSize();
+        }
+        return 20 * 1024 * 1024;
+    }
+
+    // Native -> page messages: {v, seq, type, payload}, see BridgeMessages. They
+    // arrive over a MessagePort handed over once per page load, or through
+    // receiveNativeMessage() on WebViews without message channels. Each one is
+    // parsed exactly once; handlers get the payload as an object.
+    var NATIVE_MESSAGE_VERSION = 1;
+    var nativePort = null;
+    var nativeHandlers = {
+        library: function(payload) { loadSoundsFromAndroid(payload, ''); },
+        playerAssignments: function(payload) {
+            // Assignments travel inside the library now; this is for older saves only
+            if (typeof loadPlayerAssignmentsFromAndroid === 'function') {
+                loadPlayerAssignmentsFromAndroid(payload);
+            }
+        },
+        clipImported: function(payload) { onClipImported(payload); },
+        importProgress: function(payload) { onImportProgress(payload); },
+        importBatchComplete: function(payload) { onImportBatchComplete(payload); },
+        announcementFinished: function(payload) { onAnnouncementFinished(payload); }
+    };
+
+    function receiveNativeMessage(data) {
+        var message;
+        try {
+            message = typeof data === 'string' ? JSON.parse(data) : data;
+        } catch (e) {
+            debugLog('Unreadable native message: ' + e.message);
+            return;
+        }
+        if (message.v !== NATIVE_MESSAGE_VERSION) {
+            debugLog('Ignoring native message version ' + message.v + ' (' + message.type + ')');
+        } else if (!nativeHandlers[message.type]) {
+            debugLog('No handler for native message: ' + message.type);
+        } else {
+            try {
+                nativeHandlers[message.type](message.payload);
+            } catch (e) {
+                console.error('Error handling native message ' + message.type + ':', e);
+            }
+        }
+        // Lets native code time the push end to end
+        if (nativePort) {
+            nativePort.postMessage(JSON.stringify({ ack: message.seq }));
+        }
+    }
+    window.receiveNativeMessage = receiveNativeMessage;
+
+    window.addEventListener('message', function(event) {
+        if (event.data !== 'bridge-port' || !event.ports || event.ports.length === 0) return;
+        if (nativePort) {
+            nativePort.close();
+        }
+        nativePort = event.ports[0];
+        nativePort.onmessage = function(e) { receiveNativeMessage(e.data); };
+        debugLog('Native message channel open');
+    });
+
+    // Called by MainActivity once a picked file has been streamed into the audio store.
+    // clip = {id, name, size, mime, hash, duration}
+    function onClipImported(clip) {
+        debugLog('Clip imported: ' + clip.name + ' (' + clip.size + ' bytes, ' + (clip.duration || 0) + ' ms)');
+        window.addSoundFromNative(clip.name, clip.id, clip.size, clip.mime, clip.duration || 0);
+    }
+
+    // Multi-file import: one event per finished file
+    // progress = {completed, total, name, status: 'added' | 'duplicate' | 'failed', error}
+    function onImportProgress(progress) {
+        var prefix = '⏳ ' + progress.completed + '/' + progress.total + ' ';
+        if (progress.status === 'failed') {
+            debugLog('Import failed: ' + progress.name + ' - ' + progress.error);
+            showUploadStatus(prefix + '❌ ' + progress.name + ': ' + progress.error, 'error');
+        } else if (progress.status === 'duplicate') {
+            showUploadStatus(prefix + '♻️ Already in library: ' + progress.name, 'success');
+        } else {
+            showUploadStatus(prefix + '✅ ' + progress.name, 'success');
+        }
+    }
+
+    // Multi-file import finished: add every new clip, then save once
+    // result = {clips: [{id, name, size, mime, hash, duration}], duplicates, failed}
+    function onImportBatchComplete(result) {
+        var soundList = document.getElementById('sound-list');
+
+        for (var i = 0; i < result.clips.length; i++) {
+            var clip = result.clips[i];
+            var sound = {
+                name: clip.name,
+                id: clip.id,
+                size: clip.size,
+                type: clip.mime || 'audio/mpeg',
+                duration: clip.duration || 0,
+                assigned: false,
+                uploadDate: new Date().toISOString()
+            };
+            gameState.sounds.push(sound);
+            if (soundList) {
+                displaySoundItem(sound);
+            }
+        }
+
+        if (result.clips.length > 0) {
+            autoSaveSounds();
+        }
+
+        var summary = '✅ Imported ' + result.clips.length + ' sound' + (result.clips.length !== 1 ? 's' : '');
+        if (result.duplicates > 0) {
+            summary += ', ' + result.duplicates + ' duplicate' + (result.duplicates !== 1 ? 's' : '') + ' skipped';
+        }
+        if (result.failed > 0) {
+            summary += ', ' + result.failed + ' failed';
+        }
+        showUploadStatus(summary, result.failed > 0 ? 'error' : 'success');
+        debugLog('Batch import complete. Total sounds: ' + gameState.sounds.length);
+    }
+
+    function addSoundFromNative(fileName, clipId, fileSize, mimeType, durationMs) {
+        debugLog('Adding sound from native: ' + fileName + ', Size: ' + fileSize);
+
+        var maxSize = getMaxUploadSize();
+        if (fileSize > maxSize) {
+            var sizeInMB = (fileSize / (1024 * 1024)).toFixed(1);
+            var message = 'File size too large! Maximum allowed: ' + Math.round(maxSize / (1024 * 1024)) + 'MB, your file: ' + sizeInMB + 'MB';
+            alert(message);
+            if (window.AndroidInterface) {
+                window.AndroidInterface.showToast(message);
+            }
+            return;
+        }
+
+        try {
+            var sound = {
+                name: fileName,
+                id: clipId,
+                size: fileSize,
+                type: mimeType || 'audio/mpeg',
+                duration: durationMs || 0,
+                assigned: false,
+                uploadDate: new Date().toISOString()
+            };
+
+            gameState.sounds.push(sound);
+
+            // Make sure the sound list exists before trying to display
+            var soundList = document.getElementById('sound-list');
+            if (soundList) {
+                displaySoundItem(sound);
+            } else {
+                debugLog('Warning: sound-list element not found, will display on next refresh');
+            }
+
+            autoSaveSounds();
+            showUploadStatus('✅ Successfully uploaded: ' + fileName, 'success');
+
+            debugLog('Sound added successfully. Total sounds: ' + gameState.sounds.length);
+
+            if (window.AndroidInterface) {
+                // window.AndroidInterface.showToast('🎵 "' + fileName + '" uploaded successfully');
+            }
+        } catch (error) {
+            debugLog('Error in addSoundFromNative: ' + error.message);
+            // Still show success if the sound was added
+            if (gameState.sounds.length > 0) {
+                showUploadStatus('✅ Successfully uploaded: ' + fileName, 'success');
+                if (window.AndroidInterface) {
+                    // window.AndroidInterface.showToast('🎵 "' + fileName + '" uploaded successfully');
+                }
+            } else {
+                showUploadStatus('❌ Error adding sound: ' + error.message, 'error');
+            }
+        }
+    }
+
+    // Audio bytes live in the native audio store and are streamed by MainActivity's
+    // request interceptor from this virtual host; sounds only carry the clip id.
+    // Entries still holding an inline data URL (not yet saved natively) play from it directly.
+    var AUDIO_BASE_URL = 'https://audio.local/';
+
+    function getSoundSource(sound) {
+        if (sound.data) {
+            return sound.data;
+        }
+        return sound.id ? AUDIO_BASE_URL + encodeURIComponent(sound.id) : '';
+    }
+
+    function showUploadStatus(message, type) {
+        var statusDiv = document.getElementById('upload-status');
+        if (statusDiv) {
+            statusDiv.style.display = 'block';
+            statusDiv.style.color = type === 'success' ? '#27ae60' : '#e74c3c';
+            statusDiv.style.background = type === 'success' ? 'rgba(39, 174, 96, 0.2)' : 'rgba(231, 76, 60, 0.2)';
+            statusDiv.textContent = message;
+
+            setTimeout(function() {
+                statusDiv.style.display = 'none';
+            }, 4000);
+        }
+    }
+
+    function displayAllSounds() {
+        var soundList = document.getElementById('sound-list');
+
+        if (!soundList) {
+            debugLog('ERROR: sound-list element not found');
+            return;
+        }
+
+        debugLog('Displaying all sounds. Count: ' + gameState.sounds.length);
+
+        if (gameState.sounds.length === 0) {
+            soundList.innerHTML = '<div style="text-align: center; color: #666; padding: 40px;">' +
+                '<h3>No sounds uploaded yet</h3>' +
+                '<p>Click "Upload Sound from Device" to get started!</p>' +
+                '</div>';
+            return;
+        }
+
+        soundList.innerHTML = '';
+        soundListRendered = 0;
+        renderNextSoundPage();
+    }
+
+    // The library is rendered a page at a time; the rest follows when the
+    // "show more" row scrolls into view (or is tapped)
+    var SOUND_PAGE_SIZE = 20;
+    var soundListRendered = 0;
+    var soundPageObserver = null;
+
+    function renderNextSoundPage() {
+        var soundList = document.getElementById('sound-list');
+        var more = document.getElementById('sound-list-more');
+        if (more) {
+            more.remove();
+        }
+
+        var end = Math.min(gameState.sounds.length, soundListRendered + SOUND_PAGE_SIZE);
+        for (var i = soundListRendered; i < end; i++) {
+            // Sounds added while later pages were pending are already on screen
+            if (!soundList.querySelector('[data-sound-id="' + gameState.sounds[i].id + '"]')) {
+                displaySoundItem(gameState.sounds[i]);
+            }
+        }
+        soundListRendered = end;
+
+        var remaining = gameState.sounds.length - soundListRendered;
+        if (remaining <= 0) {
+            return;
+        }
+
+        more = document.createElement('button');
+        more.id = 'sound-list-more';
+        more.textContent = 'Show more sounds (' + remaining + ' more)';
+        more.style.cssText = 'width: 100%; padding: 12px; margin-bottom: 15px; border: 1px dashed rgba(59, 130, 246, 0.5); border-radius: 10px; background: transparent; color: #94a3b8; cursor: pointer;';
+        more.addEventListener('click', renderNextSoundPage);
+        soundList.appendChild(more);
+
+        if ('IntersectionObserver' in window) {
+            if (!soundPageObserver) {
+                soundPageObserver = new IntersectionObserver(function(entries) {
+                    for (var i = 0; i < entries.length; i++) {
+                        if (entries[i].isIntersecting) {
+                            renderNextSoundPage();
+                            break;
+                        }
+                    }
+                });
+            }
+            soundPageObserver.disconnect();
+            soundPageObserver.observe(more);
+        }
+    }
+
+    // Modified assignSound function to prevent multiple assignments
+    function assignSound(soundId, assignment) {
+        try {
+            if (assignment) {
+                // Check if this assignment already has a sound
+                if (gameState.soundAssignments[assignment]) {
+                    var existingSoundId = gameState.soundAssignments[assignment];
+                    if (existingSoundId !== soundId) {
+                        // Different sound already assigned - ask for confirmation
+                        var existingSound = null;
+                        for (var i = 0; i < gameState.sounds.length; i++) {
+                            if (gameState.sounds[i].id === existingSoundId) {
+                                existingSound = gameState.sounds[i];
+                                break;
+                            }
+                        }
+
+                        var confirmMsg = 'This assignment already has a sound: "' + (existingSound ? existingSound.name : 'Unknown') + '"\n\nDo you want to replace it?';
+                        if (!confirm(confirmMsg)) {
+                            // Restore select to empty value
+                            var select = document.getElementById('select-' + soundId);
+                            if (select) {
+                                select.value = '';
+                            }
+                            return;
+                        }
+
+                        // Unassign the previous sound
+                        if (existingSound) {
+                            existingSound.assigned = false;
+                            updateSoundItemStatus(existingSoundId, false);
+                        }
+                    }
+                }
+
+                // Remove previous assignment for this sound
+                for (var key in gameState.soundAssignments) {
+                    if (gameState.soundAssignments[key] === soundId) {
+                        delete gameState.soundAssignments[key];
+                    }
+                }
+
+                // Add new assignment
+                gameState.soundAssignments[assignment] = soundId;
+
+                // Update sound object
+                var sound = null;
+                for (var i = 0; i < gameState.sounds.length; i++) {
+                    if (gameState.sounds[i].id === soundId) {
+                        sound = gameState.sounds[i];
+                        break;
+                    }
+                }
+
+                if (sound) {
+                    sound.assigned = true;
+                    updateSoundItemStatus(soundId, true);
+                }
+
+                debugLog('Assigned sound ' + soundId + ' to ' + assignment);
+                autoSaveSounds();
+
+                if (sound && window.AndroidInterface) {
+                    var displayName = getAssignmentDisplayName(assignment);
+                    // window.AndroidInterface.showToast('🎵 "' + sound.name + '" assigned to ' + displayName);
+                }
+            } else {
+                // Unassign sound
+                for (var key in gameState.soundAssignments) {
+                    if (gameState.soundAssignments[key] === soundId) {
+                        delete gameState.soundAssignments[key];
+                    }
+                }
+
+                var sound = null;
+                for (var i = 0; i < gameState.sounds.length; i++) {
+                    if (gameState.sounds[i].id === soundId) {
+                        sound = gameState.sounds[i];
+                        break;
+                    }
+                }
+
+                if (sound) {
+                    sound.assigned = false;
+                    updateSoundItemStatus(soundId, false);
+                }
+
+                autoSaveSounds();
+            }
+
+            // Update custom sound button appearance
+            updateCustomSoundButtons();
+
+        } catch (error) {
+            debugLog('Error assigning sound: ' + error.message);
+            if (window.AndroidInterface) {
+                // window.AndroidInterface.showToast('❌ Error assigning sound');
+            }
+            // Restore select to empty value
+            var select = document.getElementById('select-' + soundId);
+            if (select) {
+                select.value = '';
+            }
+        }
+    }
+
+    // Helper function to update sound item status
+    function updateSoundItemStatus(soundId, isAssigned) {
+        var soundItem = document.querySelector('[data-sound-id="' + soundId + '"]');
+        if (soundItem) {
+            var statusSpans = soundItem.querySelectorAll('span');
+            var statusSpan = null;
+
+            // Find the status span (the one with padding: 6px)
+            for (var i = 0; i < statusSpans.length; i++) {
+                if (statusSpans[i].style.padding && statusSpans[i].style.padding.includes('6px')) {
+                    statusSpan = statusSpans[i];
+                    break;
+                }
+            }
+
+            if (statusSpan) {
+                if (isAssigned) {
+                    statusSpan.style.cssText = 'padding: 6px 12px; border-radius: 15px; font-size: 12px; font-weight: bold; background: rgba(39, 174, 96, 0.2); color: #4ade80;';
+                    statusSpan.textContent = '✅ Assigned';
+                } else {
+                    statusSpan.style.cssText = 'padding: 6px 12px; border-radius: 15px; font-size: 12px; font-weight: bold; background: rgba(231, 76, 60, 0.2); color: #f87171;';
+                    statusSpan.textContent = '⚠️ Not Assigned';
+                }
+            }
+        }
+
+        // Also update the select dropdown if it's set
+        var select = document.getElementById('select-' + soundId);
+        if (select && !isAssigned) {
+            select.value = '';
+        }
+    }
+
+    // Helper function to get display name for assignment
+    function getAssignmentDisplayName(assignment) {
+        if (assignment === 'yellow-team') return '🟡 Yellow Team';
+        if (assignment === 'blue-team') return '🔵 Blue Team';
+        if (assignment === 'yellow-own-goal') return '🟡 Yellow Team Own Goal';
+        if (assignment === 'blue-own-goal') return '🔵 Blue Team Own Goal';
+        if (assignment.startsWith('custom-sound-')) {
+            var soundNum = assignment.replace('custom-sound-', '');
+            return gameState.customSoundNames[parseInt(soundNum)];
+        }
+        return assignment.replace('-', ' ').replace('own goal', 'OWN GOAL');
+    }
+
+// Fixed removeSound function
+function removeSound(soundId) {
+    debugLog('Remove sound clicked for ID: ' + soundId);
+
+    var sound = null;
+    var soundIndex = -1;
+    for (var i = 0; i < gameState.sounds.length; i++) {
+        if (gameState.sounds[i].id === soundId) {
+            sound = gameState.sounds[i];
+            soundIndex = i;
+            break;
+        }
+    }
+
+    if (!sound) {
+        debugLog('ERROR: Sound not found for ID: ' + soundId);
+        if (window.AndroidInterface) {
+            // window.AndroidInterface.showToast('❌ Sound not found');
+        }
+        return;
+    }
+
+    var soundName = sound.name;
+    debugLog('Found sound to remove: ' + soundName + ' at index ' + soundIndex);
+
+    // Confirmation prompt
+    if (confirm('🗑️ Are you sure you want to remove "' + soundName + '"?\n\nThis will:\n• Remove the sound from the app\n• Clear all assignments using this sound\n• This action cannot be undone')) {
+        debugLog('User confirmed removal of: ' + soundName);
+
+        // Stop current audio if it's the one being removed
+        if (currentAudio && sound && currentAudio.src === getSoundSource(sound)) {
+            stopCurrentAudio();
+        }
+
+        // Remove all assignments for this sound
+        var assignmentKeysToRemove = [];
+        for (var key in gameState.soundAssignments) {
+            if (gameState.soundAssignments[key] === soundId) {
+                assignmentKeysToRemove.push(key);
+            }
+        }
+
+        for (var i = 0; i < assignmentKeysToRemove.length; i++) {
+            delete gameState.soundAssignments[assignmentKeysToRemove[i]];
+            debugLog('Removed assignment: ' + assignmentKeysToRemove[i]);
+        }
+
+        // Remove from sounds array
+        if (soundIndex !== -1) {
+            gameState.sounds.splice(soundIndex, 1);
+            debugLog('Removed from sounds array. New length: ' + gameState.sounds.length);
+        }
+
+        // Remove the DOM element
+        var soundItem = document.querySelector('[data-sound-id="' + soundId + '"]');
+        if (soundItem) {
+            soundItem.remove();
+            debugLog('Removed DOM element');
+        } else {
+            debugLog('WARNING: DOM element not found for sound ID: ' + soundId);
+        }
+
+        // Update all UI elements that might be affected
+        updateAllSoundAssignmentButtons();
+        updateCustomSoundButtons();
+        updateSoundsStats();
+
+        // If we're in game mode, also update the rename effects container
+        if (document.getElementById('rename-effects-container').style.display !== 'none') {
+            generateRenameInputs();
+        }
+
+        // If no sounds left, show empty message
+        if (gameState.sounds.length === 0) {
+            var soundList = document.getElementById('sound-list');
+            if (soundList) {
+                soundList.innerHTML = '<div style="text-align: center; color: #666; padding: 40px;">' +
+                    '<h3>No sounds uploaded yet</h3>' +
+                    '<p>Click "Upload Sound from Device" to get started!</p>' +
+                    '</div>';
+            }
+        }
+
+        // Save the updated state
+        autoSaveSounds();
+
+        if (window.AndroidInterface) {
+            window.AndroidInterface.deleteClip(soundId);
+            window.AndroidInterface.showToast('🗑️ "' + soundName + '" deleted');
+        }
+
+        debugLog('Sound removed successfully: ' + soundName + ' (ID: ' + soundId + ')');
+    } else {
+        debugLog('User cancelled removal of: ' + soundName);
+    }
+}
+
+    // New function to update sound assignment dropdowns
+    function updateSoundAssignmentDropdowns() {
+        for (var i = 0; i < gameState.sounds.length; i++) {
+            var sound = gameState.sounds[i];
+            var soundItem = document.querySelector('[data-sound-id="' + sound.id + '"]');
+            if (soundItem) {
+                soundItem.remove();
+                displaySoundItem(sound);
+            }
+        }
+    }
+
+    // Enhanced audio control functions
+    function stopCurrentAudio() {
+        stopHtmlAudio();
+
+        // Stop native playback too (one clip at a time across both paths)
+        if (window.AndroidInterface && window.AndroidInterface.stopSound) {
+            try {
+                window.AndroidInterface.stopSound();
+            } catch (e) {
+                debugLog('Error stopping native audio: ' + e.message);
+            }
+        }
+    }
+
+    function stopHtmlAudio() {
+        if (currentAudio) {
+            try {
+                currentAudio.pause();
+                currentAudio.currentTime = 0;
+                // Clear event handlers to prevent memory leaks
+                currentAudio.onended = null;
+                currentAudio.onerror = null;
+                currentAudio.ontimeupdate = null;
+                // Clear the source and force cleanup
+                currentAudio.src = '';
+                currentAudio.load();
+            } catch (e) {
+                debugLog('Error stopping audio: ' + e.message);
+            } finally {
+                currentAudio = null;
+                debugLog('Stopped current audio playback');
+            }
+        }
+
+        // Clear any existing timeout
+        if (audioTimeout) {
+            clearTimeout(audioTimeout);
+            audioTimeout = null;
+        }
+    }
+
+    function stopCurrentSound() {
+        stopCurrentAudio();
+        
+        if (window.AndroidInterface) {
+            // window.AndroidInterface.showToast('⏹️ Sound playback stopped');
+        }
+        debugLog('Sound playback stopped by user');
+    }
+
+    // Unified play sound function with 15-second limit
+    // tapTime (Date.now() of the user's tap) is optional; without it latency is
+    // measured from this call
+    function playSound(sound, description, tapTime) {
+        tapTime = tapTime || Date.now();
+
+        // Stored clips play through the native engine (SoundPool / streaming decoder),
+        // which applies the same 15-second cap. HTML5 audio is the fallback.
+        if (!sound.data && sound.id && window.AndroidInterface && window.AndroidInterface.playSound) {
+            try {
+                if (window.AndroidInterface.playSound(sound.id, description, tapTime)) {
+                    debugLog('Native sound requested: ' + sound.name + ' (' + description + ')');
+                    return;
+                }
+            } catch (e) {
+                debugLog('Native playback unavailable: ' + e.message);
+            }
+        }
+
+        try {
+            currentAudio = new Audio(getSoundSource(sound));
+            currentAudio.volume = 0.8;
+
+            // Set up 15-second timeout
+            audioTimeout = setTimeout(function() {
+                debugLog('Sound playback exceeded 15 seconds - stopping');
+                stopCurrentAudio();
+            }, 15000);
+
+            // Clear currentAudio when sound finishes or errors
+            currentAudio.onended = function() {
+                debugLog('Sound ended naturally');
+                stopCurrentAudio();
+            };
+
+            currentAudio.onerror = function(e) {
+                debugLog('Audio playback error: ' + e.type);
+                stopCurrentAudio();
+            };
+
+            currentAudio.play().then(function() {
+                var latency = Date.now() - tapTime;
+                debugLog('Sound played successfully: ' + sound.name + ' (' + description + ') in ' + latency + ' ms');
+                if (window.AndroidInterface && window.AndroidInterface.recordMetric) {
+                    window.AndroidInterface.recordMetric('audio.tap_to_audio.html5', latency);
+                }
+            }).catch(function(e) {
+                debugLog('Sound play error: ' + e.message);
+                stopCurrentAudio();
+                if (window.AndroidInterface) {
+                    // window.AndroidInterface.showToast('🔊 Sound playback failed');
+                }
+            });
+        } catch (e) {
+            debugLog('Error creating audio: ' + e.message);
+            currentAudio = null;
+            if (audioTimeout) {
+                clearTimeout(audioTimeout);
+                audioTimeout = null;
+            }
+        }
+    }
+
+
+    // id -> position in gameState.sounds. Positions are checked on every lookup,
+    // so a stale index (sounds added, removed or reloaded) just gets rebuilt.
+    var soundIndex = { list: null, positions: {} };
+
+    function rebuildSoundIndex() {
+        soundIndex.list = gameState.sounds;
+        soundIndex.positions = {};
+        for (var i = 0; i < gameState.sounds.length; i++) {
+            soundIndex.positions[gameState.sounds[i].id] = i;
+        }
+    }
+
+    function findSoundById(soundId) {
+        if (!soundId) return null;
+        for (var attempt = 0; attempt < 2; attempt++) {
+            if (attempt > 0 || soundIndex.list !== gameState.sounds) {
+                rebuildSoundIndex();
+            }
+            var position = soundIndex.positions[soundId];
+            var sound = position !== undefined ? gameState.sounds[position] : null;
+            if (sound && sound.id === soundId) {
+                return sound;
+            }
+        }
+        return null;
+    }
+
+    // Announcers worth having decoded before kick-off; the lead ones fire mid-goal
+    var PRELOAD_ANNOUNCER_KEYS = ['announcer-first-goal', 'announcer-three-lead', 'announcer-five-lead'];
+    var lineupPreloadTimer = null;
+
+    // Ask native code to decode what the current lineup can play next: each
+    // player's music and slot sound, the team and own-goal sounds, and the lead
+    // announcers. Debounced because lineups are usually set a slot at a time.
+    function preloadLineupAudio() {
+        if (!window.AndroidInterface || !window.AndroidInterface.preloadClips) return;
+        if (lineupPreloadTimer) {
+            clearTimeout(lineupPreloadTimer);
+        }
+        lineupPreloadTimer = setTimeout(function() {
+            lineupPreloadTimer = null;
+            var clipIds = [];
+            function addClip(clipId) {
+                if (clipId && clipIds.indexOf(clipId) === -1) {
+                    clipIds.push(clipId);
+                }
+            }
+
+            PRELOAD_ANNOUNCER_KEYS.forEach(function(key) {
+                addClip(gameState.soundAssignments[key]);
+            });
+            getAllPlayerAssignments().forEach(function(assignment) {
+                var player = playerProfiles ? playerProfiles.find(function(p) { return p.name === assignment.name; }) : null;
+                if (player && player.music) {
+                    for (var i = 1; i <= 3; i++) {
+                        var music = player.music['slot' + i];
+                        if (music) addClip(music.clipId);
+                    }
+                }
+                addClip(gameState.soundAssignments[assignment.team + '-player-' + assignment.slot]);
+            });
+            ['yellow', 'blue'].forEach(function(team) {
+                addClip(gameState.soundAssignments[team + '-team']);
+                addClip(gameState.soundAssignments[team + '-own-goal']);
+            });
+
+            try {
+                window.AndroidInterface.preloadClips(JSON.stringify(clipIds));
+                debugLog('Preloading ' + clipIds.length + ' lineup clips');
+            } catch (e) {
+                debugLog('Lineup preload failed: ' + e.message);
+            }
+        }, 300);
+    }
+
+    function getRandomPlayerMusic(playerName) {
+        if (!playerProfiles || playerProfiles.length === 0) return null;
+        
+        var player = playerProfiles.find(function(p) { return p.name === playerName; });
+        if (!player) return null;
+        
+        // Collect all assigned music tracks (clip references, nothing is loaded here)
+        var musicTracks = [];
+        for (var i = 1; i <= 3; i++) {
+            var slot = 'slot' + i;
+            if (player.music[slot] && player.music[slot].clipId) {
+                musicTracks.push(player.music[slot]);
+            }
+        }
+        
+        if (musicTracks.length === 0) return null;
+        
+        // Return random track
+        var randomIndex = Math.floor(Math.random() * musicTracks.length);
+        return musicTracks[randomIndex];
+    }
+
+    function playGoalSound(team, player, tapTime) {
+        debugLog('Attempting to play sound for: ' + team + ' - ' + player);
+
+        // Stop any currently playing audio
+        stopCurrentAudio();
+
+        var goalSound = resolveGoalSound(team, player);
+        if (goalSound) {
+            playSound(goalSound.sound, goalSound.description, tapTime);
+        }
+    }
+
+    // What a goal plays, as { sound, description }, or null: random player music first
+    // (own goals: the own-goal sound), then the player's slot sound, then the team sound
+    function resolveGoalSound(team, player) {
+        if (player === 'OWN GOAL') {
+            var ownGoalKey = team + '-own-goal';
+            if (gameState.soundAssignments[ownGoalKey]) {
+                var sound = findSoundById(gameState.soundAssignments[ownGoalKey]);
+                if (sound) {
+                    debugLog('Using own goal sound');
+                    return { sound: sound, description: 'Own Goal: ' + team };
+                }
+            }
+        } else {
+            var playerMusic = getRandomPlayerMusic(player);
+            if (playerMusic) {
+                debugLog('Using random player music: ' + playerMusic.name + ' for ' + player);
+                // Only a clip reference; the audio is loaded when it's played
+                return {
+                    sound: { name: playerMusic.name, id: playerMusic.clipId },
+                    description: 'Goal: ' + team + ' - ' + player
+                };
+            }
+        }
+        return resolveFallbackGoalSound(team, player);
+    }
+
+    function resolveFallbackGoalSound(team, player) {
+        debugLog('Using fallback sound system for: ' + team + ' - ' + player);
+        
+        var soundId = null;
+        var playerKey = null;
+        var teamKey = team + '-team';
+
+        // Get the original slot number for this player
+        var playerSlots = team === 'yellow' ? gameState.yellowPlayerSlots : gameState.bluePlayerSlots;
+        var originalSlotNumber = playerSlots[player];
+
+        if (originalSlotNumber) {
+            playerKey = team + '-player-' + originalSlotNumber;
+        }
+
+        // Try player-specific sound first
+        if (playerKey && gameState.soundAssignments[playerKey]) {
+            soundId = gameState.soundAssignments[playerKey];
+            debugLog('Found player-specific sound: ' + playerKey);
+        }
+        // Fallback to team sound
+        else if (gameState.soundAssignments[teamKey]) {
+            soundId = gameState.soundAssignments[teamKey];
+            debugLog('Found team sound: ' + teamKey);
+        }
+
+        if (!soundId) {
+            debugLog('No sound assigned for: ' + team + ' - ' + player);
+            return null;
+        }
+        var sound = findSoundById(soundId);
+        if (!sound) {
+            debugLog('Sound not found for ID: ' + soundId);
+            return null;
+        }
+        return { sound: sound, description: 'Goal: ' + team + ' - ' + player };
+    }
+
+    // Native code keeps its own copy of the library. We remember what it last
+    // acknowledged (serialized per sound / per key) and send only the difference
+    // as versioned patch ops; a full save only happens on a version mismatch.
+    var LIBRARY_MAPS = ['soundAssignments', 'playerAssignments', 'customSoundNames'];
+    var librarySync = { version: -1, synced: null };
+
+    function snapshotLibrary() {
+        var snapshot = { sounds: {} };
+        for (var i = 0; i < gameState.sounds.length; i++) {
+            var sound = gameState.sounds[i];
+            snapshot.sounds[sound.id] = JSON.stringify(sound);
+        }
+        for (var m = 0; m < LIBRARY_MAPS.length; m++) {
+            var name = LIBRARY_MAPS[m];
+            var source = gameState[name] || {};
+            snapshot[name] = {};
+            for (var key in source) {
+                if (source.hasOwnProperty(key)) {
+                    snapshot[name][key] = JSON.stringify(source[key]);
+                }
+            }
+        }
+        return snapshot;
+    }
+
+    function buildLibraryPatch(previous, current) {
+        var ops = [];
+        for (var id in current.sounds) {
+            if (previous.sounds[id] !== current.sounds[id]) {
+                ops.push({ op: 'upsertSound', sound: JSON.parse(current.sounds[id]) });
+            }
+        }
+        for (var id in previous.sounds) {
+            if (!current.sounds.hasOwnProperty(id)) {
+                ops.push({ op: 'deleteSound', id: id });
+            }
+        }
+        for (var m = 0; m < LIBRARY_MAPS.length; m++) {
+            var name = LIBRARY_MAPS[m];
+            for (var key in current[name]) {
+                if (previous[name][key] !== current[name][key]) {
+                    ops.push({ op: 'set', map: name, key: key, value: JSON.parse(current[name][key]) });
+                }
+            }
+            for (var key in previous[name]) {
+                if (!current[name].hasOwnProperty(key)) {
+                    ops.push({ op: 'delete', map: name, key: key });
+                }
+            }
+        }
+        return ops;
+    }
+
+    // Remember what native storage now holds, e.g. after loadSoundsFromAndroid
+    function markLibrarySynced(version) {
+        librarySync.version = (typeof version === 'number') ? version : -1;
+        librarySync.synced = snapshotLibrary();
+    }
+
+    function syncLibraryToNative(forceFull) {
+        var current = snapshotLibrary();
+
+        if (!forceFull && librarySync.synced && librarySync.version >= 0 && window.AndroidInterface.applyLibraryPatch) {
+            var ops = buildLibraryPatch(librarySync.synced, current);
+            if (ops.length === 0) {
+                return;
+            }
+            var patchJson = JSON.stringify(ops);
+            var version = Number(window.AndroidInterface.applyLibraryPatch(librarySync.version, patchJson));
+            if (version >= 0) {
+                librarySync.version = version;
+                librarySync.synced = current;
+                debugLog('Library patch sent: ' + ops.length + ' ops, ' + patchJson.length + ' chars (v' + version + ')');
+                return;
+            }
+            debugLog('Library version mismatch - sending full library');
+        }
+
+        var saveData = {
+            sounds: gameState.sounds,
+            soundAssignments: gameState.soundAssignments,
+            playerAssignments: gameState.playerAssignments,
+            customSoundNames: gameState.customSoundNames
+        };
+        var fullVersion = Number(window.AndroidInterface.saveSounds(JSON.stringify(saveData), ''));
+        librarySync.version = fullVersion >= 0 ? fullVersion : -1;
+        librarySync.synced = fullVersion >= 0 ? current : null;
+    }
+
+    function autoSaveSounds() {
+        debugLog('Auto-saving sounds');
+        if (window.AndroidInterface) {
+            try {
+                syncLibraryToNative(false);
+            } catch (error) {
+                debugLog('Auto-save failed: ' + error.message);
+            }
+        }
+        updateSoundsStats();
+    }
+
+    function saveAllSounds() {
+        debugLog('Saving sounds via Android interface');
+
+        if (window.AndroidInterface) {
+            try {
+                debugLog('=== SAVE ALL SOUNDS DEBUG: saveAllSounds() called');
+                debugLog(function() { return '=== SAVE ALL SOUNDS DEBUG: gameState.playerAssignments = ' + JSON.stringify(gameState.playerAssignments); });
+                
+                // Explicit save: send the whole library regardless of what native has
+                syncLibraryToNative(true);
+                updateSoundsStats();
+                debugLog('=== SAVE ALL SOUNDS DEBUG: Saved ' + gameState.sounds.length + ' sounds and ' + Object.keys(gameState.playerAssignments || {}).length + ' player assignments to Android storage');
+                
+                // Show confirmation toast
+                // if (window.AndroidInterface) {
+                //     window.AndroidInterface.showToast('💾 Saved sounds + ' + Object.keys(gameState.playerAssignments || {}).length + ' player assignments');
+                // }
+            } catch (error) {
+                debugLog('Error saving sounds: ' + error.message);
+                if (window.AndroidInterface) {
+                    // window.AndroidInterface.showToast('❌ Error saving sounds');
+                }
+            }
+        } else {
+            alert('💾 Android interface not available. This feature requires the Android app.');
+        }
+    }
+
+    function loadSavedSounds() {
+        debugLog('Loading sounds via Android interface');
+
+        if (window.AndroidInterface) {
+            try {
+                window.AndroidInterface.loadSounds();
+            } catch (error) {
+                debugLog('Error loading sounds: ' + error.message);
+                if (window.AndroidInterface) {
+                    // window.AndroidInterface.showToast('❌ Error loading sounds');
+                }
+            }
+        } else {
+            alert('📂 Android interface not available. This feature requires the Android app.');
+        }
+    }
+
+    function loadSoundsFromAndroid(soundsJson, assignmentsJson) {
+        debugLog('=== LOAD FROM ANDROID DEBUG: loadSoundsFromAndroid() called');
+        debugLog('=== LOAD FROM ANDROID DEBUG: soundsJson type: ' + typeof soundsJson);
+        debugLog('Loading sounds from Android storage');
+
+        try {
+            // A string from older callers, or the already parsed library from the message channel
+            var hasData = soundsJson && (typeof soundsJson !== 'string' || soundsJson.trim() !== '');
+            if (hasData) {
+                var data = typeof soundsJson === 'string' ? JSON.parse(soundsJson) : soundsJson;
+
+                // Handle both old and new data formats
+                if (data.sounds) {
+                    // New format with all data
+                    debugLog('=== LOAD DEBUG: Loading new format data');
+                    gameState.sounds = data.sounds || [];
+                    gameState.soundAssignments = data.soundAssignments || {};
+                    gameState.playerAssignments = data.playerAssignments || {};
+                    debugLog(function() { return '=== LOAD DEBUG: Loaded playerAssignments from data: ' + JSON.stringify(gameState.playerAssignments); });
+                    if (data.customSoundNames) {
+                        gameState.customSoundNames = data.customSoundNames;
+                    }
+                } else {
+                    // Old format - just sounds array
+                    gameState.sounds = data || [];
+
+                    // Try to load assignments from second parameter
+                    if (assignmentsJson && assignmentsJson.trim() !== '') {
+                        var assignments = JSON.parse(assignmentsJson);
+                        gameState.soundAssignments = assignments || {};
+                    }
+                }
+
+                // Native sent its current version; later edits are patches against it
+                markLibrarySynced(data.version);
+                debugLog('Loaded ' + gameState.sounds.length + ' sounds from Android');
+                debugLog('Loaded ' + Object.keys(gameState.soundAssignments).length + ' assignments from Android');
+            }
+
+            displayAllSounds();
+            updateSoundsStats();
+            updateCustomSoundButtons();
+            markStartup('library-rendered');
+            
+            // Restore player assignments if they exist
+            debugLog('=== RESTORE DEBUG: Checking for player assignments to restore...');
+            debugLog(function() { return '=== RESTORE DEBUG: gameState.playerAssignments = ' + JSON.stringify(gameState.playerAssignments); });
+            if (gameState.playerAssignments && Object.keys(gameState.playerAssignments).length > 0) {
+                debugLog('=== RESTORE DEBUG: Found ' + Object.keys(gameState.playerAssignments).length + ' assignments, calling restore function');
+                restorePlayerAssignmentsFromGameState();
+                debugLog('=== RESTORE DEBUG: Restore function completed');
+                
+                // Show toast for debugging
+                // if (window.AndroidInterface) {
+                //     window.AndroidInterface.showToast('🔄 Restored ' + Object.keys(gameState.playerAssignments).length + ' player assignments');
+                // }
+            } else {
+                debugLog('=== RESTORE DEBUG: No player assignments found to restore');
+                // if (window.AndroidInterface) {
+                //     window.AndroidInterface.showToast('🔄 No player assignments to restore');
+                // }
+            }
+
+            if (window.AndroidInterface) {
+                // window.AndroidInterface.showToast('📂 Loaded ' + gameState.sounds.length + ' saved sounds!');
+            }
+        } catch (error) {
+            debugLog('Error parsing sounds from Android: ' + error.message);
+            if (window.AndroidInterface) {
+                // window.AndroidInterface.showToast('❌ Error loading saved sounds');
+            }
+        }
+    }
+
+// Also add this function to clear all sounds and refresh the display
+function clearAllSounds() {
+    if (gameState.sounds.length === 0) {
+        if (window.AndroidInterface) {
+            // window.AndroidInterface.showToast('No sounds to clear');
+        } else {
+            alert('No sounds to clear');
+        }
+        return;
+    }
+
+    var confirmMessage = '🗑️ Clear All Sounds\n\n';
+    confirmMessage += 'This will permanently remove:\n';
+    confirmMessage += '• ' + gameState.sounds.length + ' uploaded sound' + (gameState.sounds.length !== 1 ? 's' : '') + '\n';
+    confirmMessage += '• All sound assignments\n';
+    confirmMessage += '• All saved sound data\n\n';
+    confirmMessage += 'This action cannot be undone.\n\n';
+    confirmMessage += 'Are you sure you want to continue?';
+
+    if (confirm(confirmMessage)) {
+        debugLog('Clearing all sounds via user confirmation');
+
+        var soundCount = gameState.sounds.length;
+
+        // Stop any playing audio first
+        stopCurrentAudio();
+
+        // Clear all data
+        gameState.sounds = [];
+        gameState.soundAssignments = {};
+
+        // Clear the UI and show empty message
+        displayAllSounds();
+
+        // Update all UI elements
+        updateAllSoundAssignmentButtons();
+        updateCustomSoundButtons();
+        updateSoundsStats();
+
+        // Clear from Android storage
+        if (window.AndroidInterface) {
+            try {
+                markLibrarySynced(Number(window.AndroidInterface.clearAllSounds()));
+                // window.AndroidInterface.showToast('🗑️ Cleared ' + soundCount + ' sounds successfully');
+            } catch (error) {
+                debugLog('Error clearing sounds from Android storage: ' + error.message);
+            }
+        }
+
+        debugLog('All sounds cleared: ' + soundCount + ' sounds removed');
+    }
+}
+
+    function showStorageInfo() {
+        debugLog('Getting storage info');
+
+        if (window.AndroidInterface) {
+            try {
+                // Let Android show the full storage info; its usage totals are kept live
+                window.AndroidInterface.getStorageInfo();
+            } catch (error) {
+                debugLog('Error getting storage info: ' + error.message);
+                if (window.AndroidInterface) {
+                    // window.AndroidInterface.showToast('❌ Error getting storage info');
+                }
+            }
+        } else {
+            var soundsSize = 0;
+            var assignedSounds = 0;
+            for (var i = 0; i < gameState.sounds.length; i++) {
+                soundsSize += gameState.sounds[i].size || 0;
+                if (gameState.sounds[i].assigned) {
+                    assignedSounds++;
+                }
+            }
+            var soundsSizeMB = (soundsSize / 1024 / 1024).toFixed(2);
+
+            var info = '🔊 Sound Storage Information:\n\n';
+            info += '📊 Current Statistics:\n';
+            info += '• Total sounds: ' + gameState.sounds.length + '\n';
+            info += '• Assigned sounds: ' + assignedSounds + '/' + gameState.sounds.length + '\n';
+            info += '• Storage used: ' + soundsSizeMB + ' MB\n';
+            info += '• Active assignments: ' + Object.keys(gameState.soundAssignments).length + '\n\n';
+            info += '💡 Note: Android interface not available for detailed storage info.';
+
+            alert(info);
+        }
+    }
+
+    // Function for direct sound upload
+    function uploadSoundDirectly(target) {
+        debugLog('Direct upload for: ' + target);
+        currentSoundTarget = target;
+        
+        if (window.AndroidInterface) {
+            window.AndroidInterface.openSoundPicker();
+        } else {
+            debugLog('AndroidInterface not available');
+        }
+    }
+
+    function updateSoundAssignmentButton(target) {
+        var btnId = '';
+        if (target === 'yellow-team') {
+            btnId = 'yellow-team-sound-btn';
+        } else if (target === 'blue-team') {
+            btnId = 'blue-team-sound-btn';
+        } else if (target === 'yellow-own-goal') {
+            btnId = 'yellow-own-goal-sound-btn';
+        } else if (target === 'blue-own-goal') {
+            btnId = 'blue-own-goal-sound-btn';
+        } else if (target.startsWith('custom-sound-')) {
+            btnId = 'effect-sound-btn-' + target.replace('custom-sound-', '');
+        } else if (target.includes('-player-')) {
+            var parts = target.split('-');
+            btnId = parts[0] + '-player-sound-' + parts[2];
+        }
+
+
+        // Update status display for team and own goal sections
+        var statusId = target + '-status';
+        var statusElement = document.getElementById(statusId);
+        if (statusElement) {
+            if (gameState.soundAssignments[target]) {
+                statusElement.className = 'rule-status assigned';
+                statusElement.textContent = '✅ Assigned';
+            } else {
+                statusElement.className = 'rule-status not-assigned';
+                statusElement.textContent = 'Not Assigned';
+            }
+        }
+
+        // Update test button visibility
+        var testBtnId = target + '-test-btn';
+        var testBtn = document.getElementById(testBtnId);
+        if (testBtn) {
+            if (gameState.soundAssignments[target]) {
+                testBtn.style.display = 'inline-block';
+            } else {
+                testBtn.style.display = 'none';
+            }
+        }
+    }
+
+    function updatePlayerSoundKey(team, playerNum) {
+        // This function is called when a player name changes
+        // We need to update the sound assignment key if the player has a sound
+        var oldKey = team + '-player-' + playerNum;
+        var input = document.getElementById(oldKey);
+        if (input && input.value) {
+            var newKey = team + '-' + input.value;
+            if (gameState.soundAssignments[oldKey] && oldKey !== newKey) {
+                gameState.soundAssignments[newKey] = gameState.soundAssignments[oldKey];
+                delete gameState.soundAssignments[oldKey];
+                autoSaveSounds();
+            }
+        }
+    }
+      // Function to update announcer buttons
+    function updateAnnouncerButtons() {
+        var announcerRules = [
+            'game-start', 'first-goal', 'hat-trick', 'five-goals',
+            'game-end', 'tie-game', 'three-lead', 'five-lead'
+        ];
+
+        for (var i = 0; i < announcerRules.length; i++) {
+            var rule = announcerRules[i];
+            var key = 'announcer-' + rule;
+            updateSoundAssignmentButton(key);
+            updateAnnouncerStatus(key);
+        }
+    }
+
+// Function to update announcer status display
+    function updateAnnouncerStatus(key) {
+        var statusId = key + '-status';
+        var statusElement = document.getElementById(statusId);
+        if (statusElement) {
+            if (gameState.soundAssignments[key]) {
+                statusElement.className = 'rule-status assigned';
+                statusElement.textContent = '✅ Assigned';
+            } else {
+                statusElement.className = 'rule-status not-assigned';
+                statusElement.textContent = 'Not Assigned';
+            }
+        }
+    }
+
+    // Function to update custom sounds buttons
+    function updateCustomSoundsButtons() {
+        for (var i = 1; i <= 10; i++) {
+            var key = 'custom-sound-' + i;
+            updateCustomSoundStatus(key);
+            
+            // Update the sound name input field
+            var nameInput = document.getElementById('custom-sound-' + i + '-name');
+            if (nameInput && gameState.customSoundNames[i]) {
+                nameInput.value = gameState.customSoundNames[i];
+            }
+        }
+    }
+
+    // Function to update custom sound status display
+    function updateCustomSoundStatus(key) {
+        var statusId = key + '-status';
+        var statusElement = document.getElementById(statusId);
+        if (statusElement) {
+            if (gameState.soundAssignments[key]) {
+                statusElement.className = 'rule-status assigned';
+                statusElement.textContent = '✅ Assigned';
+            } else {
+                statusElement.className = 'rule-status not-assigned';
+                statusElement.textContent = 'Not Assigned';
+            }
+        }
+        
+        // Also update the game mode display
+        generateGameModeCustomSounds();
+    }
+
+// Function to play announcer sound
+    function playAnnouncerSound(announcerKey, callback) {
+        debugLog('Checking announcer sound for: ' + announcerKey);
+
+
+        var soundId = gameState.soundAssignments[announcerKey];
+        if (!soundId) {
+            debugLog('No announcer sound assigned for: ' + announcerKey);
+            if (callback) callback();
+            return;
+        }
+
+        var sound = findSoundById(soundId);
+
+        if (sound) {
+            debugLog('Playing announcer sound: ' + announcerKey);
+
+        // Stop any currently playing audio
+            stopCurrentAudio();
+
+            try {
+                currentAudio = new Audio(getSoundSource(sound));
+            currentAudio.volume = 0.8;
+
+            // Set up timeout for 15-second limit
+            audioTimeout = setTimeout(function() {
+                debugLog('Announcer sound exceeded 15 seconds - stopping');
+                stopCurrentAudio();
+                if (callback) callback();
+            }, 15000);
+
+            currentAudio.onended = function() {
+                debugLog('Announcer sound ended');
+                stopCurrentAudio();
+                // Wait a short moment before playing the next sound
+                setTimeout(function() {
+                    if (callback) callback();
+                }, 200);
+            };
+
+            currentAudio.onerror = function(e) {
+                debugLog('Announcer audio error: ' + e.type);
+                stopCurrentAudio();
+                if (callback) callback();
+            };
+
+            currentAudio.play().then(function() {
+                debugLog('Announcer sound playing: ' + announcerKey);
+            }).catch(function(e) {
+                debugLog('Announcer play error: ' + e.message);
+                stopCurrentAudio();
+                if (callback) callback();
+            });
+        } catch (e) {
+            debugLog('Error creating announcer audio: ' + e.message);
+            if (callback) callback();
+        }
+    } else {
+        debugLog('Announcer sound not found for ID: ' + soundId);
+        if (callback) callback();
+    }
+}
+
+    // How announcer clips (and the goal sound after them) meet when played natively:
+    // back to back by default; gapMs adds silence, crossfadeMs overlaps them
+    var ANNOUNCEMENT_OPTIONS = { gapMs: 0, crossfadeMs: 0 };
+    // Native announcement id -> callback for when it has played
+    var pendingAnnouncements = {};
+
+    // Clip ids for the assigned announcer keys, in order; null if any of them is only
+    // available as inline data, which the native sequencer can't play
+    function resolveAnnouncerClipIds(soundKeys) {
+        var clipIds = [];
+        for (var i = 0; i < soundKeys.length; i++) {
+            var soundId = gameState.soundAssignments[soundKeys[i]];
+            var sound = soundId ? findSoundById(soundId) : null;
+            if (!sound) {
+                continue;
+            }
+            if (sound.data || !sound.id) {
+                return null;
+            }
+            clipIds.push(sound.id);
+        }
+        return clipIds;
+    }
+
+    // Plays the clips as one gapless native announcement; false if that isn't possible
+    function playNativeAnnouncement(clipIds, description, tapTime, callback) {
+        if (clipIds.length === 0 || !window.AndroidInterface || !window.AndroidInterface.playAnnouncement) {
+            return false;
+        }
+        try {
+            var announcementId = window.AndroidInterface.playAnnouncement(
+                JSON.stringify(clipIds), JSON.stringify(ANNOUNCEMENT_OPTIONS), description, tapTime || 0);
+            if (!announcementId) {
+                return false;
+            }
+            // HTML5 audio still playing would talk over it
+            stopHtmlAudio();
+            pendingAnnouncements[announcementId] = callback || null;
+            debugLog('Native announcement requested: ' + clipIds.length + ' clips (' + description + ')');
+            return true;
+        } catch (e) {
+            debugLog('Native announcement unavailable: ' + e.message);
+            return false;
+        }
+    }
+
+    function onAnnouncementFinished(result) {
+        var callback = pendingAnnouncements[result.id];
+        delete pendingAnnouncements[result.id];
+        debugLog('Announcement ' + result.id + ' finished: ' + result.played + ' clips'
+            + (result.completed ? '' : ' (stopped)'));
+        // Like the HTML5 path: a stop cuts the chain, a failure to play anything doesn't
+        if (callback && (result.completed || result.played === 0)) {
+            callback();
+        }
+    }
+
+    // Announcer sounds, then the goal sound. Natively they go out as one announcement
+    // without gaps between the clips; otherwise they are chained through HTML5 audio.
+    function playAnnouncedGoalSound(announcerKeys, team, player, tapTime) {
+        if (announcerKeys.length === 0) {
+            playGoalSound(team, player, tapTime);
+            return;
+        }
+        var clipIds = resolveAnnouncerClipIds(announcerKeys);
+        var goalSound = resolveGoalSound(team, player);
+        if (clipIds && (!goalSound || (!goalSound.sound.data && goalSound.sound.id))) {
+            if (goalSound) {
+                clipIds.push(goalSound.sound.id);
+            }
+            var description = goalSound ? goalSound.description : 'Announcement: ' + team + ' - ' + player;
+            if (playNativeAnnouncement(clipIds, description, tapTime, null)) {
+                return;
+            }
+        }
+        playAnnouncerSoundsSequence(announcerKeys, function() {
+            // Announcers would dominate the latency, so the tap time isn't passed on
+            playGoalSound(team, player, 0);
+        });
+    }
+
+// Function to play multiple announcer sounds in sequence
+    function playAnnouncerSoundsSequence(soundKeys, callback) {
+        if (soundKeys.length === 0) {
+            if (callback) callback();
+            return;
+    }
+
+        var clipIds = resolveAnnouncerClipIds(soundKeys);
+        if (clipIds && playNativeAnnouncement(clipIds, 'Announcer: ' + soundKeys.join(', '), 0, callback)) {
+            return;
+        }
+
+        var currentIndex = 0;
+
+        function playNext() {
+            if (currentIndex >= soundKeys.length) {
+                if (callback) callback();
+                return;
+            }
+
+            var soundKey = soundKeys[currentIndex];
+            currentIndex++;
+
+            playAnnouncerSound(soundKey, function() {
+            // Small delay between announcer sounds
+                setTimeout(playNext, 100);
+            });
+        }
+
+        playNext();
+}
+
+    // Player Profile Management
+    var playerProfiles = [];
+    var currentMusicTarget = null;
+
+    function createPlayerProfile() {
+        var name = document.getElementById('new-player-name').value.trim();
+
+        if (!name) {
+            alert('Please enter a player name');
+            return;
+        }
+
+        // Check if player name already exists
+        if (playerProfiles.some(function(p) { return p.name.toLowerCase() === name.toLowerCase(); })) {
+            alert('A player with this name already exists!');
+            return;
+        }
+
+        var player = {
+            id: 'player_' + Date.now(),
+            name: name,
+            music: {
+                slot1: null,
+                slot2: null,
+                slot3: null
+            },
+            createdAt: new Date().toISOString()
+        };
+
+        playerProfiles.push(player);
+        savePlayerProfiles();
+        displayPlayerProfiles();
+
+        // Clear form
+        document.getElementById('new-player-name').value = '';
+
+        // AndroidInterface.showToast('✅ Player profile created: ' + name);
+    }
+
+    // Profiles hold only clip references ({name, clipId, size, uploadedAt}); the
+    // audio itself lives in the native clip store
+    function savePlayerProfiles() {
+        try {
+            localStorage.setItem('footballTracker_playerProfiles', JSON.stringify(playerProfiles));
+        } catch (e) {
+            console.error('Error saving player profiles:', e);
+        }
+    }
+
+    function loadPlayerProfiles() {
+        try {
+            var saved = localStorage.getItem('footballTracker_playerProfiles');
+            if (saved) {
+                playerProfiles = JSON.parse(saved);
+                syncPlayerMusicWithNative();
+            } else {
+                // First time startup - create 10 default players
+                createDefaultPlayers();
+            }
+        } catch (e) {
+            console.error('Error loading player profiles:', e);
+            playerProfiles = [];
+            // If error loading, also create default players
+            createDefaultPlayers();
+        }
+    }
+
+    // Moves music still stored inline as base64 (older versions) into native storage
+    // and makes sure the native store knows about every slot the profiles refer to
+    function syncPlayerMusicWithNative() {
+        if (!window.AndroidInterface || !window.AndroidInterface.getPlayerMusic) return;
+
+        var nativeMusic = {};
+        try {
+            nativeMusic = JSON.parse(window.AndroidInterface.getPlayerMusic() || '{}');
+        } catch (e) {
+            console.error('Error reading native player music:', e);
+            return;
+        }
+
+        var changed = false;
+        playerProfiles.forEach(function(player) {
+            var nativeSlots = nativeMusic[player.id] || {};
+            Object.keys(player.music || {}).forEach(function(slotId) {
+                var music = player.music[slotId];
+                if (!music) return;
+
+                if (music.dataUrl) {
+                    var clip = null;
+                    try {
+                        var result = window.AndroidInterface.migratePlayerMusic(player.id, slotId, music.name, music.dataUrl);
+                        clip = result ? JSON.parse(result) : null;
+                    } catch (e) {
+                        debugLog('Error migrating music for ' + player.name + ': ' + e.message);
+                    }
+                    if (!clip) return;
+                    player.music[slotId] = {
+                        name: music.name,
+                        clipId: clip.id,
+                        size: clip.size,
+                        uploadedAt: music.uploadedAt || new Date().toISOString()
+                    };
+                    changed = true;
+                    debugLog('Moved music "' + music.name + '" for ' + player.name + ' to native storage');
+                } else if (music.clipId && nativeSlots[slotId] !== music.clipId) {
+                    if (nativeSlots[slotId]) {
+                        // Native side is authoritative (e.g. a migration whose profile save was lost)
+                        music.clipId = nativeSlots[slotId];
+                        changed = true;
+                    } else {
+                        window.AndroidInterface.setPlayerMusic(player.id, slotId, music.clipId);
+                    }
+                }
+            });
+        });
+
+        if (changed) {
+            savePlayerProfiles();
+        }
+    }
+
+    function createDefaultPlayers() {
+        debugLog('Creating 10 default players for first startup');
+        playerProfiles = [];
+        
+        for (var i = 1; i <= 10; i++) {
+            var player = {
+                id: 'default_player_' + i,
+                name: 'Player ' + i,
+                music: {
+                    slot1: null,
+                    slot2: null,
+                    slot3: null
+                }
+            };
+            playerProfiles.push(player);
+        }
+        
+        savePlayerProfiles();
+        debugLog('Created 10 default players: Player 1 through Player 10');
+    }
+
+    var isBulkEditMode = false;
+
+    function toggleBulkNameEdit() {
+        isBulkEditMode = !isBulkEditMode;
+        var button = document.querySelector('.edit-names-btn');
+        
+        if (isBulkEditMode) {
+            button.textContent = '💾 Save Names';
+            button.style.background = 'linear-gradient(135deg, #10b981, #059669)';
+            enableBulkNameEditing();
+        } else {
+            button.textContent = '✏️ Edit Names';
+            button.style.background = 'linear-gradient(135deg, #f59e0b, #d97706)';
+            saveBulkNameChanges();
+            displayPlayerProfiles();
+        }
+    }
+
+    function enableBulkNameEditing() {
+        var grid = document.getElementById('players-grid');
+        var html = '<div class="bulk-edit-header">' +
+                      '<h3>✏️ Quick Edit Player Names</h3>' +
+                      '<p>Edit the names below and click "Save Names" when done</p>' +
+                   '</div>';
+        
+        for (var i = 0; i < playerProfiles.length; i++) {
+            var player = playerProfiles[i];
+            html += '<div class="bulk-edit-item">' +
+                       '<label>Player ' + (i + 1) + ':</label>' +
+                       '<input type="text" ' +
+                              'id="bulk-edit-' + player.id + '" ' +
+                              'value="' + player.name + '" ' +
+                              'maxlength="30" ' +
+                              'class="bulk-edit-input">' +
+                    '</div>';
+        }
+        
+        grid.innerHTML = html;
+    }
+
+    function saveBulkNameChanges() {
+        for (var i = 0; i < playerProfiles.length; i++) {
+            var player = playerProfiles[i];
+            var input = document.getElementById('bulk-edit-' + player.id);
+            if (input) {
+                var newName = input.value.trim();
+                if (newName && newName !== player.name) {
+                    // Check for duplicates
+                    var isDuplicate = playerProfiles.some(function(p, index) {
+                        return index !== i && p.name.toLowerCase() === newName.toLowerCase();
+                    });
+                    
+                    if (!isDuplicate) {
+                        // Update player assignments in team dropdowns if name changed
+                        updatePlayerNameInTeamAssignments(player.name, newName);
+                        player.name = newName;
+                    }
+                }
+            }
+        }
+        
+        savePlayerProfiles();
+        refreshPlayerDropdowns();
+        
+        if (window.AndroidInterface) {
+            window.AndroidInterface.showToast('Remember to assign the player(s) with new name');
+        }
+    }
+
+    function updatePlayerNameInTeamAssignments(oldName, newName) {
+        // Update yellow team assignments
+        for (var i = 1; i <= gameState.yellowPlayerCount; i++) {
+            var select = document.getElementById('yellow-player-' + i);
+            if (select && select.value === oldName) {
+                select.value = newName;
+            }
+        }
+        
+        // Update blue team assignments
+        for (var i = 1; i <= gameState.bluePlayerCount; i++) {
+            var select = document.getElementById('blue-player-' + i);
+            if (select && select.value === oldName) {
+                select.value = newName;
+            }
+        }
+    }
+
+    function displayPlayerProfiles() {
+        var grid = document.getElementById('players-grid');
+        
+        if (playerProfiles.length === 0) {
+            grid.innerHTML = 
+                '<div class="empty-state">' +
+                    '<div class="empty-state-icon">⚽</div>' +
+                    '<h3>No Players Yet</h3>' +
+                    '<p>Create your first player profile above</p>' +
+                '</div>';
+            return;
+        }
+
+        var html = '';
+        playerProfiles.forEach(function(player) {
+            html += createPlayerCardHTML(player);
+        });
+        
+        grid.innerHTML = html;
+        
+        // Add event listeners for music buttons using event delegation
+        grid.removeEventListener('click', handleMusicButtonClick); // Remove existing listener if any
+        grid.addEventListener('click', handleMusicButtonClick);
+        debugLog('Event listener added to players grid for music buttons');
+        
+        // Restore expanded music sections
+        restoreExpandedMusicSections();
+    }
+
+    function handleMusicButtonClick(event) {
+        debugLog('Click event detected on element: ' + event.target.tagName + ', classes: ' + event.target.className);
+        
+        var button = event.target;
+        if (!button.classList.contains('music-btn')) {
+            debugLog('Not a music button, ignoring click');
+            return;
+        }
+        
+        var playerId = button.getAttribute('data-player-id');
+        var slotId = button.getAttribute('data-slot-id');
+        var action = button.getAttribute('data-action');
+        
+        debugLog('Music button clicked: action=' + action + ', playerId=' + playerId + ', slotId=' + slotId);
+        
+        try {
+            switch(action) {
+                case 'play':
+                    playPlayerMusic(playerId, slotId);
+                    break;
+                case 'remove':
+                    removePlayerMusic(playerId, slotId);
+                    break;
+                case 'upload':
+                    uploadPlayerMusic(playerId, slotId);
+                    break;
+                default:
+                    debugLog('Unknown action: ' + action);
+            }
+        } catch (error) {
+            debugLog('Error handling music button click: ' + error.message);
+            // AndroidInterface.showToast('❌ Error: ' + error.message);
+        }
+    }
+    // Make function globally accessible for debugging
+    window.handleMusicButtonClick = handleMusicButtonClick;
+
+    function createPlayerCardHTML(player) {
+
+        var musicSlotsHTML = '';
+        for (var i = 1; i <= 3; i++) {
+            var slot = 'slot' + i;
+            var hasMusic = player.music[slot] !== null;
+            var musicInfo = hasMusic ? 
+                '<span class="music-info has-music">' + player.music[slot].name + '</span>' :
+                '<span class="music-info">No music assigned</span>';
+            
+            var controls = hasMusic ? 
+                '<button class="music-btn play-music-btn" data-player-id="' + player.id + '" data-slot-id="' + slot + '" data-action="play">🔊</button>' +
+                ' <button class="music-btn remove-music-btn" data-player-id="' + player.id + '" data-slot-id="' + slot + '" data-action="remove">🗑️</button>' :
+                '<button class="music-btn upload-music-btn" data-player-id="' + player.id + '" data-slot-id="' + slot + '" data-action="upload">📁</button>';
+
+            musicSlotsHTML += 
+                '<div class="music-slot ' + (hasMusic ? 'has-music' : '') + '">' +
+                    '<span class="music-slot-number">' + i + '</span>' +
+                    musicInfo +
+                    '<div class="music-controls">' +
+                        controls +
+                    '</div>' +
+                '</div>';
+        }
+
+        return '<div class="player-card">' +
+                '<div class="player-card-header">' +
+                    '<div class="player-info">' +
+                        '<h3>' + player.name + '</h3>' +
+                    '</div>' +
+                    '<div>' +
+                        '<button class="goalkeeper-btn' + (player.goalkeeper ? ' active' : '') + '" ' +
+                                'onclick="toggleGoalkeeper(\'' + player.id + '\')" ' +
+                                'title="Goalkeeper: kept apart from other goalkeepers when teams are balanced">' +
+                            '🧤' +
+                        '</button> ' +
+                        '<button class="delete-player-btn" ' +
+                                'onclick="debugLog(\'Delete button clicked for ' + player.id + '\'); confirmDeletePlayer(\'' + player.id + '\')" ' +
+                                'ondblclick="debugLog(\'Double-click delete for ' + player.id + '\'); deletePlayer(\'' + player.id + '\')" ' +
+                                'title="Click to delete with confirmation, double-click for immediate delete">' +
+                            '×' +
+                        '</button>' +
+                    '</div>' +
+                '</div>' +
+                
+                '<div class="player-music">' +
+                    '<div class="music-header" onclick="toggleMusicSection(\'' + player.id + '\')">' +
+                        '<h4>🎵 Music Tracks (' + Object.values(player.music).filter(function(m) { return m !== null; }).length + '/3)</h4>' +
+                        '<span class="expand-icon" id="expand-' + player.id + '">▶</span>' +
+                    '</div>' +
+                    '<div class="music-content" id="music-' + player.id + '">' +
+                        '<div class="music-slots">' +
+                            musicSlotsHTML +
+                        '</div>' +
+                    '</div>' +
+                '</div>' +
+            '</div>';
+    }
+
+    function uploadPlayerMusic(playerId, slotId) {
+        try {
+            debugLog('uploadPlayerMusic called with playerId: ' + playerId + ', slotId: ' + slotId);
+            currentMusicTarget = { type: 'player', playerId: playerId, slotId: slotId };
+            AndroidInterface.openSoundPicker();
+        } catch (error) {
+            debugLog('Error in uploadPlayerMusic: ' + error.message);
+            // AndroidInterface.showToast('❌ Error opening file picker: ' + error.message);
+        }
+    }
+    // Make function globally accessible
+    window.uploadPlayerMusic = uploadPlayerMusic;
+
+    function addMusicToPlayer(playerId, slotId, fileName, clipId, fileSize) {
+        var player = playerProfiles.find(function(p) { return p.id === playerId; });
+        if (!player) return;
+
+        var maxSize = getMaxUploadSize();
+        if (fileSize > maxSize) {
+            var sizeInMB = (fileSize / (1024 * 1024)).toFixed(1);
+            var message = 'File size too large! Maximum allowed: ' + Math.round(maxSize / (1024 * 1024)) + 'MB, your file: ' + sizeInMB + 'MB';
+            alert(message);
+            if (window.AndroidInterface) {
+                window.AndroidInterface.showToast(message);
+            }
+            return;
+        }
+
+        // The native store frees the clip this one replaces
+        if (window.AndroidInterface) {
+            window.AndroidInterface.setPlayerMusic(playerId, slotId, clipId);
+        }
+
+        player.music[slotId] = {
+            name: fileName,
+            clipId: clipId,
+            size: fileSize,
+            uploadedAt: new Date().toISOString()
+        };
+
+        savePlayerProfiles();
+        displayPlayerProfiles();
+        // AndroidInterface.showToast('🎵 Music added to ' + player.name);
+    }
+
+    function playPlayerMusic(playerId, slotId) {
+        try {
+            // Stop any currently playing audio first
+            stopCurrentAudio();
+            
+            debugLog('playPlayerMusic called with playerId: ' + playerId + ', slotId: ' + slotId);
+            var player = playerProfiles.find(function(p) { return p.id === playerId; });
+            if (!player) {
+                debugLog('Player not found with ID: ' + playerId);
+                // AndroidInterface.showToast('❌ Player not found');
+                return;
+            }
+            
+            if (!player.music[slotId]) {
+                debugLog('No music found in slot ' + slotId + ' for player: ' + player.name);
+                // AndroidInterface.showToast('❌ No music assigned');
+                return;
+            }
+
+            var music = player.music[slotId];
+            
+            // Use unified audio system with 15-second timeout and overlap prevention
+            var musicSound = {
+                name: music.name,
+                id: music.clipId
+            };
+            var description = 'Player: ' + player.name;
+            
+            playSound(musicSound, description);
+            // AndroidInterface.showToast('🎵 Playing: ' + music.name);
+            debugLog('Playing music: ' + music.name + ' for player: ' + player.name);
+        } catch (error) {
+            debugLog('Error in playPlayerMusic: ' + error.message);
+            console.error('Error playing music:', error);
+            // AndroidInterface.showToast('❌ Error playing music: ' + error.message);
+        }
+    }
+    // Make function globally accessible
+    window.playPlayerMusic = playPlayerMusic;
+
+    function removePlayerMusic(playerId, slotId) {
+        try {
+            debugLog('removePlayerMusic called with playerId: ' + playerId + ', slotId: ' + slotId);
+            // AndroidInterface.showToast('🔧 removePlayerMusic function called!');
+            
+            var player = playerProfiles.find(function(p) { return p.id === playerId; });
+            if (!player) {
+                debugLog('Player not found with ID: ' + playerId);
+                // AndroidInterface.showToast('❌ Player not found');
+                return;
+            }
+            
+            if (!player.music[slotId] || player.music[slotId] === null) {
+                debugLog('No music found in slot ' + slotId);
+                // AndroidInterface.showToast('❌ No music found in this slot');
+                return;
+            }
+            
+            var musicName = player.music[slotId].name;
+            debugLog('Found music to remove: ' + musicName);
+            
+            // Use a simple approach - remove directly with confirmation via Android toast
+            // AndroidInterface.showToast('🗑️ Removing: ' + musicName);
+            
+            debugLog('Removing music from slot ' + slotId + ' for player: ' + player.name);
+            if (window.AndroidInterface) {
+                window.AndroidInterface.removePlayerMusic(playerId, slotId);
+            }
+            player.music[slotId] = null;
+            savePlayerProfiles();
+            displayPlayerProfiles();
+            // AndroidInterface.showToast('✅ Music removed from ' + player.name);
+            debugLog('Music successfully removed');
+            
+        } catch (error) {
+            debugLog('Error in removePlayerMusic: ' + error.message);
+            // AndroidInterface.showToast('❌ Error removing music: ' + error.message);
+            console.error('Error in removePlayerMusic:', error);
+        }
+    }
+    // Make function globally accessible  
+    window.removePlayerMusic = removePlayerMusic;
+    
+    function unassignSound(soundKey) {
+        try {
+            debugLog('unassignSound called for: ' + soundKey);
+            
+            if (gameState.soundAssignments[soundKey]) {
+                var soundId = gameState.soundAssignments[soundKey];
+                var sound = findSoundById(soundId);
+                var soundName = sound ? sound.name : 'Unknown';
+                
+                delete gameState.soundAssignments[soundKey];
+                updateAllSoundAssignmentButtons();
+                
+                // Update specific UI components based on sound type
+                if (soundKey.startsWith('announcer-')) {
+                    updateAnnouncerStatus(soundKey);
+                } else if (soundKey.startsWith('custom-sound-')) {
+                    updateCustomSoundsButtons();
+                }
+                
+                saveSoundsToAndroid();
+                
+                if (window.AndroidInterface) {
+                    window.AndroidInterface.showToast('🗑️ Unassigned: ' + soundName);
+                }
+                debugLog('Sound unassigned successfully: ' + soundKey);
+            } else {
+                if (window.AndroidInterface) {
+                    window.AndroidInterface.showToast('❌ No sound assigned');
+                }
+            }
+        } catch (error) {
+            debugLog('Error in unassignSound: ' + error.message);
+            // AndroidInterface.showToast('❌ Error removing sound: ' + error.message);
+        }
+    }
+    
+    // Make function globally accessible
+    window.unassignSound = unassignSound;
+    
+
+
+    function confirmDeletePlayer(playerId) {
+        debugLog('confirmDeletePlayer called with ID: ' + playerId);
+        var player = playerProfiles.find(function(p) { return p.id === playerId; });
+        if (!player) {
+            debugLog('Player not found with ID: ' + playerId);
+            return;
+        }
+
+        debugLog('Single click on delete button for: ' + player.name);
+
+        // Show helpful toast message instructing user to double-click
+        if (window.AndroidInterface) {
+            window.AndroidInterface.showToast('💡 Double-click the × button to delete "' + player.name + '"');
+        }
+    }
+
+    function deletePlayer(playerId) {
+        var player = playerProfiles.find(function(p) { return p.id === playerId; });
+        if (!player) return;
+
+        debugLog('Deleting player: ' + player.name);
+
+        // Remove from playerProfiles array
+        playerProfiles = playerProfiles.filter(function(p) { return p.id !== playerId; });
+
+        // Free the player's music clips
+        if (window.AndroidInterface) {
+            window.AndroidInterface.removePlayer(playerId);
+        }
+        
+        // Clear any team assignments for this player
+        clearPlayerFromTeamAssignments(player.name);
+        
+        // Save updated profiles
+        savePlayerProfiles();
+        
+        // Refresh displays
+        displayPlayerProfiles();
+        refreshPlayerDropdowns();
+        
+        if (window.AndroidInterface) {
+            // window.AndroidInterface.showToast('🗑️ Player deleted: ' + player.name);
+        }
+        
+        debugLog('Player deleted successfully');
+    }
+
+    function clearPlayerFromTeamAssignments(playerName) {
+        // Clear from yellow team
+        for (var i = 1; i <= gameState.yellowPlayerCount; i++) {
+            var select = document.getElementById('yellow-player-' + i);
+            if (select && select.value === playerName) {
+                select.value = '';
+            }
+        }
+        
+        // Clear from blue team
+        for (var i = 1; i <= gameState.bluePlayerCount; i++) {
+            var select = document.getElementById('blue-player-' + i);
+            if (select && select.value === playerName) {
+                select.value = '';
+            }
+        }
+    }
+
+    function toggleMusicSection(playerId) {
+        var musicContent = document.getElementById('music-' + playerId);
+        var expandIcon = document.getElementById('expand-' + playerId);
+        
+        if (!musicContent || !expandIcon) return;
+        
+        if (musicContent.classList.contains('expanded')) {
+            // Collapse
+            musicContent.classList.remove('expanded');
+            expandIcon.classList.remove('expanded');
+            expandIcon.textContent = '▶';
+            expandedMusicSections[playerId] = false;
+        } else {
+            // Expand
+            musicContent.classList.add('expanded');
+            expandIcon.classList.add('expanded');
+            expandIcon.textContent = '▼';
+            expandedMusicSections[playerId] = true;
+        }
+    }
+
+    function restoreExpandedMusicSections() {
+        for (var playerId in expandedMusicSections) {
+            if (expandedMusicSections[playerId] === true) {
+                var musicContent = document.getElementById('music-' + playerId);
+                var expandIcon = document.getElementById('expand-' + playerId);
+                
+                if (musicContent && expandIcon) {
+                    musicContent.classList.add('expanded');
+                    expandIcon.classList.add('expanded');
+                    expandIcon.textContent = '▼';
+                }
+            }
+        }
+    }
+
+    // Override the existing addSoundFromNative to handle player music and direct assignments
+    var originalAddSoundFromNative = window.addSoundFromNative;
+    window.addSoundFromNative = function(fileName, clipId, fileSize, mimeType, durationMs) {
+        if (currentMusicTarget && currentMusicTarget.type === 'player') {
+            addMusicToPlayer(currentMusicTarget.playerId, currentMusicTarget.slotId, fileName, clipId, fileSize);
+            currentMusicTarget = null;
+        } else if (currentSoundTarget) {
+            // Handle direct sound assignment
+            handleDirectSoundAssignment(fileName, clipId, fileSize, mimeType, durationMs);
+        } else {
+            // Call original function for other sound additions
+            if (originalAddSoundFromNative) {
+                originalAddSoundFromNative(fileName, clipId, fileSize, mimeType, durationMs);
+            }
+        }
+    };
+    
+    function handleDirectSoundAssignment(fileName, clipId, fileSize, mimeType, durationMs) {
+        debugLog('Direct assignment for: ' + currentSoundTarget);
+        
+        try {
+            // Create the sound object
+            var sound = {
+                name: fileName,
+                id: clipId,
+                size: fileSize,
+                type: mimeType || 'audio/mpeg',
+                duration: durationMs || 0,
+                assigned: true,
+                uploadDate: new Date().toISOString()
+            };
+
+            // Add to sounds array
+            gameState.sounds.push(sound);
+
+            // Assign directly to the target
+            gameState.soundAssignments[currentSoundTarget] = sound.id;
+
+            // Update button appearance
+            updateSoundAssignmentButton(currentSoundTarget);
+
+            // Update custom sound buttons if needed
+            if (currentSoundTarget.startsWith('custom-sound-')) {
+                updateCustomSoundsButtons();
+            }
+
+            // Update announcer status if needed
+            if (currentSoundTarget.startsWith('announcer-')) {
+                updateAnnouncerStatus(currentSoundTarget);
+            }
+
+            // Auto save
+            autoSaveSounds();
+            
+            // Show success message
+            if (window.AndroidInterface) {
+                // window.AndroidInterface.showToast('🎵 "' + fileName + '" assigned successfully');
+            }
+            
+            debugLog('Sound assigned successfully to: ' + currentSoundTarget);
+            
+        } catch (error) {
+            debugLog('Error in direct sound assignment: ' + error.message);
+            if (window.AndroidInterface) {
+                // window.AndroidInterface.showToast('❌ Error assigning sound');
+            }
+        }
+        
+        // Clear the target
+        currentSoundTarget = null;
+    }
+
+    // Report a startup milestone to the app, which logs it relative to activity
+    // creation. Each milestone is only reported once per page load.
+    var startupMarks = {};
+    function markStartup(name) {
+        if (startupMarks[name]) {
+            return;
+        }
+        startupMarks[name] = true;
+        if (window.AndroidInterface && window.AndroidInterface.markStartup) {
+            try {
+                window.AndroidInterface.markStartup(name);
+            } catch (error) {
+                debugLog('Error reporting startup mark: ' + error.message);
+            }
+        }
+    }
+
+    // Stable id for an action log entry, so journal records can refer to it
+    function newEventId() {
+        return 'evt_' + Date.now().toString(36) + '_' + Math.random().toString(36).substr(2, 6);
+    }
+
+    // Append one record to the native match journal. Each goal, edit, delete,
+    // undo etc. costs one small write instead of re-saving the whole match.
+    function journalEntry(type, entry, extra) {
+        if (!entry.id) {
+            entry.id = newEventId();
+        }
+        if (!window.AndroidInterface || !window.AndroidInterface.journalAppend) {
+            return;
+        }
+
+        var data = extra || {};
+        if (type !== 'delete' && type !== 'undo') {
+            data.entry = entry;
+        }
+        try {
+            window.AndroidInterface.journalAppend(type, entry.id, JSON.stringify(data));
+        } catch (error) {
+            debugLog('Error writing match journal: ' + error.message);
+        }
+    }
+
+    // Recompute scores, player stats and announcer flags from the action log
+    function recomputeMatchTotals() {
+        initializePlayerStats();
+        gameState.yellowScore = 0;
+        gameState.blueScore = 0;
+        gameState.totalGoalsScored = 0;
+
+        for (var i = 0; i < gameState.actionLog.length; i++) {
+            var action = gameState.actionLog[i];
+            if (action.type === 'goal') {
+                if (action.team === 'yellow') {
+                    gameState.yellowScore++;
+                } else {
+                    gameState.blueScore++;
+                }
+                updatePlayerStats(action);
+                gameState.totalGoalsScored++;
+            } else if (action.type === 'own-goal') {
+                if (action.scoringTeam === 'yellow') {
+                    gameState.yellowScore++;
+                } else {
+                    gameState.blueScore++;
+                }
+                gameState.totalGoalsScored++;
+            }
+        }
+
+        var scoreDiff = Math.abs(gameState.yellowScore - gameState.blueScore);
+        gameState.hasThreeGoalLead = scoreDiff >= 3;
+        gameState.hasFiveGoalLead = scoreDiff >= 5;
+    }
+
+    // JSON turns Date objects into strings; the report expects Dates back
+    function reviveLogTimestamps(actionLog) {
+        for (var i = 0; i < actionLog.length; i++) {
+            if (actionLog[i].timestamp && !(actionLog[i].timestamp instanceof Date)) {
+                actionLog[i].timestamp = new Date(actionLog[i].timestamp);
+            }
+        }
+        return actionLog;
+    }
+
+    // Rebuild an unfinished match from the native journal (snapshot + replayed tail).
+    // Called by the app from onPageFinished, once per page load, however long ago
+    // the match was interrupted; a match is only dropped once it is stopped or reset.
+    var matchRestoreAttempted = false;
+    function restoreMatch() {
+        if (matchRestoreAttempted) {
+            return false;
+        }
+        matchRestoreAttempted = true;
+        if (!window.AndroidInterface || !window.AndroidInterface.getJournalState) {
+            return false;
+        }
+        try {
+            var journal = JSON.parse(window.AndroidInterface.getJournalState() || '{}');
+            var meta = journal.meta || {};
+            if (!meta.isGameStarted || !journal.entries) {
+                return false;
+            }
+
+            gameState.isGameStarted = true;
+            gameState.hasGameBeenStarted = true;
+            gameState.yellowTeamName = meta.yellowTeamName || 'Yellow Team';
+            gameState.blueTeamName = meta.blueTeamName || 'Blue Team';
+            gameState.yellowPlayers = meta.yellowPlayers || [];
+            gameState.bluePlayers = meta.bluePlayers || [];
+            gameState.yellowPlayerSlots = meta.yellowPlayerSlots || {};
+            gameState.bluePlayerSlots = meta.bluePlayerSlots || {};
+            gameState.actionLog = reviveLogTimestamps(journal.entries);
+            gameState.currentGoal = null;
+            recomputeMatchTotals();
+
+            showRestoredGameState();
+            renderLog();
+            try {
+                updateTeamHeaders();
+                generatePlayerButtons();
+                updateCustomSoundButtons();
+                generateGameModeCustomSounds();
+                document.getElementById('teams-container').style.display = window.innerWidth >= 768 ? 'grid' : 'flex';
+                document.getElementById('game-action-controls').style.display = 'flex';
+                document.getElementById('custom-sounds-section').style.display = 'block';
+                document.getElementById('action-log').style.display = 'block';
+            } catch (error) {
+                debugLog('Error showing restored game: ' + error.message);
+            }
+
+            debugLog('Game state restored from match journal (' + gameState.actionLog.length + ' entries)');
+            return true;
+        } catch (error) {
+            debugLog('Error restoring from match journal: ' + error.message);
+            return false;
+        }
+    }
+    window.restoreMatch = restoreMatch;
+
+    // Put scores, team names and the start/stop button in line with gameState
+    function showRestoredGameState() {
+        document.getElementById('yellow-score').textContent = gameState.yellowScore;
+        document.getElementById('blue-score').textContent = gameState.blueScore;
+        if (gameState.yellowTeamName) {
+            document.getElementById('yellow-team-name').value = gameState.yellowTeamName;
+            document.getElementById('yellow-team-name-header').textContent = gameState.yellowTeamName;
+        }
+        if (gameState.blueTeamName) {
+            document.getElementById('blue-team-name').value = gameState.blueTeamName;
+            document.getElementById('blue-team-name-header').textContent = gameState.blueTeamName;
+        }
+        
+        // Restore game started state
+        if (gameState.isGameStarted) {
+            var startBtn = document.getElementById('game-control-btn');
+            if (startBtn) {
+                startBtn.textContent = '⏹️ STOP GAME';
+                startBtn.className = 'control-btn stop';
+            }
+            document.getElementById('main-title').style.display = 'none';
+            document.getElementById('score-header').style.display = 'flex';
+        }
+        
+        // Update Edit Names button visibility based on restored game state
+        updateEditNamesButtonVisibility();
+    }
+
+    // Initialize app
+    document.addEventListener('DOMContentLoaded', function() {
+        if (isAppInitialized) {
+            debugLog('App already initialized, skipping...');
+            return;
+        }
+        
+        debugLog('App initializing...');
+        markStartup('dom-ready');
+        
+        // An unfinished match is restored from the journal once the page has
+        // finished loading (see restoreMatch)
+        gameState.playerStats = {};
+        initializePlayerSlots();
+        
+        updateSoundsStats();
+        loadPlayerProfiles();
+        
+        // Player assignments come with the native library and are restored by
+        // loadSoundsFromAndroid as soon as it arrives
+        
+        isAppInitialized = true;
+        markStartup('app-initialized');
+        debugLog('Football Match Tracker ready');
+    });
+    
+
+    debugLog('JavaScript loaded successfully');
@@ -0,0 +1,110 @@
+package com.przemek.footballtracker;
+
+import android.media.MediaCodec;
+import android.media.MediaCodecInfo;
+import android.media.MediaFormat;
+import android.media.MediaMuxer;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Encodes 16-bit PCM to AAC-LC in an MP4 container (.m4a) with MediaCodec and
+ * MediaMuxer. At 64 kbps per channel a 15 second goal clip is a few hundred
+ * kilobytes, against megabytes for the song it was cut from.
+ */
+final class AacEncoder {
+    static final String MIME_TYPE = "audio/mp4";
+    private static final int BIT_RATE_PER_CHANNEL = 64_000;
+    private static final long TIMEOUT_US = 10_000;
+
+    private AacEncoder() {
+    }
+
+    static void encode(PcmCache.Clip clip, File out) throws IOException {
+        MediaFormat format = MediaFormat.createAudioFormat(MediaFormat.MIMETYPE_AUDIO_AAC,
+                clip.sampleRate, clip.channelCount);
+        format.setInteger(MediaFormat.KEY_AAC_PROFILE, MediaCodecInfo.CodecProfileLevel.AACObjectLC);
+        format.setInteger(MediaFormat.KEY_BIT_RATE, BIT_RATE_PER_CHANNEL * clip.channelCount);
+
+        MediaCodec codec = MediaCodec.createEncoderByType(MediaFormat.MIMETYPE_AUDIO_AAC);
+        MediaMuxer muxer = null;
+        boolean muxerStarted = false;
+        try {
+            codec.configure(format, null, null, MediaCodec.CONFIGURE_FLAG_ENCODE);
+            codec.start();
+            muxer = new MediaMuxer(out.getAbsolutePath(), MediaMuxer.OutputFormat.MUXER_OUTPUT_MPEG_4);
+
+            int frameBytes = 2 * clip.channelCount;
+            int track = -1;
+            int position = 0;
+            boolean inputDone = false;
+            boolean outputDone = false;
+            MediaCodec.BufferInfo info = new MediaCodec.BufferInfo();
+
+            while (!outputDone) {
+                if (!inputDone) {
+                    int inputIndex = codec.dequeueInputBuffer(TIMEOUT_US);
+                    if (inputIndex >= 0) {
+                        ByteBuffer input = codec.getInputBuffer(inputIndex);
+                        input.clear();
+                        // Whole frames only, so timestamps stay exact
+                        int size = Math.min(input.remaining() / frameBytes * frameBytes, clip.pcm.length - position);
+                        long timeUs = (long) position / frameBytes * 1_000_000L / clip.sampleRate;
+                        if (size <= 0) {
+                            codec.queueInputBuffer(inputIndex, 0, 0, timeUs, MediaCodec.BUFFER_FLAG_END_OF_STREAM);
+                            inputDone = true;
+                        } else {
+                            input.put(clip.pcm, position, size);
+                            codec.queueInputBuffer(inputIndex, 0, size, timeUs, 0);
+                            position += size;
+                        }
+                    }
+                }
+
+                int outputIndex = codec.dequeueOutputBuffer(info, TIMEOUT_US);
+                if (outputIndex == MediaCodec.INFO_OUTPUT_FORMAT_CHANGED) {
+                    track = muxer.addTrack(codec.getOutputFormat());
+                    muxer.start();
+                    muxerStarted = true;
+                } else if (outputIndex >= 0) {
+                    ByteBuffer output = codec.getOutputBuffer(outputIndex);
+                    // The codec config is already part of the output format
+                    boolean config = (info.flags & MediaCodec.BUFFER_FLAG_CODEC_CONFIG) != 0;
+                    if (info.size > 0 && !config && muxerStarted) {
+                        output.position(info.offset);
+                        output.limit(info.offset + info.size);
+                        muxer.writeSampleData(track, output, info);
+                    }
+                    codec.releaseOutputBuffer(outputIndex, false);
+                    outputDone = (info.flags & MediaCodec.BUFFER_FLAG_END_OF_STREAM) != 0;
+                }
+            }
+            if (!muxerStarted) {
+                throw new IOException("Encoder produced no output");
+            }
+            muxerStarted = false;
+            muxer.stop();
+        } catch (IllegalStateException e) {
+            throw new IOException("Cannot encode clip: " + e.getMessage(), e);
+        } finally {
+            try {
+                codec.stop();
+            } catch (IllegalStateException ignored) {
+                // Never started
+            }
+            codec.release();
+            if (muxer != null) {
+                try {
+                    if (muxerStarted) {
+                        muxer.stop();
+                    }
+                } catch (IllegalStateException ignored) {
+                    // Already failing; the output file is discarded by the caller
+                }
+                muxer.release();
+            }
+        }
+    }
+}
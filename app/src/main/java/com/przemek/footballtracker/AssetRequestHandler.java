@@ -0,0 +1,118 @@
+package com.przemek.footballtracker;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Serves the page's scripts and styles from the APK assets under the virtual
+ * {@code https://app.local/<path>} origin, in the spirit of androidx's
+ * WebViewAssetLoader. Unlike file:// loads these responses carry validators
+ * and long-lived cache headers, so the WebView can keep the compiled script
+ * between launches. Assets only change with an app update, which is when
+ * MainActivity drops the WebView cache; the build tag doubles as the ETag.
+ */
+public class AssetRequestHandler {
+    public static final String HOST = "app.local";
+    public static final String URL_PREFIX = "https://" + HOST + "/";
+
+    /** Opens an asset by its path relative to the assets directory. */
+    public interface AssetSource {
+        InputStream open(String path) throws IOException;
+    }
+
+    private final AssetSource source;
+    private final String buildTag;
+    // Assets read ahead of the page asking for them (see prewarm)
+    private final Map<String, byte[]> prewarmed = new ConcurrentHashMap<>();
+
+    public AssetRequestHandler(AssetSource source, String buildTag) {
+        this.source = source;
+        this.buildTag = buildTag;
+    }
+
+    public static String urlFor(String path) {
+        return URL_PREFIX + path;
+    }
+
+    /**
+     * Reads an asset into memory so the request the page makes for it later
+     * doesn't wait on the APK. Safe to call from any thread; the first request
+     * takes the bytes and they're not kept after that.
+     */
+    public void prewarm(String path) throws IOException {
+        if (!isValidPath(path) || prewarmed.containsKey(path)) {
+            return;
+        }
+        try (InputStream in = source.open(path)) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[16 * 1024];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+            prewarmed.put(path, out.toByteArray());
+        }
+    }
+
+    public boolean isPrewarmed(String path) {
+        return prewarmed.containsKey(path);
+    }
+
+    public AudioRequestHandler.Response handle(String path) throws IOException {
+        if (!isValidPath(path)) {
+            return AudioRequestHandler.Response.empty(404, "Not Found");
+        }
+
+        InputStream body;
+        byte[] bytes = prewarmed.remove(path);
+        if (bytes != null) {
+            body = new ByteArrayInputStream(bytes);
+        } else {
+            try {
+                body = source.open(path);
+            } catch (FileNotFoundException e) {
+                return AudioRequestHandler.Response.empty(404, "Not Found");
+            }
+        }
+
+        AudioRequestHandler.Response response =
+                new AudioRequestHandler.Response(200, "OK", mimeTypeFor(path), body);
+        if (bytes != null) {
+            response.headers.put("Content-Length", String.valueOf(bytes.length));
+        }
+        response.headers.put("ETag", "\"" + buildTag + "\"");
+        // Unchanged until the next app update, which clears the WebView cache
+        response.headers.put("Cache-Control", "public, max-age=31536000, immutable");
+        // The page itself is served from file://, so allow it to read us
+        response.headers.put("Access-Control-Allow-Origin", "*");
+        return response;
+    }
+
+    static String mimeTypeFor(String path) {
+        String lower = path.toLowerCase();
+        if (lower.endsWith(".js")) {
+            return "application/javascript";
+        } else if (lower.endsWith(".css")) {
+            return "text/css";
+        } else if (lower.endsWith(".html")) {
+            return "text/html";
+        } else if (lower.endsWith(".json")) {
+            return "application/json";
+        } else if (lower.endsWith(".svg")) {
+            return "image/svg+xml";
+        } else if (lower.endsWith(".png")) {
+            return "image/png";
+        }
+        return "application/octet-stream";
+    }
+
+    // No absolute paths or parent references: only files under assets/ are served
+    private static boolean isValidPath(String path) {
+        return path != null && !path.isEmpty() && !path.startsWith("/") && !path.contains("..");
+    }
+}
@@ -0,0 +1,555 @@
+package com.przemek.footballtracker;
+
+import android.media.AudioAttributes;
+import android.media.AudioFormat;
+import android.media.AudioManager;
+import android.media.AudioTrack;
+import android.media.MediaPlayer;
+import android.media.SoundPool;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Process;
+import android.util.Log;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Native playback for stored clips. Clips in the decoded-PCM cache (the current
+ * lineup's music and announcers, plus whatever played recently) start from
+ * memory through an AudioTrack. Short effects are otherwise decoded into a
+ * SoundPool ahead of time, and anything else is streamed through MediaPlayer
+ * and decoded into the cache for next time. Mirrors the WebView rules: one
+ * clip at a time, 15 second cap. Playback runs on a dedicated audio thread and
+ * decoding on another, so bridge calls return immediately and a preload never
+ * delays a tap.
+ *
+ * Announcements (several clips in a row) are mixed by a {@link SequenceMixer}
+ * into one streaming AudioTrack on a sequencer thread, each clip decoded while
+ * the one before it plays, so they follow each other without gaps.
+ */
+public class AudioEngine {
+    private static final String TAG = "FootballTracker";
+
+    // Same limit as audioTimeout in index.html
+    static final long MAX_PLAY_MS = 15000;
+    // ~6 seconds of 128 kbps MP3; anything bigger is streamed instead of pre-decoded
+    static final long SHORT_CLIP_MAX_BYTES = 96 * 1024;
+    private static final float VOLUME = 0.8f;
+    private static final int MAX_POOL_STREAMS = 2;
+    // Announcements are written to the track in slices this long, so a stop is heard at once
+    private static final long SEQUENCE_WRITE_MS = 50;
+    // A clip that takes longer than this to decode is left out of the announcement
+    private static final long SEQUENCE_DECODE_TIMEOUT_MS = 5000;
+
+    /** Told on the sequencer thread when an announcement has finished or was stopped. */
+    public interface SequenceListener {
+        void onSequenceFinished(int clipsPlayed, boolean completed);
+    }
+
+    // One announcement; cancelled from the audio thread, played on the sequencer thread
+    private static final class Sequence {
+        final List<String> clipIds;
+        final SequenceMixer.Options options;
+        final String description;
+        final long tapTimeMs;
+        final SequenceListener listener;
+        final long requestNanos = System.nanoTime();
+        volatile boolean cancelled = false;
+
+        Sequence(List<String> clipIds, SequenceMixer.Options options, String description, long tapTimeMs,
+                 SequenceListener listener) {
+            this.clipIds = clipIds;
+            this.options = options;
+            this.description = description;
+            this.tapTimeMs = tapTimeMs;
+            this.listener = listener;
+        }
+    }
+
+    private final AudioStore audioStore;
+    private final Metrics metrics;
+    private final PcmCache pcmCache;
+    private final HandlerThread audioThread;
+    private final Handler handler;
+    private final HandlerThread decodeThread;
+    private final Handler decodeHandler;
+    private final HandlerThread sequenceThread;
+    private final Handler sequenceHandler;
+    private final SoundPool soundPool;
+    private final AudioAttributes attributes;
+
+    // Touched only on the audio thread
+    private final Map<String, Integer> poolSoundIds = new HashMap<>();
+    private final Set<Integer> loadedPoolSounds = new HashSet<>();
+    private int currentStreamId = 0;
+    private MediaPlayer currentPlayer;
+    private AudioTrack currentTrack;
+    private Sequence currentSequence;
+    // Touched only on the decode thread
+    private final Set<String> undecodable = new HashSet<>();
+
+    private long lastLatencyMs = -1;
+    private long totalLatencyMs = 0;
+    private int latencySamples = 0;
+
+    private final Runnable capRunnable = () -> {
+        Log.d(TAG, "Native playback exceeded 15 seconds - stopping");
+        stopInternal();
+    };
+
+    public AudioEngine(AudioStore audioStore, Metrics metrics, PcmCache pcmCache) {
+        this.audioStore = audioStore;
+        this.metrics = metrics;
+        this.pcmCache = pcmCache;
+
+        audioThread = new HandlerThread("AudioEngine");
+        audioThread.start();
+        handler = new Handler(audioThread.getLooper());
+        decodeThread = new HandlerThread("AudioDecode", Process.THREAD_PRIORITY_BACKGROUND);
+        decodeThread.start();
+        decodeHandler = new Handler(decodeThread.getLooper());
+        sequenceThread = new HandlerThread("AudioSequencer", Process.THREAD_PRIORITY_AUDIO);
+        sequenceThread.start();
+        sequenceHandler = new Handler(sequenceThread.getLooper());
+
+        attributes = new AudioAttributes.Builder()
+                .setUsage(AudioAttributes.USAGE_MEDIA)
+                .setContentType(AudioAttributes.CONTENT_TYPE_MUSIC)
+                .build();
+        soundPool = new SoundPool.Builder()
+                .setMaxStreams(MAX_POOL_STREAMS)
+                .setAudioAttributes(attributes)
+                .build();
+        soundPool.setOnLoadCompleteListener((pool, sampleId, status) -> {
+            if (status == 0) {
+                handler.post(() -> loadedPoolSounds.add(sampleId));
+            }
+        });
+    }
+
+    static boolean isShortClip(AudioStore.ClipInfo clip) {
+        return clip.size <= SHORT_CLIP_MAX_BYTES;
+    }
+
+    // Decode a short clip into the SoundPool so the first tap doesn't stutter
+    public void preload(AudioStore.ClipInfo clip) {
+        if (clip == null || !isShortClip(clip)) {
+            return;
+        }
+        handler.post(() -> {
+            if (poolSoundIds.containsKey(clip.id)) {
+                return;
+            }
+            File file = audioStore.getClipFile(clip.id);
+            if (file != null) {
+                poolSoundIds.put(clip.id, soundPool.load(file.getAbsolutePath(), 1));
+            }
+        });
+    }
+
+    /**
+     * Decodes clips that are likely to play next (the lineup's music, announcers)
+     * into the PCM cache, in the given order. Already cached clips are skipped.
+     */
+    public void preloadDecoded(List<String> clipIds) {
+        for (String clipId : clipIds) {
+            decodeHandler.post(() -> decodeIntoCache(clipId));
+        }
+    }
+
+    public String getCacheStatsJson() {
+        return pcmCache.getStatsJson();
+    }
+
+    public void unload(String clipId) {
+        pcmCache.remove(clipId);
+        decodeHandler.post(() -> undecodable.remove(clipId));
+        handler.post(() -> {
+            Integer soundId = poolSoundIds.remove(clipId);
+            if (soundId != null) {
+                loadedPoolSounds.remove(soundId);
+                soundPool.unload(soundId);
+            }
+        });
+    }
+
+    /**
+     * Stops whatever is playing and starts {@code clipId}. {@code tapTimeMs} is
+     * the wall-clock time of the user's tap (JS Date.now()) and is used to report
+     * tap-to-audio latency. Returns false when the clip is unknown.
+     */
+    public boolean play(String clipId, String description, long tapTimeMs) {
+        AudioStore.ClipInfo clip = audioStore.get(clipId);
+        File file = audioStore.getClipFile(clipId);
+        if (clip == null || file == null) {
+            return false;
+        }
+
+        handler.post(() -> {
+            stopInternal();
+
+            PcmCache.Clip decoded = pcmCache.get(clipId);
+            if (decoded != null && startTrack(decoded, description, tapTimeMs)) {
+                return;
+            }
+            // Next time this one starts from memory
+            decodeHandler.post(() -> decodeIntoCache(clipId));
+
+            Integer poolSound = poolSoundIds.get(clipId);
+            if (poolSound != null && loadedPoolSounds.contains(poolSound)) {
+                currentStreamId = soundPool.play(poolSound, VOLUME, VOLUME, 1, 0, 1f);
+                if (currentStreamId != 0) {
+                    onPlaybackStarted(description, tapTimeMs, "pool");
+                    return;
+                }
+            }
+            startStreaming(file, description, tapTimeMs);
+        });
+        return true;
+    }
+
+    /**
+     * Stops whatever is playing and plays the clips one after another as a
+     * single announcement, each capped at 15 seconds. Unknown or undecodable
+     * clips are left out. {@code listener} hears when it ends. Returns false
+     * when none of the clips are in the store.
+     */
+    public boolean playSequence(List<String> clipIds, SequenceMixer.Options options, String description,
+                                long tapTimeMs, SequenceListener listener) {
+        boolean known = false;
+        for (String clipId : clipIds) {
+            known |= audioStore.getClipFile(clipId) != null;
+        }
+        if (!known) {
+            return false;
+        }
+        Sequence sequence = new Sequence(clipIds, options, description, tapTimeMs, listener);
+        handler.post(() -> {
+            stopInternal();
+            currentSequence = sequence;
+            sequenceHandler.post(() -> runSequence(sequence));
+        });
+        return true;
+    }
+
+    public void stop() {
+        handler.post(this::stopInternal);
+    }
+
+    public void release() {
+        handler.post(() -> {
+            stopInternal();
+            soundPool.release();
+            audioThread.quitSafely();
+        });
+        sequenceThread.quitSafely();
+        decodeThread.quitSafely();
+        pcmCache.clear();
+    }
+
+    public synchronized String getLatencySummary() {
+        long average = latencySamples > 0 ? totalLatencyMs / latencySamples : -1;
+        return "{\"lastMs\":" + lastLatencyMs + ",\"averageMs\":" + average + ",\"samples\":" + latencySamples + "}";
+    }
+
+    private void decodeIntoCache(String clipId) {
+        if (!pcmCache.contains(clipId) && !undecodable.contains(clipId)) {
+            decode(clipId);
+        }
+    }
+
+    // Decodes a clip and caches it if it fits; returns it either way, or null if it can't be decoded
+    private PcmCache.Clip decode(String clipId) {
+        File file = audioStore.getClipFile(clipId);
+        if (file == null) {
+            return null;
+        }
+        long start = System.nanoTime();
+        try {
+            PcmCache.Clip clip = PcmDecoder.decode(file, MAX_PLAY_MS);
+            if (clip == null || !pcmCache.put(clipId, clip)) {
+                // Not preloaded again; single plays stream it instead
+                undecodable.add(clipId);
+            }
+            if (clip != null) {
+                metrics.recordSince("audio.decode", start);
+                metrics.recordBytes("audio.decoded_bytes", clip.pcm.length);
+            }
+            return clip;
+        } catch (Exception e) {
+            Log.w(TAG, "Cannot decode clip " + clipId + ": " + e.getMessage());
+            undecodable.add(clipId);
+            return null;
+        }
+    }
+
+    // Queues a clip on the decode thread for an announcement, behind any preloads
+    private FutureTask<PcmCache.Clip> decodeAhead(String clipId) {
+        FutureTask<PcmCache.Clip> task = new FutureTask<>(() -> {
+            PcmCache.Clip cached = pcmCache.get(clipId);
+            return cached != null ? cached : decode(clipId);
+        });
+        decodeHandler.post(task);
+        return task;
+    }
+
+    // Sequencer thread: mixes the clips into one streaming track as they come off the decoder
+    private void runSequence(Sequence sequence) {
+        List<String> clipIds = sequence.clipIds;
+        FutureTask<PcmCache.Clip> next = decodeAhead(clipIds.get(0));
+        SequenceMixer mixer = null;
+        AudioTrack track = null;
+        int played = 0;
+        boolean completed = false;
+        try {
+            for (int i = 0; i < clipIds.size() && !sequence.cancelled; i++) {
+                PcmCache.Clip clip = awaitDecoded(next, clipIds.get(i));
+                // The next clip decodes while this one plays
+                next = i + 1 < clipIds.size() ? decodeAhead(clipIds.get(i + 1)) : null;
+                if (clip == null) {
+                    continue;
+                }
+                if (track == null) {
+                    mixer = new SequenceMixer(clip.sampleRate, 2, sequence.options, MAX_PLAY_MS);
+                    track = createStreamTrack(mixer);
+                    if (track == null) {
+                        break;
+                    }
+                    track.play();
+                }
+                boolean first = played == 0;
+                if (!write(sequence, track, mixer, mixer.add(clip))) {
+                    break;
+                }
+                played++;
+                if (first) {
+                    metrics.recordSince("audio.sequence.start", sequence.requestNanos);
+                    recordStartLatency(sequence.description, sequence.tapTimeMs, "sequence");
+                }
+            }
+            if (track != null && !sequence.cancelled && write(sequence, track, mixer, mixer.finish())) {
+                completed = awaitPlayedOut(sequence, track, mixer);
+            }
+        } finally {
+            if (track != null) {
+                try {
+                    track.pause();
+                    track.flush();
+                } catch (IllegalStateException e) {
+                    Log.w(TAG, "Error stopping announcement: " + e.getMessage());
+                }
+                track.release();
+            }
+            if (completed) {
+                long totalMs = (System.nanoTime() - sequence.requestNanos) / 1_000_000;
+                long audioMs = mixer.getFrameCount() * 1000 / mixer.getSampleRate();
+                metrics.recordMillis("audio.sequence.total", totalMs);
+                // Time spent on anything but sound: decoding the first clip, stalls, draining
+                metrics.recordMillis("audio.sequence.overhead", Math.max(0, totalMs - audioMs));
+                Log.d(TAG, "Announcement finished: " + sequence.description + " - " + played + " clips, "
+                        + audioMs + " ms of audio in " + totalMs + " ms");
+            }
+            if (sequence.listener != null) {
+                sequence.listener.onSequenceFinished(played, completed);
+            }
+        }
+    }
+
+    private PcmCache.Clip awaitDecoded(FutureTask<PcmCache.Clip> task, String clipId) {
+        try {
+            return task.get(SEQUENCE_DECODE_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        } catch (Exception e) {
+            Log.w(TAG, "Leaving " + clipId + " out of the announcement: " + e);
+            return null;
+        }
+    }
+
+    private AudioTrack createStreamTrack(SequenceMixer mixer) {
+        int channelMask = mixer.getChannelCount() == 1
+                ? AudioFormat.CHANNEL_OUT_MONO : AudioFormat.CHANNEL_OUT_STEREO;
+        try {
+            AudioFormat format = new AudioFormat.Builder()
+                    .setEncoding(AudioFormat.ENCODING_PCM_16BIT)
+                    .setSampleRate(mixer.getSampleRate())
+                    .setChannelMask(channelMask)
+                    .build();
+            int minBuffer = AudioTrack.getMinBufferSize(mixer.getSampleRate(), channelMask,
+                    AudioFormat.ENCODING_PCM_16BIT);
+            // Room for a couple of write slices on top of what the device needs
+            int sliceBytes = (int) (SEQUENCE_WRITE_MS * mixer.getSampleRate() / 1000) * mixer.getChannelCount() * 2;
+            AudioTrack track = new AudioTrack(attributes, format, Math.max(minBuffer, 0) + 2 * sliceBytes,
+                    AudioTrack.MODE_STREAM, AudioManager.AUDIO_SESSION_ID_GENERATE);
+            track.setVolume(VOLUME);
+            return track;
+        } catch (Exception e) {
+            Log.w(TAG, "Cannot set up announcement track: " + e.getMessage());
+            return null;
+        }
+    }
+
+    // Blocking writes in short slices; false once the announcement is stopped
+    private boolean write(Sequence sequence, AudioTrack track, SequenceMixer mixer, short[] samples) {
+        int slice = (int) (SEQUENCE_WRITE_MS * mixer.getSampleRate() / 1000) * mixer.getChannelCount();
+        for (int offset = 0; offset < samples.length; offset += slice) {
+            if (sequence.cancelled) {
+                return false;
+            }
+            int written = track.write(samples, offset, Math.min(slice, samples.length - offset));
+            if (written < 0) {
+                Log.w(TAG, "Announcement write failed: " + written);
+                return false;
+            }
+        }
+        return !sequence.cancelled;
+    }
+
+    // Waits for the buffered tail to be heard, so the listener isn't told too early
+    private boolean awaitPlayedOut(Sequence sequence, AudioTrack track, SequenceMixer mixer) {
+        long frames = mixer.getFrameCount();
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(
+                1000 + (frames - track.getPlaybackHeadPosition()) * 1000 / mixer.getSampleRate());
+        while (!sequence.cancelled && (track.getPlaybackHeadPosition() & 0xFFFFFFFFL) < frames) {
+            if (System.nanoTime() > deadline) {
+                // Not reported as completed, and kept out of the sequence timings
+                Log.w(TAG, "Announcement didn't play out in time");
+                return false;
+            }
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        return !sequence.cancelled;
+    }
+
+    // Static AudioTrack over the cached PCM; false if the track can't be set up
+    private boolean startTrack(PcmCache.Clip clip, String description, long tapTimeMs) {
+        AudioTrack track = null;
+        try {
+            AudioFormat format = new AudioFormat.Builder()
+                    .setEncoding(AudioFormat.ENCODING_PCM_16BIT)
+                    .setSampleRate(clip.sampleRate)
+                    .setChannelMask(clip.channelCount == 1
+                            ? AudioFormat.CHANNEL_OUT_MONO : AudioFormat.CHANNEL_OUT_STEREO)
+                    .build();
+            track = new AudioTrack(attributes, format, clip.pcm.length, AudioTrack.MODE_STATIC,
+                    AudioManager.AUDIO_SESSION_ID_GENERATE);
+            track.write(clip.pcm, 0, clip.pcm.length);
+            track.setVolume(VOLUME);
+            track.setNotificationMarkerPosition(clip.getFrameCount());
+            track.setPlaybackPositionUpdateListener(new AudioTrack.OnPlaybackPositionUpdateListener() {
+                @Override
+                public void onMarkerReached(AudioTrack finished) {
+                    if (currentTrack == finished) {
+                        stopInternal();
+                    }
+                }
+
+                @Override
+                public void onPeriodicNotification(AudioTrack unused) {
+                }
+            }, handler);
+            track.play();
+            currentTrack = track;
+            onPlaybackStarted(description, tapTimeMs, "pcm");
+            return true;
+        } catch (Exception e) {
+            Log.w(TAG, "Cannot play decoded clip: " + e.getMessage());
+            if (track != null) {
+                track.release();
+            }
+            return false;
+        }
+    }
+
+    private void startStreaming(File file, String description, long tapTimeMs) {
+        MediaPlayer player = new MediaPlayer();
+        currentPlayer = player;
+        try {
+            player.setAudioAttributes(attributes);
+            player.setVolume(VOLUME, VOLUME);
+            player.setDataSource(file.getAbsolutePath());
+            player.setOnPreparedListener(mp -> {
+                if (currentPlayer != mp) {
+                    return;
+                }
+                mp.start();
+                onPlaybackStarted(description, tapTimeMs, "stream");
+            });
+            player.setOnCompletionListener(mp -> {
+                if (currentPlayer == mp) {
+                    stopInternal();
+                }
+            });
+            player.setOnErrorListener((mp, what, extra) -> {
+                Log.e(TAG, "Native playback error: " + what + "/" + extra);
+                if (currentPlayer == mp) {
+                    stopInternal();
+                }
+                return true;
+            });
+            player.prepareAsync();
+        } catch (Exception e) {
+            Log.e(TAG, "Cannot stream clip: " + file, e);
+            stopInternal();
+        }
+    }
+
+    private void onPlaybackStarted(String description, long tapTimeMs, String path) {
+        handler.removeCallbacks(capRunnable);
+        handler.postDelayed(capRunnable, MAX_PLAY_MS);
+        recordStartLatency(description, tapTimeMs, path);
+    }
+
+    private void recordStartLatency(String description, long tapTimeMs, String path) {
+        if (tapTimeMs > 0) {
+            long latency = System.currentTimeMillis() - tapTimeMs;
+            synchronized (this) {
+                lastLatencyMs = latency;
+                totalLatencyMs += latency;
+                latencySamples++;
+            }
+            metrics.recordMillis("audio.tap_to_audio." + path, latency);
+            Log.d(TAG, "Native sound started (" + path + "): " + description + " - tap-to-audio " + latency + " ms");
+        }
+    }
+
+    private void stopInternal() {
+        handler.removeCallbacks(capRunnable);
+        if (currentSequence != null) {
+            // The sequencer thread notices within one write slice
+            currentSequence.cancelled = true;
+            currentSequence = null;
+        }
+        if (currentStreamId != 0) {
+            soundPool.stop(currentStreamId);
+            currentStreamId = 0;
+        }
+        if (currentTrack != null) {
+            try {
+                currentTrack.stop();
+            } catch (IllegalStateException e) {
+                Log.w(TAG, "Error stopping track: " + e.getMessage());
+            }
+            currentTrack.release();
+            currentTrack = null;
+        }
+        if (currentPlayer != null) {
+            try {
+                currentPlayer.release();
+            } catch (Exception e) {
+                Log.w(TAG, "Error releasing player: " + e.getMessage());
+            }
+            currentPlayer = null;
+        }
+    }
+}
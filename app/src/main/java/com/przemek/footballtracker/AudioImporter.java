@@ -0,0 +1,347 @@
+package com.przemek.footballtracker;
+
+import android.content.ContentResolver;
+import android.database.Cursor;
+import android.media.MediaMetadataRetriever;
+import android.net.Uri;
+import android.provider.OpenableColumns;
+import android.util.Log;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Imports picked audio files into the {@link AudioStore} off the UI thread.
+ * The picked Uri is streamed in {@link AudioStore#CHUNK_SIZE} chunks straight
+ * into the store (hashing on the way), so memory use doesn't grow with file
+ * size. Only a small metadata result is handed back to the caller.
+ *
+ * With processing enabled the file is first copied to a work directory,
+ * decoded, cut to the play window and normalized by {@link ClipProcessor}, and
+ * re-encoded to AAC; only that result goes into the store. Files that can't
+ * be decoded are stored unchanged.
+ */
+public class AudioImporter {
+    private static final String TAG = "FootballTracker";
+
+    public interface Callback {
+        // Both methods are called on the importer's worker thread
+        void onImported(AudioStore.ClipInfo clip);
+
+        void onFailed(String fileName, String message);
+    }
+
+    public interface BatchListener {
+        // Called once per file, from whichever worker finished it. Exactly one of
+        // clip / error is set; duplicate means the content was already in the store.
+        void onFileFinished(int completed, int total, String fileName,
+                            AudioStore.ClipInfo clip, boolean duplicate, String error);
+
+        // Called once, after the last file, with every newly added clip
+        void onBatchFinished(List<AudioStore.ClipInfo> added, int duplicates, int failed);
+    }
+
+    /** Thrown when a file is larger than the configured import limit. */
+    public static class FileTooLargeException extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        FileTooLargeException(long limit) {
+            super(String.format("File too large. Please choose a file under %.0fMB.", limit / (1024.0 * 1024.0)));
+        }
+    }
+
+    // What a processed import turned into: the file to store and how to describe it
+    private static final class Processed {
+        final File file;
+        final String mimeType;
+        final long durationMs;
+
+        Processed(File file, String mimeType, long durationMs) {
+            this.file = file;
+            this.mimeType = mimeType;
+            this.durationMs = durationMs;
+        }
+    }
+
+    private final ContentResolver contentResolver;
+    private final AudioStore audioStore;
+    private final ExecutorService executor;
+    private final File workDir;
+
+    public AudioImporter(ContentResolver contentResolver, AudioStore audioStore, ExecutorService executor,
+                         File workDir) {
+        this.contentResolver = contentResolver;
+        this.audioStore = audioStore;
+        this.executor = executor;
+        this.workDir = workDir;
+    }
+
+    public void importAsync(Uri uri, String clipId, long maxBytes, ClipProcessor.Options options,
+                            Callback callback) {
+        executor.execute(() -> {
+            String fileName = resolveFileName(uri);
+            try {
+                callback.onImported(importBlocking(uri, clipId, fileName, maxBytes, options, false));
+            } catch (Exception e) {
+                Log.e(TAG, "Error importing audio file: " + uri, e);
+                callback.onFailed(fileName, e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Imports several files concurrently on the importer's executor. Content that
+     * is already in the store (or appears twice in the batch) is not added again.
+     */
+    public void importBatch(List<Uri> uris, long maxBytes, ClipProcessor.Options options,
+                            BatchListener listener) {
+        int total = uris.size();
+        AtomicInteger completed = new AtomicInteger();
+        List<AudioStore.ClipInfo> added = Collections.synchronizedList(new ArrayList<>());
+        AtomicInteger duplicates = new AtomicInteger();
+        AtomicInteger failed = new AtomicInteger();
+
+        for (Uri uri : uris) {
+            executor.execute(() -> {
+                String fileName = resolveFileName(uri);
+                String clipId = AudioStore.newClipId();
+                AudioStore.ClipInfo clip = null;
+                boolean duplicate = false;
+                String error = null;
+                try {
+                    clip = importBlocking(uri, clipId, fileName, maxBytes, options, true);
+                    duplicate = !clip.id.equals(clipId);
+                    if (duplicate) {
+                        duplicates.incrementAndGet();
+                    } else {
+                        added.add(clip);
+                    }
+                } catch (Exception e) {
+                    Log.e(TAG, "Error importing audio file: " + uri, e);
+                    error = e.getMessage() != null ? e.getMessage() : e.toString();
+                    failed.incrementAndGet();
+                }
+
+                int done = completed.incrementAndGet();
+                listener.onFileFinished(done, total, fileName, clip, duplicate, error);
+                if (done == total) {
+                    listener.onBatchFinished(new ArrayList<>(added), duplicates.get(), failed.get());
+                }
+            });
+        }
+    }
+
+    public AudioStore.ClipInfo importBlocking(Uri uri, String clipId, String fileName, long maxBytes) throws IOException {
+        return importBlocking(uri, clipId, fileName, maxBytes, null, false);
+    }
+
+    private AudioStore.ClipInfo importBlocking(Uri uri, String clipId, String fileName, long maxBytes,
+                                               ClipProcessor.Options options, boolean reuseExisting)
+            throws IOException {
+        String mimeType = contentResolver.getType(uri);
+        if (mimeType == null || !mimeType.startsWith("audio/")) {
+            mimeType = "audio/mpeg"; // Default to MP3
+        }
+
+        AudioStore.ClipInfo clip;
+        long durationMs = 0;
+        if (options != null && options.enabled) {
+            File source = File.createTempFile("source_", ".tmp", workDir);
+            Processed processed = null;
+            try {
+                try (InputStream inputStream = openLimited(uri, maxBytes);
+                     OutputStream out = new FileOutputStream(source)) {
+                    copy(inputStream, out);
+                }
+                processed = process(source, fileName, options);
+                File stored = processed != null ? processed.file : source;
+                try (InputStream in = new FileInputStream(stored)) {
+                    clip = audioStore.importClip(clipId, fileName,
+                            processed != null ? processed.mimeType : mimeType, in, reuseExisting);
+                }
+                if (processed != null) {
+                    durationMs = processed.durationMs;
+                    Log.d(TAG, "Processed " + fileName + ": " + source.length() + " -> " + stored.length() + " bytes");
+                }
+            } finally {
+                source.delete();
+                if (processed != null) {
+                    processed.file.delete();
+                }
+            }
+        } else {
+            try (InputStream inputStream = openLimited(uri, maxBytes)) {
+                clip = audioStore.importClip(clipId, fileName, mimeType, inputStream, reuseExisting);
+            }
+        }
+        if (!clip.id.equals(clipId)) {
+            Log.d(TAG, "Skipped duplicate of " + clip.name + ": " + fileName);
+            return clip;
+        }
+
+        if (durationMs <= 0) {
+            durationMs = readDurationMs(audioStore.getClipFile(clip.id));
+        }
+        if (durationMs > 0) {
+            clip = audioStore.setDuration(clip.id, durationMs);
+        }
+
+        Log.d(TAG, "Imported " + fileName + ": " + clip.size + " bytes, " + clip.durationMs + " ms, " + mimeType);
+        return clip;
+    }
+
+    private InputStream openLimited(Uri uri, long maxBytes) throws IOException {
+        InputStream inputStream = contentResolver.openInputStream(uri);
+        if (inputStream == null) {
+            throw new IOException("Cannot read selected file");
+        }
+        return new LimitedInputStream(inputStream, maxBytes);
+    }
+
+    // Decode, shape and re-encode; null means "store the original", never an error
+    private Processed process(File source, String fileName, ClipProcessor.Options options) {
+        PcmCache.Clip decoded;
+        try {
+            decoded = PcmDecoder.decode(source, options.startMs, options.windowMs);
+        } catch (Exception e) {
+            Log.w(TAG, "Cannot decode " + fileName + ", storing it unchanged: " + e.getMessage());
+            return null;
+        }
+        if (decoded == null) {
+            Log.w(TAG, "Unsupported audio format in " + fileName + ", storing it unchanged");
+            return null;
+        }
+
+        PcmCache.Clip shaped = ClipProcessor.process(decoded, options);
+        if (shaped.getFrameCount() == 0) {
+            Log.w(TAG, "Nothing left of " + fileName + " after trimming, storing it unchanged");
+            return null;
+        }
+        File encoded;
+        try {
+            encoded = File.createTempFile("encoded_", ".m4a", workDir);
+        } catch (IOException e) {
+            Log.w(TAG, "No room to process " + fileName + ", storing it unchanged: " + e.getMessage());
+            return null;
+        }
+        try {
+            AacEncoder.encode(shaped, encoded);
+            return smallerThan(source, new Processed(encoded, AacEncoder.MIME_TYPE, shaped.getDurationMs()));
+        } catch (Exception e) {
+            Log.w(TAG, "AAC encoding failed for " + fileName + ", trying WAV: " + e.getMessage());
+        }
+        try {
+            try (OutputStream out = new BufferedOutputStream(new FileOutputStream(encoded))) {
+                WavFile.write(shaped, out);
+            }
+            return smallerThan(source, new Processed(encoded, "audio/wav", shaped.getDurationMs()));
+        } catch (Exception e) {
+            Log.w(TAG, "Cannot write processed " + fileName + ", storing it unchanged: " + e.getMessage());
+            encoded.delete();
+            return null;
+        }
+    }
+
+    // A short source can come out bigger (e.g. a tiny MP3 as WAV); keep whichever is smaller
+    private static Processed smallerThan(File source, Processed processed) {
+        if (processed.file.length() < source.length()) {
+            return processed;
+        }
+        processed.file.delete();
+        return null;
+    }
+
+    private static void copy(InputStream in, OutputStream out) throws IOException {
+        byte[] buffer = new byte[AudioStore.CHUNK_SIZE];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            out.write(buffer, 0, read);
+        }
+    }
+
+    public String resolveFileName(Uri uri) {
+        String fileName = "audio_file_" + System.currentTimeMillis() + ".mp3";
+        try (Cursor cursor = contentResolver.query(uri, null, null, null, null)) {
+            if (cursor != null && cursor.moveToFirst()) {
+                int nameIndex = cursor.getColumnIndex(OpenableColumns.DISPLAY_NAME);
+                if (nameIndex >= 0) {
+                    String name = cursor.getString(nameIndex);
+                    if (name != null && !name.isEmpty()) {
+                        fileName = name;
+                    }
+                }
+            }
+        } catch (Exception e) {
+            Log.e(TAG, "Error getting file name", e);
+        }
+        return fileName;
+    }
+
+    private static long readDurationMs(File file) {
+        if (file == null) {
+            return 0;
+        }
+        MediaMetadataRetriever retriever = new MediaMetadataRetriever();
+        try {
+            retriever.setDataSource(file.getAbsolutePath());
+            String duration = retriever.extractMetadata(MediaMetadataRetriever.METADATA_KEY_DURATION);
+            return duration != null ? Long.parseLong(duration) : 0;
+        } catch (Exception e) {
+            Log.w(TAG, "Cannot read clip duration: " + e.getMessage());
+            return 0;
+        } finally {
+            try {
+                retriever.release();
+            } catch (Exception ignored) {
+                // release() declares IOException on newer platforms
+            }
+        }
+    }
+
+    // Fails the import as soon as the limit is crossed instead of after copying everything
+    private static final class LimitedInputStream extends FilterInputStream {
+        private final long limit;
+        private long count;
+
+        LimitedInputStream(InputStream in, long limit) {
+            super(in);
+            this.limit = limit;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b != -1) {
+                count(1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int read = super.read(buffer, offset, length);
+            if (read > 0) {
+                count(read);
+            }
+            return read;
+        }
+
+        private void count(int read) throws FileTooLargeException {
+            count += read;
+            if (limit > 0 && count > limit) {
+                throw new FileTooLargeException(limit);
+            }
+        }
+    }
+}
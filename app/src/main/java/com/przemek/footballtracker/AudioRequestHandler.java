@@ -0,0 +1,231 @@
+package com.przemek.footballtracker;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Serves clips from the {@link AudioStore} under the virtual
+ * {@code https://audio.local/<clipId>} origin. Kept free of android.webkit types
+ * so the byte and range handling can be tested on the JVM; MainActivity wraps
+ * the result into a WebResourceResponse.
+ */
+public class AudioRequestHandler {
+    public static final String HOST = "audio.local";
+    public static final String URL_PREFIX = "https://" + HOST + "/";
+
+    private final AudioStore audioStore;
+
+    public AudioRequestHandler(AudioStore audioStore) {
+        this.audioStore = audioStore;
+    }
+
+    public static String urlFor(String clipId) {
+        return URL_PREFIX + clipId;
+    }
+
+    /**
+     * Builds the response for a clip request. Only the first range of a
+     * multi-range header is honoured; a malformed header falls back to the
+     * whole clip, as RFC 7233 allows.
+     */
+    public Response handle(String clipId, String rangeHeader) throws IOException {
+        AudioStore.ClipInfo clip = audioStore.get(clipId);
+        File file = audioStore.getClipFile(clipId);
+        if (clip == null || file == null || !file.exists()) {
+            return Response.empty(404, "Not Found");
+        }
+
+        long length = file.length();
+        long[] range = parseRange(rangeHeader, length);
+
+        if (range == null) {
+            Response response = new Response(200, "OK", clip.mimeType, new FileInputStream(file));
+            response.headers.put("Content-Length", String.valueOf(length));
+            addCommonHeaders(response);
+            return response;
+        }
+
+        if (range.length == 0) {
+            Response response = Response.empty(416, "Range Not Satisfiable");
+            response.headers.put("Content-Range", "bytes */" + length);
+            addCommonHeaders(response);
+            return response;
+        }
+
+        long start = range[0];
+        long end = range[1];
+        InputStream body = new FileInputStream(file);
+        try {
+            skipFully(body, start);
+        } catch (IOException e) {
+            // e.g. a blob shorter than its recorded size
+            body.close();
+            throw e;
+        }
+
+        Response response = new Response(206, "Partial Content", clip.mimeType,
+                new BoundedInputStream(body, end - start + 1));
+        response.headers.put("Content-Length", String.valueOf(end - start + 1));
+        response.headers.put("Content-Range", "bytes " + start + "-" + end + "/" + length);
+        addCommonHeaders(response);
+        return response;
+    }
+
+    // Returns null for "send everything", an empty array for unsatisfiable, else {start, end} inclusive
+    static long[] parseRange(String header, long length) {
+        if (header == null) {
+            return null;
+        }
+        String value = header.trim();
+        if (!value.startsWith("bytes=")) {
+            return null;
+        }
+        String spec = value.substring("bytes=".length());
+        int comma = spec.indexOf(',');
+        if (comma >= 0) {
+            spec = spec.substring(0, comma);
+        }
+        spec = spec.trim();
+        int dash = spec.indexOf('-');
+        if (dash < 0) {
+            return null;
+        }
+
+        try {
+            String first = spec.substring(0, dash).trim();
+            String last = spec.substring(dash + 1).trim();
+            long start;
+            long end;
+
+            if (first.isEmpty()) {
+                // Suffix range: the final N bytes
+                if (last.isEmpty()) {
+                    return null;
+                }
+                long suffix = Long.parseLong(last);
+                if (suffix <= 0 || length == 0) {
+                    return new long[0];
+                }
+                start = Math.max(0, length - suffix);
+                end = length - 1;
+            } else {
+                start = Long.parseLong(first);
+                if (last.isEmpty()) {
+                    end = length - 1;
+                } else {
+                    long requestedEnd = Long.parseLong(last);
+                    if (requestedEnd < start) {
+                        return null;
+                    }
+                    end = Math.min(requestedEnd, length - 1);
+                }
+            }
+
+            if (start >= length) {
+                return new long[0];
+            }
+            return new long[]{start, end};
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static void addCommonHeaders(Response response) {
+        response.headers.put("Accept-Ranges", "bytes");
+        // Clips are content-addressed and never change under the same id
+        response.headers.put("Cache-Control", "private, max-age=31536000, immutable");
+        // The page itself is served from file://, so allow it to read us
+        response.headers.put("Access-Control-Allow-Origin", "*");
+    }
+
+    private static void skipFully(InputStream in, long count) throws IOException {
+        long remaining = count;
+        while (remaining > 0) {
+            long skipped = in.skip(remaining);
+            if (skipped <= 0) {
+                if (in.read() == -1) {
+                    throw new IOException("Unexpected end of clip while seeking");
+                }
+                skipped = 1;
+            }
+            remaining -= skipped;
+        }
+    }
+
+    /** Plain description of a response; the body is streamed, never buffered. */
+    public static final class Response {
+        public final int statusCode;
+        public final String reasonPhrase;
+        public final String mimeType;
+        public final Map<String, String> headers = new LinkedHashMap<>();
+        public final InputStream body;
+
+        Response(int statusCode, String reasonPhrase, String mimeType, InputStream body) {
+            this.statusCode = statusCode;
+            this.reasonPhrase = reasonPhrase;
+            this.mimeType = mimeType;
+            this.body = body;
+        }
+
+        static Response empty(int statusCode, String reasonPhrase) {
+            return new Response(statusCode, reasonPhrase, "text/plain", new ByteArrayInputStream(new byte[0]));
+        }
+    }
+
+    // Stops reading after the requested slice so the WebView sees exactly Content-Length bytes
+    private static final class BoundedInputStream extends FilterInputStream {
+        private long remaining;
+
+        BoundedInputStream(InputStream in, long limit) {
+            super(in);
+            this.remaining = limit;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            int b = super.read();
+            if (b != -1) {
+                remaining--;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            int read = super.read(buffer, offset, (int) Math.min(length, remaining));
+            if (read > 0) {
+                remaining -= read;
+            }
+            return read;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(Math.min(n, remaining));
+            remaining -= skipped;
+            return skipped;
+        }
+
+        @Override
+        public int available() throws IOException {
+            return (int) Math.min(super.available(), remaining);
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,328 @@
+package com.przemek.footballtracker;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * File-backed audio store. Raw clip bytes live in one file per distinct content
+ * hash under the store directory, so uploading the same file twice only costs
+ * the disk space once. The small metadata index (id, name, size, mime, hash) is
+ * serialized with {@link #toIndexJson()} and kept by the caller in SharedPreferences.
+ * Usage totals are kept up to date as clips come and go, so reading them is free.
+ */
+public class AudioStore {
+    // Imports are copied in fixed-size chunks; a clip is never held in memory whole
+    static final int CHUNK_SIZE = 64 * 1024;
+    private static final Random ID_RANDOM = new Random();
+
+    private final File directory;
+    private final Map<String, ClipInfo> clips = new LinkedHashMap<>();
+    // hash -> number of clips sharing that file, and the bytes of all distinct files
+    private final Map<String, Integer> blobUsers = new HashMap<>();
+    private long storedBytes = 0;
+
+    public AudioStore(File directory) {
+        this.directory = directory;
+        if (!directory.exists() && !directory.mkdirs()) {
+            throw new IllegalStateException("Cannot create audio store directory: " + directory);
+        }
+    }
+
+    // Rebuild the in-memory index from the JSON kept in SharedPreferences
+    public synchronized void loadIndex(String indexJson) throws JSONException {
+        clips.clear();
+        blobUsers.clear();
+        storedBytes = 0;
+        if (indexJson == null || indexJson.isEmpty()) {
+            return;
+        }
+
+        JSONArray array = new JSONArray(indexJson);
+        for (int i = 0; i < array.length(); i++) {
+            ClipInfo clip = ClipInfo.fromJson(array.getJSONObject(i));
+            // Skip entries whose bytes are gone (e.g. the files dir was wiped)
+            if (blobFile(clip.hash).exists()) {
+                put(clip);
+            }
+        }
+    }
+
+    public synchronized String toIndexJson() {
+        JSONArray array = new JSONArray();
+        for (ClipInfo clip : clips.values()) {
+            array.put(clip.toJson());
+        }
+        return array.toString();
+    }
+
+    public static String newClipId() {
+        return "clip_" + System.currentTimeMillis() + "_" + Integer.toHexString(ID_RANDOM.nextInt(Integer.MAX_VALUE));
+    }
+
+    public ClipInfo importClip(String id, String name, String mimeType, InputStream in) throws IOException {
+        return importClip(id, name, mimeType, in, false);
+    }
+
+    /**
+     * Copies the stream into the store and registers it under {@code id}.
+     * If a clip with identical content already exists, the new bytes are
+     * discarded and the existing file is shared. With {@code reuseExisting}
+     * no new entry is created either and the existing clip is returned, so
+     * callers can tell a duplicate by comparing ids.
+     */
+    public ClipInfo importClip(String id, String name, String mimeType, InputStream in,
+                               boolean reuseExisting) throws IOException {
+        File temp = File.createTempFile("import_", ".tmp", directory);
+        try {
+            MessageDigest digest = newDigest();
+            long size = 0;
+            byte[] buffer = new byte[CHUNK_SIZE];
+            int read;
+            try (OutputStream out = new FileOutputStream(temp)) {
+                while ((read = in.read(buffer)) != -1) {
+                    digest.update(buffer, 0, read);
+                    out.write(buffer, 0, read);
+                    size += read;
+                }
+            }
+
+            String hash = toHex(digest.digest());
+            ClipInfo clip = new ClipInfo(id, name, size, mimeType, hash, 0);
+
+            synchronized (this) {
+                if (reuseExisting) {
+                    ClipInfo existing = findByHash(hash);
+                    if (existing != null) {
+                        return existing;
+                    }
+                }
+                File blob = blobFile(hash);
+                if (!blob.exists() && !temp.renameTo(blob)) {
+                    throw new IOException("Cannot move imported clip into place: " + blob);
+                }
+                put(clip);
+            }
+            return clip;
+        } finally {
+            if (temp.exists()) {
+                temp.delete();
+            }
+        }
+    }
+
+    /**
+     * Registers a clip whose bytes are already in the store directory, e.g. one
+     * written by a migration that was interrupted before the index was saved.
+     * Returns false if they aren't there.
+     */
+    public synchronized boolean adopt(ClipInfo clip) {
+        if (!blobFile(clip.hash).exists()) {
+            return false;
+        }
+        put(clip);
+        return true;
+    }
+
+    public synchronized ClipInfo get(String id) {
+        return clips.get(id);
+    }
+
+    public synchronized List<ClipInfo> list() {
+        return new ArrayList<>(clips.values());
+    }
+
+    // Returns the file holding the clip's bytes, or null for unknown ids
+    public synchronized File getClipFile(String id) {
+        ClipInfo clip = clips.get(id);
+        return clip != null ? blobFile(clip.hash) : null;
+    }
+
+    public synchronized boolean rename(String id, String name) {
+        ClipInfo clip = clips.get(id);
+        if (clip == null) {
+            return false;
+        }
+        clips.put(id, new ClipInfo(clip.id, name, clip.size, clip.mimeType, clip.hash, clip.durationMs));
+        return true;
+    }
+
+    public synchronized ClipInfo setDuration(String id, long durationMs) {
+        ClipInfo clip = clips.get(id);
+        if (clip == null) {
+            return null;
+        }
+        ClipInfo updated = new ClipInfo(clip.id, clip.name, clip.size, clip.mimeType, clip.hash, durationMs);
+        clips.put(id, updated);
+        return updated;
+    }
+
+    // Drops the clip and deletes its bytes once no other clip shares them
+    public synchronized boolean remove(String id) {
+        ClipInfo clip = clips.remove(id);
+        if (clip == null) {
+            return false;
+        }
+        if (release(clip)) {
+            blobFile(clip.hash).delete();
+        }
+        return true;
+    }
+
+    public synchronized void clear() {
+        clips.clear();
+        blobUsers.clear();
+        storedBytes = 0;
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+    }
+
+    public synchronized int getClipCount() {
+        return clips.size();
+    }
+
+    // Bytes actually used on disk (shared content counted once)
+    public synchronized long getStoredBytes() {
+        return storedBytes;
+    }
+
+    /**
+     * Bytes that removing the clip would free: its size, or 0 if another clip
+     * shares the file or the id is unknown.
+     */
+    public synchronized long getExclusiveBytes(String id) {
+        ClipInfo clip = clips.get(id);
+        if (clip == null) {
+            return 0;
+        }
+        Integer users = blobUsers.get(clip.hash);
+        return users != null && users == 1 ? clip.size : 0;
+    }
+
+    public synchronized ClipInfo findByHash(String hash) {
+        for (ClipInfo clip : clips.values()) {
+            if (clip.hash.equals(hash)) {
+                return clip;
+            }
+        }
+        return null;
+    }
+
+    // Registers the clip, replacing any earlier one under the same id
+    private void put(ClipInfo clip) {
+        ClipInfo previous = clips.put(clip.id, clip);
+        if (previous != null && release(previous)) {
+            // Re-imported under the same id with new content; the old file has no users left
+            if (!previous.hash.equals(clip.hash)) {
+                blobFile(previous.hash).delete();
+            }
+        }
+        Integer users = blobUsers.get(clip.hash);
+        if (users == null) {
+            storedBytes += clip.size;
+        }
+        blobUsers.put(clip.hash, users == null ? 1 : users + 1);
+    }
+
+    // Drops one user of the clip's file; true if that was the last one
+    private boolean release(ClipInfo clip) {
+        Integer users = blobUsers.get(clip.hash);
+        if (users == null) {
+            return false;
+        }
+        if (users > 1) {
+            blobUsers.put(clip.hash, users - 1);
+            return false;
+        }
+        blobUsers.remove(clip.hash);
+        storedBytes -= clip.size;
+        return true;
+    }
+
+    private File blobFile(String hash) {
+        return new File(directory, hash);
+    }
+
+    static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    static String toHex(byte[] bytes) {
+        StringBuilder sb = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            sb.append(Character.forDigit((b >> 4) & 0xF, 16));
+            sb.append(Character.forDigit(b & 0xF, 16));
+        }
+        return sb.toString();
+    }
+
+    /** Immutable metadata for one stored clip. */
+    public static final class ClipInfo {
+        public final String id;
+        public final String name;
+        public final long size;
+        public final String mimeType;
+        public final String hash;
+        // 0 when unknown (clips stored before durations were recorded)
+        public final long durationMs;
+
+        public ClipInfo(String id, String name, long size, String mimeType, String hash, long durationMs) {
+            this.id = id;
+            this.name = name;
+            this.size = size;
+            this.mimeType = mimeType;
+            this.hash = hash;
+            this.durationMs = durationMs;
+        }
+
+        public JSONObject toJson() {
+            JSONObject json = new JSONObject();
+            try {
+                json.put("id", id);
+                json.put("name", name);
+                json.put("size", size);
+                json.put("mime", mimeType);
+                json.put("hash", hash);
+                if (durationMs > 0) {
+                    json.put("duration", durationMs);
+                }
+            } catch (JSONException e) {
+                // Only thrown for non-finite numbers, which we never put
+                throw new IllegalStateException(e);
+            }
+            return json;
+        }
+
+        static ClipInfo fromJson(JSONObject json) throws JSONException {
+            return new ClipInfo(
+                    json.getString("id"),
+                    json.optString("name", json.getString("id")),
+                    json.optLong("size", 0),
+                    json.optString("mime", "audio/mpeg"),
+                    json.getString("hash"),
+                    json.optLong("duration", 0));
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.przemek.footballtracker;
+
+import android.net.Uri;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+import android.webkit.WebMessage;
+import android.webkit.WebMessagePort;
+import android.webkit.WebView;
+
+import androidx.annotation.RequiresApi;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pushes typed messages ({@link BridgeMessages}) to the page. From API 23 they
+ * go over a WebMessagePort handed to the page once per load, so a push is a
+ * message post instead of a script the size of the payload that the WebView
+ * has to compile. Older WebViews get the same envelope through
+ * evaluateJavascript. Push latency per transport ends up in {@link Metrics}.
+ */
+public class BridgeChannel {
+    private static final String TAG = "FootballTracker";
+    // Acks the page never sent (e.g. an old cached page) shouldn't pile up
+    private static final int MAX_PENDING = 256;
+
+    private final WebView webView;
+    private final Metrics metrics;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final AtomicLong nextSeq = new AtomicLong(1);
+    // seq -> System.nanoTime() at post, until the page acks it
+    private final Map<Long, Long> pending = new ConcurrentHashMap<>();
+    // UI thread only
+    private WebMessagePort port;
+
+    public BridgeChannel(WebView webView, Metrics metrics) {
+        this.webView = webView;
+        this.metrics = metrics;
+    }
+
+    /** Hands a fresh port to the page; call on the UI thread once the page has loaded. */
+    public void open() {
+        close();
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
+            openPort();
+        }
+    }
+
+    public void close() {
+        pending.clear();
+        if (port != null && Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
+            port.close();
+        }
+        port = null;
+    }
+
+    /** Queues a message for the page; safe to call from any thread. */
+    public void send(String type, String payloadJson) {
+        long seq = nextSeq.getAndIncrement();
+        String envelope = BridgeMessages.envelope(seq, type, payloadJson);
+        mainHandler.post(() -> deliver(seq, type, envelope));
+    }
+
+    private void deliver(long seq, String type, String envelope) {
+        metrics.recordBytes("bridge.push_bytes", envelope.length() * 2L);
+        long start = System.nanoTime();
+        if (port != null && Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
+            if (pending.size() >= MAX_PENDING) {
+                pending.clear();
+            }
+            pending.put(seq, start);
+            postToPort(envelope);
+            return;
+        }
+        webView.evaluateJavascript(BridgeMessages.fallbackScript(envelope), result ->
+                metrics.recordSince("bridge.push.eval", start));
+        Log.d(TAG, "Pushed " + type + " (" + envelope.length() + " chars) without a message channel");
+    }
+
+    @RequiresApi(Build.VERSION_CODES.M)
+    private void openPort() {
+        WebMessagePort[] ports = webView.createWebMessageChannel();
+        port = ports[0];
+        port.setWebMessageCallback(new WebMessagePort.WebMessageCallback() {
+            @Override
+            public void onMessage(WebMessagePort source, WebMessage message) {
+                Long start = pending.remove(BridgeMessages.parseAck(message.getData()));
+                if (start != null) {
+                    metrics.recordSince("bridge.push.port", start);
+                }
+            }
+        }, mainHandler);
+        // Our pages are file:// URLs, which have no origin to target
+        webView.postWebMessage(new WebMessage(BridgeMessages.PORT_HANDSHAKE, new WebMessagePort[]{ports[1]}),
+                Uri.parse("*"));
+        Log.d(TAG, "Message channel handed to the page");
+    }
+
+    @RequiresApi(Build.VERSION_CODES.M)
+    private void postToPort(String envelope) {
+        port.postMessage(new WebMessage(envelope));
+    }
+}
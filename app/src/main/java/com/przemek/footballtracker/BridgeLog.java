@@ -0,0 +1,198 @@
+package com.przemek.footballtracker;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+
+/**
+ * Log of what the page reports through the bridge, kept in a bounded ring of
+ * two files: when {@code bridge.log} reaches its size limit it becomes
+ * {@code bridge.log.1} (replacing the previous one) and a new file is started,
+ * so at most twice the limit is ever on disk.
+ *
+ * Entries below the current level are dropped. Debug and info entries are also
+ * rate limited with a token bucket; what gets dropped is summarised in a single
+ * line once entries are accepted again. Warnings and errors always get through.
+ */
+public class BridgeLog {
+    public static final int DEBUG = 0;
+    public static final int INFO = 1;
+    public static final int WARN = 2;
+    public static final int ERROR = 3;
+
+    static final String LOG_FILE = "bridge.log";
+    private static final char[] LEVEL_CHARS = {'D', 'I', 'W', 'E'};
+    private static final String[] LEVEL_NAMES = {"debug", "info", "warn", "error"};
+
+    private final File current;
+    private final File previous;
+    private final long maxBytes;
+    private final int ratePerSecond;
+    private final SimpleDateFormat timeFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss.SSS", Locale.US);
+
+    private int level;
+    private Writer writer;
+    private long currentBytes;
+    private double tokens;
+    private long lastRefillMs = -1;
+    private long dropped = 0;
+    private long droppedTotal = 0;
+    private long written = 0;
+
+    public BridgeLog(File directory, long maxBytes, int ratePerSecond, int level) {
+        directory.mkdirs();
+        this.current = new File(directory, LOG_FILE);
+        this.previous = new File(directory, LOG_FILE + ".1");
+        this.maxBytes = maxBytes;
+        this.ratePerSecond = ratePerSecond;
+        this.level = level;
+        this.tokens = burstSize();
+    }
+
+    public static int parseLevel(String name, int fallback) {
+        if (name != null) {
+            for (int i = 0; i < LEVEL_NAMES.length; i++) {
+                if (LEVEL_NAMES[i].equalsIgnoreCase(name.trim())) {
+                    return i;
+                }
+            }
+        }
+        return fallback;
+    }
+
+    public static String levelName(int level) {
+        return LEVEL_NAMES[Math.max(DEBUG, Math.min(ERROR, level))];
+    }
+
+    public synchronized int getLevel() {
+        return level;
+    }
+
+    public synchronized void setLevel(int level) {
+        this.level = level;
+    }
+
+    public boolean log(int level, String message, long timeMs) throws IOException {
+        return log(level, message, timeMs, System.currentTimeMillis());
+    }
+
+    /**
+     * Writes one entry stamped {@code timeMs} (when the page logged it) and
+     * returns whether it was kept. {@code nowMs} drives the rate limit.
+     */
+    synchronized boolean log(int level, String message, long timeMs, long nowMs) throws IOException {
+        if (level < this.level) {
+            return false;
+        }
+        if (level < WARN && !takeToken(nowMs)) {
+            dropped++;
+            droppedTotal++;
+            return false;
+        }
+
+        if (dropped > 0) {
+            write(WARN, "... " + dropped + " entries dropped by rate limit", timeMs);
+            dropped = 0;
+        }
+        write(level, message, timeMs);
+        return true;
+    }
+
+    public synchronized void flush() throws IOException {
+        if (writer != null) {
+            writer.flush();
+        }
+    }
+
+    public synchronized void close() throws IOException {
+        if (writer != null) {
+            writer.close();
+            writer = null;
+        }
+    }
+
+    /** Everything still in the ring, oldest first. */
+    public synchronized String readAll() throws IOException {
+        flush();
+        StringBuilder sb = new StringBuilder();
+        appendFile(previous, sb);
+        appendFile(current, sb);
+        return sb.toString();
+    }
+
+    public synchronized String getStatsJson() {
+        return "{\"level\":\"" + levelName(level) + "\",\"written\":" + written
+                + ",\"dropped\":" + droppedTotal + ",\"bytes\":" + (previous.length() + currentBytes) + "}";
+    }
+
+    private void write(int level, String message, long timeMs) throws IOException {
+        String line = timeFormat.format(new Date(timeMs)) + " " + LEVEL_CHARS[level] + " "
+                + message.replace('\n', ' ') + "\n";
+        byte[] bytes = line.getBytes(StandardCharsets.UTF_8);
+
+        if (writer == null) {
+            open();
+        }
+        if (currentBytes > 0 && currentBytes + bytes.length > maxBytes) {
+            rotate();
+        }
+        writer.write(line);
+        currentBytes += bytes.length;
+        written++;
+    }
+
+    private void open() throws IOException {
+        currentBytes = current.length();
+        writer = new OutputStreamWriter(new FileOutputStream(current, true), StandardCharsets.UTF_8);
+    }
+
+    private void rotate() throws IOException {
+        writer.close();
+        if (previous.exists() && !previous.delete()) {
+            throw new IOException("Cannot delete " + previous);
+        }
+        if (!current.renameTo(previous)) {
+            throw new IOException("Cannot rotate " + current);
+        }
+        open();
+    }
+
+    private boolean takeToken(long nowMs) {
+        if (lastRefillMs >= 0 && nowMs > lastRefillMs) {
+            tokens = Math.min(burstSize(), tokens + (nowMs - lastRefillMs) * ratePerSecond / 1000.0);
+        }
+        lastRefillMs = nowMs;
+        if (tokens < 1) {
+            return false;
+        }
+        tokens--;
+        return true;
+    }
+
+    // Allows a short burst (e.g. a batch sent on pause) of two seconds' worth
+    private double burstSize() {
+        return ratePerSecond * 2.0;
+    }
+
+    private static void appendFile(File file, StringBuilder sb) throws IOException {
+        if (!file.exists()) {
+            return;
+        }
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                sb.append(line).append('\n');
+            }
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.przemek.footballtracker;
+
+import org.json.JSONObject;
+
+/**
+ * Wire format of native-to-page pushes: {@code {"v":1,"seq":n,"type":"...","payload":...}}.
+ * The payload is spliced in as the JSON it already is, so nothing is escaped
+ * or serialized twice, and the page gets it with a single JSON.parse.
+ */
+public final class BridgeMessages {
+    /** Bumped when the envelope changes; the page ignores versions it doesn't know. */
+    public static final int VERSION = 1;
+    /** What the page is sent, with the port, to open the channel. */
+    public static final String PORT_HANDSHAKE = "bridge-port";
+
+    private BridgeMessages() {
+    }
+
+    /** {@code payloadJson} must be a JSON value (object, array, string literal, ...). */
+    public static String envelope(long seq, String type, String payloadJson) {
+        String quotedType = JSONObject.quote(type);
+        StringBuilder sb = new StringBuilder(payloadJson.length() + quotedType.length() + 48);
+        sb.append("{\"v\":").append(VERSION)
+                .append(",\"seq\":").append(seq)
+                .append(",\"type\":").append(quotedType)
+                .append(",\"payload\":").append(payloadJson)
+                .append('}');
+        return sb.toString();
+    }
+
+    /**
+     * The same envelope for WebViews without message channels. JSON is a valid
+     * JavaScript expression, so it goes in as a literal rather than an escaped string.
+     */
+    public static String fallbackScript(String envelope) {
+        return "try { if (typeof receiveNativeMessage === 'function') { receiveNativeMessage(" + envelope + "); }"
+                + " else { console.error('receiveNativeMessage function not found'); } }"
+                + " catch(e) { console.error('Error in native message:', e); }";
+    }
+
+    /** The sequence number of an ack from the page ({@code {"ack":n}}), or -1. */
+    public static long parseAck(String data) {
+        if (data == null) {
+            return -1;
+        }
+        try {
+            return new JSONObject(data).optLong("ack", -1);
+        } catch (Exception e) {
+            return -1;
+        }
+    }
+}
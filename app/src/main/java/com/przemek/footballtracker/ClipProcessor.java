@@ -0,0 +1,224 @@
+package com.przemek.footballtracker;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * Shapes decoded 16-bit PCM into a goal clip at import time: drops leading
+ * silence, keeps only the play window, fades the edges so the cut doesn't
+ * click, and scales the loudness to a common target so every goal sound
+ * plays at roughly the same volume. Pure Java, so it runs on any JVM.
+ */
+public final class ClipProcessor {
+
+    /** Import processing settings, stored as JSON by the caller. */
+    public static final class Options {
+        public static final long MAX_WINDOW_MS = 60_000;
+        public static final long MAX_START_MS = 10 * 60_000;
+
+        public final boolean enabled;
+        // Where the window starts in the source, and how long it is
+        public final long startMs;
+        public final long windowMs;
+        public final boolean normalize;
+        // Loudness target as RMS level; the peak ceiling wins if they disagree
+        public final double targetRmsDbfs;
+        public final double peakCeilingDbfs;
+
+        public Options(boolean enabled, long startMs, long windowMs, boolean normalize,
+                       double targetRmsDbfs, double peakCeilingDbfs) {
+            this.enabled = enabled;
+            this.startMs = Math.max(0, Math.min(startMs, MAX_START_MS));
+            this.windowMs = Math.max(1000, Math.min(windowMs, MAX_WINDOW_MS));
+            this.normalize = normalize;
+            this.targetRmsDbfs = targetRmsDbfs;
+            this.peakCeilingDbfs = Math.min(peakCeilingDbfs, 0);
+        }
+
+        /** 15 seconds from the start, normalized: what goal playback can use. */
+        public static Options defaults() {
+            return new Options(true, 0, 15_000, true, -16.0, -1.0);
+        }
+
+        public JSONObject toJson() {
+            JSONObject json = new JSONObject();
+            try {
+                json.put("enabled", enabled);
+                json.put("startMs", startMs);
+                json.put("windowMs", windowMs);
+                json.put("normalize", normalize);
+                json.put("targetRmsDbfs", targetRmsDbfs);
+                json.put("peakCeilingDbfs", peakCeilingDbfs);
+            } catch (JSONException e) {
+                // Only thrown for non-finite numbers, which the constructor can't produce
+                throw new IllegalStateException(e);
+            }
+            return json;
+        }
+
+        // Missing fields keep their defaults, so older saved settings still load
+        public static Options fromJson(String json) throws JSONException {
+            Options defaults = defaults();
+            if (json == null || json.isEmpty()) {
+                return defaults;
+            }
+            JSONObject object = new JSONObject(json);
+            return new Options(
+                    object.optBoolean("enabled", defaults.enabled),
+                    object.optLong("startMs", defaults.startMs),
+                    object.optLong("windowMs", defaults.windowMs),
+                    object.optBoolean("normalize", defaults.normalize),
+                    finite(object.optDouble("targetRmsDbfs", defaults.targetRmsDbfs), defaults.targetRmsDbfs),
+                    finite(object.optDouble("peakCeilingDbfs", defaults.peakCeilingDbfs), defaults.peakCeilingDbfs));
+        }
+
+        private static double finite(double value, double fallback) {
+            return Double.isNaN(value) || Double.isInfinite(value) ? fallback : value;
+        }
+    }
+
+    // Anything quieter than this at the start is treated as silence
+    static final double SILENCE_DBFS = -50.0;
+    static final long MAX_SILENCE_TRIM_MS = 2000;
+    static final long FADE_IN_MS = 10;
+    static final long FADE_OUT_MS = 500;
+    // Don't turn a nearly silent clip into loud noise
+    static final double MAX_GAIN_DB = 20.0;
+
+    private ClipProcessor() {
+    }
+
+    /**
+     * Processes a clip that already starts at {@code options.startMs} in the
+     * source (the decoder skips the offset). Returns a new clip; the input is
+     * left untouched.
+     */
+    public static PcmCache.Clip process(PcmCache.Clip source, Options options) {
+        short[] samples = toSamples(source.pcm);
+        int channels = source.channelCount;
+        int frames = samples.length / channels;
+
+        int first = Math.min(leadingSilenceFrames(samples, channels, source.sampleRate), frames);
+        int windowFrames = (int) Math.min(frames - first, options.windowMs * source.sampleRate / 1000);
+        short[] window = new short[windowFrames * channels];
+        System.arraycopy(samples, first * channels, window, 0, window.length);
+
+        if (options.normalize) {
+            applyGain(window, gainFor(window, options));
+        }
+        fadeIn(window, channels, framesFor(FADE_IN_MS, source.sampleRate));
+        // A tail that was cut off mid-song fades out; a clip that ended on its own doesn't need to
+        if (first + windowFrames < frames) {
+            fadeOut(window, channels, framesFor(FADE_OUT_MS, source.sampleRate));
+        }
+        return new PcmCache.Clip(toBytes(window), source.sampleRate, channels);
+    }
+
+    /** Linear gain that brings the RMS to the target without pushing the peak past the ceiling. */
+    static double gainFor(short[] samples, Options options) {
+        if (samples.length == 0) {
+            return 1.0;
+        }
+        double sumSquares = 0;
+        int peak = 0;
+        for (short sample : samples) {
+            sumSquares += (double) sample * sample;
+            peak = Math.max(peak, Math.abs((int) sample));
+        }
+        if (peak == 0) {
+            return 1.0;
+        }
+        double rms = Math.sqrt(sumSquares / samples.length) / 32768.0;
+        double rmsGain = fromDb(options.targetRmsDbfs) / rms;
+        double peakGain = fromDb(options.peakCeilingDbfs) / (peak / 32768.0);
+        return Math.min(Math.min(rmsGain, peakGain), fromDb(MAX_GAIN_DB));
+    }
+
+    static double levelDbfs(short[] samples) {
+        double sumSquares = 0;
+        for (short sample : samples) {
+            sumSquares += (double) sample * sample;
+        }
+        double rms = samples.length > 0 ? Math.sqrt(sumSquares / samples.length) / 32768.0 : 0;
+        return rms > 0 ? 20 * Math.log10(rms) : Double.NEGATIVE_INFINITY;
+    }
+
+    private static int leadingSilenceFrames(short[] samples, int channels, int sampleRate) {
+        int threshold = (int) (fromDb(SILENCE_DBFS) * 32768);
+        int maxFrames = framesFor(MAX_SILENCE_TRIM_MS, sampleRate);
+        int frames = samples.length / channels;
+        for (int frame = 0; frame < frames && frame < maxFrames; frame++) {
+            for (int c = 0; c < channels; c++) {
+                if (Math.abs((int) samples[frame * channels + c]) > threshold) {
+                    return frame;
+                }
+            }
+        }
+        return Math.min(frames, maxFrames);
+    }
+
+    private static void applyGain(short[] samples, double gain) {
+        if (gain == 1.0) {
+            return;
+        }
+        for (int i = 0; i < samples.length; i++) {
+            samples[i] = clip(samples[i] * gain);
+        }
+    }
+
+    private static void fadeIn(short[] samples, int channels, int fadeFrames) {
+        int frames = Math.min(fadeFrames, samples.length / channels);
+        for (int frame = 0; frame < frames; frame++) {
+            double gain = (double) frame / fadeFrames;
+            for (int c = 0; c < channels; c++) {
+                int i = frame * channels + c;
+                samples[i] = clip(samples[i] * gain);
+            }
+        }
+    }
+
+    private static void fadeOut(short[] samples, int channels, int fadeFrames) {
+        int total = samples.length / channels;
+        int frames = Math.min(fadeFrames, total);
+        for (int n = 0; n < frames; n++) {
+            // n = 0 is the last frame
+            double gain = (double) n / fadeFrames;
+            int frame = total - 1 - n;
+            for (int c = 0; c < channels; c++) {
+                int i = frame * channels + c;
+                samples[i] = clip(samples[i] * gain);
+            }
+        }
+    }
+
+    private static int framesFor(long ms, int sampleRate) {
+        return (int) (ms * sampleRate / 1000);
+    }
+
+    private static double fromDb(double db) {
+        return Math.pow(10, db / 20);
+    }
+
+    private static short clip(double value) {
+        long rounded = Math.round(value);
+        return (short) Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, rounded));
+    }
+
+    // PCM16 is little-endian on every decoder we get it from
+    static short[] toSamples(byte[] pcm) {
+        short[] samples = new short[pcm.length / 2];
+        for (int i = 0; i < samples.length; i++) {
+            samples[i] = (short) ((pcm[2 * i] & 0xFF) | (pcm[2 * i + 1] << 8));
+        }
+        return samples;
+    }
+
+    static byte[] toBytes(short[] samples) {
+        byte[] pcm = new byte[samples.length * 2];
+        for (int i = 0; i < samples.length; i++) {
+            pcm[2 * i] = (byte) samples[i];
+            pcm[2 * i + 1] = (byte) (samples[i] >> 8);
+        }
+        return pcm;
+    }
+}
@@ -0,0 +1,67 @@
+package com.przemek.footballtracker;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Reference counts for stored clips. A clip is held by its entry in the sound
+ * library and used by every sound assignment (team, player and custom sound
+ * buttons) and player music slot that names it. {@link SoundLibrary} and
+ * {@link PlayerMusicStore} update the counts as they change, so asking whether
+ * a clip is still needed never walks or re-reads either of them.
+ */
+public class ClipReferences {
+    // clipId -> [library entries, assignments + player slots]
+    private final Map<String, int[]> counts = new HashMap<>();
+
+    public synchronized void addEntry(String clipId) {
+        change(clipId, 0, 1);
+    }
+
+    public synchronized void removeEntry(String clipId) {
+        change(clipId, 0, -1);
+    }
+
+    public synchronized void addUse(String clipId) {
+        change(clipId, 1, 1);
+    }
+
+    public synchronized void removeUse(String clipId) {
+        change(clipId, 1, -1);
+    }
+
+    /** Anything at all refers to the clip; an unreferenced clip is garbage. */
+    public synchronized boolean isReferenced(String clipId) {
+        return counts.containsKey(clipId);
+    }
+
+    /** A button or player plays the clip; being in the library alone doesn't count. */
+    public synchronized boolean isAssigned(String clipId) {
+        int[] count = counts.get(clipId);
+        return count != null && count[1] > 0;
+    }
+
+    public synchronized int getCount(String clipId) {
+        int[] count = counts.get(clipId);
+        return count != null ? count[0] + count[1] : 0;
+    }
+
+    // Counts never go negative, so a stray removal can't hide a later reference
+    private void change(String clipId, int kind, int delta) {
+        if (clipId == null || clipId.isEmpty()) {
+            return;
+        }
+        int[] count = counts.get(clipId);
+        if (count == null) {
+            if (delta < 0) {
+                return;
+            }
+            count = new int[2];
+            counts.put(clipId, count);
+        }
+        count[kind] = Math.max(0, count[kind] + delta);
+        if (count[0] == 0 && count[1] == 0) {
+            counts.remove(clipId);
+        }
+    }
+}
@@ -0,0 +1,331 @@
+package com.przemek.footballtracker;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.json.JSONTokener;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Pull reader for JSON documents too large to parse into a tree. Small values
+ * come back as org.json objects via {@link #readValue()}; a huge string (say a
+ * base64 clip) can be consumed piece by piece through {@link #nextStringReader()}.
+ * android.util.JsonReader would do, but isn't usable in JVM tests.
+ *
+ * Separators are skipped leniently, which is fine for the documents this reads:
+ * JSON.stringify output written by the page.
+ */
+public final class JsonStreamReader {
+
+    public enum Token {
+        BEGIN_OBJECT, END_OBJECT, BEGIN_ARRAY, END_ARRAY, STRING, NUMBER, BOOLEAN, NULL, END_DOCUMENT
+    }
+
+    private final Reader in;
+    private final char[] buffer = new char[8192];
+    private int pos = 0;
+    private int limit = 0;
+    // The string being read through nextStringReader(), if any
+    private StringValueReader openString;
+
+    public JsonStreamReader(Reader in) {
+        this.in = in;
+    }
+
+    public Token peek() throws IOException {
+        finishOpenString();
+        int c = nextSignificant();
+        switch (c) {
+            case -1:
+                return Token.END_DOCUMENT;
+            case '{':
+                return Token.BEGIN_OBJECT;
+            case '}':
+                return Token.END_OBJECT;
+            case '[':
+                return Token.BEGIN_ARRAY;
+            case ']':
+                return Token.END_ARRAY;
+            case '"':
+                return Token.STRING;
+            case 't':
+            case 'f':
+                return Token.BOOLEAN;
+            case 'n':
+                return Token.NULL;
+            default:
+                return Token.NUMBER;
+        }
+    }
+
+    public boolean hasNext() throws IOException {
+        Token token = peek();
+        return token != Token.END_OBJECT && token != Token.END_ARRAY && token != Token.END_DOCUMENT;
+    }
+
+    public void beginObject() throws IOException {
+        expect(Token.BEGIN_OBJECT);
+    }
+
+    public void endObject() throws IOException {
+        expect(Token.END_OBJECT);
+    }
+
+    public void beginArray() throws IOException {
+        expect(Token.BEGIN_ARRAY);
+    }
+
+    public void endArray() throws IOException {
+        expect(Token.END_ARRAY);
+    }
+
+    public String nextName() throws IOException {
+        return nextString();
+    }
+
+    public String nextString() throws IOException {
+        Reader reader = nextStringReader();
+        StringBuilder sb = new StringBuilder();
+        char[] chunk = new char[256];
+        int read;
+        while ((read = reader.read(chunk, 0, chunk.length)) != -1) {
+            sb.append(chunk, 0, read);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * The next string value, unescaped, as a stream. Whatever isn't read is
+     * skipped by the next call on this reader.
+     */
+    public Reader nextStringReader() throws IOException {
+        if (peek() != Token.STRING) {
+            throw syntaxError("Expected a string");
+        }
+        pos++;
+        openString = new StringValueReader();
+        return openString;
+    }
+
+    /** The next value as JSONObject, JSONArray, String, Boolean, Number or JSONObject.NULL. */
+    public Object readValue() throws IOException {
+        switch (peek()) {
+            case BEGIN_OBJECT: {
+                JSONObject object = new JSONObject();
+                beginObject();
+                while (hasNext()) {
+                    String name = nextName();
+                    put(object, name, readValue());
+                }
+                endObject();
+                return object;
+            }
+            case BEGIN_ARRAY: {
+                JSONArray array = new JSONArray();
+                beginArray();
+                while (hasNext()) {
+                    array.put(readValue());
+                }
+                endArray();
+                return array;
+            }
+            case STRING:
+                return nextString();
+            case NUMBER:
+            case BOOLEAN:
+            case NULL:
+                return parseLiteral(readLiteral());
+            default:
+                throw syntaxError("Expected a value");
+        }
+    }
+
+    /** Skips the next value without keeping any of it, however large. */
+    public void skipValue() throws IOException {
+        int depth = 0;
+        do {
+            switch (peek()) {
+                case BEGIN_OBJECT:
+                case BEGIN_ARRAY:
+                    pos++;
+                    depth++;
+                    break;
+                case END_OBJECT:
+                case END_ARRAY:
+                    pos++;
+                    depth--;
+                    break;
+                case STRING:
+                    // Drained by the next peek()
+                    nextStringReader();
+                    break;
+                case END_DOCUMENT:
+                    throw syntaxError("Unexpected end of document");
+                default:
+                    readLiteral();
+                    break;
+            }
+        } while (depth > 0);
+        finishOpenString();
+    }
+
+    private void expect(Token token) throws IOException {
+        if (peek() != token) {
+            throw syntaxError("Expected " + token);
+        }
+        pos++;
+    }
+
+    private String readLiteral() throws IOException {
+        StringBuilder sb = new StringBuilder();
+        int c;
+        while ((c = peekChar()) != -1 && ",:]} \t\r\n".indexOf(c) < 0) {
+            sb.append((char) c);
+            pos++;
+        }
+        return sb.toString();
+    }
+
+    // Whitespace, commas and colons carry no information for a reader that trusts its input
+    private int nextSignificant() throws IOException {
+        int c;
+        while ((c = peekChar()) != -1) {
+            if (c != ' ' && c != '\t' && c != '\r' && c != '\n' && c != ',' && c != ':') {
+                return c;
+            }
+            pos++;
+        }
+        return -1;
+    }
+
+    private void finishOpenString() throws IOException {
+        if (openString != null) {
+            StringValueReader string = openString;
+            openString = null;
+            string.drain();
+        }
+    }
+
+    private int peekChar() throws IOException {
+        if (pos == limit) {
+            limit = in.read(buffer, 0, buffer.length);
+            pos = 0;
+            if (limit <= 0) {
+                limit = 0;
+                return -1;
+            }
+        }
+        return buffer[pos];
+    }
+
+    private int readChar() throws IOException {
+        int c = peekChar();
+        if (c != -1) {
+            pos++;
+        }
+        return c;
+    }
+
+    private Object parseLiteral(String literal) throws IOException {
+        try {
+            return new JSONTokener(literal).nextValue();
+        } catch (JSONException e) {
+            throw syntaxError("Invalid literal " + literal);
+        }
+    }
+
+    private static void put(JSONObject object, String name, Object value) throws IOException {
+        try {
+            object.put(name, value);
+        } catch (JSONException e) {
+            throw new IOException("Invalid value for " + name, e);
+        }
+    }
+
+    private IOException syntaxError(String message) {
+        return new IOException(message + " in JSON document");
+    }
+
+    // Reads one string's characters, unescaping as it goes, up to the closing quote
+    private final class StringValueReader extends Reader {
+        private boolean done = false;
+
+        @Override
+        public int read(char[] target, int offset, int length) throws IOException {
+            if (done) {
+                return -1;
+            }
+            int count = 0;
+            while (count < length) {
+                int c = readChar();
+                if (c == -1) {
+                    throw syntaxError("Unterminated string");
+                }
+                if (c == '"') {
+                    done = true;
+                    break;
+                }
+                if (c == '\\') {
+                    c = readEscape();
+                }
+                target[offset + count++] = (char) c;
+            }
+            return count == 0 && done ? -1 : count;
+        }
+
+        void drain() throws IOException {
+            while (!done) {
+                int c = readChar();
+                if (c == -1) {
+                    throw syntaxError("Unterminated string");
+                }
+                if (c == '"') {
+                    done = true;
+                } else if (c == '\\') {
+                    readEscape();
+                }
+            }
+        }
+
+        private int readEscape() throws IOException {
+            int c = readChar();
+            switch (c) {
+                case 'b':
+                    return '\b';
+                case 'f':
+                    return '\f';
+                case 'n':
+                    return '\n';
+                case 'r':
+                    return '\r';
+                case 't':
+                    return '\t';
+                case 'u': {
+                    int value = 0;
+                    for (int i = 0; i < 4; i++) {
+                        int digit = Character.digit(readChar(), 16);
+                        if (digit < 0) {
+                            throw syntaxError("Invalid unicode escape");
+                        }
+                        value = value * 16 + digit;
+                    }
+                    return value;
+                }
+                case -1:
+                    throw syntaxError("Unterminated string");
+                default:
+                    // \" \\ \/ and anything lenient
+                    return c;
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (openString == this) {
+                finishOpenString();
+            }
+        }
+    }
+}
@@ -0,0 +1,344 @@
+package com.przemek.footballtracker;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * One-time move of the legacy PREF_SOUNDS blob, where every clip is an inline
+ * base64 data: URL, into the {@link AudioStore}. The blob is read with a
+ * {@link JsonStreamReader} and each clip's base64 is decoded straight into a
+ * file, so memory use is one clip's metadata plus buffers, whatever the size
+ * of the library.
+ *
+ * Every finished clip is appended to a checkpoint file in the work directory.
+ * A migration that is killed part-way skips the checkpointed clips when it is
+ * run again; {@link #finish()} removes the checkpoint once the caller has
+ * saved the result.
+ */
+public class LegacySoundsMigration {
+    static final String CHECKPOINT_FILE = "checkpoint.jsonl";
+    // "data:audio/mpeg;base64," and friends; anything longer isn't a clip
+    private static final int MAX_DATA_URL_PREFIX = 256;
+
+    private final AudioStore audioStore;
+    private final File workDir;
+    private final File checkpoint;
+    private int resumedCount = 0;
+    private int migratedCount = 0;
+
+    public LegacySoundsMigration(AudioStore audioStore, File workDir) {
+        this.audioStore = audioStore;
+        this.workDir = workDir;
+        this.checkpoint = new File(workDir, CHECKPOINT_FILE);
+    }
+
+    /**
+     * Migrates (or finishes migrating) the legacy document, either the library
+     * object or the oldest bare sounds array. Returns the library with clip
+     * references in place of the inline data, ready to be stored as is.
+     */
+    public JSONObject run(Reader legacyJson) throws IOException, JSONException {
+        if (!workDir.exists() && !workDir.mkdirs()) {
+            throw new IOException("Cannot create migration directory: " + workDir);
+        }
+        deleteLeftoverPayloads();
+        List<JSONObject> done = readCheckpoint();
+        resumedCount = done.size();
+        migratedCount = 0;
+
+        JsonStreamReader reader = new JsonStreamReader(legacyJson);
+        JSONObject library = new JSONObject();
+        JSONArray sounds = new JSONArray();
+        try (OutputStream log = new FileOutputStream(checkpoint, true)) {
+            if (reader.peek() == JsonStreamReader.Token.BEGIN_ARRAY) {
+                migrateSounds(reader, sounds, done, log);
+            } else {
+                reader.beginObject();
+                while (reader.hasNext()) {
+                    String name = reader.nextName();
+                    if ("sounds".equals(name) && reader.peek() == JsonStreamReader.Token.BEGIN_ARRAY) {
+                        migrateSounds(reader, sounds, done, log);
+                    } else {
+                        // Assignments, custom names: small, kept as they are
+                        library.put(name, reader.readValue());
+                    }
+                }
+                reader.endObject();
+            }
+        }
+        library.put("sounds", sounds);
+        return library;
+    }
+
+    /** Drops the checkpoint; call once the migrated library has been saved. */
+    public void finish() {
+        checkpoint.delete();
+        deleteLeftoverPayloads();
+        workDir.delete();
+    }
+
+    /** Clips taken from an earlier, interrupted run. */
+    public int getResumedCount() {
+        return resumedCount;
+    }
+
+    /** Clips decoded by the last {@link #run}. */
+    public int getMigratedCount() {
+        return migratedCount;
+    }
+
+    private void migrateSounds(JsonStreamReader reader, JSONArray sounds, List<JSONObject> done,
+                               OutputStream log) throws IOException, JSONException {
+        reader.beginArray();
+        int index = 0;
+        while (reader.hasNext()) {
+            if (index < done.size()) {
+                // Finished before the interruption; its data is passed over, not decoded
+                reader.skipValue();
+                sounds.put(done.get(index));
+            } else {
+                AudioStore.ClipInfo[] clip = new AudioStore.ClipInfo[1];
+                JSONObject sound = migrateSound(reader, clip);
+                appendCheckpoint(log, new JSONObject()
+                        .put("sound", sound)
+                        .put("clip", clip[0] != null ? clip[0].toJson() : JSONObject.NULL));
+                sounds.put(sound);
+            }
+            index++;
+        }
+        reader.endArray();
+    }
+
+    // The sound's metadata with clip references; the stored clip, if any, goes in clipOut[0]
+    private JSONObject migrateSound(JsonStreamReader reader, AudioStore.ClipInfo[] clipOut)
+            throws IOException, JSONException {
+        JSONObject sound = new JSONObject();
+        File payload = null;
+        String mimeType = null;
+        try {
+            reader.beginObject();
+            while (reader.hasNext()) {
+                String name = reader.nextName();
+                if ("data".equals(name) && reader.peek() == JsonStreamReader.Token.STRING) {
+                    Reader value = reader.nextStringReader();
+                    mimeType = readBase64DataUrlType(value);
+                    if (mimeType != null) {
+                        // Properties can come in any order, so the id may not be known yet
+                        payload = File.createTempFile("payload_", ".tmp", workDir);
+                        try (OutputStream out = new BufferedOutputStream(new FileOutputStream(payload),
+                                AudioStore.CHUNK_SIZE)) {
+                            copy(new Base64Input(value), out);
+                        }
+                    }
+                } else {
+                    sound.put(name, reader.readValue());
+                }
+            }
+            reader.endObject();
+
+            if (payload != null) {
+                String id = sound.optString("id", "");
+                if (id.isEmpty()) {
+                    id = AudioStore.newClipId();
+                }
+                AudioStore.ClipInfo clip;
+                try (InputStream in = new FileInputStream(payload)) {
+                    clip = audioStore.importClip(id, sound.optString("name", id),
+                            mimeType.isEmpty() ? "audio/mpeg" : mimeType, in);
+                }
+                sound.put("id", clip.id);
+                sound.put("size", clip.size);
+                sound.put("type", clip.mimeType);
+                clipOut[0] = clip;
+                migratedCount++;
+            }
+            return sound;
+        } finally {
+            if (payload != null) {
+                payload.delete();
+            }
+        }
+    }
+
+    // "data:<mime>;base64," -> mime; null (with the value left to be skipped) for anything else
+    private static String readBase64DataUrlType(Reader value) throws IOException {
+        StringBuilder prefix = new StringBuilder();
+        int c;
+        while ((c = value.read()) != -1 && c != ',') {
+            if (prefix.length() >= MAX_DATA_URL_PREFIX) {
+                return null;
+            }
+            prefix.append((char) c);
+        }
+        String header = prefix.toString();
+        if (c != ',' || !header.startsWith("data:") || !header.endsWith(";base64")) {
+            return null;
+        }
+        int semicolon = header.indexOf(';');
+        return header.substring(5, semicolon);
+    }
+
+    // One line per finished sound, synced so a kill can lose at most the line being written
+    private void appendCheckpoint(OutputStream log, JSONObject entry) throws IOException {
+        log.write((entry.toString() + "\n").getBytes(StandardCharsets.UTF_8));
+        log.flush();
+        ((FileOutputStream) log).getFD().sync();
+    }
+
+    private List<JSONObject> readCheckpoint() throws IOException {
+        List<JSONObject> done = new ArrayList<>();
+        if (!checkpoint.exists()) {
+            return done;
+        }
+        long validBytes = 0;
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(new FileInputStream(checkpoint), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                JSONObject entry;
+                try {
+                    entry = new JSONObject(line);
+                } catch (JSONException e) {
+                    // A line cut short by the kill; that sound is migrated again
+                    break;
+                }
+                JSONObject clip = entry.optJSONObject("clip");
+                if (clip != null && !audioStore.adopt(AudioStore.ClipInfo.fromJson(clip))) {
+                    // Its bytes are gone after all; redo it and everything after it
+                    break;
+                }
+                done.add(entry.getJSONObject("sound"));
+                validBytes += line.getBytes(StandardCharsets.UTF_8).length + 1;
+            }
+        } catch (JSONException e) {
+            throw new IOException("Corrupt migration checkpoint", e);
+        }
+        truncate(checkpoint, validBytes);
+        return done;
+    }
+
+    private static void truncate(File file, long length) throws IOException {
+        if (file.length() > length) {
+            try (FileOutputStream out = new FileOutputStream(file, true)) {
+                out.getChannel().truncate(length);
+            }
+        }
+    }
+
+    private void deleteLeftoverPayloads() {
+        File[] files = workDir.listFiles((dir, name) -> name.startsWith("payload_"));
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+    }
+
+    private static void copy(InputStream in, OutputStream out) throws IOException {
+        byte[] buffer = new byte[AudioStore.CHUNK_SIZE];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            out.write(buffer, 0, read);
+        }
+    }
+
+    /**
+     * Decodes base64 text from a Reader as it is read. Whitespace is ignored
+     * and padding ends the data; java.util.Base64 needs API 26.
+     */
+    static final class Base64Input extends InputStream {
+        private static final int[] VALUES = new int[128];
+
+        static {
+            Arrays.fill(VALUES, -1);
+            String alphabet = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/";
+            for (int i = 0; i < alphabet.length(); i++) {
+                VALUES[alphabet.charAt(i)] = i;
+            }
+            // URL-safe variants decode the same
+            VALUES['-'] = 62;
+            VALUES['_'] = 63;
+        }
+
+        private final Reader source;
+        private final char[] chars = new char[4096];
+        private final byte[] decoded = new byte[3072];
+        private int decodedPos = 0;
+        private int decodedLimit = 0;
+        private int bits = 0;
+        private int bitCount = 0;
+        private boolean ended = false;
+
+        Base64Input(Reader source) {
+            this.source = source;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] one = new byte[1];
+            return read(one, 0, 1) == -1 ? -1 : one[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] target, int offset, int length) throws IOException {
+            if (decodedPos == decodedLimit && !fill()) {
+                return -1;
+            }
+            int count = Math.min(length, decodedLimit - decodedPos);
+            System.arraycopy(decoded, decodedPos, target, offset, count);
+            decodedPos += count;
+            return count;
+        }
+
+        private boolean fill() throws IOException {
+            decodedPos = 0;
+            decodedLimit = 0;
+            while (decodedLimit == 0 && !ended) {
+                int read = source.read(chars, 0, chars.length);
+                if (read == -1) {
+                    ended = true;
+                    break;
+                }
+                for (int i = 0; i < read; i++) {
+                    char c = chars[i];
+                    if (c == '=') {
+                        // Padding: the rest of the value carries no data
+                        ended = true;
+                        break;
+                    }
+                    int value = c < 128 ? VALUES[c] : -1;
+                    if (value < 0) {
+                        if (Character.isWhitespace(c)) {
+                            continue;
+                        }
+                        throw new IOException("Invalid base64 character in clip data");
+                    }
+                    bits = (bits << 6) | value;
+                    bitCount += 6;
+                    if (bitCount >= 8) {
+                        bitCount -= 8;
+                        decoded[decodedLimit++] = (byte) (bits >> bitCount);
+                        bits &= (1 << bitCount) - 1;
+                    }
+                }
+            }
+            return decodedLimit > 0;
+        }
+    }
+}
@@ -1,25 +1,33 @@
 package com.przemek.footballtracker;
 
 import android.Manifest;
+import android.app.ActivityManager;
+import android.content.ClipData;
 import android.content.ContentResolver;
 import android.content.ContentValues;
 import android.content.Context;
 import android.content.Intent;
 import android.content.SharedPreferences;
+import android.content.UriPermission;
+import android.content.pm.PackageInfo;
 import android.content.pm.PackageManager;
 import android.content.res.Configuration;
-import android.database.Cursor;
 import android.net.Uri;
 import android.os.Build;
 import android.os.Bundle;
 import android.os.Environment;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
+import android.os.SystemClock;
 import android.provider.DocumentsContract;
 import android.provider.MediaStore;
-import android.provider.OpenableColumns;
 import android.provider.Settings;
 import android.util.Base64;
 import android.util.Log;
 import android.webkit.JavascriptInterface;
+import android.webkit.WebResourceRequest;
+import android.webkit.WebResourceResponse;
 import android.webkit.WebSettings;
 import android.webkit.WebView;
 import android.webkit.WebViewClient;
@@ -29,20 +37,36 @@ import androidx.appcompat.app.AlertDialog;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.core.app.ActivityCompat;
 import androidx.core.content.ContextCompat;
+import androidx.core.content.pm.PackageInfoCompat;
 import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
+import org.json.JSONTokener;
 
-import java.io.ByteArrayOutputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
-import java.io.InputStream;
 import java.io.OutputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Date;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Set;
+import java.util.TimeZone;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class MainActivity extends AppCompatActivity {
     private static final int PERMISSION_REQUEST_CODE = 100;
@@ -51,6 +75,8 @@ public class MainActivity extends AppCompatActivity {
     private static final int MANAGE_STORAGE_REQUEST_CODE = 400;
 
     private WebView webView;
+    private BridgeChannel bridgeChannel;
+    private final AtomicLong nextAnnouncementId = new AtomicLong(1);
     private boolean permissionsChecked = false;
     private static final String TAG = "FootballTracker";
 
@@ -59,23 +85,400 @@ public class MainActivity extends AppCompatActivity {
     private static final String PREF_SOUNDS = "saved_sounds";
     private static final String PREF_ASSIGNMENTS = "sound_assignments";
     private static final String PREF_PLAYER_ASSIGNMENTS = "player_assignments";
+    // Legacy whole-state backup, superseded by the match journal
     private static final String PREF_GAME_STATE = "game_state_backup";
+    private static final String MATCH_DIR = "match";
+    // Season finished matches are filed under; unset means the calendar year
+    private static final String PREF_HISTORY_SEASON = "history_season";
+    private static final int LEADERBOARD_SIZE = 10;
+    // Sound library metadata (no audio payloads) and the audio store index
+    private static final String PREF_SOUND_LIBRARY = "sound_library";
+    private static final String PREF_AUDIO_INDEX = "audio_index";
+    private static final String AUDIO_DIR = "audio";
+    // Checkpoint of an unfinished PREF_SOUNDS migration
+    private static final String LEGACY_MIGRATION_DIR = "legacy_migration";
+    // Player slot -> clip references; the page's profiles keep only clip id and name
+    private static final String PLAYER_MUSIC_FILE = "player_music.json";
+    // Audio store size above which unassigned clips are evicted, least recently played first
+    private static final String PREF_STORAGE_QUOTA = "storage_quota";
+    private static final long DEFAULT_STORAGE_QUOTA_BYTES = 256L * 1024 * 1024;
+    // clipId -> last played, for the eviction order
+    private static final String PREF_CLIP_USAGE = "clip_usage";
+    private static final String STORAGE_COLLECTION = "storage_collection";
+    // Decoded lineup audio; at most an eighth of the app's heap
+    private static final long MAX_PCM_CACHE_BYTES = 32L * 1024 * 1024;
+    private static final String PREF_MAX_IMPORT_BYTES = "max_import_bytes";
+    private static final long DEFAULT_MAX_IMPORT_BYTES = 20L * 1024 * 1024;
+    // ClipProcessor.Options as JSON: play window, start offset, loudness target
+    private static final String PREF_IMPORT_PROCESSING = "import_processing";
+    private static final String IMPORT_WORK_DIR = "import";
+    // Fast start keeps the WebView caches between launches; off restores the old
+    // clear-everything-on-launch behaviour for troubleshooting
+    private static final String PREF_FAST_START = "fast_start";
+    // Build the WebView cache was filled by; a different one means an app update
+    private static final String PREF_ASSET_BUILD = "asset_build";
+    private static final String PREF_STARTUP_HISTORY = "startup_history";
+    private static final int STARTUP_HISTORY_SIZE = 20;
+    // Page log: level threshold, ring-buffer file (two segments) and rate limit for debug/info
+    private static final String PREF_LOG_LEVEL = "log_level";
+    private static final String LOG_DIR = "logs";
+    private static final long LOG_SEGMENT_BYTES = 256 * 1024;
+    private static final int LOG_RATE_PER_SECOND = 20;
     private SharedPreferences sharedPreferences;
+    private AudioStore audioStore;
+    private AudioRequestHandler audioRequestHandler;
+    private AssetRequestHandler assetRequestHandler;
+    private BridgeLog bridgeLog;
+    private AudioEngine audioEngine;
+    private AudioImporter audioImporter;
+    private PlayerMusicStore playerMusic;
+    // Refcounts kept by soundLibrary and playerMusic; unreferenced clips are collected
+    private final ClipReferences clipReferences = new ClipReferences();
+    private StorageManager storageManager;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    // Finished matches and season totals; the database is opened on first use
+    private MatchHistory matchHistory;
+    // Native copy of the page's library; the page sends versioned patches against it
+    private final SoundLibrary soundLibrary = new SoundLibrary(clipReferences);
+    private volatile boolean soundLibraryLoaded = false;
+    // Hot-path histograms (tap-to-audio, bridge calls, writes, payload sizes)
+    private final Metrics metrics = new Metrics();
+    // All SharedPreferences and journal writes go through this single writer thread
+    private final PersistenceExecutor persistence =
+            new PersistenceExecutor("Persistence", PersistenceExecutor.DEFAULT_COALESCE_MS, metrics);
+    // How long onPause waits for queued writes before letting the activity go
+    private static final long FLUSH_TIMEOUT_MS = 2000;
+    // Opened off the main thread; bridge calls wait for it via awaitMatchJournal()
+    private final FutureTask<MatchJournal> matchJournalTask = new FutureTask<>(this::openMatchJournal);
+    // Bounded pool so a 30-file batch doesn't open 30 streams at once
+    private static final int IMPORT_WORKERS = 3;
+    private final ExecutorService importExecutor = Executors.newFixedThreadPool(IMPORT_WORKERS);
+    // Reports and exports are written to Downloads one at a time, off the UI thread
+    private final ExecutorService exportExecutor = Executors.newSingleThreadExecutor();
+
+    // Startup milestones in ms since onCreate, first occurrence only
+    private long createdAtMs;
+    private final Map<String, Long> startupMarks = new LinkedHashMap<>();
+    // Set by the first activity of this process; every later onCreate is a warm launch
+    private static boolean processStarted = false;
+    private boolean coldLaunch;
+    // Launch start for time-to-interactive: process start for cold launches (API 24+)
+    private long launchStartMs;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
+        createdAtMs = SystemClock.elapsedRealtime();
+        coldLaunch = !processStarted;
+        processStarted = true;
+        launchStartMs = coldLaunch && Build.VERSION.SDK_INT >= Build.VERSION_CODES.N
+                ? Process.getStartElapsedRealtime() : createdAtMs;
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_main);
 
         // Initialize SharedPreferences
         sharedPreferences = getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        initBridgeLog();
+        initAssetHandler();
+        initAudioStore();
+        initMatchJournal();
+        matchHistory = new MatchHistory(this);
 
         webView = findViewById(R.id.webview);
         setupWebView();
         loadApp();
 
-        // Check permissions after WebView loads
-        webView.postDelayed(this::checkAndRequestPermissions, 1500);
+        // The permission check waits for the page to report it is interactive (see onAppInteractive)
+        markStartup("activity-created");
+    }
+
+    private void initBridgeLog() {
+        // Release builds keep warnings and errors only unless the level is raised explicitly
+        int defaultLevel = BuildConfig.DEBUG ? BridgeLog.DEBUG : BridgeLog.WARN;
+        int level = BridgeLog.parseLevel(sharedPreferences.getString(PREF_LOG_LEVEL, null), defaultLevel);
+        bridgeLog = new BridgeLog(new File(getFilesDir(), LOG_DIR), LOG_SEGMENT_BYTES, LOG_RATE_PER_SECOND, level);
+    }
+
+    // Write one batch of page log entries [{t, l, m}, ...]; mirrored to logcat in debug builds
+    private void writeLogBatch(String entriesJson) {
+        try {
+            JSONArray entries = new JSONArray(entriesJson);
+            for (int i = 0; i < entries.length(); i++) {
+                JSONObject entry = entries.getJSONObject(i);
+                // Whatever the page sends, BridgeLog only knows DEBUG..ERROR
+                int level = Math.max(BridgeLog.DEBUG, Math.min(entry.optInt("l", BridgeLog.DEBUG), BridgeLog.ERROR));
+                writeLogEntry(level, entry.optString("m", ""), entry.optLong("t", System.currentTimeMillis()));
+            }
+        } catch (JSONException e) {
+            Log.e(TAG, "Error reading page log batch", e);
+        }
+    }
+
+    private void writeLogEntry(int level, String message, long timeMs) {
+        try {
+            boolean kept = bridgeLog.log(level, message, timeMs);
+            if (kept && BuildConfig.DEBUG) {
+                Log.println(Log.DEBUG + level, TAG, "JS: " + message);
+            }
+        } catch (IOException e) {
+            Log.e(TAG, "Error writing page log", e);
+        }
+    }
+
+    private void initAssetHandler() {
+        String buildTag = getBuildTag();
+        assetRequestHandler = new AssetRequestHandler(path -> getAssets().open(path), buildTag);
+
+        // Read the script while the WebView is still being set up
+        new Thread(() -> {
+            try {
+                assetRequestHandler.prewarm("app.js");
+                markStartup("assets-prewarmed");
+            } catch (IOException e) {
+                Log.e(TAG, "Error prewarming assets", e);
+            }
+        }, "AssetPrewarm").start();
+    }
+
+    // versionCode plus install time, so reinstalling a debug build also counts as an update
+    private String getBuildTag() {
+        try {
+            PackageInfo info = getPackageManager().getPackageInfo(getPackageName(), 0);
+            return PackageInfoCompat.getLongVersionCode(info) + "-" + info.lastUpdateTime;
+        } catch (PackageManager.NameNotFoundException e) {
+            return "0";
+        }
+    }
+
+    private boolean isFastStart() {
+        return sharedPreferences.getBoolean(PREF_FAST_START, true);
+    }
+
+    private void markStartup(String name) {
+        long elapsed = SystemClock.elapsedRealtime() - createdAtMs;
+        synchronized (startupMarks) {
+            if (startupMarks.containsKey(name)) {
+                return;
+            }
+            startupMarks.put(name, elapsed);
+        }
+        Log.d(TAG, "Startup " + name + ": " + elapsed + " ms");
+
+        if ("js:app-initialized".equals(name)) {
+            onAppInteractive();
+        }
+    }
+
+    // The page finished initialising and the bridge is usable
+    private void onAppInteractive() {
+        long ttiMs = SystemClock.elapsedRealtime() - launchStartMs;
+        Log.d(TAG, "Time to interactive (" + (coldLaunch ? "cold" : "warm") + ", fast start "
+                + isFastStart() + "): " + ttiMs + " ms");
+        recordStartup(ttiMs);
+        runOnUiThread(this::checkAndRequestPermissions);
+    }
+
+    // Keeps the last STARTUP_HISTORY_SIZE launches so cold and warm TTI can be compared over time
+    private void recordStartup(long ttiMs) {
+        boolean fastStart = isFastStart();
+        persistence.submit(PREF_STARTUP_HISTORY, () -> {
+            try {
+                JSONArray history = new JSONArray(sharedPreferences.getString(PREF_STARTUP_HISTORY, "[]"));
+                JSONObject launch = new JSONObject();
+                launch.put("launch", coldLaunch ? "cold" : "warm");
+                launch.put("ttiMs", ttiMs);
+                launch.put("fastStart", fastStart);
+                launch.put("at", System.currentTimeMillis());
+                history.put(launch);
+
+                JSONArray trimmed = new JSONArray();
+                for (int i = Math.max(0, history.length() - STARTUP_HISTORY_SIZE); i < history.length(); i++) {
+                    trimmed.put(history.get(i));
+                }
+                sharedPreferences.edit().putString(PREF_STARTUP_HISTORY, trimmed.toString()).commit();
+            } catch (JSONException e) {
+                Log.e(TAG, "Error recording startup time", e);
+            }
+        });
+    }
+
+    private String getStartupTimingsJson() {
+        JSONObject json = new JSONObject();
+        synchronized (startupMarks) {
+            try {
+                for (Map.Entry<String, Long> mark : startupMarks.entrySet()) {
+                    json.put(mark.getKey(), mark.getValue());
+                }
+                json.put("launch", coldLaunch ? "cold" : "warm");
+                json.put("fastStart", isFastStart());
+            } catch (JSONException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+        return json.toString();
+    }
+
+    private void initAudioStore() {
+        audioStore = new AudioStore(new File(getFilesDir(), AUDIO_DIR));
+        audioRequestHandler = new AudioRequestHandler(audioStore);
+        try {
+            audioStore.loadIndex(sharedPreferences.getString(PREF_AUDIO_INDEX, ""));
+            Log.d(TAG, "Audio store loaded: " + audioStore.getClipCount() + " clips");
+        } catch (JSONException e) {
+            Log.e(TAG, "Error reading audio store index", e);
+        }
+
+        File importWorkDir = new File(getCacheDir(), IMPORT_WORK_DIR);
+        if (!importWorkDir.exists() && !importWorkDir.mkdirs()) {
+            Log.w(TAG, "Cannot create import work directory: " + importWorkDir);
+        }
+        audioImporter = new AudioImporter(getContentResolver(), audioStore, importExecutor, importWorkDir);
+
+        playerMusic = new PlayerMusicStore(new File(getFilesDir(), PLAYER_MUSIC_FILE), clipReferences);
+        try {
+            playerMusic.load();
+        } catch (IOException e) {
+            Log.e(TAG, "Error reading player music", e);
+        }
+
+        storageManager = new StorageManager(audioStore, soundLibrary, clipReferences, StorageManager.DEFAULT_GRACE_MS);
+        storageManager.setQuotaBytes(sharedPreferences.getLong(PREF_STORAGE_QUOTA, DEFAULT_STORAGE_QUOTA_BYTES));
+        try {
+            storageManager.loadUsage(sharedPreferences.getString(PREF_CLIP_USAGE, ""));
+        } catch (JSONException e) {
+            Log.e(TAG, "Error reading clip usage", e);
+        }
+
+        // Pre-decode short effects so the first tap plays without a stall. Player music
+        // is left to load when a goal actually picks it.
+        audioEngine = new AudioEngine(audioStore, metrics, new PcmCache(getPcmCacheBudget()));
+        for (AudioStore.ClipInfo clip : audioStore.list()) {
+            if (!playerMusic.isClipReferenced(clip.id)) {
+                audioEngine.preload(clip);
+            }
+        }
+    }
+
+    private long getPcmCacheBudget() {
+        ActivityManager activityManager = (ActivityManager) getSystemService(Context.ACTIVITY_SERVICE);
+        long heapBytes = activityManager.getMemoryClass() * 1024L * 1024L;
+        return Math.min(MAX_PCM_CACHE_BYTES, heapBytes / 8);
+    }
+
+    private void initMatchJournal() {
+        // Recovery reads the snapshot plus a bounded tail, but keep it off the UI thread anyway
+        new Thread(matchJournalTask, "MatchJournal").start();
+
+        // Drop the old whole-state backup if an earlier version left one behind
+        if (sharedPreferences.contains(PREF_GAME_STATE)) {
+            sharedPreferences.edit()
+                    .remove(PREF_GAME_STATE)
+                    .remove(PREF_GAME_STATE + "_timestamp")
+                    .apply();
+        }
+    }
+
+    private MatchJournal openMatchJournal() {
+        long start = SystemClock.elapsedRealtime();
+        try {
+            MatchJournal journal = new MatchJournal(new File(getFilesDir(), MATCH_DIR));
+            Log.d(TAG, "Match journal recovered at seq " + journal.getLastSeq()
+                    + " (" + journal.getTailRecordCount() + " records after snapshot) in "
+                    + (SystemClock.elapsedRealtime() - start) + " ms");
+            return journal;
+        } catch (IOException e) {
+            Log.e(TAG, "Cannot open match journal", e);
+            return null;
+        }
+    }
+
+    // Runs on the persistence thread, before the events are cleared
+    private void archiveMatch(JSONObject state) {
+        MatchSummary summary = new MatchSummary(state);
+        if (summary.getMatchKey() == null) {
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            long id = matchHistory.recordMatch(summary, getHistorySeason(summary.getStartedAt()));
+            metrics.recordSince("history.record", start);
+            if (id != -1) {
+                Log.d(TAG, "Archived match " + summary.getMatchKey() + " ("
+                        + summary.getYellowScore() + "-" + summary.getBlueScore() + ", "
+                        + summary.getEventCount() + " events)");
+            }
+        } catch (Exception e) {
+            Log.e(TAG, "Error archiving match", e);
+        }
+    }
+
+    private String getHistorySeason(long startedAt) {
+        String season = sharedPreferences.getString(PREF_HISTORY_SEASON, "");
+        return season.isEmpty() ? MatchHistory.defaultSeason(startedAt) : season;
+    }
+
+    // Reads the database on the calling (bridge) thread, then shows the dialog
+    private void showSeasonLeaderboard() {
+        String season = getHistorySeason(System.currentTimeMillis());
+        StringBuilder info = new StringBuilder();
+        try {
+            appendLeaderboard(info, "⚽ Top scorers", matchHistory.getLeaderboard(season, MatchHistory.STAT_GOALS, LEADERBOARD_SIZE), "goals");
+            info.append('\n');
+            appendLeaderboard(info, "🎯 Top assists", matchHistory.getLeaderboard(season, MatchHistory.STAT_ASSISTS, LEADERBOARD_SIZE), "assists");
+        } catch (Exception e) {
+            Log.e(TAG, "Error reading match history", e);
+            runOnUiThread(() -> Toast.makeText(this, "❌ Error reading match history", Toast.LENGTH_SHORT).show());
+            return;
+        }
+
+        runOnUiThread(() -> new AlertDialog.Builder(this, R.style.DarkBlueDialogTheme)
+                .setTitle("🏆 Season " + season)
+                .setMessage(info.toString())
+                .setPositiveButton("OK", null)
+                .show());
+    }
+
+    private static void appendLeaderboard(StringBuilder sb, String title, JSONArray rows, String stat)
+            throws JSONException {
+        sb.append(title).append('\n');
+        if (rows.length() == 0) {
+            sb.append("No finished matches yet\n");
+        }
+        for (int i = 0; i < rows.length(); i++) {
+            JSONObject row = rows.getJSONObject(i);
+            sb.append(i + 1).append(". ").append(row.getString("name")).append(" - ")
+                    .append(row.getInt(stat)).append(" in ").append(row.getInt("matches")).append(" matches\n");
+        }
+    }
+
+    private void appendToJournal(String type, String eventId, String dataJson) {
+        MatchJournal journal = awaitMatchJournal();
+        if (journal == null) {
+            return;
+        }
+        try {
+            JSONObject data = dataJson == null || dataJson.isEmpty() ? new JSONObject() : new JSONObject(dataJson);
+            // Both of these drop the current match from the journal, so file it first
+            if ("reset".equals(type) || ("start".equals(type) && data.optBoolean("newMatch"))) {
+                archiveMatch(journal.getState());
+            }
+            long seq = journal.append(type, eventId, data);
+            Log.d(TAG, "Journal " + type + " " + eventId + " at seq " + seq);
+        } catch (Exception e) {
+            Log.e(TAG, "Error appending to match journal", e);
+        }
+    }
+
+    // Blocks the calling (bridge) thread until recovery has finished; null if it failed
+    private MatchJournal awaitMatchJournal() {
+        try {
+            return matchJournalTask.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException e) {
+            Log.e(TAG, "Match journal recovery failed", e);
+            return null;
+        }
     }
 
     private void setupWebView() {
@@ -87,18 +490,30 @@ public class MainActivity extends AppCompatActivity {
         webSettings.setDatabaseEnabled(true);
         webSettings.setMediaPlaybackRequiresUserGesture(false);
 
-        // Fix: Remove duplicate cache settings
-        webSettings.setCacheMode(WebSettings.LOAD_NO_CACHE);
-
         // Enable debugging for WebView
         if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT) {
             WebView.setWebContentsDebuggingEnabled(true);
         }
 
-        // Clear cache once during setup
-        webView.clearCache(true);
+        if (isFastStart()) {
+            // Keep the HTTP and compiled-script caches; they only go stale with an app update
+            webSettings.setCacheMode(WebSettings.LOAD_DEFAULT);
+            String buildTag = getBuildTag();
+            if (!buildTag.equals(sharedPreferences.getString(PREF_ASSET_BUILD, ""))) {
+                Log.d(TAG, "App updated - clearing WebView cache");
+                webView.clearCache(true);
+                sharedPreferences.edit().putString(PREF_ASSET_BUILD, buildTag).apply();
+            }
+        } else {
+            webSettings.setCacheMode(WebSettings.LOAD_NO_CACHE);
+            webView.clearCache(true);
+            sharedPreferences.edit().remove(PREF_ASSET_BUILD).apply();
+        }
         webView.clearHistory();
 
+        // Pushes to the page go through one channel; the port itself is handed over per page load
+        bridgeChannel = new BridgeChannel(webView, metrics);
+
         webView.setWebViewClient(new WebViewClient() {
             @Override
             public boolean shouldOverrideUrlLoading(WebView view, String url) {
@@ -106,20 +521,92 @@ public class MainActivity extends AppCompatActivity {
                 return true;
             }
 
+            // Stream stored clips to <audio> elements from the virtual audio.local host,
+            // and the page's own scripts from app.local
+            @Override
+            public WebResourceResponse shouldInterceptRequest(WebView view, WebResourceRequest request) {
+                Uri url = request.getUrl();
+                if (AssetRequestHandler.HOST.equals(url.getHost())) {
+                    String path = url.getPath();
+                    return serveAssetRequest(path != null && path.startsWith("/") ? path.substring(1) : path);
+                }
+                if (!AudioRequestHandler.HOST.equals(url.getHost())) {
+                    return super.shouldInterceptRequest(view, request);
+                }
+                return serveAudioRequest(url.getLastPathSegment(), request.getRequestHeaders());
+            }
+
             @Override
             public void onPageFinished(WebView view, String url) {
                 super.onPageFinished(view, url);
                 Log.d(TAG, "WebView page finished loading");
+                markStartup("page-finished");
 
-                // Auto-load saved sounds and player assignments after page loads
-                loadSavedSoundsToWebView();
-                loadSavedPlayerAssignmentsToWebView();
+                // Only our own pages get a port to push library data through
+                if (url != null && url.startsWith("file:///android_asset/")) {
+                    bridgeChannel.open();
+                } else {
+                    bridgeChannel.close();
+                }
+
+                // Auto-load saved sounds and player assignments after page loads. The first
+                // launch after an upgrade may have a large legacy library to migrate first,
+                // which mustn't block the UI thread.
+                if (!soundLibraryLoaded && sharedPreferences.contains(PREF_SOUNDS)) {
+                    new Thread(() -> {
+                        loadSavedSoundsToWebView();
+                        loadSavedPlayerAssignmentsToWebView();
+                    }, "LegacyMigration").start();
+                } else {
+                    loadSavedSoundsToWebView();
+                    loadSavedPlayerAssignmentsToWebView();
+                }
+
+                // The page is ready: bring back an unfinished match, if any
+                restoreMatchInWebView();
+
+                // Normally already done when the page reported app-initialized; covers a page
+                // whose init script failed
+                checkAndRequestPermissions();
             }
         });
 
         webView.addJavascriptInterface(new AndroidInterface(this), "AndroidInterface");
     }
 
+    private WebResourceResponse serveAssetRequest(String path) {
+        try {
+            AudioRequestHandler.Response response = assetRequestHandler.handle(path);
+            String encoding = response.mimeType.startsWith("image/png") ? null : "utf-8";
+            return new WebResourceResponse(response.mimeType, encoding, response.statusCode,
+                    response.reasonPhrase, response.headers, response.body);
+        } catch (IOException e) {
+            Log.e(TAG, "Error serving asset: " + path, e);
+            return new WebResourceResponse("text/plain", null, 500, "Internal Error", null, null);
+        }
+    }
+
+    private WebResourceResponse serveAudioRequest(String clipId, Map<String, String> requestHeaders) {
+        String range = null;
+        if (requestHeaders != null) {
+            for (Map.Entry<String, String> header : requestHeaders.entrySet()) {
+                if ("Range".equalsIgnoreCase(header.getKey())) {
+                    range = header.getValue();
+                    break;
+                }
+            }
+        }
+
+        try {
+            AudioRequestHandler.Response response = audioRequestHandler.handle(clipId, range);
+            return new WebResourceResponse(response.mimeType, null, response.statusCode,
+                    response.reasonPhrase, response.headers, response.body);
+        } catch (IOException e) {
+            Log.e(TAG, "Error serving clip: " + clipId, e);
+            return new WebResourceResponse("text/plain", null, 500, "Internal Error", null, null);
+        }
+    }
+
     private void loadApp() {
         webView.loadUrl("file:///android_asset/index.html");
     }
@@ -266,10 +753,24 @@ public class MainActivity extends AppCompatActivity {
         super.onActivityResult(requestCode, resultCode, data);
 
         if (requestCode == FILE_PICKER_REQUEST_CODE && resultCode == RESULT_OK && data != null) {
-            Uri selectedFileUri = data.getData();
-            if (selectedFileUri != null) {
-                Log.d(TAG, "File selected: " + selectedFileUri.toString());
-                processSelectedAudioFile(selectedFileUri);
+            List<Uri> selectedUris = new ArrayList<>();
+            ClipData clipData = data.getClipData();
+            if (clipData != null) {
+                for (int i = 0; i < clipData.getItemCount(); i++) {
+                    Uri uri = clipData.getItemAt(i).getUri();
+                    if (uri != null) {
+                        selectedUris.add(uri);
+                    }
+                }
+            } else if (data.getData() != null) {
+                selectedUris.add(data.getData());
+            }
+
+            Log.d(TAG, "Files selected: " + selectedUris.size());
+            if (selectedUris.size() == 1) {
+                processSelectedAudioFile(selectedUris.get(0));
+            } else if (selectedUris.size() > 1) {
+                processSelectedAudioFiles(selectedUris);
             }
         } else if (requestCode == SETTINGS_REQUEST_CODE) {
             // User returned from settings, check permissions again
@@ -278,73 +779,100 @@ public class MainActivity extends AppCompatActivity {
         }
     }
 
+    // Streams the picked file into the audio store on the import executor; the
+    // WebView only receives the resulting clip metadata
     private void processSelectedAudioFile(Uri uri) {
         Log.d(TAG, "Processing audio file: " + uri.toString());
 
-        try {
-            String fileName = getFileName(uri);
-            Log.d(TAG, "File name: " + fileName);
-
-            InputStream inputStream = getContentResolver().openInputStream(uri);
-            if (inputStream == null) {
-                Log.e(TAG, "Cannot open input stream for URI: " + uri);
-                Toast.makeText(this, "❌ Cannot read selected file", Toast.LENGTH_SHORT).show();
-                return;
+        ClipProcessor.Options options = getImportOptions();
+        audioImporter.importAsync(uri, AudioStore.newClipId(), getMaxImportBytes(), options, new AudioImporter.Callback() {
+            @Override
+            public void onImported(AudioStore.ClipInfo clip) {
+                storageManager.touch(clip.id, System.currentTimeMillis());
+                persistAudioIndex();
+                audioEngine.preload(clip);
+                scheduleStorageCollection();
+
+                bridgeChannel.send("clipImported", clip.toJson().toString());
+                runOnUiThread(() ->
+                        Toast.makeText(MainActivity.this, "🎵 Sound uploaded: " + clip.name, Toast.LENGTH_SHORT).show()
+                );
             }
 
-            byte[] fileBytes = readFileBytes(inputStream);
-            inputStream.close();
-
-            Log.d(TAG, "File size: " + fileBytes.length + " bytes");
-
-            // Check file size limit (5MB)
-            if (fileBytes.length > 5 * 1024 * 1024) {
-                Toast.makeText(this, "❌ File too large. Please choose a file under 5MB.", Toast.LENGTH_LONG).show();
-                return;
+            @Override
+            public void onFailed(String fileName, String message) {
+                runOnUiThread(() ->
+                        Toast.makeText(MainActivity.this, "❌ Error uploading " + fileName + ": " + message, Toast.LENGTH_LONG).show()
+                );
             }
+        });
+    }
 
-            String mimeType = getContentResolver().getType(uri);
-            if (mimeType == null || !mimeType.startsWith("audio/")) {
-                mimeType = "audio/mpeg"; // Default to MP3
-            }
+    // Multi-select import: files are processed concurrently, progress and failures are
+    // streamed to the WebView, and the audio index is written once at the end
+    private void processSelectedAudioFiles(List<Uri> uris) {
+        Log.d(TAG, "Processing " + uris.size() + " audio files");
 
-            Log.d(TAG, "MIME type: " + mimeType);
+        audioImporter.importBatch(uris, getMaxImportBytes(), getImportOptions(), new AudioImporter.BatchListener() {
+            @Override
+            public void onFileFinished(int completed, int total, String fileName,
+                                       AudioStore.ClipInfo clip, boolean duplicate, String error) {
+                JSONObject progress = new JSONObject();
+                try {
+                    progress.put("completed", completed);
+                    progress.put("total", total);
+                    progress.put("name", fileName);
+                    progress.put("status", error != null ? "failed" : duplicate ? "duplicate" : "added");
+                    if (error != null) {
+                        progress.put("error", error);
+                    }
+                } catch (JSONException e) {
+                    Log.e(TAG, "Error building import progress", e);
+                }
+                if (clip != null && !duplicate) {
+                    storageManager.touch(clip.id, System.currentTimeMillis());
+                    audioEngine.preload(clip);
+                }
+                bridgeChannel.send("importProgress", progress.toString());
+            }
 
-            String base64Data = Base64.encodeToString(fileBytes, Base64.NO_WRAP);
-            String dataUrl = "data:" + mimeType + ";base64," + base64Data;
+            @Override
+            public void onBatchFinished(List<AudioStore.ClipInfo> added, int duplicates, int failed) {
+                persistAudioIndex();
+                scheduleStorageCollection();
 
-            // Escape quotes and backslashes for JavaScript
-            String escapedFileName = fileName.replace("\\", "\\\\").replace("'", "\\'");
-            String escapedDataUrl = dataUrl.replace("'", "\\'");
+                JSONObject result = new JSONObject();
+                try {
+                    JSONArray clips = new JSONArray();
+                    for (AudioStore.ClipInfo clip : added) {
+                        clips.put(clip.toJson());
+                    }
+                    result.put("clips", clips);
+                    result.put("duplicates", duplicates);
+                    result.put("failed", failed);
+                } catch (JSONException e) {
+                    Log.e(TAG, "Error building import result", e);
+                }
+                bridgeChannel.send("importBatchComplete", result.toString());
 
-            String jsCode = String.format(
-                    "try { " +
-                            "if (typeof addSoundFromNative === 'function') { " +
-                            "addSoundFromNative('%s', '%s', %d); " +
-                            "console.log('Sound added successfully'); " +
-                            "} else { " +
-                            "console.error('addSoundFromNative function not found'); " +
-                            "} " +
-                            "} catch(e) { " +
-                            "console.error('Error adding sound:', e); " +
-                            "}",
-                    escapedFileName,
-                    escapedDataUrl,
-                    fileBytes.length
-            );
+                String summary = "🎵 Imported " + added.size() + " sounds" +
+                        (duplicates > 0 ? ", " + duplicates + " duplicates skipped" : "") +
+                        (failed > 0 ? ", " + failed + " failed" : "");
+                runOnUiThread(() -> Toast.makeText(MainActivity.this, summary, Toast.LENGTH_LONG).show());
+            }
+        });
+    }
 
-            runOnUiThread(() -> {
-                webView.evaluateJavascript(jsCode, result -> {
-                    Log.d(TAG, "JavaScript execution result: " + result);
-                    Toast.makeText(this, "🎵 Sound uploaded: " + fileName, Toast.LENGTH_SHORT).show();
-                });
-            });
+    private long getMaxImportBytes() {
+        return sharedPreferences.getLong(PREF_MAX_IMPORT_BYTES, DEFAULT_MAX_IMPORT_BYTES);
+    }
 
-        } catch (Exception e) {
-            Log.e(TAG, "Error processing audio file", e);
-            runOnUiThread(() ->
-                    Toast.makeText(this, "❌ Error uploading sound: " + e.getMessage(), Toast.LENGTH_LONG).show()
-            );
+    private ClipProcessor.Options getImportOptions() {
+        try {
+            return ClipProcessor.Options.fromJson(sharedPreferences.getString(PREF_IMPORT_PROCESSING, null));
+        } catch (JSONException e) {
+            Log.e(TAG, "Invalid import settings, using defaults", e);
+            return ClipProcessor.Options.defaults();
         }
     }
 
@@ -358,84 +886,224 @@ public class MainActivity extends AppCompatActivity {
         }
     }
 
-    private String getFileName(Uri uri) {
-        String fileName = "audio_file_" + System.currentTimeMillis() + ".mp3";
-        try (Cursor cursor = getContentResolver().query(uri, null, null, null, null)) {
-            if (cursor != null && cursor.moveToFirst()) {
-                int nameIndex = cursor.getColumnIndex(OpenableColumns.DISPLAY_NAME);
-                if (nameIndex >= 0) {
-                    String name = cursor.getString(nameIndex);
-                    if (name != null && !name.isEmpty()) {
-                        fileName = name;
-                    }
-                }
+    // Coalesced: a burst of deletes or imports ends up as one write of the latest index
+    private void persistAudioIndex() {
+        persistence.submit(PREF_AUDIO_INDEX, () -> {
+            String indexJson = audioStore.toIndexJson();
+            metrics.recordBytes("payload.audio_index", indexJson.length());
+            sharedPreferences.edit().putString(PREF_AUDIO_INDEX, indexJson).commit();
+        });
+    }
+
+    // Bridge calls run on the WebView's JavaBridge thread and block the page until they return
+    private void recordBridgeCall(String method, long startNanos) {
+        metrics.recordSince("bridge." + method, startNanos);
+    }
+
+    // Everything needed to compare two builds on the same device
+    private JSONObject getDiagnosticsJson() {
+        JSONObject json = new JSONObject();
+        try {
+            json.put("device", Build.MANUFACTURER + " " + Build.MODEL);
+            json.put("sdk", Build.VERSION.SDK_INT);
+            json.put("build", getBuildTag());
+            json.put("debug", BuildConfig.DEBUG);
+            json.put("capturedAt", System.currentTimeMillis());
+            json.put("histograms", metrics.toJson());
+            json.put("startup", new JSONObject(getStartupTimingsJson()));
+            json.put("persistence", new JSONObject(persistence.getStatsJson()));
+            json.put("log", new JSONObject(bridgeLog.getStatsJson()));
+            json.put("pcmCache", new JSONObject(audioEngine.getCacheStatsJson()));
+        } catch (JSONException e) {
+            throw new IllegalStateException(e);
+        }
+        return json;
+    }
+
+    // Coalesced like the index; the clip bytes themselves are already in the audio store
+    private void persistPlayerMusic() {
+        persistence.submit(PLAYER_MUSIC_FILE, () -> {
+            try {
+                playerMusic.save();
+                sharedPreferences.edit().putString(PREF_AUDIO_INDEX, audioStore.toIndexJson()).commit();
+                Log.d(TAG, "Player music saved");
+            } catch (IOException e) {
+                Log.e(TAG, "Error saving player music", e);
+                runOnUiThread(() -> Toast.makeText(this, "❌ Error saving player music", Toast.LENGTH_SHORT).show());
             }
-        } catch (Exception e) {
-            Log.e(TAG, "Error getting file name", e);
+        });
+    }
+
+    // Free a clip's stored audio once nothing refers to it any more; a clip still
+    // referenced elsewhere goes with the collection pass after its last reference
+    private void releaseClip(String clipId) {
+        if (clipId != null && storageManager.release(clipId, System.currentTimeMillis())) {
+            audioEngine.unload(clipId);
+            Log.d(TAG, "Deleted clip: " + clipId);
+        }
+    }
+
+    // Queues a collection pass on the persistence thread; bursts of changes share one.
+    // Nothing runs before the library is loaded, when every clip would look unreferenced.
+    private void scheduleStorageCollection() {
+        if (soundLibraryLoaded) {
+            persistence.submit(STORAGE_COLLECTION, this::collectStorage);
+        }
+    }
+
+    // Deletes unreferenced clips that are due and evicts unassigned ones above the quota
+    private void collectStorage() {
+        long start = System.nanoTime();
+        StorageManager.Result result = storageManager.collect(System.currentTimeMillis());
+        metrics.recordSince("storage.collect", start);
+        if (!result.isEmpty()) {
+            for (String clipId : result.collected) {
+                audioEngine.unload(clipId);
+            }
+            for (String clipId : result.evicted) {
+                audioEngine.unload(clipId);
+            }
+            Log.d(TAG, "Storage pass: " + result.collected.size() + " unreferenced clips collected, "
+                    + result.evicted.size() + " evicted, " + result.pruned.size() + " sounds without a clip dropped, "
+                    + result.freedBytes + " bytes freed");
+            persistClipUsage();
+            if (!result.changedLibrary()) {
+                persistAudioIndex();
+            } else {
+                // Evicted and pruned sounds left the library; the page gets the new version
+                persistSoundLibrary();
+                loadSavedSoundsToWebView();
+            }
+        }
+        if (result.nextDueMs >= 0) {
+            mainHandler.postDelayed(this::scheduleStorageCollection, result.nextDueMs);
         }
-        Log.d(TAG, "Resolved file name: " + fileName);
-        return fileName;
     }
 
-    private byte[] readFileBytes(InputStream inputStream) throws IOException {
-        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
-        int nRead;
-        byte[] data = new byte[16384];
+    private void persistClipUsage() {
+        persistence.submit(PREF_CLIP_USAGE, () -> sharedPreferences.edit()
+                .putString(PREF_CLIP_USAGE, storageManager.usageToJson().toString()).commit());
+    }
 
-        while ((nRead = inputStream.read(data, 0, data.length)) != -1) {
-            buffer.write(data, 0, nRead);
+    // Deletes documents the page picked earlier; runs on the import pool, never the bridge thread.
+    // Persisted grants are looked up once, only to give back the ones whose document is gone.
+    private void deleteSoundFiles(String[] uriStrings) {
+        ContentResolver resolver = getContentResolver();
+        Set<Uri> granted = new HashSet<>();
+        for (UriPermission permission : resolver.getPersistedUriPermissions()) {
+            granted.add(permission.getUri());
         }
 
-        return buffer.toByteArray();
+        int deletedCount = 0;
+        for (String uriStr : uriStrings) {
+            try {
+                Uri uri = Uri.parse(uriStr);
+                if (DocumentsContract.deleteDocument(resolver, uri)) {
+                    deletedCount++;
+                    if (granted.contains(uri)) {
+                        resolver.releasePersistableUriPermission(uri,
+                                Intent.FLAG_GRANT_READ_URI_PERMISSION | Intent.FLAG_GRANT_WRITE_URI_PERMISSION);
+                    }
+                }
+            } catch (Exception e) {
+                Log.e(TAG, "Failed to delete URI: " + uriStr, e);
+            }
+        }
+        Log.d(TAG, "Deleted " + deletedCount + " of " + uriStrings.length + " sound files");
     }
 
-    // Save sounds to SharedPreferences - Modified to use single parameter
-    private void saveSoundsToStorage(String soundsJson) {
-        try {
-            SharedPreferences.Editor editor = sharedPreferences.edit();
-            editor.putString(PREF_SOUNDS, soundsJson);
-            boolean success = editor.commit();
+    // Decode a base64 data: URL into the audio store
+    private AudioStore.ClipInfo importDataUrl(String id, String name, String dataUrl) throws IOException {
+        int comma = dataUrl.indexOf(',');
+        String mimeType = dataUrl.substring(5, Math.max(5, dataUrl.indexOf(';')));
+        byte[] bytes = Base64.decode(dataUrl.substring(comma + 1), Base64.DEFAULT);
+        return audioStore.importClip(
+                id, name, mimeType.isEmpty() ? "audio/mpeg" : mimeType,
+                new ByteArrayInputStream(bytes));
+    }
 
-            Log.d(TAG, "Sounds saved to SharedPreferences: " + success);
+    // Move the old PREF_SOUNDS blob (base64 payloads inline) into the audio store. Streamed
+    // clip by clip and resumable; the key is only removed once the new library is saved.
+    private synchronized void migrateLegacySounds() {
+        String legacyJson = sharedPreferences.getString(PREF_SOUNDS, "");
+        if (legacyJson.isEmpty()) {
+            return;
+        }
 
+        LegacySoundsMigration migration = new LegacySoundsMigration(
+                audioStore, new File(getFilesDir(), LEGACY_MIGRATION_DIR));
+        long start = System.nanoTime();
+        try {
+            JSONObject library = migration.run(new StringReader(legacyJson));
+            boolean success = sharedPreferences.edit()
+                    .putString(PREF_SOUND_LIBRARY, library.toString())
+                    .putString(PREF_AUDIO_INDEX, audioStore.toIndexJson())
+                    .remove(PREF_SOUNDS)
+                    .commit();
             if (success) {
-                // runOnUiThread(() -> Toast.makeText(this, "💾 Sounds saved successfully!", Toast.LENGTH_SHORT).show());
-            } else {
-                runOnUiThread(() -> Toast.makeText(this, "❌ Error saving sounds", Toast.LENGTH_SHORT).show());
+                migration.finish();
             }
+            metrics.recordSince("migration.legacy_sounds", start);
+            Log.d(TAG, "Legacy sounds migrated to audio store: " + success + " (" + migration.getMigratedCount()
+                    + " clips decoded, " + migration.getResumedCount() + " from an earlier run)");
         } catch (Exception e) {
-            Log.e(TAG, "Error saving sounds to SharedPreferences", e);
-            runOnUiThread(() -> Toast.makeText(this, "❌ Error saving sounds: " + e.getMessage(), Toast.LENGTH_SHORT).show());
+            // The checkpoint stays; the next launch carries on from the last finished clip
+            Log.e(TAG, "Error migrating legacy sounds", e);
+        }
+    }
+
+    // Write the current library (and the audio index it refers to) to SharedPreferences.
+    // Coalesced, so a burst of patches costs one write.
+    private void persistSoundLibrary() {
+        persistence.submit(PREF_SOUND_LIBRARY, () -> {
+            try {
+                String libraryJson = soundLibrary.toJson().toString();
+                String indexJson = audioStore.toIndexJson();
+                metrics.recordBytes("payload.sound_library", libraryJson.length() + indexJson.length());
+                SharedPreferences.Editor editor = sharedPreferences.edit();
+                editor.putString(PREF_SOUND_LIBRARY, libraryJson);
+                editor.putString(PREF_AUDIO_INDEX, indexJson);
+                boolean success = editor.commit();
+
+                Log.d(TAG, "Sound library v" + soundLibrary.getVersion() + " saved to SharedPreferences: " + success);
+
+                if (!success) {
+                    runOnUiThread(() -> Toast.makeText(this, "❌ Error saving sounds", Toast.LENGTH_SHORT).show());
+                }
+            } catch (Exception e) {
+                Log.e(TAG, "Error saving sounds to SharedPreferences", e);
+                runOnUiThread(() -> Toast.makeText(this, "❌ Error saving sounds: " + e.getMessage(), Toast.LENGTH_SHORT).show());
+            }
+        });
+    }
+
+    // Read the stored library into soundLibrary the first time the page asks for it
+    private synchronized void ensureSoundLibraryLoaded() throws JSONException {
+        if (soundLibraryLoaded) {
+            return;
         }
+        migrateLegacySounds();
+        String soundsJson = sharedPreferences.getString(PREF_SOUND_LIBRARY, "");
+        if (!soundsJson.isEmpty()) {
+            soundLibrary.replaceAll(new JSONObject(soundsJson));
+        }
+        soundLibraryLoaded = true;
+        // References are complete now: sweep up whatever earlier sessions left behind
+        scheduleStorageCollection();
     }
 
     // Load sounds from SharedPreferences
     private void loadSavedSoundsToWebView() {
         try {
-            String soundsJson = sharedPreferences.getString(PREF_SOUNDS, "");
-
-            if (!soundsJson.isEmpty()) {
-                Log.d(TAG, "Loading saved sounds to WebView");
-
-                String jsCode = String.format(
-                        "try { " +
-                                "if (typeof loadSoundsFromAndroid === 'function') { " +
-                                "loadSoundsFromAndroid('%s', ''); " +
-                                "console.log('Sounds loaded from Android storage'); " +
-                                "} else { " +
-                                "console.error('loadSoundsFromAndroid function not found'); " +
-                                "} " +
-                                "} catch(e) { " +
-                                "console.error('Error loading sounds:', e); " +
-                                "}",
-                        soundsJson.replace("'", "\\'")
-                );
-
-                runOnUiThread(() -> {
-                    webView.evaluateJavascript(jsCode, result -> {
-                        Log.d(TAG, "Load sounds JavaScript result: " + result);
-                    });
-                });
+            ensureSoundLibraryLoaded();
+
+            if (soundLibrary.getVersion() > 0) {
+                // Metadata only (clip bytes are fetched on first play), including the
+                // library version the page builds its patches against
+                String soundsJson = soundLibrary.toJson().toString();
+                Log.d(TAG, "Sending " + soundLibrary.getSoundCount() + " sounds (" + soundsJson.length() + " chars) to WebView");
+                markStartup("library-sent");
+                bridgeChannel.send("library", soundsJson);
             } else {
                 Log.d(TAG, "No saved sounds found");
             }
@@ -445,10 +1113,20 @@ public class MainActivity extends AppCompatActivity {
     }
 
     // Clear all saved sounds
-    private void clearAllSavedSounds() {
+    private void clearAllSavedSounds(List<String> clipIds) {
         try {
+            // Drop the stored bytes of every clip that was in the sound library,
+            // unless a player's music still uses it
+            for (String clipId : clipIds) {
+                if (storageManager.release(clipId, System.currentTimeMillis())) {
+                    audioEngine.unload(clipId);
+                }
+            }
+
             SharedPreferences.Editor editor = sharedPreferences.edit();
             editor.remove(PREF_SOUNDS);
+            editor.putString(PREF_SOUND_LIBRARY, soundLibrary.toJson().toString());
+            editor.putString(PREF_AUDIO_INDEX, audioStore.toIndexJson());
             boolean success = editor.commit();
 
             Log.d(TAG, "All sounds cleared from storage: " + success);
@@ -491,26 +1169,13 @@ public class MainActivity extends AppCompatActivity {
 
             if (!assignmentsJson.isEmpty()) {
                 Log.d(TAG, "Loading saved player assignments to WebView");
-
-                String jsCode = String.format(
-                        "try { " +
-                                "if (typeof loadPlayerAssignmentsFromAndroid === 'function') { " +
-                                "loadPlayerAssignmentsFromAndroid('%s'); " +
-                                "console.log('Player assignments loaded from Android storage'); " +
-                                "} else { " +
-                                "console.error('loadPlayerAssignmentsFromAndroid function not found'); " +
-                                "} " +
-                                "} catch(e) { " +
-                                "console.error('Error loading player assignments:', e); " +
-                                "}",
-                        assignmentsJson.replace("'", "\\'")
-                );
-
-                runOnUiThread(() -> {
-                    webView.evaluateJavascript(jsCode, result -> {
-                        Log.d(TAG, "Load player assignments JavaScript result: " + result);
-                    });
-                });
+                // Whatever the page saved. Re-serialized, so trailing text after the first
+                // value can't end up in the envelope (or the fallback script built from it)
+                Object assignments = new JSONTokener(assignmentsJson).nextValue();
+                if (!(assignments instanceof JSONObject) && !(assignments instanceof JSONArray)) {
+                    throw new JSONException("Player assignments are not an object");
+                }
+                bridgeChannel.send("playerAssignments", assignments.toString());
             } else {
                 Log.d(TAG, "No saved player assignments found");
             }
@@ -522,54 +1187,37 @@ public class MainActivity extends AppCompatActivity {
     // Get storage info - RENAMED to avoid confusion
     private void showStorageInfoDialog() {
         try {
-            String soundsJson = sharedPreferences.getString(PREF_SOUNDS, "");
-
-            int savedSoundsCount = 0;
-            long totalSize = 0;
-            int assignmentsCount = 0;
-
-            if (!soundsJson.isEmpty()) {
-                try {
-                    JSONObject data = new JSONObject(soundsJson);
+            ensureSoundLibraryLoaded();
+            JSONObject usage = storageManager.getUsageJson();
+            int assignmentsCount = soundLibrary.getEntryCount("soundAssignments");
+            // Bridge thread, like the leaderboard, so the database read doesn't block the UI
+            int matchCount = matchHistory.getMatchCount();
+            long quotaBytes = usage.getLong("quotaBytes");
 
-                    if (data.has("sounds")) {
-                        JSONArray soundsArray = data.getJSONArray("sounds");
-                        savedSoundsCount = soundsArray.length();
+            double sizeMB = usage.getLong("bytes") / (1024.0 * 1024.0);
+            double freedMB = (usage.getLong("collectedBytes") + usage.getLong("evictedBytes")) / (1024.0 * 1024.0);
 
-                        for (int i = 0; i < soundsArray.length(); i++) {
-                            JSONObject sound = soundsArray.getJSONObject(i);
-                            if (sound.has("size")) {
-                                totalSize += sound.getLong("size");
-                            }
-                        }
-                    }
-
-                    if (data.has("soundAssignments")) {
-                        JSONObject assignmentsObj = data.getJSONObject("soundAssignments");
-                        assignmentsCount = assignmentsObj.length();
-                    }
-                } catch (JSONException e) {
-                    Log.e(TAG, "Error parsing saved sounds JSON", e);
-                }
-            }
-
-            double sizeMB = totalSize / (1024.0 * 1024.0);
-
-            String info = String.format(
-                    "🔊 Storage Information:\n\n" +
-                            "💾 Saved sounds: %d\n" +
-                            "🎯 Saved assignments: %d\n" +
-                            "📊 Total size: %.2f MB\n\n" +
-                            "💡 Storage location: App internal storage\n" +
-                            "🔒 Data persists between app sessions",
-                    savedSoundsCount, assignmentsCount, sizeMB
-            );
+            String info = String.format(Locale.US,
+                    "🔊 Storage Information:\n\n" +
+                            "💾 Saved sounds: %d (%d in use, %d unassigned)\n" +
+                            "🎯 Saved assignments: %d\n" +
+                            "📊 Total size: %.2f MB of %s\n" +
+                            "♻️ Freed this session: %.2f MB\n" +
+                            "🏆 Finished matches: %d\n\n" +
+                            "💡 Storage location: App internal storage\n" +
+                            "🔒 Data persists between app sessions",
+                    usage.getInt("clips"), usage.getInt("assigned"), usage.getInt("unassigned"),
+                    assignmentsCount, sizeMB,
+                    quotaBytes > 0 ? String.format(Locale.US, "%.0f MB", quotaBytes / (1024.0 * 1024.0)) : "unlimited",
+                    freedMB, matchCount
+            );
 
             runOnUiThread(() -> {
                 new AlertDialog.Builder(this, R.style.DarkBlueDialogTheme)
                         .setTitle("📊 Storage Information")
                         .setMessage(info)
                         .setPositiveButton("OK", null)
+                        .setNeutralButton("Diagnostics", (dialog, which) -> showDiagnosticsDialog())
                         .show();
             });
 
@@ -579,12 +1227,31 @@ public class MainActivity extends AppCompatActivity {
         }
     }
 
+    private void showDiagnosticsDialog() {
+        String info = "⏱️ Timings and sizes (p50 / p90 / max):\n\n" + metrics.toSummary()
+                + "\n💾 Writes: " + persistence.getStatsJson()
+                + "\n🎵 Decoded audio: " + audioEngine.getCacheStatsJson()
+                + "\n🚀 Startup: " + getStartupTimingsJson();
+
+        new AlertDialog.Builder(this, R.style.DarkBlueDialogTheme)
+                .setTitle("🩺 Diagnostics")
+                .setMessage(info)
+                .setPositiveButton("OK", null)
+                .setNeutralButton("Export JSON", (dialog, which) -> saveReportToDownloads(
+                        getDiagnosticsJson().toString(),
+                        "FootballTracker_metrics_" + System.currentTimeMillis() + ".json"))
+                .setNegativeButton("Reset", (dialog, which) -> {
+                    metrics.reset();
+                    Toast.makeText(this, "Measurements cleared", Toast.LENGTH_SHORT).show();
+                })
+                .show();
+    }
+
     @Override
     protected void onSaveInstanceState(Bundle outState) {
         super.onSaveInstanceState(outState);
         if (webView != null) {
-            // Request current game state from WebView before saving
-            requestGameStateBackup();
+            // Match events are already in the journal; only the WebView itself is saved here
             webView.saveState(outState);
         }
         Log.d(TAG, "Activity state saved");
@@ -594,9 +1261,8 @@ public class MainActivity extends AppCompatActivity {
     protected void onRestoreInstanceState(Bundle savedInstanceState) {
         super.onRestoreInstanceState(savedInstanceState);
         if (webView != null && savedInstanceState != null) {
+            // The match itself comes back from the journal in onPageFinished
             webView.restoreState(savedInstanceState);
-            // Restore game state after WebView is ready
-            webView.postDelayed(this::restoreGameStateFromBackup, 1000);
         }
         Log.d(TAG, "Activity state restored");
     }
@@ -605,13 +1271,22 @@ public class MainActivity extends AppCompatActivity {
     protected void onPause() {
         super.onPause();
         if (webView != null) {
-            requestGameStateBackup();
             webView.onPause();
         }
-        Log.d(TAG, "Activity paused - requesting state backup");
-        
-        // Test if interface is still working when we pause
-        testJavaScriptInterface();
+
+        // Barrier: whatever the page asked us to save is on disk before we may be killed
+        if (storageManager != null) {
+            persistClipUsage();
+        }
+        persistence.execute(() -> {
+            try {
+                bridgeLog.flush();
+            } catch (IOException e) {
+                Log.e(TAG, "Error flushing page log", e);
+            }
+        });
+        boolean flushed = persistence.flush(FLUSH_TIMEOUT_MS);
+        Log.d(TAG, "Activity paused - persistence flushed: " + flushed + " " + persistence.getStatsJson());
     }
 
     @Override
@@ -619,12 +1294,56 @@ public class MainActivity extends AppCompatActivity {
         super.onResume();
         if (webView != null) {
             webView.onResume();
-            // Restore state after resume in case of Bluetooth interruption
-            webView.postDelayed(this::restoreGameStateFromBackup, 500);
-            // Test and reinitialize JavaScript interface if needed
-            webView.postDelayed(this::testJavaScriptInterface, 1000);
         }
-        Log.d(TAG, "Activity resumed - attempting state restoration");
+        Log.d(TAG, "Activity resumed");
+    }
+
+    @Override
+    protected void onDestroy() {
+        // Pending collection passes
+        mainHandler.removeCallbacksAndMessages(null);
+        importExecutor.shutdown();
+        exportExecutor.shutdown();
+        // Running imports and exports queue their index and report writes as they finish,
+        // so give them a bounded chance to do that before the writer stops. Anything later
+        // still gets written, on its own thread.
+        awaitTermination(importExecutor, exportExecutor);
+        persistence.flush(FLUSH_TIMEOUT_MS);
+        persistence.shutdown();
+        if (matchJournalTask.isDone()) {
+            MatchJournal journal = awaitMatchJournal();
+            if (journal != null) {
+                journal.close();
+            }
+        }
+        if (audioEngine != null) {
+            audioEngine.release();
+        }
+        if (bridgeChannel != null) {
+            bridgeChannel.close();
+        }
+        matchHistory.close();
+        try {
+            bridgeLog.close();
+        } catch (IOException e) {
+            Log.e(TAG, "Error closing page log", e);
+        }
+        super.onDestroy();
+    }
+
+    // Waits at most FLUSH_TIMEOUT_MS in total for the executors to finish
+    private void awaitTermination(ExecutorService... executors) {
+        long deadline = SystemClock.elapsedRealtime() + FLUSH_TIMEOUT_MS;
+        try {
+            for (ExecutorService executor : executors) {
+                long remaining = Math.max(0, deadline - SystemClock.elapsedRealtime());
+                if (!executor.awaitTermination(remaining, TimeUnit.MILLISECONDS)) {
+                    Log.w(TAG, "Background work still running at shutdown");
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
     }
 
     @Override
@@ -644,41 +1363,12 @@ public class MainActivity extends AppCompatActivity {
         }
     }
 
-    // Request game state backup from WebView
-    private void requestGameStateBackup() {
-        if (webView != null) {
-            String jsCode = "try { if (typeof saveGameState === 'function') { saveGameState(); } } catch(e) { console.error('Error backing up state:', e); }";
-            webView.evaluateJavascript(jsCode, null);
-            Log.d(TAG, "Requested game state backup from WebView");
-        }
-    }
-
-    // Restore game state from backup
-    private void restoreGameStateFromBackup() {
-        if (webView != null) {
-            String jsCode = "try { if (typeof restoreGameState === 'function') { var restored = restoreGameState(); if (restored) { console.log('Game state restored successfully'); } } } catch(e) { console.error('Error restoring state:', e); }";
-            webView.evaluateJavascript(jsCode, null);
-            Log.d(TAG, "Attempted to restore game state in WebView");
-        }
-    }
-
-    // Test JavaScript interface connectivity
-    private void testJavaScriptInterface() {
+    // Rebuild an unfinished match from the journal; restoreMatch() is a no-op
+    // if it already ran for this page load
+    private void restoreMatchInWebView() {
         if (webView != null) {
-            String jsCode = "try { " +
-                    "console.log('Testing JavaScript interface...'); " +
-                    "if (typeof window.AndroidInterface !== 'undefined') { " +
-                    "console.log('AndroidInterface is available'); " +
-                    "window.AndroidInterface.logMessage('JavaScript interface test from onResume'); " +
-                    "} else { " +
-                    "console.error('AndroidInterface is not available!'); " +
-                    "} " +
-                    "} catch(e) { " +
-                    "console.error('Error testing JavaScript interface:', e); " +
-                    "}";
-            webView.evaluateJavascript(jsCode, result -> {
-                Log.d(TAG, "JavaScript interface test completed: " + result);
-            });
+            String jsCode = "try { if (typeof restoreMatch === 'function') { restoreMatch(); } } catch(e) { console.error('Error restoring match:', e); }";
+            webView.evaluateJavascript(jsCode, result -> Log.d(TAG, "Match restore returned " + result));
         }
     }
 
@@ -693,7 +1383,27 @@ public class MainActivity extends AppCompatActivity {
 
         @JavascriptInterface
         public void openSoundPicker() {
-            Log.d(TAG, "Opening sound picker");
+            long start = System.nanoTime();
+            try {
+                launchSoundPicker(false);
+            } finally {
+                recordBridgeCall("openSoundPicker", start);
+            }
+        }
+
+        // Library upload: lets the user pick a whole season's chants in one go
+        @JavascriptInterface
+        public void openMultiSoundPicker() {
+            long start = System.nanoTime();
+            try {
+                launchSoundPicker(true);
+            } finally {
+                recordBridgeCall("openMultiSoundPicker", start);
+            }
+        }
+
+        private void launchSoundPicker(boolean allowMultiple) {
+            Log.d(TAG, "Opening sound picker (multiple: " + allowMultiple + ")");
 
             if (!hasAudioPermission()) {
                 Log.w(TAG, "Audio permission not granted");
@@ -724,7 +1434,7 @@ public class MainActivity extends AppCompatActivity {
                             "audio/3gpp", "audio/amr"
                     };
                     intent.putExtra(Intent.EXTRA_MIME_TYPES, mimeTypes);
-                    intent.putExtra(Intent.EXTRA_ALLOW_MULTIPLE, false);
+                    intent.putExtra(Intent.EXTRA_ALLOW_MULTIPLE, allowMultiple);
 
                     Log.d(TAG, "Starting file picker intent");
                     startActivityForResult(intent, FILE_PICKER_REQUEST_CODE);
@@ -737,211 +1447,953 @@ public class MainActivity extends AppCompatActivity {
 
         @JavascriptInterface
         public void saveMatchReport(String reportContent, String filename) {
-            Log.d(TAG, "saveMatchReport() called with filename: " + filename);
-            Log.d(TAG, "Report content length: " + (reportContent != null ? reportContent.length() : "null"));
+            long start = System.nanoTime();
+            try {
+                Log.d(TAG, "saveMatchReport() called with filename: " + filename);
+                Log.d(TAG, "Report content length: " + (reportContent != null ? reportContent.length() : "null"));
 
-            runOnUiThread(() -> {
-                try {
-                    Log.d(TAG, "Starting saveReportToDownloads...");
-                    saveReportToDownloads(reportContent, filename);
-                    Log.d(TAG, "saveReportToDownloads completed");
-                } catch (Exception e) {
-                    Log.e(TAG, "Error in saveMatchReport", e);
-                    Toast.makeText(context, "❌ Error saving report: " + e.getMessage(), Toast.LENGTH_LONG).show();
+                saveReportToDownloads(reportContent, filename);
+            } finally {
+                recordBridgeCall("saveMatchReport", start);
+            }
+        }
+
+        // Report generated here from the match journal; format is "text", "csv" or
+        // "json", anything else asks the user. Returns false if the journal isn't
+        // available, in which case the page falls back to saveMatchReport().
+        @JavascriptInterface
+        public boolean exportMatchReport(String format) {
+            long start = System.nanoTime();
+            try {
+                if (awaitMatchJournal() == null) {
+                    return false;
                 }
-            });
+                MatchReportWriter.Format parsed = MatchReportWriter.Format.parse(format);
+                if (parsed != null) {
+                    MainActivity.this.exportMatchReport(parsed);
+                } else {
+                    runOnUiThread(MainActivity.this::showReportFormatDialog);
+                }
+                return true;
+            } finally {
+                recordBridgeCall("exportMatchReport", start);
+            }
         }
 
 
         @JavascriptInterface
         public void showToast(String message) {
-            runOnUiThread(() -> {
-                Log.d(TAG, "Toast: " + message);
-                Toast.makeText(context, message, Toast.LENGTH_SHORT).show();
-            });
+            long start = System.nanoTime();
+            try {
+                runOnUiThread(() -> {
+                    Log.d(TAG, "Toast: " + message);
+                    Toast.makeText(context, message, Toast.LENGTH_SHORT).show();
+                });
+            } finally {
+                recordBridgeCall("showToast", start);
+            }
         }
 
         @JavascriptInterface
         public void logMessage(String message) {
-            Log.d(TAG, "JS: " + message);
+            long start = System.nanoTime();
+            try {
+                writeLogEntry(BridgeLog.INFO, message, System.currentTimeMillis());
+            } finally {
+                recordBridgeCall("logMessage", start);
+            }
+        }
+
+        // Buffered page log entries as a JSON array of {t, l, m}; one bridge call per batch
+        @JavascriptInterface
+        public void logBatch(String entriesJson) {
+            long start = System.nanoTime();
+            metrics.recordBytes("payload.logBatch", entriesJson.length());
+            writeLogBatch(entriesJson);
+            recordBridgeCall("logBatch", start);
+        }
+
+        // The page drops entries below this level before they are ever buffered
+        @JavascriptInterface
+        public String getLogLevel() {
+            long start = System.nanoTime();
+            try {
+                return BridgeLog.levelName(bridgeLog.getLevel());
+            } finally {
+                recordBridgeCall("getLogLevel", start);
+            }
+        }
+
+        @JavascriptInterface
+        public void setLogLevel(String level) {
+            long start = System.nanoTime();
+            try {
+                int parsed = BridgeLog.parseLevel(level, bridgeLog.getLevel());
+                bridgeLog.setLevel(parsed);
+                sharedPreferences.edit().putString(PREF_LOG_LEVEL, BridgeLog.levelName(parsed)).apply();
+                Log.d(TAG, "Page log level set to " + BridgeLog.levelName(parsed));
+            } finally {
+                recordBridgeCall("setLogLevel", start);
+            }
+        }
+
+        @JavascriptInterface
+        public String getLogStats() {
+            long start = System.nanoTime();
+            try {
+                return bridgeLog.getStatsJson();
+            } finally {
+                recordBridgeCall("getLogStats", start);
+            }
+        }
+
+        // Save the whole log ring to Downloads for a bug report
+        @JavascriptInterface
+        public void exportLogs() {
+            long start = System.nanoTime();
+            try {
+                String content = bridgeLog.readAll();
+                String filename = "FootballTracker_log_" + System.currentTimeMillis() + ".txt";
+                saveReportToDownloads(content, filename);
+            } catch (IOException e) {
+                Log.e(TAG, "Error exporting page log", e);
+                runOnUiThread(() -> Toast.makeText(context, "❌ Error exporting log: " + e.getMessage(), Toast.LENGTH_SHORT).show());
+            } finally {
+                recordBridgeCall("exportLogs", start);
+            }
         }
 
         @JavascriptInterface
         public void testInterface() {
-            Log.d(TAG, "testInterface() called from JavaScript");
-            runOnUiThread(() -> {
-                Toast.makeText(context, "✅ Android Interface is working!", Toast.LENGTH_SHORT).show();
-            });
+            long start = System.nanoTime();
+            try {
+                Log.d(TAG, "testInterface() called from JavaScript");
+                runOnUiThread(() -> {
+                    Toast.makeText(context, "✅ Android Interface is working!", Toast.LENGTH_SHORT).show();
+                });
+            } finally {
+                recordBridgeCall("testInterface", start);
+            }
         }
 
         @JavascriptInterface
         public void requestPermissions() {
-            Log.d(TAG, "Permissions requested from JS");
-            runOnUiThread(() -> {
-                permissionsChecked = false;
-                checkAndRequestPermissions();
-            });
+            long start = System.nanoTime();
+            try {
+                Log.d(TAG, "Permissions requested from JS");
+                runOnUiThread(() -> {
+                    permissionsChecked = false;
+                    checkAndRequestPermissions();
+                });
+            } finally {
+                recordBridgeCall("requestPermissions", start);
+            }
+        }
+
+        // Native playback by clip id; tapTime is the JS Date.now() of the user's tap.
+        // Returns false if the clip isn't in the store so JS can fall back to HTML5 audio.
+        @JavascriptInterface
+        public boolean playSound(String clipId, String description, long tapTime) {
+            long start = System.nanoTime();
+            Log.d(TAG, "Sound requested: " + clipId + " (" + description + ")");
+            boolean played = audioEngine.play(clipId, description, tapTime);
+            storageManager.touch(clipId, System.currentTimeMillis());
+            recordBridgeCall("playSound", start);
+            return played;
+        }
+
+        @JavascriptInterface
+        public void stopSound() {
+            long start = System.nanoTime();
+            try {
+                audioEngine.stop();
+            } finally {
+                recordBridgeCall("stopSound", start);
+            }
         }
 
+        // Several clips played back to back as one announcement (announcers, then the goal
+        // song). Returns an id that comes back in an "announcementFinished" message, or 0 if
+        // none of the clips are stored so JS can fall back to HTML5 audio.
         @JavascriptInterface
-        public void playGoalSound(String team, String player) {
-            Log.d(TAG, "Goal sound played for: " + team + " - " + player);
-            // This method is called from JavaScript when a goal sound is played
-            // You can add additional native sound handling here if needed
+        public long playAnnouncement(String clipIdsJson, String optionsJson, String description, long tapTime) {
+            long start = System.nanoTime();
+            try {
+                JSONArray ids = new JSONArray(clipIdsJson);
+                List<String> clipIds = new ArrayList<>();
+                long now = System.currentTimeMillis();
+                for (int i = 0; i < ids.length(); i++) {
+                    String clipId = ids.optString(i, "");
+                    if (!clipId.isEmpty()) {
+                        clipIds.add(clipId);
+                        storageManager.touch(clipId, now);
+                    }
+                }
+                if (clipIds.isEmpty()) {
+                    return 0;
+                }
+                long announcementId = nextAnnouncementId.getAndIncrement();
+                boolean playing = audioEngine.playSequence(clipIds, SequenceMixer.Options.fromJson(optionsJson),
+                        description, tapTime, (played, completed) -> {
+                            try {
+                                JSONObject result = new JSONObject();
+                                result.put("id", announcementId);
+                                result.put("played", played);
+                                result.put("completed", completed);
+                                bridgeChannel.send("announcementFinished", result.toString());
+                            } catch (JSONException e) {
+                                Log.e(TAG, "Error reporting announcement", e);
+                            }
+                        });
+                Log.d(TAG, "Announcement requested: " + clipIds.size() + " clips (" + description + ")");
+                return playing ? announcementId : 0;
+            } catch (JSONException e) {
+                Log.e(TAG, "Invalid announcement", e);
+                return 0;
+            } finally {
+                recordBridgeCall("playAnnouncement", start);
+            }
         }
 
+        // Clip ids likely to play next, most important first; decoded in the background
         @JavascriptInterface
-        public void playSound(String soundName, String description) {
-            Log.d(TAG, "Sound played: " + soundName + " (" + description + ")");
-            // This method is called from JavaScript when any sound is played
-            // You can add additional native sound handling here if needed
+        public void preloadClips(String clipIdsJson) {
+            long start = System.nanoTime();
+            try {
+                JSONArray ids = new JSONArray(clipIdsJson);
+                List<String> clipIds = new ArrayList<>();
+                for (int i = 0; i < ids.length(); i++) {
+                    String clipId = ids.optString(i, "");
+                    if (!clipId.isEmpty() && audioStore.getClipFile(clipId) != null) {
+                        clipIds.add(clipId);
+                    }
+                }
+                audioEngine.preloadDecoded(clipIds);
+                Log.d(TAG, "Preloading " + clipIds.size() + " clips");
+            } catch (JSONException e) {
+                Log.e(TAG, "Invalid preload list", e);
+            } finally {
+                recordBridgeCall("preloadClips", start);
+            }
         }
 
+        // Tap-to-audio latency of native playback as JSON {lastMs, averageMs, samples}
         @JavascriptInterface
-        public void playCustomSound(int soundNumber, String soundName) {
-            Log.d(TAG, "Custom sound played: " + soundName + " (Button " + soundNumber + ")");
-            // This method is called from JavaScript when a custom sound is played
-            // You can add additional native sound handling here if needed
+        public String getPlaybackLatency() {
+            long start = System.nanoTime();
+            try {
+                return audioEngine.getLatencySummary();
+            } finally {
+                recordBridgeCall("getPlaybackLatency", start);
+            }
         }
 
-        // Modified: Save sounds to Android storage - now accepts single parameter
+        // Full resync: replaces the native library and returns its new version
+        // (-1 on error). Normal edits go through applyLibraryPatch instead.
         @JavascriptInterface
-        public void saveSounds(String soundsJson, String unused) {
-            Log.d(TAG, "Saving sounds to Android storage");
-            saveSoundsToStorage(soundsJson);
+        public long saveSounds(String soundsJson, String unused) {
+            long start = System.nanoTime();
+            Log.d(TAG, "Saving full sound library (" + soundsJson.length() + " chars)");
+            metrics.recordBytes("payload.saveSounds", soundsJson.length());
+            try {
+                ensureSoundLibraryLoaded();
+                long version = soundLibrary.replaceAll(new JSONObject(soundsJson));
+                persistSoundLibrary();
+                scheduleStorageCollection();
+                return version;
+            } catch (Exception e) {
+                Log.e(TAG, "Error saving sounds", e);
+                runOnUiThread(() -> Toast.makeText(MainActivity.this, "❌ Error saving sounds: " + e.getMessage(), Toast.LENGTH_SHORT).show());
+                return SoundLibrary.VERSION_MISMATCH;
+            } finally {
+                recordBridgeCall("saveSounds", start);
+            }
+        }
+
+        // Apply a JSON array of patch ops built against baseVersion. Returns the new
+        // version, or -1 if the page is out of date and must resync with saveSounds.
+        @JavascriptInterface
+        public long applyLibraryPatch(long baseVersion, String opsJson) {
+            long start = System.nanoTime();
+            metrics.recordBytes("payload.applyLibraryPatch", opsJson.length());
+            try {
+                ensureSoundLibraryLoaded();
+                long version = soundLibrary.applyPatch(baseVersion, new JSONArray(opsJson));
+                if (version == SoundLibrary.VERSION_MISMATCH) {
+                    Log.d(TAG, "Library patch against v" + baseVersion + " rejected, native is at v" + soundLibrary.getVersion());
+                    return version;
+                }
+                Log.d(TAG, "Library patch applied (" + opsJson.length() + " chars), now v" + version);
+                persistSoundLibrary();
+                scheduleStorageCollection();
+                return version;
+            } catch (Exception e) {
+                Log.e(TAG, "Error applying library patch", e);
+                return SoundLibrary.VERSION_MISMATCH;
+            } finally {
+                recordBridgeCall("applyLibraryPatch", start);
+            }
         }
 
         // Load sounds from Android storage
         @JavascriptInterface
         public void loadSounds() {
-            Log.d(TAG, "Loading sounds from Android storage");
-            loadSavedSoundsToWebView();
+            long start = System.nanoTime();
+            try {
+                Log.d(TAG, "Loading sounds from Android storage");
+                loadSavedSoundsToWebView();
+            } finally {
+                recordBridgeCall("loadSounds", start);
+            }
+        }
+
+        // Resolve a stored clip id to a URL the WebView can play
+        @JavascriptInterface
+        public String getClipUrl(String clipId) {
+            long start = System.nanoTime();
+            try {
+                if (audioStore.get(clipId) == null) {
+                    return "";
+                }
+                // The page asks right before HTML5 playback
+                storageManager.touch(clipId, System.currentTimeMillis());
+                return AudioRequestHandler.urlFor(clipId);
+            } finally {
+                recordBridgeCall("getClipUrl", start);
+            }
+        }
+
+        // Delete a clip's stored audio when the sound is removed in the UI. If the library
+        // patch dropping it hasn't arrived yet, the pass after that patch deletes it.
+        @JavascriptInterface
+        public void deleteClip(String clipId) {
+            long start = System.nanoTime();
+            try {
+                if (storageManager.release(clipId, System.currentTimeMillis())) {
+                    audioEngine.unload(clipId);
+                    persistAudioIndex();
+                    Log.d(TAG, "Deleted clip: " + clipId);
+                }
+            } finally {
+                recordBridgeCall("deleteClip", start);
+            }
+        }
+
+        // {clips, bytes, quotaBytes, assigned, unassigned, unreferenced, collected/evicted
+        // counts and bytes since launch}; kept up to date as clips change, nothing is parsed
+        @JavascriptInterface
+        public String getStorageUsage() {
+            long start = System.nanoTime();
+            try {
+                return storageManager.getUsageJson().toString();
+            } finally {
+                recordBridgeCall("getStorageUsage", start);
+            }
+        }
+
+        @JavascriptInterface
+        public long getStorageQuota() {
+            long start = System.nanoTime();
+            try {
+                return storageManager.getQuotaBytes();
+            } finally {
+                recordBridgeCall("getStorageQuota", start);
+            }
+        }
+
+        // 0 turns eviction off; a lower quota is enforced by the next pass
+        @JavascriptInterface
+        public void setStorageQuota(long quotaBytes) {
+            long start = System.nanoTime();
+            try {
+                storageManager.setQuotaBytes(quotaBytes);
+                sharedPreferences.edit().putLong(PREF_STORAGE_QUOTA, storageManager.getQuotaBytes()).apply();
+                Log.d(TAG, "Storage quota set to " + storageManager.getQuotaBytes() + " bytes");
+                scheduleStorageCollection();
+            } finally {
+                recordBridgeCall("setStorageQuota", start);
+            }
+        }
+
+        @JavascriptInterface
+        public long getMaxImportSize() {
+            long start = System.nanoTime();
+            try {
+                return getMaxImportBytes();
+            } finally {
+                recordBridgeCall("getMaxImportSize", start);
+            }
+        }
+
+        @JavascriptInterface
+        public void setMaxImportSize(long maxBytes) {
+            long start = System.nanoTime();
+            try {
+                sharedPreferences.edit().putLong(PREF_MAX_IMPORT_BYTES, maxBytes).apply();
+                Log.d(TAG, "Max import size set to " + maxBytes + " bytes");
+            } finally {
+                recordBridgeCall("setMaxImportSize", start);
+            }
+        }
+
+        // {enabled, startMs, windowMs, normalize, targetRmsDbfs, peakCeilingDbfs}
+        @JavascriptInterface
+        public String getImportProcessing() {
+            long start = System.nanoTime();
+            try {
+                return getImportOptions().toJson().toString();
+            } finally {
+                recordBridgeCall("getImportProcessing", start);
+            }
+        }
+
+        // Partial settings are merged over the defaults; applies to later imports only
+        @JavascriptInterface
+        public boolean setImportProcessing(String optionsJson) {
+            long start = System.nanoTime();
+            try {
+                ClipProcessor.Options options = ClipProcessor.Options.fromJson(optionsJson);
+                sharedPreferences.edit().putString(PREF_IMPORT_PROCESSING, options.toJson().toString()).apply();
+                Log.d(TAG, "Import processing set to " + options.toJson());
+                return true;
+            } catch (JSONException e) {
+                Log.e(TAG, "Invalid import settings", e);
+                return false;
+            } finally {
+                recordBridgeCall("setImportProcessing", start);
+            }
+        }
+
+        // Returns the library version after the clear
+        @JavascriptInterface
+        public long clearAllSounds() {
+            long start = System.nanoTime();
+            try {
+                Log.d(TAG, "Clearing all sounds from Android storage");
+                List<String> clipIds = soundLibrary.clearSounds();
+                // Not coalesced: runs after any save queued before it
+                persistence.execute(() -> clearAllSavedSounds(clipIds));
+                return soundLibrary.getVersion();
+            } finally {
+                recordBridgeCall("clearAllSounds", start);
+            }
+        }
+
+        // Put a stored clip in a player's music slot; the clip it replaces is deleted
+        @JavascriptInterface
+        public void setPlayerMusic(String playerId, String slotId, String clipId) {
+            long start = System.nanoTime();
+            String previous = playerMusic.set(playerId, slotId, clipId);
+            if (previous != null && !previous.equals(clipId)) {
+                releaseClip(previous);
+            }
+            persistPlayerMusic();
+            recordBridgeCall("setPlayerMusic", start);
+        }
+
+        @JavascriptInterface
+        public void removePlayerMusic(String playerId, String slotId) {
+            long start = System.nanoTime();
+            try {
+                releaseClip(playerMusic.remove(playerId, slotId));
+                persistPlayerMusic();
+            } finally {
+                recordBridgeCall("removePlayerMusic", start);
+            }
+        }
+
+        // Player deleted: free every clip in their slots
+        @JavascriptInterface
+        public void removePlayer(String playerId) {
+            long start = System.nanoTime();
+            try {
+                for (String clipId : playerMusic.removePlayer(playerId)) {
+                    releaseClip(clipId);
+                }
+                persistPlayerMusic();
+            } finally {
+                recordBridgeCall("removePlayer", start);
+            }
+        }
+
+        // {"playerId": {"slot1": "clipId", ...}} so the page can check its references
+        @JavascriptInterface
+        public String getPlayerMusic() {
+            long start = System.nanoTime();
+            try {
+                return playerMusic.toJson().toString();
+            } finally {
+                recordBridgeCall("getPlayerMusic", start);
+            }
+        }
+
+        // One-off move of a profile's inline base64 music into the audio store.
+        // Returns the stored clip as JSON, or "" if it couldn't be decoded.
+        @JavascriptInterface
+        public String migratePlayerMusic(String playerId, String slotId, String name, String dataUrl) {
+            long start = System.nanoTime();
+            try {
+                AudioStore.ClipInfo clip = importDataUrl(AudioStore.newClipId(), name, dataUrl);
+                String previous = playerMusic.set(playerId, slotId, clip.id);
+                if (previous != null && !previous.equals(clip.id)) {
+                    releaseClip(previous);
+                }
+                persistPlayerMusic();
+                Log.d(TAG, "Migrated player music " + name + " (" + clip.size + " bytes) for " + playerId);
+                return clip.toJson().toString();
+            } catch (Exception e) {
+                Log.e(TAG, "Error migrating player music for " + playerId, e);
+                return "";
+            } finally {
+                recordBridgeCall("migratePlayerMusic", start);
+            }
         }
 
         // Save player assignments to Android storage
         @JavascriptInterface
         public void savePlayerAssignments(String assignmentsJson) {
+            long start = System.nanoTime();
             Log.d(TAG, "Saving player assignments to Android storage");
-            savePlayerAssignmentsToStorage(assignmentsJson);
+            metrics.recordBytes("payload.savePlayerAssignments", assignmentsJson.length());
+            persistence.submit(PREF_PLAYER_ASSIGNMENTS, () -> savePlayerAssignmentsToStorage(assignmentsJson));
+            recordBridgeCall("savePlayerAssignments", start);
         }
 
         // Load player assignments from Android storage
         @JavascriptInterface
         public void loadPlayerAssignments() {
-            Log.d(TAG, "Loading player assignments from Android storage");
-            loadSavedPlayerAssignmentsToWebView();
+            long start = System.nanoTime();
+            try {
+                Log.d(TAG, "Loading player assignments from Android storage");
+                loadSavedPlayerAssignmentsToWebView();
+            } finally {
+                recordBridgeCall("loadPlayerAssignments", start);
+            }
         }
 
+        // Provider calls can take a while per document, so they run in the background
         @JavascriptInterface
         public void clearAllSoundFiles(String[] uriStrings) {
-            ContentResolver resolver = getApplicationContext().getContentResolver();
-            int deletedCount = 0;
-
-            for (String uriStr : uriStrings) {
-                try {
-                    Uri uri = Uri.parse(uriStr);
-                    resolver.takePersistableUriPermission(uri, Intent.FLAG_GRANT_WRITE_URI_PERMISSION);
-                    boolean deleted = DocumentsContract.deleteDocument(resolver, uri);
-                    if (deleted) deletedCount++;
-                } catch (Exception e) {
-                    Log.e("WebApp", "Failed to delete URI: " + uriStr, e);
-                }
+            long start = System.nanoTime();
+            try {
+                importExecutor.execute(() -> deleteSoundFiles(uriStrings));
+            } finally {
+                recordBridgeCall("clearAllSoundFiles", start);
             }
-
-            Log.d("WebApp", "Deleted " + deletedCount + " sound files.");
         }
 
 
         // FIXED: Get storage information - calls renamed method
         @JavascriptInterface
         public void getStorageInfo() {
-            Log.d(TAG, "Getting storage information");
-            showStorageInfoDialog();
+            long start = System.nanoTime();
+            try {
+                Log.d(TAG, "Getting storage information");
+                showStorageInfoDialog();
+            } finally {
+                recordBridgeCall("getStorageInfo", start);
+            }
         }
 
-        // Backup game state to prevent loss during Bluetooth events
+        // Startup milestone reported by the page (dom-ready, library-rendered, ...)
         @JavascriptInterface
-        public void backupGameState(String gameStateJson) {
+        public void markStartup(String name) {
+            long start = System.nanoTime();
             try {
-                SharedPreferences.Editor editor = sharedPreferences.edit();
-                editor.putString(PREF_GAME_STATE, gameStateJson);
-                editor.putLong(PREF_GAME_STATE + "_timestamp", System.currentTimeMillis());
-                boolean success = editor.commit();
-                Log.d(TAG, "Game state backed up to Android storage: " + success);
+                MainActivity.this.markStartup("js:" + name);
+            } finally {
+                recordBridgeCall("markStartup", start);
+            }
+        }
+
+        @JavascriptInterface
+        public String getStartupTimings() {
+            long start = System.nanoTime();
+            try {
+                return getStartupTimingsJson();
+            } finally {
+                recordBridgeCall("getStartupTimings", start);
+            }
+        }
+
+        // Recent launches as [{launch: "cold"|"warm", ttiMs, fastStart, at}, ...]
+        @JavascriptInterface
+        public String getStartupHistory() {
+            long start = System.nanoTime();
+            try {
+                return sharedPreferences.getString(PREF_STARTUP_HISTORY, "[]");
+            } finally {
+                recordBridgeCall("getStartupHistory", start);
+            }
+        }
+
+        // Takes effect on the next launch
+        @JavascriptInterface
+        public void setFastStart(boolean enabled) {
+            long start = System.nanoTime();
+            try {
+                sharedPreferences.edit().putBoolean(PREF_FAST_START, enabled).apply();
+                Log.d(TAG, "Fast start " + (enabled ? "enabled" : "disabled"));
+            } finally {
+                recordBridgeCall("setFastStart", start);
+            }
+        }
+
+        // Writes requested vs. performed (the difference was coalesced away)
+        @JavascriptInterface
+        public String getPersistenceStats() {
+            long start = System.nanoTime();
+            try {
+                return persistence.getStatsJson();
+            } finally {
+                recordBridgeCall("getPersistenceStats", start);
+            }
+        }
+
+        // Append one match event (goal, edit, delete, undo, ...) to the journal.
+        // dataJson carries the affected log entry; delete/undo only need the id.
+        // Every event is kept (never coalesced) and written in order on the persistence thread.
+        @JavascriptInterface
+        public boolean journalAppend(String type, String eventId, String dataJson) {
+            long start = System.nanoTime();
+            metrics.recordBytes("payload.journalAppend", dataJson != null ? dataJson.length() : 0);
+            persistence.execute("journal", () -> appendToJournal(type, eventId, dataJson));
+            recordBridgeCall("journalAppend", start);
+            return true;
+        }
+
+        // Current match rebuilt from the snapshot plus the journal tail
+        @JavascriptInterface
+        public String getJournalState() {
+            long start = System.nanoTime();
+            // Make sure events queued by this page are included
+            persistence.flush(FLUSH_TIMEOUT_MS);
+            MatchJournal journal = awaitMatchJournal();
+            String state = journal != null ? journal.getState().toString() : "";
+            recordBridgeCall("getJournalState", start);
+            return state;
+        }
+
+        // Season leaderboard: stat is "goals" or "assists"; an empty season means
+        // the current one, "all" every season together
+        @JavascriptInterface
+        public String getSeasonLeaderboard(String season, String stat, int limit) {
+            long start = System.nanoTime();
+            try {
+                String resolved = season == null || season.isEmpty() ? getHistorySeason()
+                        : "all".equals(season) ? "" : season;
+                return matchHistory.getLeaderboard(resolved, stat, limit).toString();
             } catch (Exception e) {
-                Log.e(TAG, "Error backing up game state", e);
+                Log.e(TAG, "Error reading leaderboard", e);
+                return "[]";
+            } finally {
+                recordBridgeCall("getSeasonLeaderboard", start);
             }
         }
 
-        // Restore game state after potential Bluetooth interruption
+        // [{season, matches}, ...], newest first
         @JavascriptInterface
-        public String restoreGameState() {
+        public String getHistorySeasons() {
+            long start = System.nanoTime();
             try {
-                String gameStateJson = sharedPreferences.getString(PREF_GAME_STATE, "");
-                long timestamp = sharedPreferences.getLong(PREF_GAME_STATE + "_timestamp", 0);
-                
-                // Only restore if backed up within last 60 seconds (Bluetooth event window)
-                if (!gameStateJson.isEmpty() && (System.currentTimeMillis() - timestamp) < 60000) {
-                    Log.d(TAG, "Restoring game state from Android storage");
-                    return gameStateJson;
-                } else {
-                    // Clear old backup
-                    SharedPreferences.Editor editor = sharedPreferences.edit();
-                    editor.remove(PREF_GAME_STATE);
-                    editor.remove(PREF_GAME_STATE + "_timestamp");
-                    editor.apply();
-                    Log.d(TAG, "No valid game state backup found");
-                    return "";
+                return matchHistory.getSeasons().toString();
+            } catch (Exception e) {
+                Log.e(TAG, "Error reading seasons", e);
+                return "[]";
+            } finally {
+                recordBridgeCall("getHistorySeasons", start);
+            }
+        }
+
+        @JavascriptInterface
+        public String getMatchHistory(String season, int limit, int offset) {
+            long start = System.nanoTime();
+            try {
+                return matchHistory.getMatches(season, limit, offset).toString();
+            } catch (Exception e) {
+                Log.e(TAG, "Error reading match history", e);
+                return "[]";
+            } finally {
+                recordBridgeCall("getMatchHistory", start);
+            }
+        }
+
+        @JavascriptInterface
+        public String getMatchEvents(String matchKey) {
+            long start = System.nanoTime();
+            try {
+                return matchHistory.getMatchEvents(matchKey).toString();
+            } catch (Exception e) {
+                Log.e(TAG, "Error reading match events", e);
+                return "[]";
+            } finally {
+                recordBridgeCall("getMatchEvents", start);
+            }
+        }
+
+        // A player's totals per season
+        @JavascriptInterface
+        public String getPlayerHistory(String name) {
+            long start = System.nanoTime();
+            try {
+                return matchHistory.getPlayerSeasons(name).toString();
+            } catch (Exception e) {
+                Log.e(TAG, "Error reading player history", e);
+                return "[]";
+            } finally {
+                recordBridgeCall("getPlayerHistory", start);
+            }
+        }
+
+        // Splits players into two teams with ratings from the match history.
+        // Request: {players: [{name, team?, goalkeeper?}], apart?: [[name, name]], yellowSize,
+        // blueSize, budgetMs?}; a player's team fixes them there, and goalkeepers are kept apart.
+        // Returns TeamBalancer.Result as JSON with each player's rating, or "" on error.
+        @JavascriptInterface
+        public String balanceTeams(String requestJson) {
+            long start = System.nanoTime();
+            try {
+                JSONObject request = new JSONObject(requestJson);
+                JSONArray players = request.getJSONArray("players");
+                Map<String, TeamBalancer.Stats> career = matchHistory.getCareerStats();
+
+                int n = players.length();
+                List<String> names = new ArrayList<>();
+                Map<String, Integer> indexByName = new LinkedHashMap<>();
+                TeamBalancer.Stats[] stats = new TeamBalancer.Stats[n];
+                int[] fixed = new int[n];
+                List<Integer> goalkeepers = new ArrayList<>();
+                for (int i = 0; i < n; i++) {
+                    JSONObject player = players.getJSONObject(i);
+                    String name = player.getString("name");
+                    names.add(name);
+                    indexByName.put(name.toLowerCase(Locale.ROOT), i);
+                    stats[i] = career.get(name.toLowerCase(Locale.ROOT));
+                    String team = player.optString("team", "");
+                    fixed[i] = "yellow".equals(team) ? TeamBalancer.YELLOW
+                            : "blue".equals(team) ? TeamBalancer.BLUE : TeamBalancer.FREE;
+                    if (player.optBoolean("goalkeeper", false)) {
+                        goalkeepers.add(i);
+                    }
+                }
+
+                List<int[]> apart = new ArrayList<>();
+                for (int a = 0; a < goalkeepers.size(); a++) {
+                    for (int b = a + 1; b < goalkeepers.size(); b++) {
+                        apart.add(new int[]{goalkeepers.get(a), goalkeepers.get(b)});
+                    }
+                }
+                JSONArray apartNames = request.optJSONArray("apart");
+                for (int i = 0; apartNames != null && i < apartNames.length(); i++) {
+                    JSONArray pair = apartNames.getJSONArray(i);
+                    Integer a = indexByName.get(pair.getString(0).toLowerCase(Locale.ROOT));
+                    Integer b = indexByName.get(pair.getString(1).toLowerCase(Locale.ROOT));
+                    if (a != null && b != null) {
+                        apart.add(new int[]{a, b});
+                    }
+                }
+
+                double[] ratings = TeamBalancer.ratings(stats);
+                TeamBalancer.Result result = new TeamBalancer(ratings, fixed, apart,
+                        request.getInt("yellowSize"), request.getInt("blueSize"))
+                        .balance(request.optLong("budgetMs", TeamBalancer.DEFAULT_BUDGET_MS), System.nanoTime());
+                metrics.recordSince("teams.balance", start);
+
+                JSONObject json = result.toJson(names);
+                JSONObject playerRatings = new JSONObject();
+                for (int i = 0; i < n; i++) {
+                    playerRatings.put(names.get(i), Math.round(ratings[i] * 100) / 100.0);
                 }
+                json.put("ratings", playerRatings);
+                Log.d(TAG, "Balanced " + n + " players: difference " + json.getDouble("difference")
+                        + (result.optimal ? " (best possible)" : "") + " in " + json.getDouble("elapsedMs") + " ms");
+                return json.toString();
             } catch (Exception e) {
-                Log.e(TAG, "Error restoring game state", e);
+                Log.e(TAG, "Error balancing teams", e);
                 return "";
+            } finally {
+                recordBridgeCall("balanceTeams", start);
+            }
+        }
+
+        @JavascriptInterface
+        public boolean deleteHistoryMatch(String matchKey) {
+            long start = System.nanoTime();
+            try {
+                return matchHistory.deleteMatch(matchKey);
+            } catch (Exception e) {
+                Log.e(TAG, "Error deleting match from history", e);
+                return false;
+            } finally {
+                recordBridgeCall("deleteHistoryMatch", start);
+            }
+        }
+
+        @JavascriptInterface
+        public String getHistorySeason() {
+            long start = System.nanoTime();
+            try {
+                return MainActivity.this.getHistorySeason(System.currentTimeMillis());
+            } finally {
+                recordBridgeCall("getHistorySeason", start);
             }
         }
+
+        // Empty goes back to filing matches by calendar year
+        @JavascriptInterface
+        public void setHistorySeason(String season) {
+            long start = System.nanoTime();
+            try {
+                sharedPreferences.edit().putString(PREF_HISTORY_SEASON, season != null ? season.trim() : "").apply();
+            } finally {
+                recordBridgeCall("setHistorySeason", start);
+            }
+        }
+
+        @JavascriptInterface
+        public void showSeasonLeaderboard() {
+            long start = System.nanoTime();
+            try {
+                MainActivity.this.showSeasonLeaderboard();
+            } finally {
+                recordBridgeCall("showSeasonLeaderboard", start);
+            }
+        }
+
+        // A measurement the page took itself, e.g. tap-to-audio on the HTML5 fallback path
+        @JavascriptInterface
+        public void recordMetric(String name, double millis) {
+            long start = System.nanoTime();
+            try {
+                metrics.recordMillis(name, millis);
+            } finally {
+                recordBridgeCall("recordMetric", start);
+            }
+        }
+
+        @JavascriptInterface
+        public String getMetrics() {
+            long start = System.nanoTime();
+            try {
+                return getDiagnosticsJson().toString();
+            } finally {
+                recordBridgeCall("getMetrics", start);
+            }
+        }
+
+        @JavascriptInterface
+        public void exportMetrics() {
+            long start = System.nanoTime();
+            try {
+                String content = getDiagnosticsJson().toString();
+                String filename = "FootballTracker_metrics_" + System.currentTimeMillis() + ".json";
+                saveReportToDownloads(content, filename);
+            } finally {
+                recordBridgeCall("exportMetrics", start);
+            }
+        }
+    }
+
+    /** Writes the body of a Downloads file; called on the export thread. */
+    private interface ReportBody {
+        void writeTo(OutputStream out) throws IOException;
+    }
+
+    private void showReportFormatDialog() {
+        MatchReportWriter.Format[] formats = MatchReportWriter.Format.values();
+        new AlertDialog.Builder(this, R.style.DarkBlueDialogTheme)
+                .setTitle("📄 Export Match Report")
+                .setItems(new String[]{"📝 Text", "📊 CSV (spreadsheet)", "🧾 JSON"},
+                        (dialog, which) -> exportMatchReport(formats[which]))
+                .setNegativeButton("Cancel", null)
+                .show();
+    }
+
+    private void exportMatchReport(MatchReportWriter.Format format) {
+        String filename = "football_match_"
+                + new SimpleDateFormat("yyyy-MM-dd_HH-mm-ss", Locale.US).format(new Date()) + "." + format.extension;
+        exportExecutor.execute(() -> {
+            // Include events the page has queued but the writer thread hasn't applied yet
+            persistence.flush(FLUSH_TIMEOUT_MS);
+            MatchJournal journal = awaitMatchJournal();
+            if (journal == null) {
+                return;
+            }
+            MatchReportWriter report = new MatchReportWriter(
+                    journal.getState(), Locale.getDefault(), TimeZone.getDefault(), new Date());
+            if (report.getEventCount() == 0) {
+                runOnUiThread(() -> Toast.makeText(this, "No match data to export!", Toast.LENGTH_SHORT).show());
+                return;
+            }
+            Log.d(TAG, "Exporting " + report.getEventCount() + " events as " + format);
+            writeToDownloads(filename, format.mimeType, out -> report.write(format, out));
+        });
     }
 
     private void saveReportToDownloads(String content, String filename) {
+        String mimeType = filename.endsWith(".json") ? "application/json" : "text/plain";
+        exportExecutor.execute(() -> writeToDownloads(filename, mimeType,
+                out -> out.write(content.getBytes(StandardCharsets.UTF_8))));
+    }
+
+    // Streams straight into the MediaStore entry; runs on the export thread
+    private void writeToDownloads(String filename, String mimeType, ReportBody body) {
+        long start = System.nanoTime();
+        ContentResolver resolver = getContentResolver();
         Uri savedUri = null;
         try {
-            ContentResolver resolver = getContentResolver();
             ContentValues contentValues = new ContentValues();
             contentValues.put(MediaStore.MediaColumns.DISPLAY_NAME, filename);
-            contentValues.put(MediaStore.MediaColumns.MIME_TYPE, "text/plain");
+            contentValues.put(MediaStore.MediaColumns.MIME_TYPE, mimeType);
 
             if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
                 contentValues.put(MediaStore.MediaColumns.RELATIVE_PATH, Environment.DIRECTORY_DOWNLOADS);
+                // Hidden from other apps until the whole file is written
+                contentValues.put(MediaStore.MediaColumns.IS_PENDING, 1);
             }
 
             savedUri = resolver.insert(MediaStore.Files.getContentUri("external"), contentValues);
             Log.d(TAG, "Created URI for file: " + savedUri);
+            if (savedUri == null) {
+                throw new IOException("Cannot create file in Downloads");
+            }
 
-            if (savedUri != null) {
-                try (OutputStream outputStream = resolver.openOutputStream(savedUri)) {
-                    if (outputStream != null) {
-                        outputStream.write(content.getBytes());
-                        outputStream.flush();
-
-                        Log.d(TAG, "Report saved successfully: " + filename + " at URI: " + savedUri);
-                        
-                        // Create a final reference for the dialog
-                        final Uri finalUri = savedUri;
-                        runOnUiThread(() -> {
-                            try {
-                                showReportSavedDialog(finalUri, filename);
-                            } catch (Exception dialogError) {
-                                Log.e(TAG, "Error showing dialog", dialogError);
-                                Toast.makeText(this, "✅ Report saved to Downloads: " + filename, Toast.LENGTH_LONG).show();
-                            }
-                        });
-                    } else {
-                        throw new Exception("Cannot write to file");
-                    }
+            try (OutputStream outputStream = resolver.openOutputStream(savedUri)) {
+                if (outputStream == null) {
+                    throw new IOException("Cannot write to file");
                 }
-            } else {
-                throw new Exception("Cannot create file in Downloads");
+                BufferedOutputStream buffered = new BufferedOutputStream(outputStream, 64 * 1024);
+                body.writeTo(buffered);
+                buffered.flush();
             }
+
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+                ContentValues done = new ContentValues();
+                done.put(MediaStore.MediaColumns.IS_PENDING, 0);
+                resolver.update(savedUri, done, null, null);
+            }
+            metrics.recordSince("export.write", start);
+            Log.d(TAG, "Report saved successfully: " + filename + " at URI: " + savedUri);
+
+            final Uri finalUri = savedUri;
+            runOnUiThread(() -> {
+                try {
+                    showReportSavedDialog(finalUri, filename);
+                } catch (Exception dialogError) {
+                    Log.e(TAG, "Error showing dialog", dialogError);
+                    Toast.makeText(this, "✅ Report saved to Downloads: " + filename, Toast.LENGTH_LONG).show();
+                }
+            });
         } catch (Exception e) {
             Log.e(TAG, "Error saving report", e);
+            // Don't leave a truncated file behind
+            if (savedUri != null) {
+                try {
+                    resolver.delete(savedUri, null, null);
+                } catch (Exception deleteError) {
+                    Log.w(TAG, "Cannot remove partial report: " + deleteError.getMessage());
+                }
+            }
             runOnUiThread(() -> {
                 Toast.makeText(this, "❌ Error saving report. Check app permissions in Settings.", Toast.LENGTH_LONG).show();
             });
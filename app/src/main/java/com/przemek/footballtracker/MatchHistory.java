@@ -0,0 +1,430 @@
+package com.przemek.footballtracker;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteOpenHelper;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.Calendar;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Finished matches, kept after the page resets its log. Each match is stored
+ * with its events, and per-player season totals are updated in the same
+ * transaction, so leaderboards are an indexed read of one small table rather
+ * than a scan over every event ever recorded.
+ *
+ * Players are matched by name (case-insensitive), the same way the page's
+ * rosters and profiles identify them.
+ */
+public class MatchHistory extends SQLiteOpenHelper {
+    static final String DATABASE_NAME = "match_history.db";
+    private static final int DATABASE_VERSION = 1;
+
+    public static final String STAT_GOALS = "goals";
+    public static final String STAT_ASSISTS = "assists";
+
+    public MatchHistory(Context context) {
+        super(context, DATABASE_NAME, null, DATABASE_VERSION);
+    }
+
+    @Override
+    public void onConfigure(SQLiteDatabase db) {
+        db.setForeignKeyConstraintsEnabled(true);
+    }
+
+    @Override
+    public void onCreate(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE players ("
+                + "id INTEGER PRIMARY KEY,"
+                + "name TEXT NOT NULL UNIQUE COLLATE NOCASE)");
+        // match_key is the id of the match's start entry, so archiving twice is a no-op
+        db.execSQL("CREATE TABLE matches ("
+                + "id INTEGER PRIMARY KEY,"
+                + "match_key TEXT NOT NULL UNIQUE,"
+                + "season TEXT NOT NULL,"
+                + "started_at INTEGER NOT NULL,"
+                + "ended_at INTEGER NOT NULL,"
+                + "yellow_name TEXT NOT NULL,"
+                + "blue_name TEXT NOT NULL,"
+                + "yellow_score INTEGER NOT NULL,"
+                + "blue_score INTEGER NOT NULL)");
+        db.execSQL("CREATE INDEX matches_season ON matches (season, started_at)");
+        db.execSQL("CREATE TABLE match_players ("
+                + "match_id INTEGER NOT NULL REFERENCES matches(id) ON DELETE CASCADE,"
+                + "player_id INTEGER NOT NULL REFERENCES players(id),"
+                + "team TEXT NOT NULL,"
+                + "goals INTEGER NOT NULL,"
+                + "assists INTEGER NOT NULL,"
+                + "PRIMARY KEY (match_id, player_id))");
+        db.execSQL("CREATE INDEX match_players_player ON match_players (player_id)");
+        db.execSQL("CREATE TABLE events ("
+                + "id INTEGER PRIMARY KEY,"
+                + "match_id INTEGER NOT NULL REFERENCES matches(id) ON DELETE CASCADE,"
+                + "number INTEGER NOT NULL,"
+                + "type TEXT NOT NULL,"
+                + "team TEXT,"
+                + "player_id INTEGER REFERENCES players(id),"
+                + "assist_id INTEGER REFERENCES players(id),"
+                + "time INTEGER,"
+                + "text TEXT)");
+        db.execSQL("CREATE INDEX events_match ON events (match_id, number)");
+        db.execSQL("CREATE INDEX events_player ON events (player_id)");
+        db.execSQL("CREATE INDEX events_assist ON events (assist_id)");
+        // Maintained by recordMatch(); what the leaderboards read
+        db.execSQL("CREATE TABLE player_totals ("
+                + "season TEXT NOT NULL,"
+                + "player_id INTEGER NOT NULL REFERENCES players(id),"
+                + "matches INTEGER NOT NULL DEFAULT 0,"
+                + "wins INTEGER NOT NULL DEFAULT 0,"
+                + "draws INTEGER NOT NULL DEFAULT 0,"
+                + "losses INTEGER NOT NULL DEFAULT 0,"
+                + "goals INTEGER NOT NULL DEFAULT 0,"
+                + "assists INTEGER NOT NULL DEFAULT 0,"
+                + "PRIMARY KEY (season, player_id))");
+        db.execSQL("CREATE INDEX player_totals_goals ON player_totals (season, goals DESC, assists DESC)");
+        db.execSQL("CREATE INDEX player_totals_assists ON player_totals (season, assists DESC, goals DESC)");
+    }
+
+    @Override
+    public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
+        // First version; future migrations go here
+    }
+
+    /** The calendar year the match started in, used when no season has been set. */
+    public static String defaultSeason(long startedAt) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.setTimeInMillis(startedAt > 0 ? startedAt : System.currentTimeMillis());
+        return String.valueOf(calendar.get(Calendar.YEAR));
+    }
+
+    /**
+     * Stores a finished match and adds it to the season totals. Returns the new
+     * row id, or -1 if the match was never started or is already stored.
+     */
+    public long recordMatch(MatchSummary summary, String season) {
+        String matchKey = summary.getMatchKey();
+        if (matchKey == null) {
+            return -1;
+        }
+
+        SQLiteDatabase db = getWritableDatabase();
+        db.beginTransaction();
+        try {
+            long startedAt = summary.getStartedAt();
+            ContentValues match = new ContentValues();
+            match.put("match_key", matchKey);
+            match.put("season", season);
+            match.put("started_at", startedAt);
+            match.put("ended_at", Math.max(startedAt, summary.getEndedAt()));
+            match.put("yellow_name", summary.getYellowName());
+            match.put("blue_name", summary.getBlueName());
+            match.put("yellow_score", summary.getYellowScore());
+            match.put("blue_score", summary.getBlueScore());
+            long matchId = db.insertWithOnConflict("matches", null, match, SQLiteDatabase.CONFLICT_IGNORE);
+            if (matchId == -1) {
+                return -1;
+            }
+
+            insertEvents(db, matchId, summary);
+
+            int yellowScore = summary.getYellowScore();
+            int blueScore = summary.getBlueScore();
+            for (MatchSummary.PlayerStats player : summary.getPlayers()) {
+                long playerId = playerId(db, player.name);
+                ContentValues row = new ContentValues();
+                row.put("match_id", matchId);
+                row.put("player_id", playerId);
+                row.put("team", player.team);
+                row.put("goals", player.getGoals());
+                row.put("assists", player.getAssists());
+                if (db.insertWithOnConflict("match_players", null, row, SQLiteDatabase.CONFLICT_IGNORE) == -1) {
+                    // Same name on both rosters; count them once
+                    continue;
+                }
+
+                int own = "yellow".equals(player.team) ? yellowScore : blueScore;
+                int other = "yellow".equals(player.team) ? blueScore : yellowScore;
+                addToTotals(db, season, playerId, own > other ? 1 : 0, own == other ? 1 : 0,
+                        own < other ? 1 : 0, player.getGoals(), player.getAssists());
+            }
+
+            db.setTransactionSuccessful();
+            return matchId;
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    /**
+     * Top players by {@link #STAT_GOALS} or {@link #STAT_ASSISTS}. A null or
+     * empty season means all seasons together.
+     */
+    public JSONArray getLeaderboard(String season, String stat, int limit) throws JSONException {
+        String primary = STAT_ASSISTS.equals(stat) ? "assists" : "goals";
+        String secondary = STAT_ASSISTS.equals(stat) ? "goals" : "assists";
+        boolean allSeasons = season == null || season.isEmpty();
+
+        String sql;
+        String[] args;
+        if (allSeasons) {
+            sql = "SELECT p.name, SUM(t.matches), SUM(t.wins), SUM(t.draws), SUM(t.losses),"
+                    + " SUM(t.goals) AS g, SUM(t.assists) AS a"
+                    + " FROM player_totals t JOIN players p ON p.id = t.player_id"
+                    + " GROUP BY t.player_id HAVING " + primary.charAt(0) + " > 0"
+                    + " ORDER BY " + primary.charAt(0) + " DESC, " + secondary.charAt(0) + " DESC"
+                    + " LIMIT ?";
+            args = new String[]{String.valueOf(limit)};
+        } else {
+            sql = "SELECT p.name, t.matches, t.wins, t.draws, t.losses, t.goals, t.assists"
+                    + " FROM player_totals t JOIN players p ON p.id = t.player_id"
+                    + " WHERE t.season = ? AND t." + primary + " > 0"
+                    + " ORDER BY t." + primary + " DESC, t." + secondary + " DESC"
+                    + " LIMIT ?";
+            args = new String[]{season, String.valueOf(limit)};
+        }
+
+        JSONArray result = new JSONArray();
+        try (Cursor cursor = getReadableDatabase().rawQuery(sql, args)) {
+            while (cursor.moveToNext()) {
+                result.put(new JSONObject()
+                        .put("name", cursor.getString(0))
+                        .put("matches", cursor.getInt(1))
+                        .put("wins", cursor.getInt(2))
+                        .put("draws", cursor.getInt(3))
+                        .put("losses", cursor.getInt(4))
+                        .put("goals", cursor.getInt(5))
+                        .put("assists", cursor.getInt(6)));
+            }
+        }
+        return result;
+    }
+
+    /** Seasons with at least one match, newest first, with their match counts. */
+    public JSONArray getSeasons() throws JSONException {
+        JSONArray result = new JSONArray();
+        try (Cursor cursor = getReadableDatabase().rawQuery(
+                "SELECT season, COUNT(*), MAX(started_at) AS latest FROM matches"
+                        + " GROUP BY season ORDER BY latest DESC", null)) {
+            while (cursor.moveToNext()) {
+                result.put(new JSONObject()
+                        .put("season", cursor.getString(0))
+                        .put("matches", cursor.getInt(1)));
+            }
+        }
+        return result;
+    }
+
+    /** One page of a season's matches, newest first. */
+    public JSONArray getMatches(String season, int limit, int offset) throws JSONException {
+        JSONArray result = new JSONArray();
+        try (Cursor cursor = getReadableDatabase().rawQuery(
+                "SELECT match_key, started_at, ended_at, yellow_name, blue_name, yellow_score, blue_score"
+                        + " FROM matches WHERE season = ? ORDER BY started_at DESC LIMIT ? OFFSET ?",
+                new String[]{season, String.valueOf(limit), String.valueOf(offset)})) {
+            while (cursor.moveToNext()) {
+                result.put(new JSONObject()
+                        .put("matchKey", cursor.getString(0))
+                        .put("startedAt", cursor.getLong(1))
+                        .put("endedAt", cursor.getLong(2))
+                        .put("yellowTeamName", cursor.getString(3))
+                        .put("blueTeamName", cursor.getString(4))
+                        .put("yellowScore", cursor.getInt(5))
+                        .put("blueScore", cursor.getInt(6)));
+            }
+        }
+        return result;
+    }
+
+    /** A match's events in order, or an empty array for an unknown key. */
+    public JSONArray getMatchEvents(String matchKey) throws JSONException {
+        JSONArray result = new JSONArray();
+        try (Cursor cursor = getReadableDatabase().rawQuery(
+                "SELECT e.number, e.type, e.team, p.name, a.name, e.time, e.text FROM events e"
+                        + " JOIN matches m ON m.id = e.match_id"
+                        + " LEFT JOIN players p ON p.id = e.player_id"
+                        + " LEFT JOIN players a ON a.id = e.assist_id"
+                        + " WHERE m.match_key = ? ORDER BY e.number",
+                new String[]{matchKey})) {
+            while (cursor.moveToNext()) {
+                JSONObject event = new JSONObject()
+                        .put("number", cursor.getInt(0))
+                        .put("type", cursor.getString(1))
+                        .put("text", cursor.getString(6));
+                putIfPresent(event, "team", cursor, 2);
+                putIfPresent(event, "player", cursor, 3);
+                putIfPresent(event, "assist", cursor, 4);
+                if (!cursor.isNull(5)) {
+                    event.put("time", cursor.getLong(5));
+                }
+                result.put(event);
+            }
+        }
+        return result;
+    }
+
+    /** A player's totals per season, newest season first. */
+    public JSONArray getPlayerSeasons(String name) throws JSONException {
+        JSONArray result = new JSONArray();
+        try (Cursor cursor = getReadableDatabase().rawQuery(
+                "SELECT t.season, t.matches, t.wins, t.draws, t.losses, t.goals, t.assists"
+                        + " FROM player_totals t JOIN players p ON p.id = t.player_id"
+                        + " WHERE p.name = ? ORDER BY t.season DESC",
+                new String[]{name})) {
+            while (cursor.moveToNext()) {
+                result.put(new JSONObject()
+                        .put("season", cursor.getString(0))
+                        .put("matches", cursor.getInt(1))
+                        .put("wins", cursor.getInt(2))
+                        .put("draws", cursor.getInt(3))
+                        .put("losses", cursor.getInt(4))
+                        .put("goals", cursor.getInt(5))
+                        .put("assists", cursor.getInt(6)));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Career totals (all seasons) for team balancing, keyed by lower-case name.
+     * Players who never played a stored match are absent.
+     */
+    public Map<String, TeamBalancer.Stats> getCareerStats() {
+        Map<String, TeamBalancer.Stats> result = new HashMap<>();
+        try (Cursor cursor = getReadableDatabase().rawQuery(
+                "SELECT p.name, SUM(t.matches), SUM(t.wins), SUM(t.draws), SUM(t.goals), SUM(t.assists)"
+                        + " FROM player_totals t JOIN players p ON p.id = t.player_id"
+                        + " GROUP BY t.player_id", null)) {
+            while (cursor.moveToNext()) {
+                result.put(cursor.getString(0).toLowerCase(Locale.ROOT), new TeamBalancer.Stats(
+                        cursor.getInt(1), cursor.getInt(2), cursor.getInt(3), cursor.getInt(4), cursor.getInt(5)));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Removes a stored match (e.g. a test game) and takes it back out of the
+     * season totals. Returns false for an unknown key.
+     */
+    public boolean deleteMatch(String matchKey) {
+        SQLiteDatabase db = getWritableDatabase();
+        db.beginTransaction();
+        try {
+            long matchId;
+            String season;
+            int yellowScore;
+            int blueScore;
+            try (Cursor cursor = db.rawQuery(
+                    "SELECT id, season, yellow_score, blue_score FROM matches WHERE match_key = ?",
+                    new String[]{matchKey})) {
+                if (!cursor.moveToFirst()) {
+                    return false;
+                }
+                matchId = cursor.getLong(0);
+                season = cursor.getString(1);
+                yellowScore = cursor.getInt(2);
+                blueScore = cursor.getInt(3);
+            }
+
+            try (Cursor cursor = db.rawQuery(
+                    "SELECT player_id, team, goals, assists FROM match_players WHERE match_id = ?",
+                    new String[]{String.valueOf(matchId)})) {
+                while (cursor.moveToNext()) {
+                    boolean yellow = "yellow".equals(cursor.getString(1));
+                    int own = yellow ? yellowScore : blueScore;
+                    int other = yellow ? blueScore : yellowScore;
+                    db.execSQL("UPDATE player_totals SET matches = matches - 1,"
+                                    + " wins = wins - ?, draws = draws - ?, losses = losses - ?,"
+                                    + " goals = goals - ?, assists = assists - ?"
+                                    + " WHERE season = ? AND player_id = ?",
+                            new Object[]{own > other ? 1 : 0, own == other ? 1 : 0, own < other ? 1 : 0,
+                                    cursor.getInt(2), cursor.getInt(3), season, cursor.getLong(0)});
+                }
+            }
+            db.delete("player_totals", "season = ? AND matches <= 0", new String[]{season});
+            // Events and match_players go with it (ON DELETE CASCADE)
+            db.delete("matches", "id = ?", new String[]{String.valueOf(matchId)});
+
+            db.setTransactionSuccessful();
+            return true;
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    /** Total matches stored, for the storage dialog. */
+    public int getMatchCount() {
+        try (Cursor cursor = getReadableDatabase().rawQuery("SELECT COUNT(*) FROM matches", null)) {
+            return cursor.moveToFirst() ? cursor.getInt(0) : 0;
+        }
+    }
+
+    private void insertEvents(SQLiteDatabase db, long matchId, MatchSummary summary) {
+        JSONArray entries = summary.getEntries();
+        ContentValues event = new ContentValues();
+        for (int i = 0; i < entries.length(); i++) {
+            JSONObject entry = entries.optJSONObject(i);
+            if (entry == null) {
+                continue;
+            }
+            event.clear();
+            event.put("match_id", matchId);
+            event.put("number", i + 1);
+            event.put("type", entry.optString("type"));
+            event.put("team", MatchSummary.string(entry, "team"));
+            event.put("text", MatchSummary.string(entry, "text"));
+            String player = MatchSummary.string(entry, "player");
+            if (player != null && !MatchSummary.OWN_GOAL.equals(player)) {
+                event.put("player_id", playerId(db, player));
+            }
+            String assist = MatchSummary.string(entry, "assist");
+            if (assist != null) {
+                event.put("assist_id", playerId(db, assist));
+            }
+            Date time = summary.getTimestamp(entry);
+            if (time != null) {
+                event.put("time", time.getTime());
+            }
+            db.insert("events", null, event);
+        }
+    }
+
+    private static void addToTotals(SQLiteDatabase db, String season, long playerId,
+                                    int wins, int draws, int losses, int goals, int assists) {
+        ContentValues row = new ContentValues();
+        row.put("season", season);
+        row.put("player_id", playerId);
+        db.insertWithOnConflict("player_totals", null, row, SQLiteDatabase.CONFLICT_IGNORE);
+        db.execSQL("UPDATE player_totals SET matches = matches + 1,"
+                        + " wins = wins + ?, draws = draws + ?, losses = losses + ?,"
+                        + " goals = goals + ?, assists = assists + ?"
+                        + " WHERE season = ? AND player_id = ?",
+                new Object[]{wins, draws, losses, goals, assists, season, playerId});
+    }
+
+    private static long playerId(SQLiteDatabase db, String name) {
+        try (Cursor cursor = db.rawQuery("SELECT id FROM players WHERE name = ?", new String[]{name})) {
+            if (cursor.moveToFirst()) {
+                return cursor.getLong(0);
+            }
+        }
+        ContentValues row = new ContentValues();
+        row.put("name", name);
+        return db.insertOrThrow("players", null, row);
+    }
+
+    private static void putIfPresent(JSONObject json, String key, Cursor cursor, int column) throws JSONException {
+        if (!cursor.isNull(column)) {
+            json.put(key, cursor.getString(column));
+        }
+    }
+}
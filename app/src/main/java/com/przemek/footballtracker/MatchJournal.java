@@ -0,0 +1,347 @@
+package com.przemek.footballtracker;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only journal of match events. Each goal, edit, delete, undo etc. is one
+ * small line ({@code seq \t crc32 \t json}) appended and fsync'd, so the write
+ * cost per event doesn't depend on how long the match log already is. Every
+ * {@link #COMPACT_EVERY} records the folded state is written to a snapshot and
+ * the log is truncated; recovery loads the snapshot and replays the tail,
+ * stopping at the first torn or corrupt line.
+ */
+public class MatchJournal {
+    static final int COMPACT_EVERY = 200;
+
+    static final String SNAPSHOT_FILE = "snapshot.json";
+    static final String LOG_FILE = "journal.log";
+
+    private final File directory;
+    private final File snapshotFile;
+    private final File logFile;
+
+    private FileOutputStream logStream;
+    private long lastSeq = 0;
+    private int tailRecords = 0;
+
+    // Folded match state: free-form metadata plus the action log keyed by event id
+    private JSONObject meta = new JSONObject();
+    private final LinkedHashMap<String, JSONObject> entries = new LinkedHashMap<>();
+
+    public MatchJournal(File directory) throws IOException {
+        this.directory = directory;
+        if (!directory.exists() && !directory.mkdirs()) {
+            throw new IOException("Cannot create journal directory: " + directory);
+        }
+        snapshotFile = new File(directory, SNAPSHOT_FILE);
+        logFile = new File(directory, LOG_FILE);
+
+        recover();
+        logStream = new FileOutputStream(logFile, true);
+    }
+
+    /**
+     * Appends one event and applies it to the in-memory state. Returns the
+     * record's sequence number once it is on disk.
+     */
+    public synchronized long append(String type, String eventId, JSONObject data) throws IOException {
+        JSONObject record = new JSONObject();
+        try {
+            record.put("type", type);
+            record.put("id", eventId != null ? eventId : "");
+            record.put("t", System.currentTimeMillis());
+            record.put("data", data != null ? data : new JSONObject());
+        } catch (JSONException e) {
+            throw new IOException("Cannot encode journal record", e);
+        }
+
+        long seq = lastSeq + 1;
+        byte[] line = encodeLine(seq, record.toString());
+        logStream.write(line);
+        logStream.flush();
+        logStream.getFD().sync();
+
+        lastSeq = seq;
+        tailRecords++;
+        apply(record);
+
+        if (tailRecords >= COMPACT_EVERY) {
+            compact();
+        }
+        return seq;
+    }
+
+    // {"seq": n, "meta": {...}, "entries": [...]}
+    public synchronized JSONObject getState() {
+        JSONObject state = new JSONObject();
+        try {
+            state.put("seq", lastSeq);
+            state.put("meta", new JSONObject(meta.toString()));
+            JSONArray array = new JSONArray();
+            for (JSONObject entry : entries.values()) {
+                array.put(entry);
+            }
+            state.put("entries", array);
+        } catch (JSONException e) {
+            throw new IllegalStateException(e);
+        }
+        return state;
+    }
+
+    public synchronized boolean isEmpty() {
+        return lastSeq == 0 || (entries.isEmpty() && meta.length() == 0);
+    }
+
+    public synchronized int getTailRecordCount() {
+        return tailRecords;
+    }
+
+    public synchronized long getLastSeq() {
+        return lastSeq;
+    }
+
+    /** Writes the folded state to the snapshot and truncates the log. */
+    public synchronized void compact() throws IOException {
+        File temp = new File(directory, SNAPSHOT_FILE + ".tmp");
+        try (FileOutputStream out = new FileOutputStream(temp)) {
+            out.write(getState().toString().getBytes(StandardCharsets.UTF_8));
+            out.flush();
+            out.getFD().sync();
+        }
+        if (!temp.renameTo(snapshotFile)) {
+            throw new IOException("Cannot replace journal snapshot");
+        }
+
+        // If we die before this truncation, replay skips records already in the snapshot
+        logStream.close();
+        logStream = new FileOutputStream(logFile, false);
+        logStream.getFD().sync();
+        tailRecords = 0;
+    }
+
+    public synchronized void close() {
+        try {
+            logStream.close();
+        } catch (IOException ignored) {
+            // Every record was already fsync'd
+        }
+    }
+
+    private void apply(JSONObject record) {
+        String type = record.optString("type");
+        String id = record.optString("id");
+        JSONObject data = record.optJSONObject("data");
+        JSONObject entry = data != null ? data.optJSONObject("entry") : null;
+
+        switch (type) {
+            case "start":
+                // A start with an empty action log begins a new match; otherwise the
+                // previous one is resumed after a stop
+                if (data != null && data.optBoolean("newMatch")) {
+                    meta = new JSONObject();
+                    entries.clear();
+                }
+                mergeMeta(data);
+                putMeta("isGameStarted", true);
+                putMeta("hasGameBeenStarted", true);
+                putEntry(id, tag(entry, type));
+                break;
+            case "stop":
+                putMeta("isGameStarted", false);
+                putEntry(id, tag(entry, type));
+                break;
+            case "goal":
+            case "own-goal":
+            case "system":
+                putEntry(id, entry);
+                break;
+            case "edit":
+                if (entries.containsKey(id)) {
+                    putEntry(id, entry);
+                }
+                break;
+            case "delete":
+            case "undo":
+                entries.remove(id);
+                break;
+            case "reset":
+                entries.clear();
+                putEntry(id, tag(entry, type));
+                break;
+            case "meta":
+                mergeMeta(data);
+                break;
+            default:
+                // Unknown types from newer app versions are kept in the log but ignored here
+                break;
+        }
+    }
+
+    // The page logs start, stop and reset as plain "system" entries; keep which one it was
+    private static JSONObject tag(JSONObject entry, String type) {
+        if (entry != null) {
+            try {
+                entry.put("event", type);
+            } catch (JSONException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+        return entry;
+    }
+
+    private void putEntry(String id, JSONObject entry) {
+        if (entry == null || id.isEmpty()) {
+            return;
+        }
+        try {
+            entry.put("id", id);
+        } catch (JSONException e) {
+            throw new IllegalStateException(e);
+        }
+        entries.put(id, entry);
+    }
+
+    private void mergeMeta(JSONObject data) {
+        if (data == null) {
+            return;
+        }
+        Iterator<String> keys = data.keys();
+        while (keys.hasNext()) {
+            String key = keys.next();
+            if (!"entry".equals(key) && !"newMatch".equals(key)) {
+                putMeta(key, data.opt(key));
+            }
+        }
+    }
+
+    private void putMeta(String key, Object value) {
+        try {
+            meta.put(key, value);
+        } catch (JSONException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private void recover() throws IOException {
+        long snapshotSeq = 0;
+        if (snapshotFile.exists()) {
+            try {
+                JSONObject snapshot = new JSONObject(readFile(snapshotFile));
+                snapshotSeq = snapshot.optLong("seq", 0);
+                meta = snapshot.optJSONObject("meta") != null ? snapshot.getJSONObject("meta") : new JSONObject();
+                JSONArray array = snapshot.optJSONArray("entries");
+                if (array != null) {
+                    for (int i = 0; i < array.length(); i++) {
+                        JSONObject entry = array.getJSONObject(i);
+                        entries.put(entry.optString("id", "snapshot_" + i), entry);
+                    }
+                }
+            } catch (JSONException e) {
+                throw new IOException("Corrupt journal snapshot", e);
+            }
+        }
+        lastSeq = snapshotSeq;
+
+        if (!logFile.exists()) {
+            return;
+        }
+
+        long validBytes = 0;
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(new FileInputStream(logFile), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                JSONObject record = decodeLine(line);
+                if (record == null) {
+                    break;
+                }
+                validBytes += line.getBytes(StandardCharsets.UTF_8).length + 1;
+
+                long seq = record.optLong("seq");
+                if (seq <= snapshotSeq) {
+                    continue;
+                }
+                apply(record.optJSONObject("record"));
+                lastSeq = seq;
+                tailRecords++;
+            }
+        }
+
+        // Drop a torn final write so new records don't follow garbage
+        long length = logFile.length();
+        if (validBytes < length) {
+            try (RandomAccessFile file = new RandomAccessFile(logFile, "rw")) {
+                file.setLength(validBytes);
+            }
+        } else if (validBytes > length) {
+            // The last record reached the disk whole but its newline didn't; without it
+            // the next append would run on into that line and fail its checksum
+            try (FileOutputStream out = new FileOutputStream(logFile, true)) {
+                out.write('\n');
+                out.getFD().sync();
+            }
+        }
+    }
+
+    static byte[] encodeLine(long seq, String json) {
+        byte[] payload = json.getBytes(StandardCharsets.UTF_8);
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        String line = seq + "\t" + Long.toHexString(crc.getValue()) + "\t" + json + "\n";
+        return line.getBytes(StandardCharsets.UTF_8);
+    }
+
+    // Returns {"seq": n, "record": {...}} or null if the line is torn or corrupt
+    static JSONObject decodeLine(String line) {
+        int first = line.indexOf('\t');
+        int second = first >= 0 ? line.indexOf('\t', first + 1) : -1;
+        if (second < 0) {
+            return null;
+        }
+        try {
+            long seq = Long.parseLong(line.substring(0, first));
+            long expectedCrc = Long.parseLong(line.substring(first + 1, second), 16);
+            String json = line.substring(second + 1);
+
+            CRC32 crc = new CRC32();
+            crc.update(json.getBytes(StandardCharsets.UTF_8));
+            if (crc.getValue() != expectedCrc) {
+                return null;
+            }
+
+            JSONObject result = new JSONObject();
+            result.put("seq", seq);
+            result.put("record", new JSONObject(json));
+            return result;
+        } catch (NumberFormatException | JSONException e) {
+            return null;
+        }
+    }
+
+    private static String readFile(File file) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8))) {
+            char[] buffer = new char[8192];
+            int read;
+            while ((read = reader.read(buffer)) != -1) {
+                sb.append(buffer, 0, read);
+            }
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,259 @@
+package com.przemek.footballtracker;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.text.DateFormat;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.TimeZone;
+
+/**
+ * Match report built from the journal state (see {@link MatchSummary}) instead
+ * of the page's in-memory log. The report is written event by event as UTF-8
+ * straight to the given stream, so a long tournament-day log is never held
+ * as one string.
+ */
+public class MatchReportWriter {
+    private static final String RULE = "==================================================";
+    private static final String SECTION_RULE = "--------------------";
+
+    public enum Format {
+        TEXT("txt", "text/plain"),
+        CSV("csv", "text/csv"),
+        JSON("json", "application/json");
+
+        public final String extension;
+        public final String mimeType;
+
+        Format(String extension, String mimeType) {
+            this.extension = extension;
+            this.mimeType = mimeType;
+        }
+
+        /** {@code "text"}, {@code "csv"} or {@code "json"}; null for anything else. */
+        public static Format parse(String name) {
+            if (name != null) {
+                for (Format format : values()) {
+                    if (format.name().equalsIgnoreCase(name.trim()) || format.extension.equalsIgnoreCase(name.trim())) {
+                        return format;
+                    }
+                }
+            }
+            return null;
+        }
+    }
+
+    private final MatchSummary summary;
+    private final JSONArray entries;
+    private final Locale locale;
+    private final TimeZone zone;
+    private final Date generatedAt;
+
+    public MatchReportWriter(JSONObject state, Locale locale, TimeZone zone, Date generatedAt) {
+        this.summary = new MatchSummary(state);
+        this.entries = summary.getEntries();
+        this.locale = locale;
+        this.zone = zone;
+        this.generatedAt = generatedAt;
+    }
+
+    public int getEventCount() {
+        return entries.length();
+    }
+
+    /** Writes the whole report as UTF-8 and flushes; the stream is left open. */
+    public void write(Format format, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 16 * 1024);
+        switch (format) {
+            case CSV:
+                writeCsv(writer);
+                break;
+            case JSON:
+                writeJson(writer);
+                break;
+            default:
+                writeText(writer);
+                break;
+        }
+        writer.flush();
+    }
+
+    // Same sections and wording as the page's generateMatchReport()
+    private void writeText(Writer w) throws IOException {
+        DateFormat dateFormat = DateFormat.getDateInstance(DateFormat.SHORT, locale);
+        dateFormat.setTimeZone(zone);
+        DateFormat timeFormat = DateFormat.getTimeInstance(DateFormat.MEDIUM, locale);
+        timeFormat.setTimeZone(zone);
+
+        w.write("⚽ FOOTBALL MATCH REPORT\n");
+        w.write(RULE + "\n\n");
+        w.write("Date: " + dateFormat.format(generatedAt) + "\n");
+        w.write("Time: " + timeFormat.format(generatedAt) + "\n\n");
+
+        w.write("FINAL SCORE\n");
+        w.write(SECTION_RULE + "\n");
+        w.write("🟡 " + summary.getYellowName() + ": " + summary.getYellowScore() + "\n");
+        w.write("🔵 " + summary.getBlueName() + ": " + summary.getBlueScore() + "\n\n");
+
+        w.write("TEAM ROSTERS\n");
+        w.write(SECTION_RULE + "\n");
+        List<String> yellow = summary.getYellowPlayers();
+        List<String> blue = summary.getBluePlayers();
+        w.write("🟡 " + summary.getYellowName() + " (" + yellow.size() + " players): " + join(yellow) + "\n");
+        w.write("🔵 " + summary.getBlueName() + " (" + blue.size() + " players): " + join(blue) + "\n\n");
+
+        List<MatchSummary.PlayerStats> ranked = summary.getRankedPlayers();
+        if (!ranked.isEmpty()) {
+            w.write("PLAYER STATISTICS\n");
+            w.write(SECTION_RULE + "\n");
+            for (int i = 0; i < ranked.size(); i++) {
+                MatchSummary.PlayerStats player = ranked.get(i);
+                w.write((i + 1) + ". " + player.name + " (" + teamEmoji(player.team) + " "
+                        + summary.teamName(player.team) + ") - " + player.describe() + "\n");
+            }
+            w.write("\n");
+        }
+
+        w.write("MATCH EVENTS\n");
+        w.write(SECTION_RULE + "\n");
+        for (int i = 0; i < entries.length(); i++) {
+            JSONObject entry = entries.optJSONObject(i);
+            if (entry == null) {
+                continue;
+            }
+            Date time = summary.getTimestamp(entry);
+            w.write((i + 1) + ". [" + (time != null ? timeFormat.format(time) : "Unknown time") + "] "
+                    + entry.optString("text") + "\n");
+        }
+
+        w.write("\n" + RULE + "\n");
+        w.write("Report generated by Football Match Tracker\n");
+    }
+
+    // One row per event, RFC 4180 quoting; local times so spreadsheets sort them as-is
+    private void writeCsv(Writer w) throws IOException {
+        SimpleDateFormat timeFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss", Locale.US);
+        timeFormat.setTimeZone(zone);
+
+        w.write("number,time,type,team,player,assist,scoring_team,text\r\n");
+        for (int i = 0; i < entries.length(); i++) {
+            JSONObject entry = entries.optJSONObject(i);
+            if (entry == null) {
+                continue;
+            }
+            Date time = summary.getTimestamp(entry);
+            w.write(String.valueOf(i + 1));
+            w.write(',');
+            w.write(time != null ? timeFormat.format(time) : "");
+            w.write(',');
+            w.write(csv(entry.optString("type")));
+            w.write(',');
+            w.write(csv(summary.teamName(MatchSummary.string(entry, "team"))));
+            w.write(',');
+            w.write(csv(MatchSummary.string(entry, "player")));
+            w.write(',');
+            w.write(csv(MatchSummary.string(entry, "assist")));
+            w.write(',');
+            w.write(csv(summary.teamName(MatchSummary.string(entry, "scoringTeam"))));
+            w.write(',');
+            w.write(csv(entry.optString("text")));
+            w.write("\r\n");
+        }
+    }
+
+    // Written piece by piece rather than built as a JSONObject and stringified
+    private void writeJson(Writer w) throws IOException {
+        SimpleDateFormat isoFormat = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'", Locale.US);
+        isoFormat.setTimeZone(TimeZone.getTimeZone("UTC"));
+
+        w.write("{\"generatedAt\":" + JSONObject.quote(isoFormat.format(generatedAt)));
+        w.write(",\"teams\":{");
+        writeJsonTeam(w, "yellow", summary.getYellowName(), summary.getYellowScore(), summary.getYellowPlayers());
+        w.write(',');
+        writeJsonTeam(w, "blue", summary.getBlueName(), summary.getBlueScore(), summary.getBluePlayers());
+        w.write("},\"players\":[");
+        List<MatchSummary.PlayerStats> ranked = summary.getRankedPlayers();
+        for (int i = 0; i < ranked.size(); i++) {
+            MatchSummary.PlayerStats player = ranked.get(i);
+            if (i > 0) {
+                w.write(',');
+            }
+            w.write("{\"name\":" + JSONObject.quote(player.name) + ",\"team\":" + JSONObject.quote(player.team)
+                    + ",\"goals\":" + player.goals + ",\"assists\":" + player.assists + "}");
+        }
+        w.write("],\"events\":[");
+        boolean first = true;
+        for (int i = 0; i < entries.length(); i++) {
+            JSONObject entry = entries.optJSONObject(i);
+            if (entry == null) {
+                continue;
+            }
+            if (!first) {
+                w.write(',');
+            }
+            first = false;
+            Date time = summary.getTimestamp(entry);
+            w.write("{\"number\":" + (i + 1));
+            w.write(",\"timestamp\":" + (time != null ? JSONObject.quote(isoFormat.format(time)) : "null"));
+            w.write(",\"type\":" + JSONObject.quote(entry.optString("type")));
+            writeJsonField(w, "team", MatchSummary.string(entry, "team"));
+            writeJsonField(w, "player", MatchSummary.string(entry, "player"));
+            writeJsonField(w, "assist", MatchSummary.string(entry, "assist"));
+            writeJsonField(w, "scoringTeam", MatchSummary.string(entry, "scoringTeam"));
+            w.write(",\"text\":" + JSONObject.quote(entry.optString("text")) + "}");
+        }
+        w.write("]}\n");
+    }
+
+    private static void writeJsonTeam(Writer w, String key, String name, int score, List<String> players)
+            throws IOException {
+        w.write(JSONObject.quote(key) + ":{\"name\":" + JSONObject.quote(name) + ",\"score\":" + score + ",\"players\":[");
+        for (int i = 0; i < players.size(); i++) {
+            if (i > 0) {
+                w.write(',');
+            }
+            w.write(JSONObject.quote(players.get(i)));
+        }
+        w.write("]}");
+    }
+
+    private static void writeJsonField(Writer w, String name, String value) throws IOException {
+        if (value != null) {
+            w.write(",\"" + name + "\":" + JSONObject.quote(value));
+        }
+    }
+
+    private static String teamEmoji(String team) {
+        return "yellow".equals(team) ? "🟡" : "🔵";
+    }
+
+    private static String join(List<String> values) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < values.size(); i++) {
+            if (i > 0) {
+                sb.append(", ");
+            }
+            sb.append(values.get(i));
+        }
+        return sb.toString();
+    }
+
+    static String csv(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return "\"" + value.replace("\"", "\"\"") + "\"";
+    }
+}
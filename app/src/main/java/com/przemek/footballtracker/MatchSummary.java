@@ -0,0 +1,257 @@
+package com.przemek.footballtracker;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TimeZone;
+
+/**
+ * Scores, rosters and per-player goals and assists of one match, worked out
+ * from the journal state ({@code {"seq", "meta", "entries"}}, see
+ * {@link MatchJournal#getState()}) with the same rules as the page's
+ * recomputeMatchTotals()/updatePlayerStats(). Shared by the report export
+ * and the match history.
+ */
+public class MatchSummary {
+    static final String OWN_GOAL = "OWN GOAL";
+
+    private final JSONArray entries;
+    private final SimpleDateFormat isoParser = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'", Locale.US);
+
+    private final String yellowName;
+    private final String blueName;
+    private final List<String> yellowPlayers;
+    private final List<String> bluePlayers;
+    private int yellowScore = 0;
+    private int blueScore = 0;
+    // "team-player" -> stats, in roster order like the page's playerStats
+    private final Map<String, PlayerStats> stats = new LinkedHashMap<>();
+    // Id of the first start entry, or of the reset a game was played on after;
+    // identifies the match across exports and resets
+    private String matchKey;
+
+    public MatchSummary(JSONObject state) {
+        JSONObject meta = state.optJSONObject("meta");
+        JSONArray entries = state.optJSONArray("entries");
+        this.entries = entries != null ? entries : new JSONArray();
+        isoParser.setTimeZone(TimeZone.getTimeZone("UTC"));
+
+        if (meta == null) {
+            meta = new JSONObject();
+        }
+        yellowName = meta.optString("yellowTeamName", "Yellow");
+        blueName = meta.optString("blueTeamName", "Blue");
+        yellowPlayers = roster(meta.optJSONArray("yellowPlayers"));
+        bluePlayers = roster(meta.optJSONArray("bluePlayers"));
+        computeTotals();
+    }
+
+    public JSONArray getEntries() {
+        return entries;
+    }
+
+    public int getEventCount() {
+        return entries.length();
+    }
+
+    /** Null until the match has been started, or played on after a reset. */
+    public String getMatchKey() {
+        return matchKey;
+    }
+
+    public String getYellowName() {
+        return yellowName;
+    }
+
+    public String getBlueName() {
+        return blueName;
+    }
+
+    public List<String> getYellowPlayers() {
+        return yellowPlayers;
+    }
+
+    public List<String> getBluePlayers() {
+        return bluePlayers;
+    }
+
+    public int getYellowScore() {
+        return yellowScore;
+    }
+
+    public int getBlueScore() {
+        return blueScore;
+    }
+
+    /** Every rostered player, including those without goals or assists. */
+    public List<PlayerStats> getPlayers() {
+        return new ArrayList<>(stats.values());
+    }
+
+    /** Players with goals or assists, by goals then assists (stable, like Array.sort in the page). */
+    public List<PlayerStats> getRankedPlayers() {
+        List<PlayerStats> ranked = new ArrayList<>();
+        for (PlayerStats player : stats.values()) {
+            if (player.goals > 0 || player.assists > 0) {
+                ranked.add(player);
+            }
+        }
+        Collections.sort(ranked, (a, b) -> a.goals != b.goals ? b.goals - a.goals : b.assists - a.assists);
+        return ranked;
+    }
+
+    /** Earliest event time in epoch millis, or 0 if no entry has one. */
+    public long getStartedAt() {
+        for (int i = 0; i < entries.length(); i++) {
+            Date time = getTimestamp(entries.optJSONObject(i));
+            if (time != null) {
+                return time.getTime();
+            }
+        }
+        return 0;
+    }
+
+    /** Latest event time in epoch millis, or 0 if no entry has one. */
+    public long getEndedAt() {
+        for (int i = entries.length() - 1; i >= 0; i--) {
+            Date time = getTimestamp(entries.optJSONObject(i));
+            if (time != null) {
+                return time.getTime();
+            }
+        }
+        return 0;
+    }
+
+    /** The entry's time as written by the page (a JSON-serialised Date), or null. */
+    public Date getTimestamp(JSONObject entry) {
+        String timestamp = entry != null ? string(entry, "timestamp") : null;
+        if (timestamp == null) {
+            return null;
+        }
+        try {
+            return isoParser.parse(timestamp);
+        } catch (ParseException e) {
+            return null;
+        }
+    }
+
+    public String teamName(String team) {
+        if (team == null) {
+            return null;
+        }
+        return "yellow".equals(team) ? yellowName : "blue".equals(team) ? blueName : team;
+    }
+
+    // optString() turns JSON null into "null"; the page stores a missing assist as null
+    static String string(JSONObject entry, String key) {
+        return entry.isNull(key) ? null : entry.optString(key);
+    }
+
+    private void computeTotals() {
+        for (String player : yellowPlayers) {
+            stats.put("yellow-" + player, new PlayerStats(player, "yellow"));
+        }
+        for (String player : bluePlayers) {
+            stats.put("blue-" + player, new PlayerStats(player, "blue"));
+        }
+
+        // A reset doesn't stop a running game, so what is played after one has no start
+        String resetKey = null;
+        boolean playedOn = false;
+        for (int i = 0; i < entries.length(); i++) {
+            JSONObject entry = entries.optJSONObject(i);
+            if (entry == null) {
+                continue;
+            }
+            // Journal entries carry the record type as "event"; the page's own type is "system"
+            String type = entry.optString("event", entry.optString("type"));
+            if ("reset".equals(type)) {
+                if (resetKey == null) {
+                    resetKey = string(entry, "id");
+                }
+                continue;
+            }
+            if (!"system".equals(type)) {
+                playedOn = true;
+            }
+            if ("start".equals(type) && matchKey == null) {
+                matchKey = string(entry, "id");
+            } else if ("goal".equals(type)) {
+                String team = string(entry, "team");
+                addGoal(team);
+                String player = string(entry, "player");
+                if (player != null && !OWN_GOAL.equals(player) && stats.containsKey(team + "-" + player)) {
+                    stats.get(team + "-" + player).goals++;
+                }
+                String assist = string(entry, "assist");
+                if (assist != null && stats.containsKey(team + "-" + assist)) {
+                    stats.get(team + "-" + assist).assists++;
+                }
+            } else if ("own-goal".equals(type)) {
+                addGoal(string(entry, "scoringTeam"));
+            }
+        }
+        if (matchKey == null && playedOn) {
+            matchKey = resetKey;
+        }
+    }
+
+    private void addGoal(String team) {
+        if ("yellow".equals(team)) {
+            yellowScore++;
+        } else {
+            blueScore++;
+        }
+    }
+
+    private static List<String> roster(JSONArray players) {
+        List<String> roster = new ArrayList<>();
+        if (players != null) {
+            for (int i = 0; i < players.length(); i++) {
+                String player = players.optString(i, null);
+                if (player != null && !OWN_GOAL.equals(player)) {
+                    roster.add(player);
+                }
+            }
+        }
+        return roster;
+    }
+
+    public static final class PlayerStats {
+        public final String name;
+        public final String team;
+        int goals = 0;
+        int assists = 0;
+
+        PlayerStats(String name, String team) {
+            this.name = name;
+            this.team = team;
+        }
+
+        public int getGoals() {
+            return goals;
+        }
+
+        public int getAssists() {
+            return assists;
+        }
+
+        String describe() {
+            String goalsText = goals + " goal" + (goals != 1 ? "s" : "");
+            String assistsText = assists + " assist" + (assists != 1 ? "s" : "");
+            if (goals > 0 && assists > 0) {
+                return goalsText + ", " + assistsText;
+            }
+            return goals > 0 ? goalsText : assistsText;
+        }
+    }
+}
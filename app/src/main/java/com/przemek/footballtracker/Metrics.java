@@ -0,0 +1,171 @@
+package com.przemek.footballtracker;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * In-process histograms for the hot paths: tap-to-audio latency, bridge call
+ * durations, persistence write times and payload sizes. Buckets are fixed so
+ * dumps from two builds on the same device can be compared bucket by bucket;
+ * percentiles are read off the bucket bounds.
+ *
+ * Names are dotted, e.g. {@code bridge.playSound} or {@code persist.sound_library};
+ * the unit follows from how the histogram was recorded.
+ */
+public class Metrics {
+    // Upper bounds in milliseconds; the last bucket is everything above
+    static final double[] LATENCY_BOUNDS_MS = {
+            0.1, 0.25, 0.5, 1, 2.5, 5, 10, 25, 50, 100, 250, 500, 1000, 2500, 5000
+    };
+    // Upper bounds in bytes
+    static final double[] SIZE_BOUNDS_BYTES = {
+            256, 1024, 4096, 16384, 65536, 262144, 1048576, 4194304, 16777216
+    };
+
+    private final Map<String, Histogram> histograms = new TreeMap<>();
+
+    public void recordMillis(String name, double millis) {
+        histogram(name, "ms", LATENCY_BOUNDS_MS).record(millis);
+    }
+
+    /** Records the time since {@code startNanos} (a {@link System#nanoTime()} reading). */
+    public void recordSince(String name, long startNanos) {
+        recordMillis(name, (System.nanoTime() - startNanos) / 1_000_000.0);
+    }
+
+    public void recordBytes(String name, long bytes) {
+        histogram(name, "bytes", SIZE_BOUNDS_BYTES).record(bytes);
+    }
+
+    public synchronized Histogram get(String name) {
+        return histograms.get(name);
+    }
+
+    public synchronized void reset() {
+        histograms.clear();
+    }
+
+    public synchronized JSONObject toJson() {
+        JSONObject json = new JSONObject();
+        try {
+            for (Map.Entry<String, Histogram> entry : histograms.entrySet()) {
+                json.put(entry.getKey(), entry.getValue().toJson());
+            }
+        } catch (JSONException e) {
+            throw new IllegalStateException(e);
+        }
+        return json;
+    }
+
+    /** One line per histogram, for the diagnostics dialog. */
+    public synchronized String toSummary() {
+        if (histograms.isEmpty()) {
+            return "No measurements yet";
+        }
+        StringBuilder sb = new StringBuilder();
+        for (Map.Entry<String, Histogram> entry : histograms.entrySet()) {
+            Histogram h = entry.getValue();
+            sb.append(entry.getKey()).append(String.format(Locale.US,
+                    ": n=%d p50=%s p90=%s max=%s %s%n",
+                    h.getCount(), format(h.percentile(50)), format(h.percentile(90)),
+                    format(h.getMax()), h.unit));
+        }
+        return sb.toString();
+    }
+
+    private synchronized Histogram histogram(String name, String unit, double[] bounds) {
+        Histogram histogram = histograms.get(name);
+        if (histogram == null) {
+            histogram = new Histogram(unit, bounds);
+            histograms.put(name, histogram);
+        }
+        return histogram;
+    }
+
+    private static String format(double value) {
+        return value == Math.rint(value) ? String.valueOf((long) value) : String.format(Locale.US, "%.2f", value);
+    }
+
+    public static final class Histogram {
+        final String unit;
+        private final double[] bounds;
+        private final long[] counts;
+        private long count = 0;
+        private double sum = 0;
+        private double min = Double.MAX_VALUE;
+        private double max = 0;
+
+        Histogram(String unit, double[] bounds) {
+            this.unit = unit;
+            this.bounds = bounds;
+            this.counts = new long[bounds.length + 1];
+        }
+
+        public synchronized void record(double value) {
+            int bucket = 0;
+            while (bucket < bounds.length && value > bounds[bucket]) {
+                bucket++;
+            }
+            counts[bucket]++;
+            count++;
+            sum += value;
+            min = Math.min(min, value);
+            max = Math.max(max, value);
+        }
+
+        public synchronized long getCount() {
+            return count;
+        }
+
+        public synchronized double getMax() {
+            return max;
+        }
+
+        public synchronized double getMean() {
+            return count > 0 ? sum / count : 0;
+        }
+
+        /**
+         * Upper bound of the bucket holding the given percentile, capped at the
+         * largest value seen (so the open last bucket reports the real maximum).
+         */
+        public synchronized double percentile(double percentile) {
+            if (count == 0) {
+                return 0;
+            }
+            long rank = (long) Math.ceil(percentile / 100.0 * count);
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    return i < bounds.length ? Math.min(bounds[i], max) : max;
+                }
+            }
+            return max;
+        }
+
+        synchronized JSONObject toJson() throws JSONException {
+            JSONObject json = new JSONObject();
+            json.put("unit", unit);
+            json.put("count", count);
+            json.put("mean", getMean());
+            json.put("min", count > 0 ? min : 0);
+            json.put("max", max);
+            json.put("p50", percentile(50));
+            json.put("p90", percentile(90));
+            json.put("p99", percentile(99));
+            JSONObject buckets = new JSONObject();
+            for (int i = 0; i < counts.length; i++) {
+                if (counts[i] > 0) {
+                    buckets.put(i < bounds.length ? "le_" + format(bounds[i]) : "inf", counts[i]);
+                }
+            }
+            json.put("buckets", buckets);
+            return json;
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.przemek.footballtracker;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Decoded 16-bit PCM for recently played or preloaded clips, bounded by a byte
+ * budget. The least recently used clips are evicted first. Hits and misses
+ * are counted on {@link #get} only, so preloading doesn't skew the hit rate.
+ */
+public class PcmCache {
+
+    public static final class Clip {
+        public final byte[] pcm;
+        public final int sampleRate;
+        public final int channelCount;
+
+        public Clip(byte[] pcm, int sampleRate, int channelCount) {
+            this.pcm = pcm;
+            this.sampleRate = sampleRate;
+            this.channelCount = channelCount;
+        }
+
+        public int getFrameCount() {
+            return pcm.length / (2 * channelCount);
+        }
+
+        public long getDurationMs() {
+            return getFrameCount() * 1000L / sampleRate;
+        }
+    }
+
+    private final long maxBytes;
+    // Access order: iteration starts at the least recently used clip
+    private final LinkedHashMap<String, Clip> clips = new LinkedHashMap<>(16, 0.75f, true);
+    private long bytes = 0;
+    private long hits = 0;
+    private long misses = 0;
+    private long evictions = 0;
+
+    public PcmCache(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    /** The clip, now most recently used, or null; counted as a hit or a miss. */
+    public synchronized Clip get(String clipId) {
+        Clip clip = clips.get(clipId);
+        if (clip != null) {
+            hits++;
+        } else {
+            misses++;
+        }
+        return clip;
+    }
+
+    /** Whether the clip is cached, without touching its position or the stats. */
+    public synchronized boolean contains(String clipId) {
+        return clips.containsKey(clipId);
+    }
+
+    /**
+     * Adds a clip, evicting the least recently used ones to stay within the
+     * budget. Returns false if the clip alone is bigger than the whole budget.
+     */
+    public synchronized boolean put(String clipId, Clip clip) {
+        if (clip.pcm.length > maxBytes) {
+            return false;
+        }
+        Clip previous = clips.put(clipId, clip);
+        if (previous != null) {
+            bytes -= previous.pcm.length;
+        }
+        bytes += clip.pcm.length;
+
+        Iterator<Map.Entry<String, Clip>> eldest = clips.entrySet().iterator();
+        while (bytes > maxBytes && eldest.hasNext()) {
+            Map.Entry<String, Clip> entry = eldest.next();
+            if (entry.getKey().equals(clipId)) {
+                continue;
+            }
+            bytes -= entry.getValue().pcm.length;
+            eldest.remove();
+            evictions++;
+        }
+        return true;
+    }
+
+    public synchronized void remove(String clipId) {
+        Clip clip = clips.remove(clipId);
+        if (clip != null) {
+            bytes -= clip.pcm.length;
+        }
+    }
+
+    public synchronized void clear() {
+        clips.clear();
+        bytes = 0;
+    }
+
+    public synchronized long getBytes() {
+        return bytes;
+    }
+
+    public synchronized int size() {
+        return clips.size();
+    }
+
+    public synchronized String getStatsJson() {
+        long lookups = hits + misses;
+        return String.format(Locale.US,
+                "{\"clips\":%d,\"bytes\":%d,\"maxBytes\":%d,\"hits\":%d,\"misses\":%d,\"evictions\":%d,\"hitRate\":%.3f}",
+                clips.size(), bytes, maxBytes, hits, misses, evictions, lookups > 0 ? (double) hits / lookups : 0.0);
+    }
+}
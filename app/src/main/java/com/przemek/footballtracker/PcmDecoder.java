@@ -0,0 +1,131 @@
+package com.przemek.footballtracker;
+
+import android.media.AudioFormat;
+import android.media.MediaCodec;
+import android.media.MediaExtractor;
+import android.media.MediaFormat;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Decodes part of a stored clip to 16-bit PCM with MediaExtractor and
+ * MediaCodec. Decoding stops at {@code maxDurationMs}; playback is capped at
+ * 15 seconds anyway, so a long goal song costs no more than that. Audio
+ * before {@code skipMs} is decoded but never kept.
+ */
+final class PcmDecoder {
+    private static final long TIMEOUT_US = 10_000;
+
+    private PcmDecoder() {
+    }
+
+    static PcmCache.Clip decode(File file, long maxDurationMs) throws IOException {
+        return decode(file, 0, maxDurationMs);
+    }
+
+    /** Mono and stereo clips only; returns null for anything AudioTrack can't take as-is. */
+    static PcmCache.Clip decode(File file, long skipMs, long maxDurationMs) throws IOException {
+        MediaExtractor extractor = new MediaExtractor();
+        MediaCodec codec = null;
+        try {
+            extractor.setDataSource(file.getAbsolutePath());
+            MediaFormat format = null;
+            for (int i = 0; i < extractor.getTrackCount(); i++) {
+                MediaFormat candidate = extractor.getTrackFormat(i);
+                String mime = candidate.getString(MediaFormat.KEY_MIME);
+                if (mime != null && mime.startsWith("audio/")) {
+                    extractor.selectTrack(i);
+                    format = candidate;
+                    break;
+                }
+            }
+            if (format == null) {
+                return null;
+            }
+
+            int sampleRate = format.getInteger(MediaFormat.KEY_SAMPLE_RATE);
+            int channelCount = format.getInteger(MediaFormat.KEY_CHANNEL_COUNT);
+            codec = MediaCodec.createDecoderByType(format.getString(MediaFormat.KEY_MIME));
+            codec.configure(format, null, null, 0);
+            codec.start();
+
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            long maxBytes = maxBytesFor(sampleRate, channelCount, maxDurationMs);
+            long skipBytes = maxBytesFor(sampleRate, channelCount, skipMs);
+            long skipped = 0;
+            MediaCodec.BufferInfo info = new MediaCodec.BufferInfo();
+            byte[] chunk = new byte[0];
+            boolean inputDone = false;
+            boolean outputDone = false;
+
+            while (!outputDone && out.size() < maxBytes) {
+                if (!inputDone) {
+                    int inputIndex = codec.dequeueInputBuffer(TIMEOUT_US);
+                    if (inputIndex >= 0) {
+                        ByteBuffer input = codec.getInputBuffer(inputIndex);
+                        int size = extractor.readSampleData(input, 0);
+                        if (size < 0) {
+                            codec.queueInputBuffer(inputIndex, 0, 0, 0, MediaCodec.BUFFER_FLAG_END_OF_STREAM);
+                            inputDone = true;
+                        } else {
+                            codec.queueInputBuffer(inputIndex, 0, size, extractor.getSampleTime(), 0);
+                            extractor.advance();
+                        }
+                    }
+                }
+
+                int outputIndex = codec.dequeueOutputBuffer(info, TIMEOUT_US);
+                if (outputIndex == MediaCodec.INFO_OUTPUT_FORMAT_CHANGED) {
+                    // The decoder has the final word on rate, channels and encoding
+                    MediaFormat outputFormat = codec.getOutputFormat();
+                    sampleRate = outputFormat.getInteger(MediaFormat.KEY_SAMPLE_RATE);
+                    channelCount = outputFormat.getInteger(MediaFormat.KEY_CHANNEL_COUNT);
+                    if (outputFormat.containsKey(MediaFormat.KEY_PCM_ENCODING)
+                            && outputFormat.getInteger(MediaFormat.KEY_PCM_ENCODING) != AudioFormat.ENCODING_PCM_16BIT) {
+                        return null;
+                    }
+                    maxBytes = maxBytesFor(sampleRate, channelCount, maxDurationMs);
+                    skipBytes = maxBytesFor(sampleRate, channelCount, skipMs);
+                } else if (outputIndex >= 0) {
+                    if (info.size > 0) {
+                        ByteBuffer output = codec.getOutputBuffer(outputIndex);
+                        if (chunk.length < info.size) {
+                            chunk = new byte[info.size];
+                        }
+                        output.position(info.offset);
+                        output.get(chunk, 0, info.size);
+                        int skip = (int) Math.min(info.size, skipBytes - skipped);
+                        skipped += skip;
+                        out.write(chunk, skip, (int) Math.min(info.size - skip, maxBytes - out.size()));
+                    }
+                    codec.releaseOutputBuffer(outputIndex, false);
+                    outputDone = (info.flags & MediaCodec.BUFFER_FLAG_END_OF_STREAM) != 0;
+                }
+            }
+
+            if (channelCount < 1 || channelCount > 2 || out.size() == 0) {
+                return null;
+            }
+            return new PcmCache.Clip(out.toByteArray(), sampleRate, channelCount);
+        } finally {
+            if (codec != null) {
+                try {
+                    codec.stop();
+                } catch (IllegalStateException ignored) {
+                    // Never started
+                }
+                codec.release();
+            }
+            extractor.release();
+        }
+    }
+
+    // Whole frames only, so the cut never splits a sample
+    private static long maxBytesFor(int sampleRate, int channelCount, long maxDurationMs) {
+        long frameBytes = 2L * channelCount;
+        return sampleRate * maxDurationMs / 1000 * frameBytes;
+    }
+}
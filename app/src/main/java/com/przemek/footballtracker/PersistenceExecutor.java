@@ -0,0 +1,272 @@
+package com.przemek.footballtracker;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Single writer thread for everything the app persists. Keyed writes are
+ * coalesced: if a write for the same key is still waiting, the new one replaces
+ * it in place (last write wins) and only one disk write happens. Writes for a
+ * key wait at most the coalescing window after the first request. Unkeyed tasks
+ * are never merged and run in submission order with everything else, so e.g. a
+ * "clear" submitted after a "save" still runs after it.
+ *
+ * After {@link #shutdown()} the queue is still drained. Once it is empty the
+ * writer stops, and anything submitted after that runs on the caller's thread
+ * instead of being lost, since callers on other threads (imports finishing
+ * while the activity is destroyed) can't be expected to check first.
+ *
+ * With a {@link Metrics} attached, every write's duration is recorded as
+ * {@code persist.<key>} (unkeyed tasks under their label, or {@code persist.task}).
+ */
+public class PersistenceExecutor {
+    static final long DEFAULT_COALESCE_MS = 250;
+
+    private final long coalesceMs;
+    private final Metrics metrics;
+    private final Thread writer;
+
+    // Guarded by "this"
+    private final ArrayDeque<Slot> queue = new ArrayDeque<>();
+    private final Map<String, Slot> pendingByKey = new HashMap<>();
+    private boolean shutdown = false;
+    // Set once the writer has stopped after a shutdown; later work runs inline
+    private boolean drained = false;
+    private long requested = 0;
+    private long performed = 0;
+    private long coalesced = 0;
+    private long failed = 0;
+
+    public PersistenceExecutor(String threadName) {
+        this(threadName, DEFAULT_COALESCE_MS);
+    }
+
+    public PersistenceExecutor(String threadName, long coalesceMs) {
+        this(threadName, coalesceMs, null);
+    }
+
+    public PersistenceExecutor(String threadName, long coalesceMs, Metrics metrics) {
+        this.coalesceMs = coalesceMs;
+        this.metrics = metrics;
+        writer = new Thread(this::runLoop, threadName);
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /** Queues a write for {@code key}, replacing one that hasn't run yet. */
+    public void submit(String key, Runnable write) {
+        synchronized (this) {
+            requested++;
+            if (!drained) {
+                enqueue(key, write);
+                return;
+            }
+        }
+        perform(key, write);
+    }
+
+    /** Queues a task that must run exactly once, in order with the keyed writes. */
+    public void execute(Runnable task) {
+        execute(null, task);
+    }
+
+    /** As {@link #execute(Runnable)}; {@code label} only names the task in the metrics. */
+    public void execute(String label, Runnable task) {
+        synchronized (this) {
+            requested++;
+            if (!drained) {
+                enqueueTask(label, task);
+                return;
+            }
+        }
+        perform(label != null ? label : "task", task);
+    }
+
+    /**
+     * Runs everything queued so far without waiting for the coalescing window and
+     * blocks until it is on disk (or the timeout passes). Returns false on timeout.
+     */
+    public boolean flush(long timeoutMs) {
+        CountDownLatch done = new CountDownLatch(1);
+        synchronized (this) {
+            if (shutdown && queue.isEmpty()) {
+                return true;
+            }
+            queue.add(new Slot(null, done::countDown, now(), true));
+            notifyAll();
+        }
+        try {
+            return done.await(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /** Finishes the queued work and stops the writer thread. */
+    public void shutdown() {
+        synchronized (this) {
+            shutdown = true;
+            notifyAll();
+        }
+    }
+
+    public synchronized long getRequestedCount() {
+        return requested;
+    }
+
+    public synchronized long getPerformedCount() {
+        return performed;
+    }
+
+    public synchronized long getCoalescedCount() {
+        return coalesced;
+    }
+
+    public synchronized long getFailedCount() {
+        return failed;
+    }
+
+    public synchronized int getPendingCount() {
+        int count = 0;
+        for (Slot slot : queue) {
+            if (!slot.barrier) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    public synchronized String getStatsJson() {
+        return "{\"requested\":" + requested + ",\"performed\":" + performed
+                + ",\"coalesced\":" + coalesced + ",\"failed\":" + failed
+                + ",\"pending\":" + getPendingCount() + "}";
+    }
+
+    private void enqueue(String key, Runnable write) {
+        Slot pending = pendingByKey.get(key);
+        if (pending != null) {
+            pending.task = write;
+            coalesced++;
+            return;
+        }
+        Slot slot = new Slot(key, write, now() + coalesceMs);
+        queue.add(slot);
+        pendingByKey.put(key, slot);
+        notifyAll();
+    }
+
+    private void enqueueTask(String label, Runnable task) {
+        // Writes queued before this task may no longer be replaced, or a later save
+        // would jump ahead of it
+        pendingByKey.clear();
+        Slot slot = new Slot(null, task, now());
+        slot.label = label;
+        queue.add(slot);
+        notifyAll();
+    }
+
+    private void runLoop() {
+        while (true) {
+            Slot slot;
+            Runnable task;
+            synchronized (this) {
+                slot = nextDueSlot();
+                if (slot == null) {
+                    return;
+                }
+                // From here on a new write for this key gets its own slot
+                if (slot.key != null) {
+                    pendingByKey.remove(slot.key);
+                }
+                task = slot.task;
+            }
+
+            if (slot.barrier) {
+                task.run();
+            } else {
+                perform(slot.key != null ? slot.key : slot.label != null ? slot.label : "task", task);
+            }
+        }
+    }
+
+    private void perform(String name, Runnable task) {
+        long start = System.nanoTime();
+        try {
+            task.run();
+            synchronized (this) {
+                performed++;
+            }
+            if (metrics != null) {
+                metrics.recordSince("persist." + name, start);
+            }
+        } catch (RuntimeException e) {
+            // Keep the writer alive; the write itself is responsible for reporting
+            synchronized (this) {
+                failed++;
+            }
+        }
+    }
+
+    // Waits until the head of the queue may run; null once shut down and drained
+    private Slot nextDueSlot() {
+        while (true) {
+            if (queue.isEmpty()) {
+                if (shutdown) {
+                    drained = true;
+                    return null;
+                }
+                waitQuietly(0);
+                continue;
+            }
+
+            // A later slot that is already due (a flush, an unkeyed task) pulls the
+            // ones ahead of it forward, so submission order is kept
+            long due = Long.MAX_VALUE;
+            Iterator<Slot> it = queue.iterator();
+            while (it.hasNext()) {
+                due = Math.min(due, it.next().dueAt);
+            }
+            long wait = due - now();
+            if (wait <= 0 || shutdown) {
+                return queue.poll();
+            }
+            waitQuietly(wait);
+        }
+    }
+
+    private void waitQuietly(long millis) {
+        try {
+            wait(millis);
+        } catch (InterruptedException e) {
+            shutdown = true;
+        }
+    }
+
+    private static long now() {
+        return System.nanoTime() / 1_000_000L;
+    }
+
+    private static final class Slot {
+        final String key;
+        final long dueAt;
+        final boolean barrier;
+        Runnable task;
+        String label;
+
+        Slot(String key, Runnable task, long dueAt) {
+            this(key, task, dueAt, false);
+        }
+
+        Slot(String key, Runnable task, long dueAt, boolean barrier) {
+            this.key = key;
+            this.task = task;
+            this.dueAt = dueAt;
+            this.barrier = barrier;
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package com.przemek.footballtracker;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Which stored clip is in which of a player's music slots. The clips
+ * themselves live in the {@link AudioStore}; the page's player profiles only
+ * keep the clip id and display name. Saved as a small JSON file
+ * ({@code {"playerId": {"slot1": "clipId", ...}}}) written atomically.
+ * Every filled slot counts as a use in the {@link ClipReferences}.
+ */
+public class PlayerMusicStore {
+    private final File file;
+    // playerId -> slotId -> clipId
+    private final Map<String, Map<String, String>> players = new LinkedHashMap<>();
+    private final ClipReferences references;
+
+    public PlayerMusicStore(File file) {
+        this(file, new ClipReferences());
+    }
+
+    public PlayerMusicStore(File file, ClipReferences references) {
+        this.file = file;
+        this.references = references;
+    }
+
+    public synchronized void load() throws IOException {
+        for (Map<String, String> slots : players.values()) {
+            for (String clipId : slots.values()) {
+                references.removeUse(clipId);
+            }
+        }
+        players.clear();
+        if (!file.exists()) {
+            return;
+        }
+
+        StringBuilder sb = new StringBuilder();
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                sb.append(line);
+            }
+        }
+
+        try {
+            JSONObject json = new JSONObject(sb.toString());
+            Iterator<String> playerIds = json.keys();
+            while (playerIds.hasNext()) {
+                String playerId = playerIds.next();
+                JSONObject slots = json.getJSONObject(playerId);
+                Iterator<String> slotIds = slots.keys();
+                while (slotIds.hasNext()) {
+                    String slotId = slotIds.next();
+                    String clipId = slots.getString(slotId);
+                    slotsFor(playerId).put(slotId, clipId);
+                    references.addUse(clipId);
+                }
+            }
+        } catch (JSONException e) {
+            throw new IOException("Corrupt player music file", e);
+        }
+    }
+
+    public synchronized void save() throws IOException {
+        File temp = new File(file.getPath() + ".tmp");
+        try (FileOutputStream out = new FileOutputStream(temp)) {
+            out.write(toJson().toString().getBytes(StandardCharsets.UTF_8));
+            out.getFD().sync();
+        }
+        if (!temp.renameTo(file)) {
+            throw new IOException("Cannot replace " + file);
+        }
+    }
+
+    /** Puts {@code clipId} in the slot and returns the clip it replaced, or null. */
+    public synchronized String set(String playerId, String slotId, String clipId) {
+        references.addUse(clipId);
+        String previous = slotsFor(playerId).put(slotId, clipId);
+        references.removeUse(previous);
+        return previous;
+    }
+
+    public synchronized String get(String playerId, String slotId) {
+        Map<String, String> slots = players.get(playerId);
+        return slots != null ? slots.get(slotId) : null;
+    }
+
+    /** Empties the slot and returns the clip that was in it, or null. */
+    public synchronized String remove(String playerId, String slotId) {
+        Map<String, String> slots = players.get(playerId);
+        if (slots == null) {
+            return null;
+        }
+        String previous = slots.remove(slotId);
+        if (slots.isEmpty()) {
+            players.remove(playerId);
+        }
+        references.removeUse(previous);
+        return previous;
+    }
+
+    /** Forgets the player and returns the clips that were in their slots. */
+    public synchronized List<String> removePlayer(String playerId) {
+        Map<String, String> slots = players.remove(playerId);
+        if (slots == null) {
+            return new ArrayList<>();
+        }
+        for (String clipId : slots.values()) {
+            references.removeUse(clipId);
+        }
+        return new ArrayList<>(slots.values());
+    }
+
+    public synchronized boolean isClipReferenced(String clipId) {
+        for (Map<String, String> slots : players.values()) {
+            if (slots.containsValue(clipId)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public synchronized JSONObject toJson() {
+        JSONObject json = new JSONObject();
+        try {
+            for (Map.Entry<String, Map<String, String>> player : players.entrySet()) {
+                JSONObject slots = new JSONObject();
+                for (Map.Entry<String, String> slot : player.getValue().entrySet()) {
+                    slots.put(slot.getKey(), slot.getValue());
+                }
+                json.put(player.getKey(), slots);
+            }
+        } catch (JSONException e) {
+            throw new IllegalStateException(e);
+        }
+        return json;
+    }
+
+    private Map<String, String> slotsFor(String playerId) {
+        Map<String, String> slots = players.get(playerId);
+        if (slots == null) {
+            slots = new LinkedHashMap<>();
+            players.put(playerId, slots);
+        }
+        return slots;
+    }
+}
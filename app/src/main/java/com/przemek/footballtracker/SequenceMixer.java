@@ -0,0 +1,169 @@
+package com.przemek.footballtracker;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * Joins decoded clips into one continuous 16-bit stream for announcements
+ * ("first goal", "three-goal lead", then the goal song). Every clip is
+ * converted to the output format, capped at 15 seconds, and either butted
+ * against the previous one, separated from it by silence, or crossfaded into
+ * it. Clips are added one at a time as they are decoded; the crossfade tail of
+ * the latest clip is held back until the next one (or {@link #finish()})
+ * arrives. Pure Java, so it runs on any JVM.
+ */
+public final class SequenceMixer {
+
+    /** How consecutive clips meet. A crossfade takes precedence over a gap. */
+    public static final class Options {
+        public static final long MAX_GAP_MS = 2000;
+        public static final long MAX_CROSSFADE_MS = 3000;
+
+        public final long gapMs;
+        public final long crossfadeMs;
+
+        public Options(long gapMs, long crossfadeMs) {
+            this.gapMs = Math.max(0, Math.min(gapMs, MAX_GAP_MS));
+            this.crossfadeMs = Math.max(0, Math.min(crossfadeMs, MAX_CROSSFADE_MS));
+        }
+
+        /** Back to back, nothing in between. */
+        public static Options defaults() {
+            return new Options(0, 0);
+        }
+
+        public static Options fromJson(String json) throws JSONException {
+            if (json == null || json.isEmpty()) {
+                return defaults();
+            }
+            JSONObject object = new JSONObject(json);
+            return new Options(object.optLong("gapMs", 0), object.optLong("crossfadeMs", 0));
+        }
+    }
+
+    private final int sampleRate;
+    private final int channels;
+    private final Options options;
+    private final long maxClipMs;
+    // End of the latest clip, kept back to be crossfaded with the next one
+    private short[] held = new short[0];
+    private boolean started = false;
+    private long frameCount = 0;
+
+    public SequenceMixer(int sampleRate, int channels, Options options, long maxClipMs) {
+        if (channels != 1 && channels != 2) {
+            throw new IllegalArgumentException("Mono or stereo only: " + channels);
+        }
+        this.sampleRate = sampleRate;
+        this.channels = channels;
+        this.options = options;
+        this.maxClipMs = maxClipMs;
+    }
+
+    /** Appends a clip; returns the samples that can be played now. */
+    public short[] add(PcmCache.Clip clip) {
+        short[] samples = convert(clip, sampleRate, channels, maxClipMs);
+        int frames = samples.length / channels;
+        if (frames == 0) {
+            return new short[0];
+        }
+        int fadeFrames = framesFor(options.crossfadeMs);
+        int overlap = started ? Math.min(fadeFrames, Math.min(held.length / channels, frames)) : 0;
+        int gap = started && options.crossfadeMs == 0 ? framesFor(options.gapMs) : 0;
+        int keep = Math.min(fadeFrames, frames - overlap);
+
+        int heldOut = held.length / channels - overlap;
+        short[] out = new short[(heldOut + gap + frames - keep) * channels];
+        System.arraycopy(held, 0, out, 0, heldOut * channels);
+        int pos = (heldOut + gap) * channels;
+        for (int frame = 0; frame < overlap; frame++) {
+            // Equal power, so the level doesn't dip halfway through
+            double t = (frame + 0.5) / overlap;
+            double fadeOut = Math.cos(t * Math.PI / 2);
+            double fadeIn = Math.sin(t * Math.PI / 2);
+            for (int c = 0; c < channels; c++) {
+                int i = frame * channels + c;
+                out[pos + i] = clip(held[heldOut * channels + i] * fadeOut + samples[i] * fadeIn);
+            }
+        }
+        pos += overlap * channels;
+        System.arraycopy(samples, overlap * channels, out, pos, (frames - overlap - keep) * channels);
+
+        held = new short[keep * channels];
+        System.arraycopy(samples, (frames - keep) * channels, held, 0, held.length);
+        started = true;
+        frameCount += out.length / channels;
+        return out;
+    }
+
+    /** Whatever is still held back; the sequence ends with it. */
+    public short[] finish() {
+        short[] out = held;
+        held = new short[0];
+        frameCount += out.length / channels;
+        return out;
+    }
+
+    /** Frames returned so far by {@link #add} and {@link #finish}. */
+    public long getFrameCount() {
+        return frameCount;
+    }
+
+    public int getSampleRate() {
+        return sampleRate;
+    }
+
+    public int getChannelCount() {
+        return channels;
+    }
+
+    /**
+     * Resamples (linear interpolation) and up- or downmixes a clip to the given
+     * format, keeping at most {@code maxMs} of it.
+     */
+    static short[] convert(PcmCache.Clip clip, int sampleRate, int channels, long maxMs) {
+        short[] in = ClipProcessor.toSamples(clip.pcm);
+        int inChannels = clip.channelCount;
+        int inFrames = (int) Math.min(in.length / inChannels, maxMs * clip.sampleRate / 1000);
+        if (clip.sampleRate == sampleRate && inChannels == channels) {
+            short[] out = new short[inFrames * channels];
+            System.arraycopy(in, 0, out, 0, out.length);
+            return out;
+        }
+        int outFrames = (int) ((long) inFrames * sampleRate / clip.sampleRate);
+        short[] out = new short[outFrames * channels];
+        double step = (double) clip.sampleRate / sampleRate;
+        for (int frame = 0; frame < outFrames; frame++) {
+            double position = frame * step;
+            int index = (int) position;
+            int nextIndex = Math.min(index + 1, inFrames - 1);
+            double fraction = position - index;
+            for (int c = 0; c < channels; c++) {
+                double a = sample(in, inChannels, index, c, channels);
+                double b = sample(in, inChannels, nextIndex, c, channels);
+                out[frame * channels + c] = clip(a + (b - a) * fraction);
+            }
+        }
+        return out;
+    }
+
+    // Channel c of an output frame: mono is copied to both sides, stereo averaged down to mono
+    private static double sample(short[] in, int inChannels, int frame, int c, int outChannels) {
+        if (inChannels == 1) {
+            return in[frame];
+        }
+        if (outChannels == 1) {
+            return (in[frame * 2] + in[frame * 2 + 1]) / 2.0;
+        }
+        return in[frame * 2 + c];
+    }
+
+    private int framesFor(long ms) {
+        return (int) (ms * sampleRate / 1000);
+    }
+
+    private static short clip(double value) {
+        long rounded = Math.round(value);
+        return (short) Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, rounded));
+    }
+}
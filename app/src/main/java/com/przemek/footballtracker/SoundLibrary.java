@@ -0,0 +1,297 @@
+package com.przemek.footballtracker;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Native copy of the WebView's sound library: clip metadata plus the
+ * soundAssignments / playerAssignments / customSoundNames maps. The page sends
+ * small versioned patches instead of the whole library; a patch built against
+ * an older version is rejected and the page falls back to a full resync.
+ * Every change is mirrored into a {@link ClipReferences}: a sound holds its
+ * clip, a soundAssignments value uses it.
+ *
+ * Patch operations (a JSON array):
+ * <pre>
+ *   {"op": "upsertSound", "sound": {...}}
+ *   {"op": "deleteSound", "id": "..."}
+ *   {"op": "set", "map": "soundAssignments", "key": "...", "value": ...}
+ *   {"op": "delete", "map": "soundAssignments", "key": "..."}
+ * </pre>
+ */
+public class SoundLibrary {
+    /** Returned by {@link #applyPatch} when the caller's base version is stale. */
+    public static final long VERSION_MISMATCH = -1;
+
+    static final String[] MAPS = {"soundAssignments", "playerAssignments", "customSoundNames"};
+    // The one map whose values are sound (and so clip) ids
+    private static final String ASSIGNMENTS = "soundAssignments";
+
+    private final Map<String, JSONObject> sounds = new LinkedHashMap<>();
+    private final Map<String, Map<String, Object>> maps = new LinkedHashMap<>();
+    private final ClipReferences references;
+    private long version = 0;
+
+    public SoundLibrary() {
+        this(new ClipReferences());
+    }
+
+    public SoundLibrary(ClipReferences references) {
+        this.references = references;
+        for (String name : MAPS) {
+            maps.put(name, new LinkedHashMap<>());
+        }
+    }
+
+    public synchronized long getVersion() {
+        return version;
+    }
+
+    public synchronized int getSoundCount() {
+        return sounds.size();
+    }
+
+    public synchronized int getEntryCount(String mapName) {
+        Map<String, Object> map = maps.get(mapName);
+        return map != null ? map.size() : 0;
+    }
+
+    /** Replaces everything with {@code data} (the full-resync path). */
+    public synchronized long replaceAll(JSONObject data) throws JSONException {
+        // Parse into fresh maps first so a bad document leaves the references alone
+        Map<String, JSONObject> newSounds = new LinkedHashMap<>();
+        JSONArray array = data.optJSONArray("sounds");
+        if (array != null) {
+            for (int i = 0; i < array.length(); i++) {
+                JSONObject sound = array.getJSONObject(i);
+                newSounds.put(sound.optString("id", "sound_" + i), sound);
+            }
+        }
+        Map<String, Map<String, Object>> newMaps = new LinkedHashMap<>();
+        for (String name : MAPS) {
+            Map<String, Object> map = new LinkedHashMap<>();
+            JSONObject source = data.optJSONObject(name);
+            if (source != null) {
+                Iterator<String> keys = source.keys();
+                while (keys.hasNext()) {
+                    String key = keys.next();
+                    map.put(key, source.get(key));
+                }
+            }
+            newMaps.put(name, map);
+        }
+
+        // Add before removing, so clips kept across the resync never look unreferenced
+        for (String id : newSounds.keySet()) {
+            references.addEntry(id);
+        }
+        for (Object value : newMaps.get(ASSIGNMENTS).values()) {
+            addUse(value);
+        }
+        dropReferences();
+        sounds.clear();
+        sounds.putAll(newSounds);
+        for (String name : MAPS) {
+            maps.get(name).clear();
+            maps.get(name).putAll(newMaps.get(name));
+        }
+        return ++version;
+    }
+
+    /**
+     * Drops every sound and sound assignment (player assignments and custom
+     * names stay, as on the page) and returns the ids that were removed.
+     */
+    public synchronized List<String> clearSounds() {
+        List<String> removed = new ArrayList<>(sounds.keySet());
+        dropReferences();
+        sounds.clear();
+        maps.get(ASSIGNMENTS).clear();
+        version++;
+        return removed;
+    }
+
+    /**
+     * Drops sounds that should be in the audio store but whose clip isn't, e.g.
+     * evicted ones a stale page put back with a full resync. Sounds carrying
+     * their own data are left alone. Returns the ids removed.
+     */
+    public synchronized List<String> removeSoundsWithout(Set<String> storedClipIds) {
+        List<String> missing = new ArrayList<>();
+        for (Map.Entry<String, JSONObject> entry : sounds.entrySet()) {
+            if (!entry.getValue().has("data") && !storedClipIds.contains(entry.getKey())) {
+                missing.add(entry.getKey());
+            }
+        }
+        for (String id : missing) {
+            removeSound(id);
+        }
+        return missing;
+    }
+
+    /**
+     * Drops one sound (and any assignment still playing it), e.g. when its
+     * clip is evicted to stay under the storage quota. Returns false if it
+     * wasn't in the library.
+     */
+    public synchronized boolean removeSound(String id) {
+        if (sounds.remove(id) == null) {
+            return false;
+        }
+        references.removeEntry(id);
+        Iterator<Object> values = maps.get(ASSIGNMENTS).values().iterator();
+        while (values.hasNext()) {
+            Object value = values.next();
+            if (id.equals(value)) {
+                values.remove();
+                references.removeUse(id);
+            }
+        }
+        version++;
+        return true;
+    }
+
+    /**
+     * Applies {@code ops} if {@code baseVersion} is the current version and
+     * returns the new version, or {@link #VERSION_MISMATCH} without changing
+     * anything. A malformed operation fails the whole patch.
+     */
+    public synchronized long applyPatch(long baseVersion, JSONArray ops) throws JSONException {
+        if (baseVersion != version) {
+            return VERSION_MISMATCH;
+        }
+
+        // Validate first so a bad op can't leave the library half-patched
+        for (int i = 0; i < ops.length(); i++) {
+            validate(ops.getJSONObject(i));
+        }
+        for (int i = 0; i < ops.length(); i++) {
+            apply(ops.getJSONObject(i));
+        }
+        return ++version;
+    }
+
+    public synchronized JSONObject toJson() {
+        JSONObject json = new JSONObject();
+        try {
+            JSONArray array = new JSONArray();
+            for (JSONObject sound : sounds.values()) {
+                array.put(sound);
+            }
+            json.put("sounds", array);
+            for (String name : MAPS) {
+                JSONObject map = new JSONObject();
+                for (Map.Entry<String, Object> entry : maps.get(name).entrySet()) {
+                    map.put(entry.getKey(), entry.getValue());
+                }
+                json.put(name, map);
+            }
+            json.put("version", version);
+        } catch (JSONException e) {
+            throw new IllegalStateException(e);
+        }
+        return json;
+    }
+
+    private void validate(JSONObject op) throws JSONException {
+        switch (op.getString("op")) {
+            case "upsertSound":
+                op.getJSONObject("sound").getString("id");
+                break;
+            case "deleteSound":
+                op.getString("id");
+                break;
+            case "set":
+                requireMap(op.getString("map"));
+                op.getString("key");
+                if (!op.has("value")) {
+                    throw new JSONException("set without value");
+                }
+                break;
+            case "delete":
+                requireMap(op.getString("map"));
+                op.getString("key");
+                break;
+            default:
+                throw new JSONException("Unknown patch op: " + op.getString("op"));
+        }
+    }
+
+    private void apply(JSONObject op) throws JSONException {
+        switch (op.getString("op")) {
+            case "upsertSound": {
+                JSONObject sound = op.getJSONObject("sound");
+                String id = sound.getString("id");
+                if (sounds.put(id, sound) == null) {
+                    references.addEntry(id);
+                }
+                break;
+            }
+            case "deleteSound": {
+                String id = op.getString("id");
+                if (sounds.remove(id) != null) {
+                    references.removeEntry(id);
+                }
+                break;
+            }
+            case "set": {
+                String map = op.getString("map");
+                Object value = op.get("value");
+                Object previous = maps.get(map).put(op.getString("key"), value);
+                if (ASSIGNMENTS.equals(map)) {
+                    addUse(value);
+                    removeUse(previous);
+                }
+                break;
+            }
+            case "delete": {
+                String map = op.getString("map");
+                Object previous = maps.get(map).remove(op.getString("key"));
+                if (ASSIGNMENTS.equals(map)) {
+                    removeUse(previous);
+                }
+                break;
+            }
+            default:
+                break;
+        }
+    }
+
+    // Gives back everything the current contents hold
+    private void dropReferences() {
+        for (String id : sounds.keySet()) {
+            references.removeEntry(id);
+        }
+        for (Object value : maps.get(ASSIGNMENTS).values()) {
+            removeUse(value);
+        }
+    }
+
+    private void addUse(Object value) {
+        if (value instanceof String) {
+            references.addUse((String) value);
+        }
+    }
+
+    private void removeUse(Object value) {
+        if (value instanceof String) {
+            references.removeUse((String) value);
+        }
+    }
+
+    private Map<String, Object> requireMap(String name) throws JSONException {
+        Map<String, Object> map = maps.get(name);
+        if (map == null) {
+            throw new JSONException("Unknown map: " + name);
+        }
+        return map;
+    }
+}
@@ -0,0 +1,258 @@
+package com.przemek.footballtracker;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Keeps the {@link AudioStore} tidy. A clip nothing refers to any more (see
+ * {@link ClipReferences}) is collected once it has stayed unreferenced for a
+ * grace period, long enough for a fresh import to reach the library; a clip
+ * the page deleted goes as soon as its last reference does. Above the byte
+ * quota, clips that are in the library but on no button or player are
+ * evicted, least recently played first. Assigned clips are never evicted.
+ * Library sounds whose clip is no longer stored (say, evicted ones a stale
+ * page resynced back) are dropped by the next pass.
+ *
+ * Everything here is in-memory bookkeeping next to the store's own running
+ * totals, so {@link #getUsageJson()} parses nothing. Times are passed in by
+ * the caller.
+ */
+public class StorageManager {
+    public static final long DEFAULT_GRACE_MS = 60 * 1000;
+    /** Quota value meaning "no limit". */
+    public static final long NO_QUOTA = 0;
+
+    /** What one {@link #collect} pass deleted. */
+    public static final class Result {
+        public final List<String> collected = new ArrayList<>();
+        // Also dropped from the sound library, so the page needs a fresh copy
+        public final List<String> evicted = new ArrayList<>();
+        // Library sounds whose clip was already gone
+        public final List<String> pruned = new ArrayList<>();
+        public long freedBytes = 0;
+        // Until the next unreferenced clip is due, or -1 if none is waiting
+        public long nextDueMs = -1;
+
+        public boolean isEmpty() {
+            return collected.isEmpty() && !changedLibrary();
+        }
+
+        public boolean changedLibrary() {
+            return !evicted.isEmpty() || !pruned.isEmpty();
+        }
+    }
+
+    private final AudioStore store;
+    private final SoundLibrary library;
+    private final ClipReferences references;
+    private final long graceMs;
+    // clipId -> last played (or imported); clips never played sort first
+    private final Map<String, Long> lastUsed = new HashMap<>();
+    // clipId -> when a pass first found it unreferenced
+    private final Map<String, Long> unreferencedSince = new HashMap<>();
+    // Deleted by the page while something still referred to them
+    private final Set<String> released = new HashSet<>();
+    private long quotaBytes = NO_QUOTA;
+    private int collectedCount = 0;
+    private long collectedBytes = 0;
+    private int evictedCount = 0;
+    private long evictedBytes = 0;
+
+    public StorageManager(AudioStore store, SoundLibrary library, ClipReferences references, long graceMs) {
+        this.store = store;
+        this.library = library;
+        this.references = references;
+        this.graceMs = graceMs;
+    }
+
+    public synchronized long getQuotaBytes() {
+        return quotaBytes;
+    }
+
+    /** {@link #NO_QUOTA} (or anything below 1) turns eviction off. */
+    public synchronized void setQuotaBytes(long quotaBytes) {
+        this.quotaBytes = Math.max(NO_QUOTA, quotaBytes);
+    }
+
+    /** Marks the clip as just played, which moves it to the back of the eviction order. */
+    public synchronized void touch(String clipId, long nowMs) {
+        if (clipId != null && !clipId.isEmpty()) {
+            lastUsed.put(clipId, nowMs);
+        }
+    }
+
+    /**
+     * The page no longer wants the clip. Deletes it now if nothing refers to it
+     * and returns true; otherwise it goes on the first pass after its last
+     * reference does.
+     */
+    public synchronized boolean release(String clipId, long nowMs) {
+        if (clipId == null || store.get(clipId) == null) {
+            return false;
+        }
+        if (references.isReferenced(clipId)) {
+            released.add(clipId);
+            return false;
+        }
+        long freed = delete(clipId);
+        collectedCount++;
+        collectedBytes += freed;
+        return true;
+    }
+
+    /**
+     * One pass: deletes unreferenced clips that are due, drops library sounds
+     * whose clip is gone, then evicts unassigned clips while the store is over
+     * quota.
+     */
+    public synchronized Result collect(long nowMs) {
+        Result result = new Result();
+        Set<String> stored = new HashSet<>();
+        for (AudioStore.ClipInfo clip : store.list()) {
+            String id = clip.id;
+            stored.add(id);
+            if (references.isReferenced(id)) {
+                unreferencedSince.remove(id);
+                continue;
+            }
+            Long since = unreferencedSince.get(id);
+            if (since == null) {
+                since = nowMs;
+                unreferencedSince.put(id, since);
+            }
+            long due = since + graceMs - nowMs;
+            if (released.contains(id) || due <= 0) {
+                long freed = delete(id);
+                result.collected.add(id);
+                result.freedBytes += freed;
+                collectedCount++;
+                collectedBytes += freed;
+            } else if (result.nextDueMs < 0 || due < result.nextDueMs) {
+                result.nextDueMs = due;
+            }
+        }
+        forgetMissing(stored);
+        result.pruned.addAll(library.removeSoundsWithout(stored));
+
+        if (quotaBytes > NO_QUOTA && store.getStoredBytes() > quotaBytes) {
+            for (String id : evictionOrder()) {
+                if (store.getStoredBytes() <= quotaBytes) {
+                    break;
+                }
+                library.removeSound(id);
+                long freed = delete(id);
+                result.evicted.add(id);
+                result.freedBytes += freed;
+                evictedCount++;
+                evictedBytes += freed;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * {clips, bytes, quotaBytes, assigned, unassigned, unreferenced,
+     * collectedCount, collectedBytes, evictedCount, evictedBytes}; the last
+     * four are totals since launch.
+     */
+    public synchronized JSONObject getUsageJson() {
+        int assigned = 0;
+        int unassigned = 0;
+        int unreferenced = 0;
+        for (AudioStore.ClipInfo clip : store.list()) {
+            if (references.isAssigned(clip.id)) {
+                assigned++;
+            } else if (references.isReferenced(clip.id)) {
+                unassigned++;
+            } else {
+                unreferenced++;
+            }
+        }
+        JSONObject json = new JSONObject();
+        try {
+            json.put("clips", assigned + unassigned + unreferenced);
+            json.put("bytes", store.getStoredBytes());
+            json.put("quotaBytes", quotaBytes);
+            json.put("assigned", assigned);
+            json.put("unassigned", unassigned);
+            json.put("unreferenced", unreferenced);
+            json.put("collectedCount", collectedCount);
+            json.put("collectedBytes", collectedBytes);
+            json.put("evictedCount", evictedCount);
+            json.put("evictedBytes", evictedBytes);
+        } catch (JSONException e) {
+            throw new IllegalStateException(e);
+        }
+        return json;
+    }
+
+    /** Last-played times as {@code {"clipId": ms, ...}}, for the caller to keep. */
+    public synchronized JSONObject usageToJson() {
+        JSONObject json = new JSONObject();
+        try {
+            for (Map.Entry<String, Long> entry : lastUsed.entrySet()) {
+                json.put(entry.getKey(), (long) entry.getValue());
+            }
+        } catch (JSONException e) {
+            throw new IllegalStateException(e);
+        }
+        return json;
+    }
+
+    public synchronized void loadUsage(String json) throws JSONException {
+        lastUsed.clear();
+        if (json == null || json.isEmpty()) {
+            return;
+        }
+        JSONObject object = new JSONObject(json);
+        Iterator<String> ids = object.keys();
+        while (ids.hasNext()) {
+            String id = ids.next();
+            lastUsed.put(id, object.getLong(id));
+        }
+    }
+
+    // Unassigned library clips whose removal frees something, least recently played first;
+    // ties (never played) keep store order, i.e. oldest import first
+    private List<String> evictionOrder() {
+        List<String> candidates = new ArrayList<>();
+        for (AudioStore.ClipInfo clip : store.list()) {
+            if (references.isReferenced(clip.id) && !references.isAssigned(clip.id)
+                    && store.getExclusiveBytes(clip.id) > 0) {
+                candidates.add(clip.id);
+            }
+        }
+        Collections.sort(candidates, (a, b) -> Long.compare(lastUsedOf(a), lastUsedOf(b)));
+        return candidates;
+    }
+
+    private long lastUsedOf(String clipId) {
+        Long time = lastUsed.get(clipId);
+        return time != null ? time : 0;
+    }
+
+    private long delete(String clipId) {
+        long freed = store.getExclusiveBytes(clipId);
+        store.remove(clipId);
+        lastUsed.remove(clipId);
+        unreferencedSince.remove(clipId);
+        released.remove(clipId);
+        return freed;
+    }
+
+    // Bookkeeping for clips that left the store some other way (e.g. clear all)
+    private void forgetMissing(Set<String> stored) {
+        lastUsed.keySet().retainAll(stored);
+        unreferencedSince.keySet().retainAll(stored);
+        released.retainAll(stored);
+    }
+}
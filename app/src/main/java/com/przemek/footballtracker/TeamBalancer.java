@@ -0,0 +1,406 @@
+package com.przemek.footballtracker;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Splits players into two teams of given sizes so that their total ratings
+ * are as close as possible. Players can be fixed to a team (manual picks,
+ * goalkeepers) and pairs can be kept apart.
+ *
+ * A greedy split polished by swap local search gives a good answer in well
+ * under a millisecond; a branch-and-bound search then improves on it until
+ * it has proved the best split, found one within {@link #TOLERANCE} of
+ * perfect, or run out of time, so big rosters get the best split found in
+ * time rather than an exhaustive search.
+ * Pure Java, so it runs on any JVM.
+ */
+public final class TeamBalancer {
+    public static final int YELLOW = 0;
+    public static final int BLUE = 1;
+    public static final int FREE = -1;
+    public static final long DEFAULT_BUDGET_MS = 50;
+    public static final long MAX_BUDGET_MS = 1000;
+
+    // A player's contribution per match: goals, assists and points (win 1, draw 1/2)
+    static final double GOAL_WEIGHT = 1.0;
+    static final double ASSIST_WEIGHT = 0.7;
+    static final double POINT_WEIGHT = 1.5;
+    // Matches' worth of "average player" every rating starts from, so one lucky game doesn't count for much
+    static final double PRIOR_MATCHES = 5;
+    // How often the search looks at the clock, in nodes
+    private static final int CLOCK_INTERVAL = 1024;
+    private static final double EPSILON = 1e-9;
+    // Ratings are shown to two decimals; a split this close can't be told from a perfect one
+    static final double TOLERANCE = 0.005;
+
+    /** Career totals of one player, from {@link MatchHistory}. */
+    public static final class Stats {
+        public final int matches;
+        public final int wins;
+        public final int draws;
+        public final int goals;
+        public final int assists;
+
+        public Stats(int matches, int wins, int draws, int goals, int assists) {
+            this.matches = matches;
+            this.wins = wins;
+            this.draws = draws;
+            this.goals = goals;
+            this.assists = assists;
+        }
+
+        double contribution() {
+            return goals * GOAL_WEIGHT + assists * ASSIST_WEIGHT + (wins + draws / 2.0) * POINT_WEIGHT;
+        }
+    }
+
+    /** The split: {@code team[i]} is YELLOW or BLUE for player i. */
+    public static final class Result {
+        public final int[] team;
+        public final double yellowRating;
+        public final double blueRating;
+        public final boolean constraintsMet;
+        // True when no noticeably better split exists (see TOLERANCE)
+        public final boolean optimal;
+        public final long elapsedNanos;
+
+        Result(int[] team, double yellowRating, double blueRating, boolean constraintsMet, boolean optimal,
+               long elapsedNanos) {
+            this.team = team;
+            this.yellowRating = yellowRating;
+            this.blueRating = blueRating;
+            this.constraintsMet = constraintsMet;
+            this.optimal = optimal;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        /** The balance score: how far apart the teams' total ratings are; 0 is perfect. */
+        public double getDifference() {
+            return Math.abs(yellowRating - blueRating);
+        }
+
+        public JSONObject toJson(List<String> names) throws JSONException {
+            JSONArray yellow = new JSONArray();
+            JSONArray blue = new JSONArray();
+            for (int i = 0; i < team.length; i++) {
+                (team[i] == YELLOW ? yellow : blue).put(names.get(i));
+            }
+            JSONObject json = new JSONObject();
+            json.put("yellow", yellow);
+            json.put("blue", blue);
+            json.put("yellowRating", round(yellowRating));
+            json.put("blueRating", round(blueRating));
+            json.put("difference", round(getDifference()));
+            json.put("constraintsMet", constraintsMet);
+            json.put("optimal", optimal);
+            json.put("elapsedMs", round(elapsedNanos / 1e6));
+            return json;
+        }
+
+        private static double round(double value) {
+            return Math.round(value * 100) / 100.0;
+        }
+    }
+
+    private final double[] ratings;
+    private final int[] fixed;
+    private final int yellowSize;
+    private final int blueSize;
+    // apart[i] = players that mustn't be on i's team
+    private final int[][] apart;
+    // Outweighs any rating difference, so a violated pair is never preferred
+    private final double violationPenalty;
+
+    private long deadline;
+    private long nodes;
+    private boolean timedOut;
+    private int[] best;
+    private double bestDifference;
+
+    /**
+     * {@code fixed[i]} is YELLOW, BLUE or FREE; {@code apartPairs} holds index
+     * pairs. Team sizes must add up to the number of players.
+     */
+    public TeamBalancer(double[] ratings, int[] fixed, List<int[]> apartPairs, int yellowSize, int blueSize) {
+        int n = ratings.length;
+        if (fixed.length != n || yellowSize < 0 || blueSize < 0 || yellowSize + blueSize != n) {
+            throw new IllegalArgumentException("Team sizes " + yellowSize + "+" + blueSize + " for " + n + " players");
+        }
+        int fixedYellow = 0;
+        int fixedBlue = 0;
+        for (int side : fixed) {
+            fixedYellow += side == YELLOW ? 1 : 0;
+            fixedBlue += side == BLUE ? 1 : 0;
+        }
+        if (fixedYellow > yellowSize || fixedBlue > blueSize) {
+            throw new IllegalArgumentException("More players fixed to a team than it has places");
+        }
+        this.ratings = ratings.clone();
+        this.fixed = fixed.clone();
+        this.yellowSize = yellowSize;
+        this.blueSize = blueSize;
+
+        List<List<Integer>> partners = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            partners.add(new ArrayList<>());
+        }
+        for (int[] pair : apartPairs) {
+            if (pair[0] != pair[1]) {
+                partners.get(pair[0]).add(pair[1]);
+                partners.get(pair[1]).add(pair[0]);
+            }
+        }
+        apart = new int[n][];
+        double total = 0;
+        for (int i = 0; i < n; i++) {
+            apart[i] = partners.get(i).stream().mapToInt(Integer::intValue).toArray();
+            total += Math.abs(ratings[i]);
+        }
+        violationPenalty = total + 1;
+    }
+
+    /**
+     * Ratings for players from their history: contribution per match, pulled
+     * towards the average of everyone with matches. Players without history
+     * (null) get that average.
+     */
+    public static double[] ratings(Stats[] stats) {
+        double contribution = 0;
+        int matches = 0;
+        for (Stats s : stats) {
+            if (s != null) {
+                contribution += s.contribution();
+                matches += s.matches;
+            }
+        }
+        double average = matches > 0 ? contribution / matches : 1.0;
+        double[] ratings = new double[stats.length];
+        for (int i = 0; i < stats.length; i++) {
+            Stats s = stats[i];
+            ratings[i] = s == null ? average
+                    : (s.contribution() + PRIOR_MATCHES * average) / (s.matches + PRIOR_MATCHES);
+        }
+        return ratings;
+    }
+
+    /** The best split found within {@code budgetMs}; {@code seed} breaks ties between equal splits. */
+    public Result balance(long budgetMs, long seed) {
+        long start = System.nanoTime();
+        deadline = start + Math.max(1, Math.min(budgetMs, MAX_BUDGET_MS)) * 1_000_000L;
+        int n = ratings.length;
+
+        int[] initial = greedy(new Random(seed));
+        improveBySwaps(initial);
+        best = initial;
+        bestDifference = cost(initial);
+
+        boolean optimal = bestDifference < TOLERANCE;
+        if (!optimal) {
+            optimal = search();
+        }
+        double yellow = 0;
+        double blue = 0;
+        for (int i = 0; i < n; i++) {
+            if (best[i] == YELLOW) {
+                yellow += ratings[i];
+            } else {
+                blue += ratings[i];
+            }
+        }
+        boolean constraintsMet = violations(best) == 0;
+        return new Result(best, yellow, blue, constraintsMet, optimal && constraintsMet, System.nanoTime() - start);
+    }
+
+    // Strongest free players first, each to the weaker team with room that doesn't break a pair
+    private int[] greedy(Random random) {
+        int n = ratings.length;
+        int[] team = new int[n];
+        int[] size = new int[2];
+        double[] sum = new double[2];
+        for (int i = 0; i < n; i++) {
+            team[i] = fixed[i];
+            if (fixed[i] != FREE) {
+                size[fixed[i]]++;
+                sum[fixed[i]] += ratings[i];
+            }
+        }
+        for (int i : freePlayersByRating(random)) {
+            int choice = sum[YELLOW] <= sum[BLUE] ? YELLOW : BLUE;
+            if (!fits(team, size, i, choice) && fits(team, size, i, 1 - choice)) {
+                choice = 1 - choice;
+            }
+            // No room without breaking a pair: room wins, the search may still fix it
+            if (size[choice] >= capacity(choice)) {
+                choice = 1 - choice;
+            }
+            team[i] = choice;
+            size[choice]++;
+            sum[choice] += ratings[i];
+        }
+        return team;
+    }
+
+    // Steepest descent over swaps of two free players on opposite teams
+    private void improveBySwaps(int[] team) {
+        double current = cost(team);
+        while (current > TOLERANCE && System.nanoTime() < deadline) {
+            int bestA = -1;
+            int bestB = -1;
+            double bestCost = current;
+            for (int a = 0; a < team.length; a++) {
+                if (fixed[a] != FREE || team[a] != YELLOW) {
+                    continue;
+                }
+                for (int b = 0; b < team.length; b++) {
+                    if (fixed[b] != FREE || team[b] != BLUE) {
+                        continue;
+                    }
+                    team[a] = BLUE;
+                    team[b] = YELLOW;
+                    double swapped = cost(team);
+                    team[a] = YELLOW;
+                    team[b] = BLUE;
+                    if (swapped < bestCost - EPSILON) {
+                        bestCost = swapped;
+                        bestA = a;
+                        bestB = b;
+                    }
+                }
+            }
+            if (bestA < 0) {
+                return;
+            }
+            team[bestA] = BLUE;
+            team[bestB] = YELLOW;
+            current = bestCost;
+        }
+    }
+
+    // Branch and bound over the free players; true if it ran to completion
+    private boolean search() {
+        int n = ratings.length;
+        int[] team = new int[n];
+        int[] size = new int[2];
+        double[] sum = new double[2];
+        for (int i = 0; i < n; i++) {
+            team[i] = fixed[i];
+            if (fixed[i] != FREE) {
+                size[fixed[i]]++;
+                sum[fixed[i]] += ratings[i];
+            }
+        }
+        int[] order = freePlayersByRating(null);
+        double[] remaining = new double[order.length + 1];
+        for (int k = order.length - 1; k >= 0; k--) {
+            remaining[k] = remaining[k + 1] + ratings[order[k]];
+        }
+        nodes = 0;
+        timedOut = false;
+        // With nothing fixed and equal teams, the mirror image of every split is the same split
+        boolean symmetric = size[YELLOW] == 0 && size[BLUE] == 0 && yellowSize == blueSize;
+        branch(order, 0, team, size, sum, remaining, symmetric);
+        return !timedOut;
+    }
+
+    private void branch(int[] order, int k, int[] team, int[] size, double[] sum, double[] remaining,
+                        boolean symmetric) {
+        if (timedOut || bestDifference < TOLERANCE) {
+            return;
+        }
+        if (++nodes % CLOCK_INTERVAL == 0 && System.nanoTime() > deadline) {
+            timedOut = true;
+            return;
+        }
+        double gap = Math.abs(sum[YELLOW] - sum[BLUE]);
+        if (k == order.length) {
+            if (gap < bestDifference - EPSILON) {
+                bestDifference = gap;
+                best = team.clone();
+            }
+            return;
+        }
+        // Even if everyone left joined the weaker team, the gap can't close more than this
+        if (gap - remaining[k] >= bestDifference - EPSILON) {
+            return;
+        }
+        int player = order[k];
+        int first = sum[YELLOW] <= sum[BLUE] ? YELLOW : BLUE;
+        for (int t = 0; t < 2; t++) {
+            int side = t == 0 ? first : 1 - first;
+            if ((symmetric && k == 0 && side != YELLOW) || size[side] >= capacity(side) || conflicts(team, player, side)) {
+                continue;
+            }
+            team[player] = side;
+            size[side]++;
+            sum[side] += ratings[player];
+            branch(order, k + 1, team, size, sum, remaining, symmetric);
+            sum[side] -= ratings[player];
+            size[side]--;
+            team[player] = FREE;
+        }
+    }
+
+    // Free players, strongest first; a shuffle first (if given) so equal ratings come out in any order
+    private int[] freePlayersByRating(Random random) {
+        List<Integer> free = new ArrayList<>();
+        for (int i = 0; i < ratings.length; i++) {
+            if (fixed[i] == FREE) {
+                free.add(i);
+            }
+        }
+        if (random != null) {
+            Collections.shuffle(free, random);
+        }
+        free.sort((a, b) -> Double.compare(ratings[b], ratings[a]));
+        return free.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    private double cost(int[] team) {
+        double yellow = 0;
+        double blue = 0;
+        for (int i = 0; i < team.length; i++) {
+            if (team[i] == YELLOW) {
+                yellow += ratings[i];
+            } else {
+                blue += ratings[i];
+            }
+        }
+        return Math.abs(yellow - blue) + violations(team) * violationPenalty;
+    }
+
+    private int violations(int[] team) {
+        int count = 0;
+        for (int i = 0; i < team.length; i++) {
+            for (int j : apart[i]) {
+                if (j > i && team[i] == team[j]) {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    private boolean fits(int[] team, int[] size, int player, int side) {
+        return size[side] < capacity(side) && !conflicts(team, player, side);
+    }
+
+    private boolean conflicts(int[] team, int player, int side) {
+        for (int other : apart[player]) {
+            if (team[other] == side) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int capacity(int side) {
+        return side == YELLOW ? yellowSize : blueSize;
+    }
+}
@@ -0,0 +1,114 @@
+package com.przemek.footballtracker;
+
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Minimal reader and writer for 16-bit PCM WAV files. Used when a device has
+ * no AAC encoder for processed imports, and to feed sample files to the
+ * import pipeline in JVM tests.
+ */
+public final class WavFile {
+    private static final int HEADER_SIZE = 44;
+
+    private WavFile() {
+    }
+
+    public static void write(PcmCache.Clip clip, OutputStream out) throws IOException {
+        int byteRate = clip.sampleRate * clip.channelCount * 2;
+        byte[] header = new byte[HEADER_SIZE];
+        ascii(header, 0, "RIFF");
+        int32(header, 4, 36 + clip.pcm.length);
+        ascii(header, 8, "WAVE");
+        ascii(header, 12, "fmt ");
+        int32(header, 16, 16);
+        int16(header, 20, 1); // PCM
+        int16(header, 22, clip.channelCount);
+        int32(header, 24, clip.sampleRate);
+        int32(header, 28, byteRate);
+        int16(header, 32, clip.channelCount * 2);
+        int16(header, 34, 16);
+        ascii(header, 36, "data");
+        int32(header, 40, clip.pcm.length);
+        out.write(header);
+        out.write(clip.pcm);
+    }
+
+    /** Reads a PCM16 WAV, skipping chunks it doesn't need (LIST, fact, ...). */
+    public static PcmCache.Clip read(InputStream in) throws IOException {
+        DataInputStream data = new DataInputStream(in);
+        byte[] riff = new byte[12];
+        data.readFully(riff);
+        if (!"RIFF".equals(new String(riff, 0, 4, "US-ASCII")) || !"WAVE".equals(new String(riff, 8, 4, "US-ASCII"))) {
+            throw new IOException("Not a WAV file");
+        }
+
+        int channels = 0;
+        int sampleRate = 0;
+        byte[] chunkHeader = new byte[8];
+        while (true) {
+            try {
+                data.readFully(chunkHeader);
+            } catch (EOFException e) {
+                throw new IOException("WAV file has no data chunk");
+            }
+            String id = new String(chunkHeader, 0, 4, "US-ASCII");
+            int size = readInt32(chunkHeader, 4);
+            if (size < 0) {
+                throw new IOException("Corrupt WAV chunk: " + id);
+            }
+
+            if ("fmt ".equals(id)) {
+                byte[] fmt = new byte[size];
+                data.readFully(fmt);
+                int format = readInt16(fmt, 0);
+                channels = readInt16(fmt, 2);
+                sampleRate = readInt32(fmt, 4);
+                int bits = readInt16(fmt, 14);
+                if (format != 1 || bits != 16) {
+                    throw new IOException("Only 16-bit PCM WAV is supported");
+                }
+            } else if ("data".equals(id)) {
+                if (channels == 0) {
+                    throw new IOException("WAV data before format");
+                }
+                byte[] pcm = new byte[size - size % (2 * channels)];
+                data.readFully(pcm);
+                return new PcmCache.Clip(pcm, sampleRate, channels);
+            } else {
+                data.skipBytes(size);
+            }
+            // Chunks are word-aligned
+            if (size % 2 == 1) {
+                data.skipBytes(1);
+            }
+        }
+    }
+
+    private static void ascii(byte[] buffer, int offset, String value) {
+        for (int i = 0; i < 4; i++) {
+            buffer[offset + i] = (byte) value.charAt(i);
+        }
+    }
+
+    private static void int16(byte[] buffer, int offset, int value) {
+        buffer[offset] = (byte) value;
+        buffer[offset + 1] = (byte) (value >> 8);
+    }
+
+    private static void int32(byte[] buffer, int offset, int value) {
+        int16(buffer, offset, value);
+        int16(buffer, offset + 2, value >> 16);
+    }
+
+    private static int readInt16(byte[] buffer, int offset) {
+        return (buffer[offset] & 0xFF) | (buffer[offset + 1] & 0xFF) << 8;
+    }
+
+    private static int readInt32(byte[] buffer, int offset) {
+        return readInt16(buffer, offset) | readInt16(buffer, offset + 2) << 16;
+    }
+}
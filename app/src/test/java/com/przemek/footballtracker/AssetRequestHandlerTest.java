@@ -0,0 +1,76 @@
+package com.przemek.footballtracker;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class AssetRequestHandlerTest {
+    private final Map<String, String> assets = new HashMap<>();
+    private int opens = 0;
+    private AssetRequestHandler handler;
+
+    @Before
+    public void setUp() {
+        assets.put("app.js", "console.log('hi');");
+        handler = new AssetRequestHandler(path -> {
+            opens++;
+            String content = assets.get(path);
+            if (content == null) {
+                throw new FileNotFoundException(path);
+            }
+            return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+        }, "7-1700000000000");
+    }
+
+    @Test
+    public void servesAssetWithImmutableCachingAndEtag() throws IOException {
+        AudioRequestHandler.Response response = handler.handle("app.js");
+
+        assertEquals(200, response.statusCode);
+        assertEquals("application/javascript", response.mimeType);
+        assertEquals("\"7-1700000000000\"", response.headers.get("ETag"));
+        assertTrue(response.headers.get("Cache-Control").contains("immutable"));
+        assertEquals("console.log('hi');", read(response.body));
+    }
+
+    @Test
+    public void prewarmedAsset_isServedFromMemoryOnce() throws IOException {
+        handler.prewarm("app.js");
+        assertTrue(handler.isPrewarmed("app.js"));
+        assertEquals(1, opens);
+
+        AudioRequestHandler.Response response = handler.handle("app.js");
+        assertEquals("console.log('hi');", read(response.body));
+        assertEquals("18", response.headers.get("Content-Length"));
+        assertEquals(1, opens);
+        assertFalse(handler.isPrewarmed("app.js"));
+    }
+
+    @Test
+    public void missingOrEscapingPaths_are404() throws IOException {
+        assertEquals(404, handler.handle("nope.js").statusCode);
+        assertEquals(404, handler.handle("../secrets.xml").statusCode);
+        assertEquals(404, handler.handle("/app.js").statusCode);
+        assertEquals(404, handler.handle("").statusCode);
+    }
+
+    private static String read(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[256];
+        int n;
+        while ((n = in.read(buffer)) != -1) {
+            out.write(buffer, 0, n);
+        }
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+}
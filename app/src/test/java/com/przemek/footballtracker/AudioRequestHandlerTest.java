@@ -0,0 +1,114 @@
+package com.przemek.footballtracker;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class AudioRequestHandlerTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private byte[] clipBytes;
+    private AudioRequestHandler handler;
+
+    @Before
+    public void setUp() throws IOException {
+        clipBytes = new byte[100_000];
+        for (int i = 0; i < clipBytes.length; i++) {
+            clipBytes[i] = (byte) (i * 31 + 7);
+        }
+        AudioStore store = new AudioStore(folder.newFolder("audio"));
+        store.importClip("clip_1", "goal.mp3", "audio/mpeg", new ByteArrayInputStream(clipBytes));
+        handler = new AudioRequestHandler(store);
+    }
+
+    @Test
+    public void fullRequest_returnsExactBytes() throws IOException {
+        AudioRequestHandler.Response response = handler.handle("clip_1", null);
+
+        assertEquals(200, response.statusCode);
+        assertEquals("audio/mpeg", response.mimeType);
+        assertEquals("100000", response.headers.get("Content-Length"));
+        assertEquals("bytes", response.headers.get("Accept-Ranges"));
+        assertArrayEquals(clipBytes, readAll(response.body));
+    }
+
+    @Test
+    public void closedRange_returnsSlice() throws IOException {
+        AudioRequestHandler.Response response = handler.handle("clip_1", "bytes=1000-1999");
+
+        assertEquals(206, response.statusCode);
+        assertEquals("bytes 1000-1999/100000", response.headers.get("Content-Range"));
+        assertEquals("1000", response.headers.get("Content-Length"));
+        assertArrayEquals(Arrays.copyOfRange(clipBytes, 1000, 2000), readAll(response.body));
+    }
+
+    @Test
+    public void openEndedRange_runsToEndOfClip() throws IOException {
+        AudioRequestHandler.Response response = handler.handle("clip_1", "bytes=99990-");
+
+        assertEquals(206, response.statusCode);
+        assertEquals("bytes 99990-99999/100000", response.headers.get("Content-Range"));
+        assertArrayEquals(Arrays.copyOfRange(clipBytes, 99990, 100000), readAll(response.body));
+    }
+
+    @Test
+    public void suffixRange_returnsLastBytes() throws IOException {
+        AudioRequestHandler.Response response = handler.handle("clip_1", "bytes=-500");
+
+        assertEquals(206, response.statusCode);
+        assertEquals("bytes 99500-99999/100000", response.headers.get("Content-Range"));
+        assertArrayEquals(Arrays.copyOfRange(clipBytes, 99500, 100000), readAll(response.body));
+    }
+
+    @Test
+    public void rangePastEndOfClip_isClamped() throws IOException {
+        AudioRequestHandler.Response response = handler.handle("clip_1", "bytes=99000-200000");
+
+        assertEquals(206, response.statusCode);
+        assertEquals("bytes 99000-99999/100000", response.headers.get("Content-Range"));
+        assertEquals(1000, readAll(response.body).length);
+    }
+
+    @Test
+    public void unsatisfiableRange_returns416() throws IOException {
+        AudioRequestHandler.Response response = handler.handle("clip_1", "bytes=100000-");
+
+        assertEquals(416, response.statusCode);
+        assertEquals("bytes */100000", response.headers.get("Content-Range"));
+    }
+
+    @Test
+    public void malformedRange_fallsBackToFullClip() throws IOException {
+        AudioRequestHandler.Response response = handler.handle("clip_1", "bytes=500-100");
+
+        assertEquals(200, response.statusCode);
+        assertArrayEquals(clipBytes, readAll(response.body));
+    }
+
+    @Test
+    public void unknownClip_returns404() throws IOException {
+        assertEquals(404, handler.handle("missing", null).statusCode);
+    }
+
+    private static byte[] readAll(InputStream in) throws IOException {
+        try (InputStream stream = in) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            int read;
+            while ((read = stream.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+            return out.toByteArray();
+        }
+    }
+}
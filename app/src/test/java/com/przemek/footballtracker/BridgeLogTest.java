@@ -0,0 +1,77 @@
+package com.przemek.footballtracker;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+
+import static org.junit.Assert.*;
+
+public class BridgeLogTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File dir;
+
+    @Before
+    public void setUp() {
+        dir = folder.getRoot();
+    }
+
+    @Test
+    public void entriesBelowLevel_areDropped() throws IOException {
+        BridgeLog log = new BridgeLog(dir, 64 * 1024, 100, BridgeLog.WARN);
+
+        assertFalse(log.log(BridgeLog.DEBUG, "noise", 0, 0));
+        assertFalse(log.log(BridgeLog.INFO, "noise", 0, 0));
+        assertTrue(log.log(BridgeLog.ERROR, "boom", 0, 0));
+
+        String all = log.readAll();
+        assertFalse(all.contains("noise"));
+        assertTrue(all.contains(" E boom"));
+    }
+
+    @Test
+    public void rateLimit_dropsBurstAndReportsIt() throws IOException {
+        BridgeLog log = new BridgeLog(dir, 64 * 1024, 10, BridgeLog.DEBUG);
+
+        int kept = 0;
+        for (int i = 0; i < 100; i++) {
+            if (log.log(BridgeLog.DEBUG, "entry " + i, 0, 1000)) {
+                kept++;
+            }
+        }
+        assertEquals(20, kept);
+        // Warnings are never rate limited
+        assertTrue(log.log(BridgeLog.WARN, "still here", 0, 1000));
+
+        // A second later there are tokens again and the drop count is written first
+        assertTrue(log.log(BridgeLog.DEBUG, "after", 0, 2000));
+        assertTrue(log.readAll().contains("80 entries dropped by rate limit"));
+    }
+
+    @Test
+    public void ring_staysWithinTwoSegments() throws IOException {
+        BridgeLog log = new BridgeLog(dir, 1024, 1_000_000, BridgeLog.DEBUG);
+        for (int i = 0; i < 500; i++) {
+            log.log(BridgeLog.INFO, "message number " + i, 0, i);
+        }
+        log.flush();
+
+        assertTrue(new File(dir, BridgeLog.LOG_FILE).length() <= 1024);
+        assertTrue(new File(dir, BridgeLog.LOG_FILE + ".1").length() <= 1024);
+        String all = log.readAll();
+        assertTrue(all.contains("message number 499"));
+        assertFalse(all.contains("message number 0\n"));
+    }
+
+    @Test
+    public void parseLevel_fallsBackOnUnknownNames() {
+        assertEquals(BridgeLog.WARN, BridgeLog.parseLevel("Warn", BridgeLog.DEBUG));
+        assertEquals(BridgeLog.INFO, BridgeLog.parseLevel("loud", BridgeLog.INFO));
+        assertEquals("error", BridgeLog.levelName(BridgeLog.ERROR));
+    }
+}
@@ -0,0 +1,34 @@
+package com.przemek.footballtracker;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class BridgeMessagesTest {
+    @Test
+    public void envelope_carriesThePayloadAsJson() throws JSONException {
+        JSONObject clip = new JSONObject().put("name", "Bo's \"chant\" \\ remix\n .mp3");
+        JSONObject message = new JSONObject(BridgeMessages.envelope(7, "clipImported", clip.toString()));
+
+        assertEquals(BridgeMessages.VERSION, message.getInt("v"));
+        assertEquals(7, message.getLong("seq"));
+        assertEquals("clipImported", message.getString("type"));
+        assertEquals(clip.getString("name"), message.getJSONObject("payload").getString("name"));
+    }
+
+    @Test
+    public void fallbackScript_passesTheEnvelopeAsALiteral() {
+        String envelope = BridgeMessages.envelope(1, "library", "{\"sounds\":[]}");
+        assertTrue(BridgeMessages.fallbackScript(envelope).contains("receiveNativeMessage(" + envelope + ")"));
+    }
+
+    @Test
+    public void parseAck_ignoresAnythingElse() {
+        assertEquals(42, BridgeMessages.parseAck("{\"ack\":42}"));
+        assertEquals(-1, BridgeMessages.parseAck("{\"type\":\"log\"}"));
+        assertEquals(-1, BridgeMessages.parseAck("not json"));
+        assertEquals(-1, BridgeMessages.parseAck(null));
+    }
+}
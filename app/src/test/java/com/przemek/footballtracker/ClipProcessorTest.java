@@ -0,0 +1,146 @@
+package com.przemek.footballtracker;
+
+import org.json.JSONException;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import static org.junit.Assert.*;
+
+public class ClipProcessorTest {
+    private static final int RATE = 8000;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void longSong_isCutToTheWindowAfterLeadingSilence() throws IOException {
+        // 1 s of silence, then a 60 s quiet tone, stereo
+        File song = sampleFile(concat(silence(1000, 2), tone(60_000, 2, 0.05)), 2);
+
+        PcmCache.Clip processed = ClipProcessor.process(readWav(song), ClipProcessor.Options.defaults());
+
+        assertEquals(15_000, processed.getDurationMs());
+        assertEquals(2, processed.channelCount);
+        // Starts right where the music does, with only the short fade-in
+        short[] samples = ClipProcessor.toSamples(processed.pcm);
+        assertNotEquals(0, samples[2 * RATE / 50]);
+        // Cut mid-song, so it fades out to silence
+        assertEquals(0, samples[samples.length - 1]);
+        assertTrue(processed.pcm.length * 4 < song.length());
+    }
+
+    @Test
+    public void normalize_bringsQuietAndLoudClipsToTheSameLevel() throws IOException {
+        ClipProcessor.Options options = ClipProcessor.Options.defaults();
+        PcmCache.Clip quiet = ClipProcessor.process(readWav(sampleFile(tone(3000, 1, 0.05), 1)), options);
+        PcmCache.Clip loud = ClipProcessor.process(readWav(sampleFile(tone(3000, 1, 0.5), 1)), options);
+
+        double quietDb = ClipProcessor.levelDbfs(ClipProcessor.toSamples(quiet.pcm));
+        double loudDb = ClipProcessor.levelDbfs(ClipProcessor.toSamples(loud.pcm));
+        assertEquals(-16.0, quietDb, 0.5);
+        assertEquals(quietDb, loudDb, 0.5);
+    }
+
+    @Test
+    public void gain_isLimitedByPeakCeiling() {
+        // A single spike in near silence: the RMS target would clip it
+        short[] samples = new short[RATE];
+        samples[100] = 16384;
+        double gain = ClipProcessor.gainFor(samples, ClipProcessor.Options.defaults());
+
+        assertTrue(samples[100] * gain <= 32768 * Math.pow(10, -1.0 / 20) + 1);
+    }
+
+    @Test
+    public void shortClip_keepsItsLengthWithoutFadeOut() throws IOException {
+        ClipProcessor.Options options = new ClipProcessor.Options(true, 0, 15_000, false, -16, -1);
+        PcmCache.Clip processed = ClipProcessor.process(readWav(sampleFile(tone(2000, 1, 0.3), 1)), options);
+
+        assertEquals(2000, processed.getDurationMs());
+        short[] samples = ClipProcessor.toSamples(processed.pcm);
+        // Not normalized, and the ending the clip came with is left alone
+        assertEquals(Math.round(0.3 * 32767 * Math.cos(2 * Math.PI * 440 * (RATE * 2 - 1) / RATE)),
+                samples[samples.length - 1], 1);
+    }
+
+    @Test
+    public void options_roundTripAndClampOutOfRangeValues() throws JSONException {
+        ClipProcessor.Options options = ClipProcessor.Options.fromJson(
+                "{\"startMs\":30000,\"windowMs\":999999,\"targetRmsDbfs\":-20}");
+
+        assertTrue(options.enabled);
+        assertEquals(30_000, options.startMs);
+        assertEquals(ClipProcessor.Options.MAX_WINDOW_MS, options.windowMs);
+
+        ClipProcessor.Options copy = ClipProcessor.Options.fromJson(options.toJson().toString());
+        assertEquals(-20.0, copy.targetRmsDbfs, 0);
+        assertEquals(-1.0, copy.peakCeilingDbfs, 0);
+        assertEquals(15_000, ClipProcessor.Options.fromJson(null).windowMs);
+    }
+
+    @Test
+    public void wav_roundTripsAndRejectsOtherFormats() throws IOException {
+        PcmCache.Clip clip = new PcmCache.Clip(ClipProcessor.toBytes(tone(100, 2, 0.2)), RATE, 2);
+        File file = folder.newFile("clip.wav");
+        try (OutputStream out = new FileOutputStream(file)) {
+            WavFile.write(clip, out);
+        }
+
+        PcmCache.Clip read = readWav(file);
+        assertArrayEquals(clip.pcm, read.pcm);
+        assertEquals(RATE, read.sampleRate);
+
+        try (InputStream in = new ByteArrayInputStream("ID3 not a wav file".getBytes("US-ASCII"))) {
+            WavFile.read(in);
+            fail("Expected an IOException");
+        } catch (IOException expected) {
+            // Expected
+        }
+    }
+
+    private File sampleFile(short[] samples, int channels) throws IOException {
+        File file = folder.newFile();
+        try (OutputStream out = new FileOutputStream(file)) {
+            WavFile.write(new PcmCache.Clip(ClipProcessor.toBytes(samples), RATE, channels), out);
+        }
+        return file;
+    }
+
+    private static PcmCache.Clip readWav(File file) throws IOException {
+        try (InputStream in = new FileInputStream(file)) {
+            return WavFile.read(in);
+        }
+    }
+
+    private static short[] tone(long ms, int channels, double amplitude) {
+        int frames = (int) (ms * RATE / 1000);
+        short[] samples = new short[frames * channels];
+        for (int frame = 0; frame < frames; frame++) {
+            short value = (short) Math.round(amplitude * 32767 * Math.cos(2 * Math.PI * 440 * frame / RATE));
+            for (int c = 0; c < channels; c++) {
+                samples[frame * channels + c] = value;
+            }
+        }
+        return samples;
+    }
+
+    private static short[] silence(long ms, int channels) {
+        return new short[(int) (ms * RATE / 1000) * channels];
+    }
+
+    private static short[] concat(short[] a, short[] b) {
+        short[] joined = new short[a.length + b.length];
+        System.arraycopy(a, 0, joined, 0, a.length);
+        System.arraycopy(b, 0, joined, a.length, b.length);
+        return joined;
+    }
+}
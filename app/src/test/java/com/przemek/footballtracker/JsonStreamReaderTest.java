@@ -0,0 +1,48 @@
+package com.przemek.footballtracker;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+
+import static org.junit.Assert.*;
+
+public class JsonStreamReaderTest {
+    @Test
+    public void readsValuesAndUnescapesStrings() throws IOException {
+        JsonStreamReader reader = new JsonStreamReader(new StringReader(
+                "{\"a\": [1, 2.5, true, null], \"b\": \"x\\\"y\\\\z\\n\\u00e9\", \"c\": {\"d\": -3}}"));
+
+        JSONObject value = (JSONObject) reader.readValue();
+        JSONArray a = value.getJSONArray("a");
+        assertEquals(1, a.getInt(0));
+        assertEquals(2.5, a.getDouble(1), 0);
+        assertTrue(a.getBoolean(2));
+        assertTrue(a.isNull(3));
+        assertEquals("x\"y\\z\né", value.getString("b"));
+        assertEquals(-3, value.getJSONObject("c").getInt("d"));
+        assertEquals(JsonStreamReader.Token.END_DOCUMENT, reader.peek());
+    }
+
+    @Test
+    public void partlyReadStringsAndSkippedValues_leaveTheReaderInPlace() throws IOException {
+        JsonStreamReader reader = new JsonStreamReader(new StringReader(
+                "[\"abc\\\"def\", {\"skip\": [1, {\"x\": \"]}\"}]}, \"last\"]"));
+
+        reader.beginArray();
+        Reader first = reader.nextStringReader();
+        assertEquals('a', first.read());
+        reader.skipValue();
+        assertEquals("last", reader.nextString());
+        assertFalse(reader.hasNext());
+        reader.endArray();
+    }
+
+    @Test(expected = IOException.class)
+    public void truncatedString_fails() throws IOException {
+        new JsonStreamReader(new StringReader("{\"name\": \"never closed")).readValue();
+    }
+}
@@ -0,0 +1,156 @@
+package com.przemek.footballtracker;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FilterReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class LegacySoundsMigrationTest {
+    private static final long MB = 1024 * 1024;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    // The unit test JVM runs with a 64 MB heap (app/build.gradle.kts), so this
+    // only passes if neither the document nor the clips are ever held whole.
+    @Test
+    public void hundredMegabyteLibrary_migratesWithinASmallHeap() throws IOException, JSONException {
+        int clipCount = 50;
+        int clipBytes = (int) (1.5 * MB); // 2 MB each as base64
+        File blob = folder.newFile("saved_sounds.json");
+        writeLegacyLibrary(blob, clipCount, clipBytes);
+        assertTrue(blob.length() > 100 * MB);
+
+        AudioStore store = new AudioStore(folder.newFolder("audio"));
+        LegacySoundsMigration migration = new LegacySoundsMigration(store, folder.newFolder("migration"));
+        JSONObject library;
+        try (Reader in = new InputStreamReader(new FileInputStream(blob), StandardCharsets.UTF_8)) {
+            library = migration.run(in);
+        }
+
+        JSONArray sounds = library.getJSONArray("sounds");
+        assertEquals(clipCount, sounds.length());
+        assertEquals(clipCount, migration.getMigratedCount());
+        for (int i = 0; i < clipCount; i++) {
+            JSONObject sound = sounds.getJSONObject(i);
+            assertFalse(sound.has("data"));
+            assertEquals("clip_" + i, sound.getString("id"));
+            assertEquals(clipBytes, sound.getLong("size"));
+            assertEquals(clipBytes, store.getClipFile("clip_" + i).length());
+        }
+        assertEquals("clip_3", library.getJSONObject("soundAssignments").getString("yellow-team"));
+        assertEquals(clipCount, store.getClipCount());
+    }
+
+    @Test
+    public void killedMigration_resumesAfterTheLastFinishedClip() throws IOException, JSONException {
+        File blob = folder.newFile("saved_sounds.json");
+        writeLegacyLibrary(blob, 6, 100_000);
+        File audioDir = folder.newFolder("audio");
+        File workDir = folder.newFolder("migration");
+
+        // The process dies a little over half way through the document
+        try (Reader in = new FailingReader(fileReader(blob), blob.length() / 2 + 1000)) {
+            new LegacySoundsMigration(new AudioStore(audioDir), workDir).run(in);
+            fail("Expected the read to fail");
+        } catch (IOException expected) {
+            // Simulated kill
+        }
+
+        // Fresh process: the store index was never saved
+        AudioStore store = new AudioStore(audioDir);
+        LegacySoundsMigration migration = new LegacySoundsMigration(store, workDir);
+        JSONObject library;
+        try (Reader in = fileReader(blob)) {
+            library = migration.run(in);
+        }
+
+        assertEquals(3, migration.getResumedCount());
+        assertEquals(3, migration.getMigratedCount());
+        assertEquals(6, library.getJSONArray("sounds").length());
+        assertEquals(6, store.getClipCount());
+
+        migration.finish();
+        assertFalse(new File(workDir, LegacySoundsMigration.CHECKPOINT_FILE).exists());
+    }
+
+    @Test
+    public void oldestFormat_andSoundsWithoutData() throws IOException, JSONException {
+        String bytes = Base64.getEncoder().encodeToString("RIFF....WAVE".getBytes(StandardCharsets.US_ASCII));
+        String legacy = "[{\"name\":\"It's \\\"loud\\\".wav\",\"data\":\"data:audio/wav;base64," + bytes + "\"},"
+                + "{\"id\":\"clip_ref\",\"name\":\"Already migrated.mp3\",\"size\":12}]";
+
+        AudioStore store = new AudioStore(folder.newFolder("audio"));
+        JSONObject library = new LegacySoundsMigration(store, folder.newFolder("migration"))
+                .run(new StringReader(legacy));
+
+        JSONArray sounds = library.getJSONArray("sounds");
+        JSONObject migrated = sounds.getJSONObject(0);
+        assertEquals("It's \"loud\".wav", migrated.getString("name"));
+        assertEquals("audio/wav", migrated.getString("type"));
+        assertEquals(12, migrated.getLong("size"));
+        assertTrue(migrated.getString("id").startsWith("clip_"));
+        assertEquals("clip_ref", sounds.getJSONObject(1).getString("id"));
+        assertEquals(1, store.getClipCount());
+    }
+
+    // {"sounds":[{"name", "data", "id", ...}], "soundAssignments": {...}}, written one clip at a time
+    private static void writeLegacyLibrary(File file, int clipCount, int clipBytes) throws IOException {
+        Random random = new Random(42);
+        byte[] clip = new byte[clipBytes];
+        try (Writer out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8))) {
+            out.write("{\"sounds\":[");
+            for (int i = 0; i < clipCount; i++) {
+                random.nextBytes(clip);
+                out.write(i > 0 ? "," : "");
+                // data before id, as the page's object literal had it
+                out.write("{\"name\":\"Chant " + i + ".mp3\",\"data\":\"data:audio/mpeg;base64,");
+                out.write(Base64.getEncoder().encodeToString(clip));
+                out.write("\",\"id\":\"clip_" + i + "\",\"assigned\":true}");
+            }
+            out.write("],\"soundAssignments\":{\"yellow-team\":\"clip_3\"},\"customSoundNames\":{\"1\":\"Horn\"}}");
+        }
+    }
+
+    private static Reader fileReader(File file) throws IOException {
+        return new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8);
+    }
+
+    private static final class FailingReader extends FilterReader {
+        private long remaining;
+
+        FailingReader(Reader in, long failAfter) {
+            super(in);
+            this.remaining = failAfter;
+        }
+
+        @Override
+        public int read(char[] buffer, int offset, int length) throws IOException {
+            if (remaining <= 0) {
+                throw new IOException("Process killed");
+            }
+            int read = super.read(buffer, offset, (int) Math.min(length, remaining));
+            remaining -= Math.max(read, 0);
+            return read;
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package com.przemek.footballtracker;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.*;
+
+public class MatchJournalTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void replay_rebuildsLogAfterReopen() throws Exception {
+        File dir = folder.newFolder("match");
+        MatchJournal journal = new MatchJournal(dir);
+        journal.append("start", "e1", startData());
+        journal.append("goal", "e2", entry("goal", "Goal: Adam (Yellow)"));
+        journal.append("goal", "e3", entry("goal", "Goal: Bart (Blue)"));
+        journal.append("own-goal", "e4", entry("own-goal", "Own Goal by Blue"));
+        journal.append("edit", "e2", entry("goal", "Goal: Adam, Assist: Cyril (Yellow)"));
+        journal.append("delete", "e3", null);
+        journal.append("undo", "e4", null);
+        journal.close();
+
+        JSONObject state = new MatchJournal(dir).getState();
+
+        assertEquals(7, state.getLong("seq"));
+        assertTrue(state.getJSONObject("meta").getBoolean("isGameStarted"));
+        assertEquals("Lions", state.getJSONObject("meta").getString("yellowTeamName"));
+        JSONArray entries = state.getJSONArray("entries");
+        assertEquals(2, entries.length());
+        assertEquals("e1", entries.getJSONObject(0).getString("id"));
+        assertEquals("Goal: Adam, Assist: Cyril (Yellow)", entries.getJSONObject(1).getString("text"));
+    }
+
+    @Test
+    public void compaction_truncatesLogAndKeepsState() throws Exception {
+        File dir = folder.newFolder("match");
+        MatchJournal journal = new MatchJournal(dir);
+        journal.append("start", "start", startData());
+        for (int i = 0; i < MatchJournal.COMPACT_EVERY + 10; i++) {
+            journal.append("goal", "g" + i, entry("goal", "Goal " + i));
+        }
+
+        assertEquals(11, journal.getTailRecordCount());
+        assertTrue(new File(dir, MatchJournal.SNAPSHOT_FILE).exists());
+        journal.close();
+
+        MatchJournal reopened = new MatchJournal(dir);
+        assertEquals(MatchJournal.COMPACT_EVERY + 11, reopened.getLastSeq());
+        assertEquals(MatchJournal.COMPACT_EVERY + 11, reopened.getState().getJSONArray("entries").length());
+    }
+
+    @Test
+    public void tornTail_isDroppedAndLogStaysAppendable() throws Exception {
+        File dir = folder.newFolder("match");
+        MatchJournal journal = new MatchJournal(dir);
+        journal.append("start", "e1", startData());
+        journal.append("goal", "e2", entry("goal", "Goal: Adam"));
+        journal.close();
+
+        // Simulate a crash in the middle of writing the next record
+        File log = new File(dir, MatchJournal.LOG_FILE);
+        long goodLength = log.length();
+        try (FileOutputStream out = new FileOutputStream(log, true)) {
+            out.write("3\tdeadbeef\t{\"type\":\"goal\",\"id\":\"e3\"".getBytes(StandardCharsets.UTF_8));
+        }
+
+        MatchJournal recovered = new MatchJournal(dir);
+        assertEquals(2, recovered.getLastSeq());
+        assertEquals(goodLength, log.length());
+
+        recovered.append("goal", "e3", entry("goal", "Goal: Bart"));
+        recovered.close();
+        assertEquals(3, new MatchJournal(dir).getState().getJSONArray("entries").length());
+    }
+
+    @Test
+    public void missingFinalNewline_isRestoredBeforeAppending() throws Exception {
+        File dir = folder.newFolder("match");
+        MatchJournal journal = new MatchJournal(dir);
+        journal.append("start", "e1", startData());
+        journal.append("goal", "e2", entry("goal", "Goal: Adam"));
+        journal.close();
+
+        // The last record made it to disk, its newline didn't
+        File log = new File(dir, MatchJournal.LOG_FILE);
+        try (RandomAccessFile file = new RandomAccessFile(log, "rw")) {
+            file.setLength(file.length() - 1);
+        }
+
+        MatchJournal recovered = new MatchJournal(dir);
+        assertEquals(2, recovered.getLastSeq());
+        recovered.append("goal", "e3", entry("goal", "Goal: Bart"));
+        recovered.close();
+
+        MatchJournal reopened = new MatchJournal(dir);
+        assertEquals(3, reopened.getLastSeq());
+        assertEquals(3, reopened.getState().getJSONArray("entries").length());
+    }
+
+    @Test
+    public void corruptRecord_stopsReplay() throws Exception {
+        File dir = folder.newFolder("match");
+        MatchJournal journal = new MatchJournal(dir);
+        journal.append("start", "e1", startData());
+        journal.append("goal", "e2", entry("goal", "Goal: Adam"));
+        journal.close();
+
+        // Flip a byte inside the last record's payload so its checksum no longer matches
+        File log = new File(dir, MatchJournal.LOG_FILE);
+        try (RandomAccessFile file = new RandomAccessFile(log, "rw")) {
+            long pos = file.length() - 4;
+            file.seek(pos);
+            int b = file.read();
+            file.seek(pos);
+            file.write(b ^ 0x01);
+        }
+
+        assertEquals(1, new MatchJournal(dir).getState().getJSONArray("entries").length());
+    }
+
+    @Test
+    public void reset_clearsEarlierEntries() throws Exception {
+        MatchJournal journal = new MatchJournal(folder.newFolder("match"));
+        journal.append("start", "e1", startData());
+        journal.append("goal", "e2", entry("goal", "Goal: Adam"));
+        journal.append("reset", "e3", entry("system", "Match Reset"));
+
+        JSONArray entries = journal.getState().getJSONArray("entries");
+        assertEquals(1, entries.length());
+        assertEquals("e3", entries.getJSONObject(0).getString("id"));
+    }
+
+    @Test
+    public void newMatchStart_dropsPreviousMatch() throws Exception {
+        File dir = folder.newFolder("match");
+        MatchJournal journal = new MatchJournal(dir);
+        journal.append("start", "e1", startData());
+        journal.append("goal", "e2", entry("goal", "Goal: Adam"));
+        journal.append("stop", "e3", entry("system", "Game Stopped"));
+        journal.close();
+
+        MatchJournal reopened = new MatchJournal(dir);
+        assertFalse(reopened.getState().getJSONObject("meta").getBoolean("isGameStarted"));
+
+        JSONObject next = startData().put("newMatch", true);
+        reopened.append("start", "e4", next);
+        JSONObject state = reopened.getState();
+        assertEquals(1, state.getJSONArray("entries").length());
+        assertFalse(state.getJSONObject("meta").has("newMatch"));
+    }
+
+    @Test
+    public void appendCost_doesNotGrowWithLogLength() throws IOException, JSONException {
+        File dir = folder.newFolder("match");
+        MatchJournal journal = new MatchJournal(dir);
+        File log = new File(dir, MatchJournal.LOG_FILE);
+
+        journal.append("goal", "first", entry("goal", "Goal: Adam"));
+        long firstRecordBytes = log.length();
+        for (int i = 0; i < 50; i++) {
+            journal.append("goal", "g" + i, entry("goal", "Goal: Adam"));
+        }
+        long before = log.length();
+        journal.append("goal", "last", entry("goal", "Goal: Adam"));
+
+        // Each record is written on its own; earlier entries are never rewritten
+        assertTrue(log.length() - before <= firstRecordBytes + 4);
+    }
+
+    private static JSONObject startData() throws JSONException {
+        JSONObject data = entry("system", "Game Started");
+        data.put("yellowTeamName", "Lions");
+        data.put("blueTeamName", "Tigers");
+        return data;
+    }
+
+    private static JSONObject entry(String type, String text) throws JSONException {
+        JSONObject entry = new JSONObject();
+        entry.put("type", type);
+        entry.put("text", text);
+        return new JSONObject().put("entry", entry);
+    }
+}
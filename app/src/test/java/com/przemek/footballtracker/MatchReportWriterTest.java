@@ -0,0 +1,90 @@
+package com.przemek.footballtracker;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.text.DateFormat;
+import java.util.Date;
+import java.util.Locale;
+import java.util.TimeZone;
+
+import static org.junit.Assert.*;
+
+public class MatchReportWriterTest {
+    private MatchReportWriter writer;
+
+    @Before
+    public void setUp() throws JSONException {
+        JSONObject meta = new JSONObject()
+                .put("yellowTeamName", "Żółci")
+                .put("blueTeamName", "Blue, FC")
+                .put("yellowPlayers", new JSONArray().put("Ana").put("Bo").put("OWN GOAL"))
+                .put("bluePlayers", new JSONArray().put("Cy").put("OWN GOAL"));
+        JSONArray entries = new JSONArray()
+                .put(entry("start", "Game started").put("timestamp", "2026-10-17T10:00:00.000Z"))
+                .put(entry("goal", "Goal: Ana, Assist: Bo (Żółci)").put("team", "yellow")
+                        .put("player", "Ana").put("assist", "Bo").put("timestamp", "2026-10-17T10:05:00.000Z"))
+                .put(entry("goal", "Goal: Cy (Blue, FC)").put("team", "blue")
+                        .put("player", "Cy").put("assist", JSONObject.NULL).put("timestamp", "2026-10-17T10:07:00.000Z"))
+                .put(entry("own-goal", "Own Goal by \"Blue\"").put("team", "blue").put("scoringTeam", "yellow")
+                        .put("player", "OWN GOAL").put("timestamp", "2026-10-17T10:09:00.000Z"))
+                .put(entry("goal", "Goal: Ana (Żółci)").put("team", "yellow")
+                        .put("player", "Ana").put("assist", JSONObject.NULL).put("timestamp", "2026-10-17T10:11:00.000Z"));
+        JSONObject state = new JSONObject().put("seq", 5).put("meta", meta).put("entries", entries);
+        writer = new MatchReportWriter(state, Locale.US, TimeZone.getTimeZone("UTC"), new Date(0));
+    }
+
+    @Test
+    public void text_listsScoresRankedPlayersAndEvents() throws IOException {
+        String text = write(MatchReportWriter.Format.TEXT);
+
+        assertTrue(text.contains("🟡 Żółci: 3\n🔵 Blue, FC: 1\n"));
+        assertTrue(text.contains("🟡 Żółci (2 players): Ana, Bo\n"));
+        assertTrue(text.contains("1. Ana (🟡 Żółci) - 2 goals\n2. Cy (🔵 Blue, FC) - 1 goal\n3. Bo (🟡 Żółci) - 1 assist\n"));
+        DateFormat timeFormat = DateFormat.getTimeInstance(DateFormat.MEDIUM, Locale.US);
+        timeFormat.setTimeZone(TimeZone.getTimeZone("UTC"));
+        String time = timeFormat.format(new Date(1_792_231_500_000L));
+        assertTrue(text.contains("2. [" + time + "] Goal: Ana, Assist: Bo (Żółci)\n"));
+        assertTrue(text.endsWith("Report generated by Football Match Tracker\n"));
+    }
+
+    @Test
+    public void csv_quotesFieldsAndLeavesNullAssistEmpty() throws IOException {
+        String[] rows = write(MatchReportWriter.Format.CSV).split("\r\n");
+
+        assertEquals(6, rows.length);
+        assertEquals("number,time,type,team,player,assist,scoring_team,text", rows[0]);
+        assertEquals("3,2026-10-17 10:07:00,goal,\"Blue, FC\",Cy,,,\"Goal: Cy (Blue, FC)\"", rows[3]);
+        assertEquals("4,2026-10-17 10:09:00,own-goal,\"Blue, FC\",OWN GOAL,,Żółci,\"Own Goal by \"\"Blue\"\"\"", rows[4]);
+    }
+
+    @Test
+    public void json_isValidAndComplete() throws IOException, JSONException {
+        JSONObject json = new JSONObject(write(MatchReportWriter.Format.JSON));
+
+        assertEquals(3, json.getJSONObject("teams").getJSONObject("yellow").getInt("score"));
+        assertEquals(2, json.getJSONObject("teams").getJSONObject("yellow").getJSONArray("players").length());
+        assertEquals("Ana", json.getJSONArray("players").getJSONObject(0).getString("name"));
+        JSONArray events = json.getJSONArray("events");
+        assertEquals(5, events.length());
+        assertFalse(events.getJSONObject(2).has("assist"));
+        assertEquals("yellow", events.getJSONObject(3).getString("scoringTeam"));
+        assertEquals("2026-10-17T10:11:00.000Z", events.getJSONObject(4).getString("timestamp"));
+    }
+
+    private String write(MatchReportWriter.Format format) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writer.write(format, out);
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    private static JSONObject entry(String type, String text) throws JSONException {
+        return new JSONObject().put("type", type).put("text", text);
+    }
+}
@@ -0,0 +1,131 @@
+package com.przemek.footballtracker;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class MatchSummaryTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void totals_matchThePageRules() throws JSONException {
+        MatchSummary summary = new MatchSummary(state(new JSONArray()
+                .put(entry("reset", "r1", null))
+                .put(entry("start", "s1", "2026-10-17T10:00:00.000Z"))
+                .put(goal("g1", "yellow", "Ana", "Bo"))
+                .put(goal("g2", "yellow", "Ana", null))
+                .put(goal("g3", "blue", "Cy", "Nobody"))
+                .put(entry("own-goal", "o1", null).put("team", "yellow").put("scoringTeam", "blue")
+                        .put("player", "OWN GOAL"))
+                .put(entry("stop", "s2", "2026-10-17T10:40:00.000Z"))));
+
+        assertEquals(2, summary.getYellowScore());
+        assertEquals(2, summary.getBlueScore());
+        assertEquals("s1", summary.getMatchKey());
+
+        List<MatchSummary.PlayerStats> ranked = summary.getRankedPlayers();
+        assertEquals(3, ranked.size());
+        assertEquals("Ana", ranked.get(0).name);
+        assertEquals(2, ranked.get(0).getGoals());
+        assertEquals("Cy", ranked.get(1).name);
+        assertEquals("Bo", ranked.get(2).name);
+        assertEquals(1, ranked.get(2).getAssists());
+        // Rostered players without goals still count as having played
+        assertEquals(4, summary.getPlayers().size());
+    }
+
+    @Test
+    public void startAndEnd_comeFromFirstAndLastTimestamps() throws JSONException {
+        MatchSummary summary = new MatchSummary(state(new JSONArray()
+                .put(entry("start", "s1", "2026-10-17T10:00:00.000Z"))
+                .put(entry("goal", "g1", "not a date").put("team", "blue"))
+                .put(entry("stop", "s2", "2026-10-17T10:40:00.000Z"))
+                .put(entry("system", "x1", null))));
+
+        assertEquals(2400_000L, summary.getEndedAt() - summary.getStartedAt());
+    }
+
+    @Test
+    public void notStarted_hasNoMatchKey() throws JSONException {
+        MatchSummary summary = new MatchSummary(new JSONObject().put("seq", 0));
+
+        assertNull(summary.getMatchKey());
+        assertEquals(0, summary.getEventCount());
+        assertEquals("Yellow", summary.getYellowName());
+        assertEquals(0, summary.getStartedAt());
+    }
+
+    @Test
+    public void gamePlayedOnAfterReset_isKeyedByTheReset() throws JSONException, IOException {
+        MatchJournal journal = new MatchJournal(new File(folder.getRoot(), "match"));
+        List<MatchSummary> archived = new ArrayList<>();
+        // The page logs start, stop and reset as "system" entries, as it really does
+        record(journal, archived, "start", "s1", new JSONObject().put("newMatch", true)
+                .put("yellowPlayers", new JSONArray().put("Ana")).put("bluePlayers", new JSONArray().put("Cy")));
+        record(journal, archived, "goal", "g1", null);
+        record(journal, archived, "reset", "r1", null);
+        record(journal, archived, "goal", "g2", null);
+        record(journal, archived, "goal", "g3", null);
+        record(journal, archived, "stop", "x1", null);
+        record(journal, archived, "reset", "r2", null);
+        journal.close();
+
+        assertEquals(2, archived.size());
+        assertEquals("s1", archived.get(0).getMatchKey());
+        assertEquals(1, archived.get(0).getYellowScore());
+        assertEquals("r1", archived.get(1).getMatchKey());
+        assertEquals(2, archived.get(1).getYellowScore());
+        assertEquals(2, archived.get(1).getRankedPlayers().get(0).getGoals());
+    }
+
+    @Test
+    public void resetWithNothingAfterIt_hasNoMatchKey() throws JSONException {
+        MatchSummary summary = new MatchSummary(state(new JSONArray()
+                .put(entry("system", "r1", null).put("event", "reset"))));
+
+        assertNull(summary.getMatchKey());
+    }
+
+    // Files the journal's match before a reset, like MainActivity.appendToJournal
+    private static void record(MatchJournal journal, List<MatchSummary> archived, String type, String id,
+                               JSONObject data) throws JSONException, IOException {
+        if ("reset".equals(type)) {
+            MatchSummary summary = new MatchSummary(journal.getState());
+            if (summary.getMatchKey() != null) {
+                archived.add(summary);
+            }
+        }
+        JSONObject entry = "goal".equals(type)
+                ? goal(id, "yellow", "Ana", null)
+                : entry("system", id, null);
+        journal.append(type, id, (data != null ? data : new JSONObject()).put("entry", entry));
+    }
+
+    private static JSONObject state(JSONArray entries) throws JSONException {
+        JSONObject meta = new JSONObject()
+                .put("yellowPlayers", new JSONArray().put("Ana").put("Bo").put("OWN GOAL"))
+                .put("bluePlayers", new JSONArray().put("Cy").put("Di"));
+        return new JSONObject().put("seq", entries.length()).put("meta", meta).put("entries", entries);
+    }
+
+    private static JSONObject goal(String id, String team, String player, String assist) throws JSONException {
+        return entry("goal", id, null).put("team", team).put("player", player)
+                .put("assist", assist != null ? assist : JSONObject.NULL);
+    }
+
+    private static JSONObject entry(String type, String id, String timestamp) throws JSONException {
+        JSONObject entry = new JSONObject().put("type", type).put("id", id).put("text", type);
+        return timestamp != null ? entry.put("timestamp", timestamp) : entry;
+    }
+}
@@ -0,0 +1,65 @@
+package com.przemek.footballtracker;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class MetricsTest {
+    private final Metrics metrics = new Metrics();
+
+    @Test
+    public void percentiles_comeFromBucketBounds() {
+        for (int i = 0; i < 90; i++) {
+            metrics.recordMillis("audio.tap_to_audio.pool", 8);
+        }
+        for (int i = 0; i < 10; i++) {
+            metrics.recordMillis("audio.tap_to_audio.pool", 180);
+        }
+
+        Metrics.Histogram h = metrics.get("audio.tap_to_audio.pool");
+        assertEquals(100, h.getCount());
+        assertEquals(10, h.percentile(50), 0);
+        assertEquals(10, h.percentile(90), 0);
+        assertEquals(180, h.percentile(99), 0);
+        assertEquals(25.2, h.getMean(), 0.001);
+    }
+
+    @Test
+    public void openLastBucket_reportsRealMaximum() {
+        metrics.recordMillis("persist.sound_library", 12_000);
+
+        assertEquals(12_000, metrics.get("persist.sound_library").percentile(50), 0);
+    }
+
+    @Test
+    public void json_hasUnitsCountsAndOnlyUsedBuckets() throws JSONException {
+        metrics.recordBytes("payload.journalAppend", 300);
+        metrics.recordBytes("payload.journalAppend", 900);
+        metrics.recordMillis("bridge.playSound", 0.4);
+
+        JSONObject json = metrics.toJson();
+        JSONObject payload = json.getJSONObject("payload.journalAppend");
+        assertEquals("bytes", payload.getString("unit"));
+        assertEquals(2, payload.getLong("count"));
+        assertEquals(2, payload.getJSONObject("buckets").getLong("le_1024"));
+        assertEquals(1, payload.getJSONObject("buckets").length());
+        assertEquals("ms", json.getJSONObject("bridge.playSound").getString("unit"));
+    }
+
+    @Test
+    public void persistenceExecutor_recordsWriteTimesPerKey() {
+        PersistenceExecutor executor = new PersistenceExecutor("test", 0, metrics);
+        try {
+            executor.submit("sound_library", () -> { });
+            executor.execute("journal", () -> { });
+            assertTrue(executor.flush(5000));
+        } finally {
+            executor.shutdown();
+        }
+
+        assertEquals(1, metrics.get("persist.sound_library").getCount());
+        assertEquals(1, metrics.get("persist.journal").getCount());
+    }
+}
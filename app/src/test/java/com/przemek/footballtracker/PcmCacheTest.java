@@ -0,0 +1,77 @@
+package com.przemek.footballtracker;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class PcmCacheTest {
+
+    @Test
+    public void put_evictsLeastRecentlyUsedToStayWithinBudget() {
+        PcmCache cache = new PcmCache(300);
+        cache.put("a", clip(100));
+        cache.put("b", clip(100));
+        cache.put("c", clip(100));
+        // Touch "a" so "b" is now the oldest
+        assertNotNull(cache.get("a"));
+
+        cache.put("d", clip(150));
+
+        assertTrue(cache.contains("a"));
+        assertFalse(cache.contains("b"));
+        assertFalse(cache.contains("c"));
+        assertTrue(cache.contains("d"));
+        assertEquals(250, cache.getBytes());
+    }
+
+    @Test
+    public void clipLargerThanBudget_isRejectedWithoutEvicting() {
+        PcmCache cache = new PcmCache(300);
+        cache.put("a", clip(200));
+
+        assertFalse(cache.put("huge", clip(301)));
+        assertTrue(cache.contains("a"));
+        assertEquals(200, cache.getBytes());
+    }
+
+    @Test
+    public void replacingAClip_adjustsTheByteCount() {
+        PcmCache cache = new PcmCache(1000);
+        cache.put("a", clip(200));
+        cache.put("a", clip(50));
+        cache.remove("missing");
+
+        assertEquals(1, cache.size());
+        assertEquals(50, cache.getBytes());
+    }
+
+    @Test
+    public void stats_countLookupsOnly() throws JSONException {
+        PcmCache cache = new PcmCache(1000);
+        cache.put("a", clip(100));
+        cache.contains("a");
+        cache.get("a");
+        cache.get("a");
+        cache.get("b");
+        cache.put("b", clip(1000));
+
+        JSONObject stats = new JSONObject(cache.getStatsJson());
+        assertEquals(2, stats.getInt("hits"));
+        assertEquals(1, stats.getInt("misses"));
+        assertEquals(1, stats.getInt("evictions"));
+        assertEquals(0.667, stats.getDouble("hitRate"), 0.001);
+    }
+
+    @Test
+    public void duration_followsFormat() {
+        PcmCache.Clip clip = new PcmCache.Clip(new byte[44100 * 2 * 2], 44100, 2);
+        assertEquals(44100, clip.getFrameCount());
+        assertEquals(1000, clip.getDurationMs());
+    }
+
+    private static PcmCache.Clip clip(int bytes) {
+        return new PcmCache.Clip(new byte[bytes], 8000, 1);
+    }
+}
@@ -0,0 +1,135 @@
+package com.przemek.footballtracker;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class PersistenceExecutorTest {
+    private final List<String> written = Collections.synchronizedList(new ArrayList<>());
+    private PersistenceExecutor executor;
+
+    @After
+    public void tearDown() {
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void repeatedWritesToSameKey_coalesceToLastOne() {
+        executor = new PersistenceExecutor("test", 10_000);
+        for (int i = 0; i < 20; i++) {
+            String value = "sounds-v" + i;
+            executor.submit("sounds", () -> written.add(value));
+        }
+
+        assertTrue(executor.flush(5000));
+        assertEquals(Collections.singletonList("sounds-v19"), written);
+        assertEquals(20, executor.getRequestedCount());
+        assertEquals(1, executor.getPerformedCount());
+        assertEquals(19, executor.getCoalescedCount());
+    }
+
+    @Test
+    public void writesAfterShutdown_stillRun() throws InterruptedException {
+        executor = new PersistenceExecutor("test", 10_000);
+        executor.submit("sounds", () -> written.add("queued"));
+        executor.shutdown();
+        assertTrue(executor.flush(5000));
+
+        // E.g. an import finishing on a pool thread after onDestroy
+        CountDownLatch done = new CountDownLatch(2);
+        executor.submit("index", () -> {
+            written.add("index");
+            done.countDown();
+        });
+        executor.execute(() -> {
+            written.add("clear");
+            done.countDown();
+        });
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(Arrays.asList("queued", "index", "clear"), written);
+    }
+
+    @Test
+    public void differentKeys_areAllWritten() {
+        executor = new PersistenceExecutor("test", 10_000);
+        executor.submit("sounds", () -> written.add("sounds"));
+        executor.submit("players", () -> written.add("players"));
+
+        assertTrue(executor.flush(5000));
+        assertEquals(2, executor.getPerformedCount());
+        assertTrue(written.contains("sounds") && written.contains("players"));
+    }
+
+    @Test
+    public void unkeyedTask_runsAfterEarlierWritesAndIsNotMerged() {
+        executor = new PersistenceExecutor("test", 10_000);
+        executor.submit("sounds", () -> written.add("save"));
+        executor.execute(() -> written.add("clear"));
+        executor.execute(() -> written.add("clear"));
+        executor.submit("sounds", () -> written.add("save-after-clear"));
+
+        assertTrue(executor.flush(5000));
+        assertEquals(4, executor.getPerformedCount());
+        assertEquals(Arrays.asList("save", "clear", "clear", "save-after-clear"), written);
+    }
+
+    @Test
+    public void writesHappenWithoutFlushOnceWindowPasses() throws InterruptedException {
+        executor = new PersistenceExecutor("test", 20);
+        CountDownLatch done = new CountDownLatch(1);
+        executor.submit("sounds", done::countDown);
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void writeDuringRun_isNotLost() throws InterruptedException {
+        executor = new PersistenceExecutor("test", 0);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        executor.submit("sounds", () -> {
+            started.countDown();
+            awaitQuietly(release);
+            written.add("first");
+        });
+
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        executor.submit("sounds", () -> written.add("second"));
+        release.countDown();
+
+        assertTrue(executor.flush(5000));
+        assertEquals(Arrays.asList("first", "second"), written);
+    }
+
+    @Test
+    public void failingWrite_doesNotStopWriter() {
+        executor = new PersistenceExecutor("test", 0);
+        executor.execute(() -> {
+            throw new IllegalStateException("disk full");
+        });
+        executor.execute(() -> written.add("next"));
+
+        assertTrue(executor.flush(5000));
+        assertEquals(1, executor.getFailedCount());
+        assertEquals(Collections.singletonList("next"), written);
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
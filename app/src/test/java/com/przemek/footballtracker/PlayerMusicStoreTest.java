@@ -0,0 +1,70 @@
+package com.przemek.footballtracker;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class PlayerMusicStoreTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File file;
+    private PlayerMusicStore store;
+
+    @Before
+    public void setUp() throws IOException {
+        file = new File(folder.getRoot(), "player_music.json");
+        store = new PlayerMusicStore(file);
+        store.load();
+    }
+
+    @Test
+    public void set_returnsReplacedClip() {
+        assertNull(store.set("player_1", "slot1", "clip_a"));
+        assertEquals("clip_a", store.set("player_1", "slot1", "clip_b"));
+        assertEquals("clip_b", store.get("player_1", "slot1"));
+        assertFalse(store.isClipReferenced("clip_a"));
+    }
+
+    @Test
+    public void removePlayer_returnsAllOfTheirClips() {
+        store.set("player_1", "slot1", "clip_a");
+        store.set("player_1", "slot3", "clip_c");
+        store.set("player_2", "slot1", "clip_d");
+
+        assertEquals(Arrays.asList("clip_a", "clip_c"), store.removePlayer("player_1"));
+        assertNull(store.get("player_1", "slot1"));
+        assertTrue(store.isClipReferenced("clip_d"));
+        assertTrue(store.removePlayer("player_1").isEmpty());
+    }
+
+    @Test
+    public void remove_dropsEmptyPlayers() {
+        store.set("player_1", "slot2", "clip_a");
+
+        assertEquals("clip_a", store.remove("player_1", "slot2"));
+        assertNull(store.remove("player_1", "slot2"));
+        assertEquals(0, store.toJson().length());
+    }
+
+    @Test
+    public void saveAndLoad_roundTrips() throws IOException {
+        store.set("player_1", "slot1", "clip_a");
+        store.set("player_2", "slot2", "clip_b");
+        store.save();
+
+        PlayerMusicStore reloaded = new PlayerMusicStore(file);
+        reloaded.load();
+
+        assertEquals("clip_a", reloaded.get("player_1", "slot1"));
+        assertEquals("clip_b", reloaded.get("player_2", "slot2"));
+        assertFalse(new File(file.getPath() + ".tmp").exists());
+    }
+}
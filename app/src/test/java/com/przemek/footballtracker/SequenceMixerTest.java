@@ -0,0 +1,96 @@
+package com.przemek.footballtracker;
+
+import org.json.JSONException;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class SequenceMixerTest {
+    private static final int RATE = 8000;
+    private static final long MAX_MS = 15_000;
+
+    @Test
+    public void backToBack_playsEveryFrameWithNothingInBetween() {
+        SequenceMixer mixer = new SequenceMixer(RATE, 1, SequenceMixer.Options.defaults(), MAX_MS);
+
+        short[] first = mixer.add(constant(500, 1000));
+        short[] second = mixer.add(constant(250, -2000));
+        short[] rest = mixer.finish();
+
+        assertEquals(RATE / 2, first.length);
+        assertEquals(RATE / 4, second.length);
+        assertEquals(-2000, second[0]);
+        assertEquals(0, rest.length);
+        assertEquals(RATE * 3 / 4, mixer.getFrameCount());
+    }
+
+    @Test
+    public void gap_insertsSilenceBetweenClipsOnly() {
+        SequenceMixer mixer = new SequenceMixer(RATE, 1, new SequenceMixer.Options(100, 0), MAX_MS);
+
+        short[] first = mixer.add(constant(500, 1000));
+        short[] second = mixer.add(constant(500, 1000));
+
+        assertEquals(RATE / 2, first.length);
+        assertEquals(RATE / 10 + RATE / 2, second.length);
+        assertEquals(0, second[RATE / 10 - 1]);
+        assertEquals(1000, second[RATE / 10]);
+    }
+
+    @Test
+    public void crossfade_overlapsTheClipsAndHoldsTheLastTail() {
+        SequenceMixer mixer = new SequenceMixer(RATE, 1, new SequenceMixer.Options(0, 200), MAX_MS);
+        int fade = RATE / 5;
+
+        short[] first = mixer.add(constant(1000, 10000));
+        short[] second = mixer.add(constant(1000, 10000));
+        short[] rest = mixer.finish();
+
+        // The tail of the first clip waits for the second one
+        assertEquals(RATE - fade, first.length);
+        assertEquals(RATE - fade, second.length);
+        assertEquals(fade, rest.length);
+        assertEquals(2 * RATE - fade, mixer.getFrameCount());
+        // Equal-power crossfade: louder than either clip in the middle, never clipped
+        assertEquals(Math.round(10000 * Math.sqrt(2)), second[fade / 2], 200);
+        assertEquals(10000, second[fade]);
+    }
+
+    @Test
+    public void clips_areConvertedToTheOutputFormatAndCapped() {
+        SequenceMixer mixer = new SequenceMixer(RATE, 2, SequenceMixer.Options.defaults(), 1000);
+
+        // Mono at twice the rate, 3 seconds long
+        short[] out = mixer.add(new PcmCache.Clip(ClipProcessor.toBytes(fill(RATE * 2 * 3, 500)), RATE * 2, 1));
+
+        assertEquals(RATE * 2, out.length);
+        assertEquals(500, out[0]);
+        assertEquals(500, out[1]);
+
+        short[] stereo = {100, 300, 100, 300};
+        short[] mono = SequenceMixer.convert(new PcmCache.Clip(ClipProcessor.toBytes(stereo), RATE, 2), RATE, 1, MAX_MS);
+        assertArrayEquals(new short[]{200, 200}, mono);
+    }
+
+    @Test
+    public void options_areClampedAndDefaultToBackToBack() throws JSONException {
+        SequenceMixer.Options options = SequenceMixer.Options.fromJson("{\"gapMs\":-5,\"crossfadeMs\":99999}");
+
+        assertEquals(0, options.gapMs);
+        assertEquals(SequenceMixer.Options.MAX_CROSSFADE_MS, options.crossfadeMs);
+        assertEquals(0, SequenceMixer.Options.fromJson(null).crossfadeMs);
+        assertEquals(0, SequenceMixer.Options.fromJson("{}").gapMs);
+    }
+
+    private static PcmCache.Clip constant(long ms, int value) {
+        return new PcmCache.Clip(ClipProcessor.toBytes(fill((int) (ms * RATE / 1000), value)), RATE, 1);
+    }
+
+    private static short[] fill(int length, int value) {
+        short[] samples = new short[length];
+        Arrays.fill(samples, (short) value);
+        return samples;
+    }
+}
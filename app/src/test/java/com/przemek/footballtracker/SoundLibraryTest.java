@@ -0,0 +1,108 @@
+package com.przemek.footballtracker;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class SoundLibraryTest {
+    private SoundLibrary library;
+    private long version;
+
+    @Before
+    public void setUp() throws JSONException {
+        library = new SoundLibrary();
+        JSONObject data = new JSONObject()
+                .put("sounds", new JSONArray()
+                        .put(sound("clip_1", "goal.mp3"))
+                        .put(sound("clip_2", "horn.mp3")))
+                .put("soundAssignments", new JSONObject().put("yellow-team", "clip_1"))
+                .put("customSoundNames", new JSONObject().put("1", "Horn"));
+        version = library.replaceAll(data);
+    }
+
+    @Test
+    public void patch_appliesUpsertsSetsAndDeletes() throws JSONException {
+        JSONArray ops = new JSONArray()
+                .put(new JSONObject().put("op", "upsertSound").put("sound", sound("clip_2", "air horn.mp3")))
+                .put(new JSONObject().put("op", "deleteSound").put("id", "clip_1"))
+                .put(new JSONObject().put("op", "set").put("map", "soundAssignments").put("key", "blue-team").put("value", "clip_2"))
+                .put(new JSONObject().put("op", "delete").put("map", "soundAssignments").put("key", "yellow-team"));
+
+        long next = library.applyPatch(version, ops);
+
+        assertEquals(version + 1, next);
+        JSONObject json = library.toJson();
+        assertEquals(1, json.getJSONArray("sounds").length());
+        assertEquals("air horn.mp3", json.getJSONArray("sounds").getJSONObject(0).getString("name"));
+        assertEquals("clip_2", json.getJSONObject("soundAssignments").getString("blue-team"));
+        assertFalse(json.getJSONObject("soundAssignments").has("yellow-team"));
+        assertEquals("Horn", json.getJSONObject("customSoundNames").getString("1"));
+        assertEquals(next, json.getLong("version"));
+    }
+
+    @Test
+    public void staleBaseVersion_isRejectedWithoutChanges() throws JSONException {
+        JSONArray ops = new JSONArray()
+                .put(new JSONObject().put("op", "deleteSound").put("id", "clip_1"));
+
+        assertEquals(SoundLibrary.VERSION_MISMATCH, library.applyPatch(version - 1, ops));
+        assertEquals(version, library.getVersion());
+        assertEquals(2, library.getSoundCount());
+    }
+
+    @Test
+    public void malformedOp_failsWholePatch() throws JSONException {
+        JSONArray ops = new JSONArray()
+                .put(new JSONObject().put("op", "deleteSound").put("id", "clip_1"))
+                .put(new JSONObject().put("op", "set").put("map", "noSuchMap").put("key", "x").put("value", 1));
+
+        try {
+            library.applyPatch(version, ops);
+            fail("Expected JSONException");
+        } catch (JSONException expected) {
+            // Nothing may have been applied
+        }
+        assertEquals(2, library.getSoundCount());
+        assertEquals(version, library.getVersion());
+    }
+
+    @Test
+    public void clearSounds_keepsPlayerAssignmentsAndNames() throws JSONException {
+        assertEquals(2, library.clearSounds().size());
+
+        assertEquals(0, library.getSoundCount());
+        assertEquals(0, library.getEntryCount("soundAssignments"));
+        assertEquals(1, library.getEntryCount("customSoundNames"));
+        assertEquals(version + 1, library.getVersion());
+    }
+
+    @Test
+    public void references_followPatchesResyncsAndClears() throws JSONException {
+        ClipReferences references = new ClipReferences();
+        library = new SoundLibrary(references);
+        version = library.replaceAll(new JSONObject()
+                .put("sounds", new JSONArray().put(sound("clip_1", "goal.mp3")).put(sound("clip_2", "horn.mp3")))
+                .put("soundAssignments", new JSONObject().put("yellow-team", "clip_1").put("blue-team", "clip_1")));
+        assertEquals(3, references.getCount("clip_1"));
+        assertTrue(references.isReferenced("clip_2"));
+        assertFalse(references.isAssigned("clip_2"));
+
+        version = library.applyPatch(version, new JSONArray()
+                .put(new JSONObject().put("op", "set").put("map", "soundAssignments").put("key", "blue-team").put("value", "clip_2"))
+                .put(new JSONObject().put("op", "delete").put("map", "soundAssignments").put("key", "yellow-team"))
+                .put(new JSONObject().put("op", "deleteSound").put("id", "clip_1")));
+        assertFalse(references.isReferenced("clip_1"));
+        assertTrue(references.isAssigned("clip_2"));
+
+        library.clearSounds();
+        assertFalse(references.isReferenced("clip_2"));
+    }
+
+    private static JSONObject sound(String id, String name) throws JSONException {
+        return new JSONObject().put("id", id).put("name", name).put("size", 1000);
+    }
+}
@@ -0,0 +1,190 @@
+package com.przemek.footballtracker;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+public class StorageManagerTest {
+    private static final long GRACE_MS = 1000;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private AudioStore store;
+    private ClipReferences references;
+    private SoundLibrary library;
+    private PlayerMusicStore playerMusic;
+    private StorageManager manager;
+
+    @Before
+    public void setUp() throws IOException {
+        store = new AudioStore(new File(folder.getRoot(), "audio"));
+        references = new ClipReferences();
+        library = new SoundLibrary(references);
+        playerMusic = new PlayerMusicStore(new File(folder.getRoot(), "player_music.json"), references);
+        playerMusic.load();
+        manager = new StorageManager(store, library, references, GRACE_MS);
+    }
+
+    @Test
+    public void collect_waitsOutTheGracePeriodForUnreferencedClips() throws Exception {
+        importClip("clip_fresh", 100, 1);
+
+        StorageManager.Result first = manager.collect(0);
+        assertTrue(first.isEmpty());
+        assertEquals(GRACE_MS, first.nextDueMs);
+
+        StorageManager.Result second = manager.collect(GRACE_MS);
+        assertEquals(Collections.singletonList("clip_fresh"), second.collected);
+        assertEquals(100, second.freedBytes);
+        assertNull(store.get("clip_fresh"));
+        assertEquals(-1, second.nextDueMs);
+    }
+
+    @Test
+    public void collect_keepsClipsHeldByTheLibraryAssignmentsOrPlayers() throws Exception {
+        importClip("clip_library", 100, 1);
+        importClip("clip_player", 100, 2);
+        library.replaceAll(new JSONObject()
+                .put("sounds", new JSONArray().put(sound("clip_library"))));
+        playerMusic.set("player_1", "slot1", "clip_player");
+
+        assertTrue(manager.collect(0).isEmpty());
+        assertTrue(manager.collect(10 * GRACE_MS).isEmpty());
+
+        playerMusic.removePlayer("player_1");
+        manager.collect(10 * GRACE_MS);
+        StorageManager.Result result = manager.collect(11 * GRACE_MS);
+        assertEquals(Collections.singletonList("clip_player"), result.collected);
+        assertNotNull(store.get("clip_library"));
+    }
+
+    @Test
+    public void release_deletesOnceTheLastReferenceGoes() throws Exception {
+        importClip("clip_a", 100, 1);
+        library.replaceAll(new JSONObject().put("sounds", new JSONArray().put(sound("clip_a"))));
+
+        // The page deleted the sound but its patch hasn't arrived yet
+        assertFalse(manager.release("clip_a", 0));
+        assertNotNull(store.get("clip_a"));
+
+        library.applyPatch(library.getVersion(), new JSONArray()
+                .put(new JSONObject().put("op", "deleteSound").put("id", "clip_a")));
+        StorageManager.Result result = manager.collect(1);
+        assertEquals(Collections.singletonList("clip_a"), result.collected);
+
+        importClip("clip_b", 100, 2);
+        assertTrue(manager.release("clip_b", 2));
+        assertNull(store.get("clip_b"));
+    }
+
+    @Test
+    public void collect_evictsLeastRecentlyPlayedUnassignedClipsAboveQuota() throws Exception {
+        for (int i = 1; i <= 4; i++) {
+            importClip("clip_" + i, 100, i);
+        }
+        library.replaceAll(new JSONObject()
+                .put("sounds", new JSONArray()
+                        .put(sound("clip_1")).put(sound("clip_2")).put(sound("clip_3")).put(sound("clip_4")))
+                .put("soundAssignments", new JSONObject().put("custom-sound-1", "clip_1")));
+        manager.touch("clip_1", 10);
+        manager.touch("clip_2", 30);
+        manager.touch("clip_3", 20);
+        // clip_4 was never played, so it goes first
+        manager.setQuotaBytes(250);
+
+        StorageManager.Result result = manager.collect(40);
+
+        assertEquals(Arrays.asList("clip_4", "clip_3"), result.evicted);
+        assertEquals(200, store.getStoredBytes());
+        assertNotNull(store.get("clip_1"));
+        assertEquals(2, library.getSoundCount());
+    }
+
+    @Test
+    public void collect_dropsSoundsAStaleResyncBroughtBack() throws Exception {
+        importClip("clip_1", 100, 1);
+        importClip("clip_2", 100, 2);
+        JSONObject pageCopy = new JSONObject()
+                .put("sounds", new JSONArray().put(sound("clip_1")).put(sound("clip_2"))
+                        .put(sound("inline").put("data", "data:audio/mpeg;base64,AAAA")));
+        library.replaceAll(pageCopy);
+        manager.setQuotaBytes(150);
+        assertEquals(Collections.singletonList("clip_1"), manager.collect(0).evicted);
+
+        // The page hadn't seen the eviction yet and resyncs its own copy
+        library.replaceAll(pageCopy);
+        StorageManager.Result result = manager.collect(1);
+
+        assertEquals(Collections.singletonList("clip_1"), result.pruned);
+        assertTrue(result.changedLibrary());
+        assertEquals(2, library.getSoundCount());
+        assertFalse(references.isReferenced("clip_1"));
+    }
+
+    @Test
+    public void collect_neverEvictsAssignedClips() throws Exception {
+        importClip("clip_1", 300, 1);
+        library.replaceAll(new JSONObject()
+                .put("sounds", new JSONArray().put(sound("clip_1")))
+                .put("soundAssignments", new JSONObject().put("yellow-team", "clip_1")));
+        manager.setQuotaBytes(100);
+
+        assertTrue(manager.collect(0).isEmpty());
+        assertEquals(300, store.getStoredBytes());
+    }
+
+    @Test
+    public void usage_tracksChangesWithoutRescanning() throws Exception {
+        importClip("clip_1", 100, 1);
+        importClip("clip_2", 100, 1);
+        importClip("clip_3", 50, 3);
+        library.replaceAll(new JSONObject()
+                .put("sounds", new JSONArray().put(sound("clip_1")).put(sound("clip_3")))
+                .put("soundAssignments", new JSONObject().put("yellow-team", "clip_1")));
+
+        JSONObject usage = manager.getUsageJson();
+        assertEquals(3, usage.getInt("clips"));
+        // clip_1 and clip_2 share their bytes
+        assertEquals(150, usage.getLong("bytes"));
+        assertEquals(1, usage.getInt("assigned"));
+        assertEquals(1, usage.getInt("unassigned"));
+        assertEquals(1, usage.getInt("unreferenced"));
+
+        manager.release("clip_2", 0);
+        usage = manager.getUsageJson();
+        assertEquals(150, usage.getLong("bytes"));
+        assertEquals(1, usage.getInt("collectedCount"));
+        assertEquals(0, usage.getLong("collectedBytes"));
+    }
+
+    @Test
+    public void usage_roundTripsThroughJson() throws Exception {
+        manager.touch("clip_1", 1234);
+        StorageManager reloaded = new StorageManager(store, library, references, GRACE_MS);
+        reloaded.loadUsage(manager.usageToJson().toString());
+        assertEquals(1234, reloaded.usageToJson().getLong("clip_1"));
+    }
+
+    private void importClip(String id, int size, int content) throws IOException {
+        byte[] bytes = new byte[size];
+        Arrays.fill(bytes, (byte) content);
+        store.importClip(id, id + ".mp3", "audio/mpeg", new ByteArrayInputStream(bytes));
+    }
+
+    private static JSONObject sound(String id) throws JSONException {
+        return new JSONObject().put("id", id).put("name", id + ".mp3");
+    }
+}
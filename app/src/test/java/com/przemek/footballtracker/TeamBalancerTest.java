@@ -0,0 +1,129 @@
+package com.przemek.footballtracker;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class TeamBalancerTest {
+    private static final List<int[]> NO_PAIRS = Collections.emptyList();
+
+    @Test
+    public void smallRoster_findsTheBestSplit() {
+        double[] ratings = randomRatings(12, 1);
+
+        TeamBalancer.Result result = new TeamBalancer(ratings, free(12), NO_PAIRS, 6, 6).balance(1000, 1);
+
+        assertTrue(result.optimal);
+        assertEquals(bruteForceDifference(ratings, 6), result.getDifference(), TeamBalancer.TOLERANCE);
+        assertEquals(6, count(result.team, TeamBalancer.YELLOW));
+    }
+
+    @Test
+    public void fixedPlayersAndApartPairs_areHonoured() {
+        double[] ratings = {3.0, 2.9, 1.0, 1.1, 0.9, 1.2, 2.0, 2.1};
+        int[] fixed = free(8);
+        fixed[0] = TeamBalancer.BLUE;
+        // The two best players would balance best together against the rest, but are keepers
+        List<int[]> apart = Arrays.asList(new int[]{0, 1}, new int[]{6, 7});
+
+        TeamBalancer.Result result = new TeamBalancer(ratings, fixed, apart, 4, 4).balance(1000, 7);
+
+        assertTrue(result.constraintsMet);
+        assertTrue(result.optimal);
+        assertEquals(TeamBalancer.BLUE, result.team[0]);
+        assertEquals(TeamBalancer.YELLOW, result.team[1]);
+        assertNotEquals(result.team[6], result.team[7]);
+    }
+
+    @Test
+    public void impossibleConstraints_stillGiveASplit() {
+        // Three goalkeepers can't all be on different teams
+        List<int[]> apart = Arrays.asList(new int[]{0, 1}, new int[]{0, 2}, new int[]{1, 2});
+
+        TeamBalancer.Result result = new TeamBalancer(randomRatings(6, 3), free(6), apart, 3, 3).balance(50, 3);
+
+        assertFalse(result.constraintsMet);
+        assertFalse(result.optimal);
+        assertEquals(3, count(result.team, TeamBalancer.BLUE));
+    }
+
+    @Test
+    public void largeRoster_staysWithinTheBudget() {
+        double[] ratings = randomRatings(40, 5);
+
+        TeamBalancer.Result result = new TeamBalancer(ratings, free(40), NO_PAIRS, 20, 20)
+                .balance(TeamBalancer.DEFAULT_BUDGET_MS, 5);
+
+        assertTrue(result.elapsedNanos < 4 * TeamBalancer.DEFAULT_BUDGET_MS * 1_000_000L);
+        // Far closer than any one player's rating
+        assertTrue(result.getDifference() < 0.05);
+        assertEquals(20, count(result.team, TeamBalancer.YELLOW));
+    }
+
+    @Test
+    public void ratings_favourBetterRecordsAndShrinkSmallSamples() {
+        TeamBalancer.Stats[] stats = {
+                new TeamBalancer.Stats(20, 15, 2, 30, 10),
+                new TeamBalancer.Stats(20, 3, 2, 2, 1),
+                // One great game
+                new TeamBalancer.Stats(1, 1, 0, 5, 0),
+                null
+        };
+
+        double[] ratings = TeamBalancer.ratings(stats);
+
+        assertTrue(ratings[0] > ratings[1]);
+        assertTrue(ratings[2] < ratings[0]);
+        // No history: the average
+        double average = 0;
+        int matches = 0;
+        for (int i = 0; i < 3; i++) {
+            average += stats[i].goals + stats[i].assists * 0.7 + (stats[i].wins + stats[i].draws / 2.0) * 1.5;
+            matches += stats[i].matches;
+        }
+        assertEquals(average / matches, ratings[3], 1e-9);
+    }
+
+    private static double bruteForceDifference(double[] ratings, int yellowSize) {
+        double best = Double.MAX_VALUE;
+        for (int mask = 0; mask < 1 << ratings.length; mask++) {
+            if (Integer.bitCount(mask) != yellowSize) {
+                continue;
+            }
+            double difference = 0;
+            for (int i = 0; i < ratings.length; i++) {
+                difference += (mask & (1 << i)) != 0 ? ratings[i] : -ratings[i];
+            }
+            best = Math.min(best, Math.abs(difference));
+        }
+        return best;
+    }
+
+    static double[] randomRatings(int count, long seed) {
+        Random random = new Random(seed);
+        double[] ratings = new double[count];
+        for (int i = 0; i < count; i++) {
+            ratings[i] = 0.5 + random.nextDouble() * 2.5;
+        }
+        return ratings;
+    }
+
+    private static int[] free(int count) {
+        int[] fixed = new int[count];
+        Arrays.fill(fixed, TeamBalancer.FREE);
+        return fixed;
+    }
+
+    private static int count(int[] team, int side) {
+        int count = 0;
+        for (int t : team) {
+            count += t == side ? 1 : 0;
+        }
+        return count;
+    }
+}
@@ -0,0 +1,51 @@
+// JMH microbenchmarks for the app's storage, encoding and JSON code on a plain JVM.
+//
+//   ./gradlew :benchmark:jmh
+//
+// Results (throughput plus gc.alloc.rate.norm, i.e. bytes allocated per operation)
+// end up in build/results/jmh/results.json. Run on an otherwise idle machine and
+// compare runs from the same machine only.
+plugins {
+    `java-library`
+    alias(libs.plugins.jmh)
+}
+
+java {
+    sourceCompatibility = JavaVersion.VERSION_11
+    targetCompatibility = JavaVersion.VERSION_11
+}
+
+// :app is an Android application module, which a JVM module can't depend on, so
+// the Android-free classes under test are compiled straight from its sources
+sourceSets {
+    main {
+        java {
+            srcDir("../app/src/main/java")
+            include(
+                "com/przemek/footballtracker/AudioRequestHandler.java",
+                "com/przemek/footballtracker/AudioStore.java",
+                "com/przemek/footballtracker/BridgeMessages.java",
+                "com/przemek/footballtracker/ClipReferences.java",
+                "com/przemek/footballtracker/MatchJournal.java",
+                "com/przemek/footballtracker/SoundLibrary.java",
+                "com/przemek/footballtracker/TeamBalancer.java"
+            )
+        }
+    }
+}
+
+dependencies {
+    // On Android org.json comes with the platform
+    implementation(libs.json)
+}
+
+jmh {
+    jmhVersion = libs.versions.jmh.get()
+    benchmarkMode = listOf("thrpt")
+    timeUnit = "ms"
+    profilers = listOf("gc")
+    fork = 1
+    warmupIterations = 3
+    iterations = 5
+    resultFormat = "JSON"
+}
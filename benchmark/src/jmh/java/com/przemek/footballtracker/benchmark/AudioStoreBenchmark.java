@@ -0,0 +1,77 @@
+package com.przemek.footballtracker.benchmark;
+
+import com.przemek.footballtracker.AudioRequestHandler;
+import com.przemek.footballtracker.AudioStore;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Importing a clip (copy plus SHA-256) and serving it to the WebView, in full
+ * and as the first range an {@code <audio>} element asks for. These replaced
+ * the old whole-file readFileBytes plus base64 path.
+ */
+@State(Scope.Benchmark)
+public class AudioStoreBenchmark {
+    @Param({"65536", "1048576"})
+    public int clipBytes;
+
+    private File directory;
+    private AudioStore store;
+    private AudioRequestHandler handler;
+    private byte[] clip;
+    private String clipId;
+    private final byte[] readBuffer = new byte[64 * 1024];
+
+    @Setup
+    public void setUp() throws IOException {
+        directory = Fixtures.tempDir("audio-bench");
+        store = new AudioStore(directory);
+        handler = new AudioRequestHandler(store);
+        clip = Fixtures.randomBytes(clipBytes, 42);
+        clipId = store.importClip("served", "served.mp3", "audio/mpeg", new ByteArrayInputStream(clip)).id;
+    }
+
+    @TearDown
+    public void tearDown() {
+        Fixtures.deleteRecursively(directory);
+    }
+
+    // Same bytes every time, so after the first call this is copy + hash + dedupe
+    @Benchmark
+    public long importClip() throws IOException {
+        AudioStore.ClipInfo info = store.importClip("import", "import.mp3", "audio/mpeg",
+                new ByteArrayInputStream(clip));
+        return info.size;
+    }
+
+    @Benchmark
+    public long serveWholeClip() throws IOException {
+        return drain(handler.handle(clipId, null).body);
+    }
+
+    @Benchmark
+    public long serveFirstRange() throws IOException {
+        return drain(handler.handle(clipId, "bytes=0-65535").body);
+    }
+
+    private long drain(InputStream in) throws IOException {
+        long total = 0;
+        try (InputStream body = in) {
+            int read;
+            while ((read = body.read(readBuffer)) != -1) {
+                total += read;
+            }
+        }
+        return total;
+    }
+}
@@ -0,0 +1,53 @@
+package com.przemek.footballtracker.benchmark;
+
+import com.przemek.footballtracker.BridgeMessages;
+
+import org.json.JSONException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * The native side of a push to the page at 10 KB, 1 MB and 10 MB: the old
+ * escaped-string script, the envelope posted over the message channel, and
+ * the fallback script for WebViews without one. gc.alloc.rate.norm is the
+ * memory half of the comparison. What the WebView then does with it (compile
+ * a script vs. parse a message) is only measurable on a device; that shows up
+ * as bridge.push.eval / bridge.push.port in the diagnostics dialog.
+ */
+@State(Scope.Benchmark)
+public class BridgePushBenchmark {
+    // Roughly what one clip adds to the library JSON
+    private static final int BYTES_PER_CLIP = 200;
+
+    @Param({"10", "1024", "10240"})
+    public int payloadKb;
+
+    private String payload;
+
+    @Setup
+    public void setUp() throws JSONException {
+        payload = Fixtures.library(Math.max(1, payloadKb * 1024 / BYTES_PER_CLIP)).toString();
+    }
+
+    // What loadSavedSoundsToWebView used to build
+    @Benchmark
+    public String legacyScript() {
+        return String.format(
+                "try { if (typeof loadSoundsFromAndroid === 'function') { loadSoundsFromAndroid('%s', ''); } } "
+                        + "catch(e) { console.error('Error loading sounds:', e); }",
+                JsStrings.escapeSingleQuoted(payload));
+    }
+
+    @Benchmark
+    public String channelMessage() {
+        return BridgeMessages.envelope(1, "library", payload);
+    }
+
+    @Benchmark
+    public String fallbackScript() {
+        return BridgeMessages.fallbackScript(BridgeMessages.envelope(1, "library", payload));
+    }
+}
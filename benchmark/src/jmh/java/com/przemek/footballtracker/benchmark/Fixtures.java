@@ -0,0 +1,83 @@
+package com.przemek.footballtracker.benchmark;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Random;
+
+/** Synthetic libraries and match events shaped like what the page sends. */
+final class Fixtures {
+    private Fixtures() {
+    }
+
+    /** A sound library with {@code clips} clips, assigned round-robin to teams, players and buttons. */
+    static JSONObject library(int clips) throws JSONException {
+        JSONArray sounds = new JSONArray();
+        JSONObject soundAssignments = new JSONObject();
+        JSONObject playerAssignments = new JSONObject();
+        JSONObject customSoundNames = new JSONObject();
+
+        for (int i = 0; i < clips; i++) {
+            String id = "clip_1700000000000_" + Integer.toHexString(i * 7919);
+            sounds.put(new JSONObject()
+                    .put("id", id)
+                    // Apostrophes and backslashes so the WebView escaping has work to do
+                    .put("name", "Player " + i + "'s chant \\ remix.mp3")
+                    .put("size", 180_000 + i * 1_000)
+                    .put("type", "audio/mpeg")
+                    .put("uploadedAt", "2025-10-05T12:00:00.000Z"));
+            soundAssignments.put(i % 2 == 0 ? "yellow-player-" + (i % 10 + 1) : "custom-sound-" + (i % 8 + 1), id);
+        }
+        for (int i = 1; i <= 10; i++) {
+            playerAssignments.put("yellow-player-" + i, "Player " + i);
+            playerAssignments.put("blue-player-" + i, "Player " + (i + 10));
+        }
+        for (int i = 1; i <= 8; i++) {
+            customSoundNames.put(String.valueOf(i), "Custom " + i);
+        }
+
+        return new JSONObject()
+                .put("sounds", sounds)
+                .put("soundAssignments", soundAssignments)
+                .put("playerAssignments", playerAssignments)
+                .put("customSoundNames", customSoundNames);
+    }
+
+    /** The log entry of a goal, as journalEntry() in the page sends it. */
+    static JSONObject goal(int index) throws JSONException {
+        return new JSONObject().put("entry", new JSONObject()
+                .put("id", "evt_" + index)
+                .put("type", "goal")
+                .put("team", index % 2 == 0 ? "yellow" : "blue")
+                .put("player", "Player " + (index % 10 + 1))
+                .put("assistant", "Player " + ((index + 3) % 10 + 1))
+                .put("time", "12:" + String.format("%02d", index % 60))
+                .put("timestamp", 1_700_000_000_000L + index * 1000L)
+                .put("yellowScore", index / 2)
+                .put("blueScore", index - index / 2));
+    }
+
+    static byte[] randomBytes(int size, long seed) {
+        byte[] bytes = new byte[size];
+        new Random(seed).nextBytes(bytes);
+        return bytes;
+    }
+
+    static File tempDir(String prefix) throws IOException {
+        return Files.createTempDirectory(prefix).toFile();
+    }
+
+    static void deleteRecursively(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                deleteRecursively(child);
+            }
+        }
+        file.delete();
+    }
+}
@@ -0,0 +1,41 @@
+package com.przemek.footballtracker.benchmark;
+
+/**
+ * The escaping loadSavedSoundsToWebView did to splice the library into a
+ * script for {@code WebView.evaluateJavascript}, before pushes moved to
+ * BridgeChannel. Kept here as the baseline for {@link BridgePushBenchmark}.
+ */
+final class JsStrings {
+    private JsStrings() {
+    }
+
+    /**
+     * Escapes {@code value} for use inside a single-quoted JavaScript string
+     * literal, returning it unchanged when there is nothing to escape.
+     * Characters that aren't present cost one indexOf scan each.
+     */
+    static String escapeSingleQuoted(String value) {
+        String result = value;
+        // Backslashes first, so the ones added below aren't doubled
+        if (result.indexOf('\\') >= 0) {
+            result = result.replace("\\", "\\\\");
+        }
+        if (result.indexOf('\'') >= 0) {
+            result = result.replace("'", "\\'");
+        }
+        if (result.indexOf('\n') >= 0) {
+            result = result.replace("\n", "\\n");
+        }
+        if (result.indexOf('\r') >= 0) {
+            result = result.replace("\r", "\\r");
+        }
+        // Line terminators inside string literals for older JavaScript engines
+        if (result.indexOf('\u2028') >= 0) {
+            result = result.replace("\u2028", "\\u2028");
+        }
+        if (result.indexOf('\u2029') >= 0) {
+            result = result.replace("\u2029", "\\u2029");
+        }
+        return result;
+    }
+}
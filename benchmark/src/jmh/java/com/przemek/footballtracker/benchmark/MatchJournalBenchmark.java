@@ -0,0 +1,72 @@
+package com.przemek.footballtracker.benchmark;
+
+import com.przemek.footballtracker.MatchJournal;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * The match journal with 10 to 5,000 events already recorded: recovery on
+ * page load, building the state the page restores from, and appending one
+ * more event (which includes the fsync).
+ */
+@State(Scope.Benchmark)
+public class MatchJournalBenchmark {
+    @Param({"10", "500", "5000"})
+    public int events;
+
+    private File directory;
+    private MatchJournal journal;
+    private JSONObject nextGoal;
+    private int appended;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, JSONException {
+        directory = Fixtures.tempDir("journal-bench");
+        MatchJournal writer = new MatchJournal(directory);
+        writer.append("start", "evt_start", new JSONObject().put("newMatch", true));
+        for (int i = 0; i < events; i++) {
+            writer.append("goal", "evt_" + i, Fixtures.goal(i));
+        }
+        writer.close();
+
+        journal = new MatchJournal(directory);
+        nextGoal = Fixtures.goal(events);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        journal.close();
+        Fixtures.deleteRecursively(directory);
+    }
+
+    @Benchmark
+    public JSONObject getState() {
+        return journal.getState();
+    }
+
+    @Benchmark
+    public long recover() throws IOException {
+        // A second instance over the same files, as after a process restart
+        MatchJournal recovered = new MatchJournal(directory);
+        long seq = recovered.getLastSeq();
+        recovered.close();
+        return seq;
+    }
+
+    // Each call adds an event, so the journal keeps growing (and compacting) during the run
+    @Benchmark
+    public long append() throws IOException {
+        return journal.append("goal", "bench_" + appended++, nextGoal);
+    }
+}
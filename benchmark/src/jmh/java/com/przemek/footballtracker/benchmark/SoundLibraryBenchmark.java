@@ -0,0 +1,64 @@
+package com.przemek.footballtracker.benchmark;
+
+import com.przemek.footballtracker.SoundLibrary;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * The sound library's round trip: what persistSoundLibrary writes, what
+ * ensureSoundLibraryLoaded parses, a single-edit patch from the page, and the
+ * assignment count of the storage dialog. Pushing the library to the page is
+ * in BridgePushBenchmark.
+ */
+@State(Scope.Benchmark)
+public class SoundLibraryBenchmark {
+    @Param({"1", "20", "200"})
+    public int clips;
+
+    private SoundLibrary library;
+    private String libraryJson;
+    private JSONArray renameOp;
+
+    @Setup
+    public void setUp() throws JSONException {
+        library = new SoundLibrary();
+        library.replaceAll(Fixtures.library(clips));
+        libraryJson = library.toJson().toString();
+        JSONObject sound = Fixtures.library(1).getJSONArray("sounds").getJSONObject(0).put("name", "Renamed.mp3");
+        renameOp = new JSONArray().put(new JSONObject().put("op", "upsertSound").put("sound", sound));
+    }
+
+    @Benchmark
+    public String serialize() {
+        return library.toJson().toString();
+    }
+
+    @Benchmark
+    public long parse() throws JSONException {
+        return new SoundLibrary().replaceAll(new JSONObject(libraryJson));
+    }
+
+    // The per-edit path that replaced full resyncs
+    @Benchmark
+    public long applySingleOpPatch() throws JSONException {
+        return library.applyPatch(library.getVersion(), renameOp);
+    }
+
+    @Benchmark
+    public int countAssignments() {
+        return library.getEntryCount("soundAssignments");
+    }
+
+    // showStorageInfoDialog used to re-parse the stored JSON just to count
+    @Benchmark
+    public int countAssignmentsJsonWalk() throws JSONException {
+        return new JSONObject(libraryJson).getJSONObject("soundAssignments").length();
+    }
+}
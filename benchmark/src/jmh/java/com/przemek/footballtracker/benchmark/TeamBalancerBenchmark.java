@@ -0,0 +1,59 @@
+package com.przemek.footballtracker.benchmark;
+
+import com.przemek.footballtracker.TeamBalancer;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Team balancing against roster size, as balanceTeams runs it: ratings from
+ * career totals, two goalkeepers kept apart, the default 50 ms budget. Larger
+ * rosters have more near-perfect splits, so the search usually stops early;
+ * one that can't get close runs to the budget and should not go past it by much.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class TeamBalancerBenchmark {
+    @Param({"10", "20", "30", "40"})
+    public int rosterSize;
+
+    private double[] ratings;
+    private int[] fixed;
+    private List<int[]> goalkeepers;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        TeamBalancer.Stats[] stats = new TeamBalancer.Stats[rosterSize];
+        for (int i = 0; i < rosterSize; i++) {
+            int matches = random.nextInt(40);
+            int wins = random.nextInt(matches + 1);
+            // Some newcomers without history
+            stats[i] = i % 7 == 6 ? null : new TeamBalancer.Stats(matches, wins, random.nextInt(matches - wins + 1),
+                    random.nextInt(2 * matches + 1), random.nextInt(matches + 1));
+        }
+        ratings = TeamBalancer.ratings(stats);
+        fixed = new int[rosterSize];
+        Arrays.fill(fixed, TeamBalancer.FREE);
+        goalkeepers = Collections.singletonList(new int[]{0, 1});
+    }
+
+    @Benchmark
+    public TeamBalancer.Result balance() {
+        return new TeamBalancer(ratings, fixed, goalkeepers, rosterSize / 2, rosterSize - rosterSize / 2)
+                .balance(TeamBalancer.DEFAULT_BUDGET_MS, 1);
+    }
+}
@@ -21,3 +21,4 @@ dependencyResolutionManagement {
 
 rootProject.name = "Football Tracker"
 include(":app")
+include(":benchmark")